@@ -19,6 +19,9 @@
 
 package org.azyva.dragom.execcontext.plugin.impl;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.azyva.dragom.execcontext.ExecContext;
 import org.azyva.dragom.execcontext.ToolLifeCycleExecContext;
 import org.azyva.dragom.execcontext.plugin.RuntimePropertiesPlugin;
@@ -62,52 +65,132 @@ import org.azyva.dragom.model.NodePath;
  * <p>
  * Properties are always set as transient data
  * ({@link ExecContext#setTransientData}).
+ * <p>
+ * The complete property names to look up for a given {@link NodePath} and
+ * property name are computed once and cached.
+ * <p>
+ * Since the sources other than the Model can be modified without going through
+ * this class, resolved values are not cached by default. A snapshot mode can be
+ * enabled using {@link #startSnapshot} for read-mostly processing, such as the
+ * traversal of reference graphs, during which resolved values are cached. The
+ * cache is cleared when {@link #setProperty} is called, but not when the sources
+ * are modified directly.
  *
  * @author David Raymond
  */
 public class DefaultRuntimePropertiesPluginImpl implements RuntimePropertiesPlugin {
+  /**
+   * Transient data holding the cache of resolved values while the snapshot mode
+   * is enabled.
+   *
+   * <p>The key of the outer Map is the NodePath (null for the root) and that of the
+   * inner Map is the property name. Values can be null.
+   */
+  private static final String TRANSIENT_DATA_SNAPSHOT = DefaultRuntimePropertiesPluginImpl.class.getName() + ".Snapshot";
+
+  /**
+   * Map of NodePath's (null for the root) to Map of property names to the array
+   * of complete property names to look up, most specific first.
+   */
+  private Map<NodePath, Map<String, String[]>> mapNodePathMapArrayPropertyName;
+
   public DefaultRuntimePropertiesPluginImpl(ExecContext execContext) {
+    this.mapNodePathMapArrayPropertyName = new HashMap<NodePath, Map<String, String[]>>();
+  }
+
+  /**
+   * Enables the snapshot mode for the current {@link ExecContext}.
+   *
+   * <p>Does nothing if the snapshot mode is already enabled, in which case false
+   * is returned so that the caller knows it must not call {@link #endSnapshot}.
+   *
+   * @return Indicates if the snapshot mode was enabled by this call.
+   */
+  public static boolean startSnapshot() {
+    ExecContext execContext;
+
+    execContext = ExecContextHolder.get();
+
+    if (execContext.getTransientData(DefaultRuntimePropertiesPluginImpl.TRANSIENT_DATA_SNAPSHOT) != null) {
+      return false;
+    }
+
+    execContext.setTransientData(DefaultRuntimePropertiesPluginImpl.TRANSIENT_DATA_SNAPSHOT, new HashMap<NodePath, Map<String, String>>());
+
+    return true;
+  }
+
+  /**
+   * Disables the snapshot mode for the current {@link ExecContext}.
+   */
+  public static void endSnapshot() {
+    ExecContextHolder.get().setTransientData(DefaultRuntimePropertiesPluginImpl.TRANSIENT_DATA_SNAPSHOT, null);
   }
 
   @Override
+  @SuppressWarnings("unchecked")
   public String getProperty(Node node, String name) {
     NodePath nodePath;
-    String[] arrayNodeName;
-    StringBuilder stringBuilder;
-    String foundPropertyValue;
-    String propertyValue;
     ExecContext execContext;
+    Map<NodePath, Map<String, String>> mapNodePathMapPropertyValue;
+    Map<String, String> mapPropertyValue;
+    String propertyValue;
 
     execContext = ExecContextHolder.get();
 
     nodePath = (node == null) ? null : node.getNodePath();
 
-    if (nodePath == null) {
-      arrayNodeName = new String[0];
-    } else {
-      arrayNodeName = nodePath.getArrayNodeName();
+    if ((nodePath != null) && (nodePath.getArrayNodeName().length == 0)) {
+      nodePath = null;
     }
 
-    // Look in transient data.
+    mapNodePathMapPropertyValue = (Map<NodePath, Map<String, String>>)execContext.getTransientData(DefaultRuntimePropertiesPluginImpl.TRANSIENT_DATA_SNAPSHOT);
+
+    if (mapNodePathMapPropertyValue == null) {
+      return this.resolveProperty(execContext, node, nodePath, name);
+    }
+
+    mapPropertyValue = mapNodePathMapPropertyValue.get(nodePath);
+
+    if (mapPropertyValue == null) {
+      mapPropertyValue = new HashMap<String, String>();
+      mapNodePathMapPropertyValue.put(nodePath, mapPropertyValue);
+    } else if (mapPropertyValue.containsKey(name)) {
+      return mapPropertyValue.get(name);
+    }
 
-    stringBuilder = new StringBuilder();
+    propertyValue = this.resolveProperty(execContext, node, nodePath, name);
 
-    foundPropertyValue = (String)execContext.getTransientData(name);
+    mapPropertyValue.put(name, propertyValue);
 
-    for (String nodeName: arrayNodeName) {
-      stringBuilder.append(nodeName).append('.');
+    return propertyValue;
+  }
+
+  /**
+   * Resolves a property from the sources, without using the snapshot.
+   *
+   * @param execContext ExecContext.
+   * @param node Node. Can be null.
+   * @param nodePath NodePath of the Node. null for the root.
+   * @param name Name of the property.
+   * @return Value of the property.
+   */
+  private String resolveProperty(ExecContext execContext, Node node, NodePath nodePath, String name) {
+    String[] arrayPropertyName;
+    String propertyValue;
+
+    arrayPropertyName = this.getArrayPropertyName(nodePath, name);
 
-      propertyValue = (String)execContext.getTransientData(stringBuilder.toString() + name);
+    // Look in transient data.
+
+    for (String propertyName: arrayPropertyName) {
+      propertyValue = (String)execContext.getTransientData(propertyName);
 
       if (propertyValue != null) {
-        foundPropertyValue = propertyValue;
+        return propertyValue;
       }
     }
 
-    if (foundPropertyValue != null) {
-      return foundPropertyValue;
-    }
-
     // Look in tool properties.
 
     if (execContext instanceof ToolLifeCycleExecContext) {
@@ -115,65 +198,35 @@ public class DefaultRuntimePropertiesPluginImpl implements RuntimePropertiesPlug
 
       toolLifeCycleExecContext = (ToolLifeCycleExecContext)execContext;
 
-      foundPropertyValue = toolLifeCycleExecContext.getToolProperty(name);
-
-      stringBuilder.setLength(0);
-
-      for (String nodeName: arrayNodeName) {
-        stringBuilder.append(nodeName).append('.');
-
-        propertyValue = toolLifeCycleExecContext.getToolProperty(stringBuilder.toString() + name);
+      for (String propertyName: arrayPropertyName) {
+        propertyValue = toolLifeCycleExecContext.getToolProperty(propertyName);
 
         if (propertyValue != null) {
-          foundPropertyValue = propertyValue;
+          return propertyValue;
         }
       }
-
-      if (foundPropertyValue != null) {
-        return foundPropertyValue;
-      }
     }
 
     // Look in ExecContext properties.
 
-    foundPropertyValue = execContext.getProperty(name);
-
-    stringBuilder.setLength(0);
-
-    for (String nodeName: arrayNodeName) {
-      stringBuilder.append(nodeName).append('.');
-
-      propertyValue = execContext.getProperty(stringBuilder.toString() + name);
+    for (String propertyName: arrayPropertyName) {
+      propertyValue = execContext.getProperty(propertyName);
 
       if (propertyValue != null) {
-        foundPropertyValue = propertyValue;
+        return propertyValue;
       }
     }
 
-    if (foundPropertyValue != null) {
-      return foundPropertyValue;
-    }
-
     // Look in initialization properties.
 
-    foundPropertyValue = execContext.getInitProperty(name);
-
-    stringBuilder.setLength(0);
-
-    for (String nodeName: arrayNodeName) {
-      stringBuilder.append(nodeName).append('.');
-
-      propertyValue = execContext.getInitProperty(stringBuilder.toString() + name);
+    for (String propertyName: arrayPropertyName) {
+      propertyValue = execContext.getInitProperty(propertyName);
 
       if (propertyValue != null) {
-        foundPropertyValue = propertyValue;
+        return propertyValue;
       }
     }
 
-    if (foundPropertyValue != null) {
-      return foundPropertyValue;
-    }
-
     // Look in Model properties.
 
     if (node != null) {
@@ -183,26 +236,70 @@ public class DefaultRuntimePropertiesPluginImpl implements RuntimePropertiesPlug
     }
   }
 
+  /**
+   * Returns the array of complete property names to look up for a property on a
+   * {@link NodePath}, most specific first.
+   *
+   * <p>For example, for NodePath Domain1/app-a and property MY_PROPERTY, the array
+   * is Domain1.app-a.MY_PROPERTY, Domain1.MY_PROPERTY and MY_PROPERTY.
+   *
+   * @param nodePath NodePath. null for the root.
+   * @param name Name of the property.
+   * @return See description.
+   */
+  private String[] getArrayPropertyName(NodePath nodePath, String name) {
+    Map<String, String[]> mapArrayPropertyName;
+    String[] arrayPropertyName;
+
+    mapArrayPropertyName = this.mapNodePathMapArrayPropertyName.get(nodePath);
+
+    if (mapArrayPropertyName == null) {
+      mapArrayPropertyName = new HashMap<String, String[]>();
+      this.mapNodePathMapArrayPropertyName.put(nodePath, mapArrayPropertyName);
+    }
+
+    arrayPropertyName = mapArrayPropertyName.get(name);
+
+    if (arrayPropertyName == null) {
+      String[] arrayNodeName;
+      StringBuilder stringBuilder;
+
+      arrayNodeName = (nodePath == null) ? new String[0] : nodePath.getArrayNodeName();
+      arrayPropertyName = new String[arrayNodeName.length + 1];
+      stringBuilder = new StringBuilder();
+
+      arrayPropertyName[arrayNodeName.length] = name;
+
+      for (int i = 0; i < arrayNodeName.length; i++) {
+        stringBuilder.append(arrayNodeName[i]).append('.');
+        arrayPropertyName[arrayNodeName.length - 1 - i] = stringBuilder.toString() + name;
+      }
+
+      mapArrayPropertyName.put(name, arrayPropertyName);
+    }
+
+    return arrayPropertyName;
+  }
+
   @Override
   public void setProperty(Node node, String name, String value) {
     NodePath nodePath;
-    StringBuilder stringBuilder;
     ExecContext execContext;
 
     execContext = ExecContextHolder.get();
 
     nodePath = (node == null) ? null : node.getNodePath();
 
-    if (nodePath == null) {
-      execContext.setTransientData(name, value);
-    } else {
-      stringBuilder = new StringBuilder();
+    if ((nodePath != null) && (nodePath.getArrayNodeName().length == 0)) {
+      nodePath = null;
+    }
 
-      for (String nodeName: nodePath.getArrayNodeName()) {
-        stringBuilder.append(nodeName).append('.');
-      }
+    execContext.setTransientData(this.getArrayPropertyName(nodePath, name)[0], value);
 
-      execContext.setTransientData(stringBuilder.toString() + name, value);
+    // Setting a property can affect its value on any descendant Node, so the
+    // whole snapshot is invalidated.
+    if (execContext.getTransientData(DefaultRuntimePropertiesPluginImpl.TRANSIENT_DATA_SNAPSHOT) != null) {
+      execContext.setTransientData(DefaultRuntimePropertiesPluginImpl.TRANSIENT_DATA_SNAPSHOT, new HashMap<NodePath, Map<String, String>>());
     }
   }
-}
\ No newline at end of file
+}
@@ -19,17 +19,27 @@
 
 package org.azyva.dragom.execcontext.plugin.impl;
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.text.MessageFormat;
 import java.util.EnumSet;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
@@ -51,6 +61,7 @@ import org.azyva.dragom.execcontext.plugin.WorkspaceDirSystemModule;
 import org.azyva.dragom.execcontext.plugin.WorkspaceDirUserModuleVersion;
 import org.azyva.dragom.execcontext.plugin.WorkspacePlugin;
 import org.azyva.dragom.execcontext.plugin.support.GenericExecContextPluginFactory;
+import org.azyva.dragom.execcontext.plugin.support.WorkspaceDirAccessTracker;
 import org.azyva.dragom.util.RuntimeExceptionUserError;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -71,6 +82,13 @@ public class DefaultWorkspacePluginFactory implements ExecContextPluginFactory<W
    */
   private static final Logger logger = LoggerFactory.getLogger(DefaultWorkspacePluginFactory.class);
 
+  /**
+   * Initialization property specifying the maximum time in seconds to wait for a
+   * workspace directory accessed by another thread to be released. If not
+   * specified, the wait is indefinite.
+   */
+  private static final String INIT_PROPERTY_WORKSPACE_DIR_ACCESS_TIMEOUT = "WORKSPACE_DIR_ACCESS_TIMEOUT";
+
   /**
    * File indicating that the workspace is being used.
    */
@@ -91,6 +109,42 @@ public class DefaultWorkspacePluginFactory implements ExecContextPluginFactory<W
    */
   private static final String WORKSPACE_METADATA_FILE = "workspace-metadata.xml";
 
+  /**
+   * Temporary file used when saving the WorkspacePlugin metadata file so that it
+   * is replaced atomically.
+   */
+  private static final String WORKSPACE_METADATA_TEMP_FILE = "workspace-metadata.xml.tmp";
+
+  /**
+   * Journal of the changes to the workspace directories since the WorkspacePlugin
+   * metadata file was last saved.
+   *
+   * <p>Each line is an entry of the form "put &lt;class&gt; &lt;node path&gt;
+   * &lt;version&gt; &lt;path&gt;" or "remove &lt;class&gt; &lt;node path&gt;
+   * &lt;version&gt;", with each field URL-encoded.
+   */
+  private static final String WORKSPACE_METADATA_JOURNAL_FILE = "workspace-metadata.journal";
+
+  /**
+   * Minimum number of entries in the journal before it is compacted, meaning that
+   * the WorkspacePlugin metadata file is saved and the journal is deleted.
+   *
+   * <p>The journal is compacted when its number of entries exceeds both this
+   * minimum and the number of workspace directories, so that the total work for
+   * saving the workspace data is proportional to the number of changes.
+   */
+  private static final int JOURNAL_COMPACTION_MIN_ENTRY_COUNT = 100;
+
+  /**
+   * Journal entry type for adding a workspace directory.
+   */
+  private static final String JOURNAL_ENTRY_PUT = "put";
+
+  /**
+   * Journal entry type for removing a workspace directory.
+   */
+  private static final String JOURNAL_ENTRY_REMOVE = "remove";
+
   /**
    * See description in ResourceBundle.
    */
@@ -111,6 +165,14 @@ public class DefaultWorkspacePluginFactory implements ExecContextPluginFactory<W
    */
   private static final ResourceBundle resourceBundle = ResourceBundle.getBundle(DefaultWorkspacePluginFactory.class.getName() + "ResourceBundle");
 
+  /**
+   * JAXBContext for {@link DefaultWorkspaceImpl}.
+   *
+   * <p>Creating a JAXBContext is costly and it is thread-safe, so it is created once
+   * and cached.
+   */
+  private static JAXBContext jaxbContext;
+
   /**
    * WorkspacePlugin implementation.
    */
@@ -130,6 +192,10 @@ public class DefaultWorkspacePluginFactory implements ExecContextPluginFactory<W
     /**
      * Map of {@link WorkspaceDir}'s to workspace directory Path's.
      * <p>
+     * This class can be used by multiple threads concurrently. The Map's of
+     * workspace directories are concurrent Map's so that they can be read without
+     * locking. They are modified only while synchronized on this object.
+     * <p>
      * What we really need is a bidirectional map. For now, we simply use two regular
      * Map to avoid having to use a third-party library.
      * For the actual marshalling/unmarshalling, a XmlAdapter is used so that within
@@ -149,14 +215,20 @@ public class DefaultWorkspacePluginFactory implements ExecContextPluginFactory<W
     private Map<Path, WorkspaceDir> mapPathWorkspaceDir;
 
     /**
-     * Map {@link WorkspaceDir} access modes. The entries have the following meanings:
-     * <ul>
-     * <li>Key not present: No access
-     * <li>0: Write access
-     * <li>1+: Read access with read count
-     * </ul>
+     * Tracks the accesses to the {@link WorkspaceDir}'s.
+     */
+    private WorkspaceDirAccessTracker workspaceDirAccessTracker;
+
+    /**
+     * Writer for appending entries to the journal. null if the journal is not
+     * opened.
+     */
+    private Writer writerJournal;
+
+    /**
+     * Number of entries in the journal.
      */
-    private Map<WorkspaceDir, Integer> mapWorkspaceDirAccessMode;
+    private int journalEntryCount;
 
     /**
      * Default constructor.
@@ -164,9 +236,9 @@ public class DefaultWorkspacePluginFactory implements ExecContextPluginFactory<W
      * Use by JAXB when unmarshalling.
      */
     public DefaultWorkspaceImpl() {
-      this.mapWorkspaceDirPath = new HashMap<WorkspaceDir, Path>();
-      this.mapPathWorkspaceDir = new HashMap<Path, WorkspaceDir>();
-      this.mapWorkspaceDirAccessMode = new HashMap<WorkspaceDir, Integer>();
+      this.mapWorkspaceDirPath = new ConcurrentHashMap<WorkspaceDir, Path>();
+      this.mapPathWorkspaceDir = new ConcurrentHashMap<Path, WorkspaceDir>();
+      this.workspaceDirAccessTracker = new WorkspaceDirAccessTracker(0);
     }
 
     /**
@@ -190,6 +262,21 @@ public class DefaultWorkspacePluginFactory implements ExecContextPluginFactory<W
      */
     @SuppressWarnings("unused")
     private void afterUnmarshal(Unmarshaller unmarshaller, Object parent) {
+      // MapWorkspaceDirPathXmlAdapter returns a regular Map.
+      this.mapWorkspaceDirPath = new ConcurrentHashMap<WorkspaceDir, Path>(this.mapWorkspaceDirPath);
+
+      for (Map.Entry<WorkspaceDir, Path> mapEntry: this.mapWorkspaceDirPath.entrySet()) {
+        this.mapPathWorkspaceDir.put(mapEntry.getValue(), mapEntry.getKey());
+      }
+    }
+
+    /**
+     * Removes the {@link WorkspaceDir}'s whose corresponding directory does not
+     * exist.
+     *
+     * <p>Called after loading the workspace data and replaying the journal.
+     */
+    private void removeWorkspaceDirNotExist() {
       Iterator<Map.Entry<WorkspaceDir, Path>> iteratorMapEntry;
 
       iteratorMapEntry = this.mapWorkspaceDirPath.entrySet().iterator();
@@ -205,35 +292,225 @@ public class DefaultWorkspacePluginFactory implements ExecContextPluginFactory<W
 
         if (!mapEntry.getValue().toFile().isDirectory()) {
           iteratorMapEntry.remove();
-          continue;
+          this.mapPathWorkspaceDir.remove(mapEntry.getValue());
         }
-
-        this.mapPathWorkspaceDir.put(mapEntry.getValue(), mapEntry.getKey());
       }
     }
 
     /**
      * Saves the workspace data within the {@link ExecContext}.
+     *
+     * <p>The WorkspacePlugin metadata file is replaced atomically and the journal,
+     * whose entries are then reflected in the file, is deleted.
      */
-    private void save() {
-      File fileWorkspaceMetadata;
-      JAXBContext jaxbContext;
+    private synchronized void save() {
+      Path pathWorkspaceMetadataTemp;
       Marshaller marshaller;
 
+      pathWorkspaceMetadataTemp = this.pathDragomMetadataDir.resolve(DefaultWorkspacePluginFactory.WORKSPACE_METADATA_TEMP_FILE);
+
       try {
-        fileWorkspaceMetadata = this.pathDragomMetadataDir.resolve(DefaultWorkspacePluginFactory.WORKSPACE_METADATA_FILE).toFile();
-        jaxbContext = JAXBContext.newInstance(DefaultWorkspaceImpl.class);
-        marshaller = jaxbContext.createMarshaller();
+        marshaller = DefaultWorkspacePluginFactory.getJaxbContext().createMarshaller();
         marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
 
         // We need to set the MapWorkspaceDirPathXmlAdapter in advance since it requires a
         // non-default constructor.
         marshaller.setAdapter(MapWorkspaceDirPathXmlAdapter.class, new MapWorkspaceDirPathXmlAdapter(this.pathWorkspace));
 
-        marshaller.marshal(this, fileWorkspaceMetadata);
+        marshaller.marshal(this, pathWorkspaceMetadataTemp.toFile());
       } catch (JAXBException je) {
         throw new RuntimeException(je);
       }
+
+      try {
+        Files.move(pathWorkspaceMetadataTemp, this.pathDragomMetadataDir.resolve(DefaultWorkspacePluginFactory.WORKSPACE_METADATA_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        if (this.writerJournal != null) {
+          this.writerJournal.close();
+          this.writerJournal = null;
+        }
+
+        Files.deleteIfExists(this.pathDragomMetadataDir.resolve(DefaultWorkspacePluginFactory.WORKSPACE_METADATA_JOURNAL_FILE));
+      } catch (IOException ioe) {
+        throw new RuntimeException(ioe);
+      }
+
+      this.journalEntryCount = 0;
+    }
+
+    /**
+     * Adds a workspace directory and records the change in the journal.
+     *
+     * <p>Saving the whole workspace data each time a workspace directory is added or
+     * removed would be costly when many workspace directories are created by a tool.
+     * Only an entry is appended to the journal, which is flushed so that the change
+     * survives the tool failing (while a workspace directory is being populated, for
+     * instance). The journal is compacted periodically and when the tool ends.
+     *
+     * @param workspaceDir WorkspaceDir.
+     * @param path Path.
+     */
+    private synchronized void putWorkspaceDir(WorkspaceDir workspaceDir, Path path) {
+      this.mapWorkspaceDirPath.put(workspaceDir, path);
+      this.mapPathWorkspaceDir.put(path, workspaceDir);
+      this.appendJournalEntry(DefaultWorkspacePluginFactory.JOURNAL_ENTRY_PUT, workspaceDir, path);
+    }
+
+    /**
+     * Removes a workspace directory and records the change in the journal.
+     *
+     * @param workspaceDir WorkspaceDir.
+     */
+    private synchronized void removeWorkspaceDir(WorkspaceDir workspaceDir) {
+      this.removeWorkspaceDirNoJournal(workspaceDir);
+      this.appendJournalEntry(DefaultWorkspacePluginFactory.JOURNAL_ENTRY_REMOVE, workspaceDir, null);
+    }
+
+    /**
+     * Removes a workspace directory without recording the change in the journal.
+     *
+     * @param workspaceDir WorkspaceDir.
+     */
+    private void removeWorkspaceDirNoJournal(WorkspaceDir workspaceDir) {
+      Path path;
+
+      path = this.mapWorkspaceDirPath.remove(workspaceDir);
+
+      if ((path != null) && workspaceDir.equals(this.mapPathWorkspaceDir.get(path))) {
+        this.mapPathWorkspaceDir.remove(path);
+      }
+    }
+
+    /**
+     * Appends an entry to the journal, compacting it if required.
+     *
+     * @param journalEntryType Type of journal entry.
+     * @param workspaceDir WorkspaceDir.
+     * @param path Path. null for a remove entry.
+     */
+    private synchronized void appendJournalEntry(String journalEntryType, WorkspaceDir workspaceDir, Path path) {
+      MapWorkspaceDirPathXmlAdapter.WorkspaceDirPath workspaceDirPath;
+      StringBuilder stringBuilder;
+
+      if (this.journalEntryCount >= Math.max(DefaultWorkspacePluginFactory.JOURNAL_COMPACTION_MIN_ENTRY_COUNT, this.mapWorkspaceDirPath.size())) {
+        // The change is already reflected in the Map's so that it is included in the
+        // saved file.
+        this.save();
+        return;
+      }
+
+      workspaceDirPath = new MapWorkspaceDirPathXmlAdapter(this.pathWorkspace).marshalWorkspaceDirPath(workspaceDir, path);
+
+      stringBuilder = new StringBuilder();
+      stringBuilder.append(journalEntryType);
+      stringBuilder.append(' ').append(DefaultWorkspacePluginFactory.encodeJournalField(workspaceDirPath.workspaceDirClass));
+      stringBuilder.append(' ').append(DefaultWorkspacePluginFactory.encodeJournalField(workspaceDirPath.stringNodePath));
+      stringBuilder.append(' ').append(DefaultWorkspacePluginFactory.encodeJournalField(workspaceDirPath.stringVersion));
+
+      if (path != null) {
+        stringBuilder.append(' ').append(DefaultWorkspacePluginFactory.encodeJournalField(workspaceDirPath.stringPath));
+      }
+
+      stringBuilder.append('\n');
+
+      try {
+        if (this.writerJournal == null) {
+          this.writerJournal = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(this.pathDragomMetadataDir.resolve(DefaultWorkspacePluginFactory.WORKSPACE_METADATA_JOURNAL_FILE).toFile(), true), StandardCharsets.UTF_8));
+        }
+
+        this.writerJournal.write(stringBuilder.toString());
+        this.writerJournal.flush();
+      } catch (IOException ioe) {
+        throw new RuntimeException(ioe);
+      }
+
+      this.journalEntryCount++;
+    }
+
+    /**
+     * Replays the journal, if any, on the workspace data loaded from the
+     * WorkspacePlugin metadata file.
+     *
+     * <p>The journal is kept as is and new entries are appended to it, unless it
+     * contains an invalid entry. This can be an incomplete last entry if the tool
+     * failed while writing it. In that case the entries following the invalid one
+     * are ignored and the journal is compacted so that new entries are not appended
+     * after the invalid one.
+     */
+    private void replayJournal() {
+      Path pathJournal;
+      MapWorkspaceDirPathXmlAdapter mapWorkspaceDirPathXmlAdapter;
+      String[] arrayLine;
+      boolean indInvalid;
+
+      pathJournal = this.pathDragomMetadataDir.resolve(DefaultWorkspacePluginFactory.WORKSPACE_METADATA_JOURNAL_FILE);
+
+      if (!pathJournal.toFile().isFile()) {
+        return;
+      }
+
+      mapWorkspaceDirPathXmlAdapter = new MapWorkspaceDirPathXmlAdapter(this.pathWorkspace);
+
+      try {
+        // The journal is bounded by compaction so that it can be read at once.
+        arrayLine = new String(Files.readAllBytes(pathJournal), StandardCharsets.UTF_8).split("\n", -1);
+      } catch (IOException ioe) {
+        throw new RuntimeException(ioe);
+      }
+
+      // The last element follows the last newline and is therefore empty unless the
+      // last entry is incomplete.
+      indInvalid = !arrayLine[arrayLine.length - 1].isEmpty();
+
+      for (int i = 0; i < (arrayLine.length - 1); i++) {
+        String[] arrayField;
+        MapWorkspaceDirPathXmlAdapter.WorkspaceDirPath workspaceDirPath;
+        WorkspaceDir workspaceDir;
+        Path path;
+
+        arrayField = arrayLine[i].split(" ", -1);
+
+        if (   !((arrayField.length == 5) && arrayField[0].equals(DefaultWorkspacePluginFactory.JOURNAL_ENTRY_PUT))
+            && !((arrayField.length == 4) && arrayField[0].equals(DefaultWorkspacePluginFactory.JOURNAL_ENTRY_REMOVE))) {
+
+          indInvalid = true;
+          break;
+        }
+
+        workspaceDirPath = new MapWorkspaceDirPathXmlAdapter.WorkspaceDirPath();
+
+        try {
+          workspaceDirPath.workspaceDirClass = DefaultWorkspacePluginFactory.decodeJournalField(arrayField[1]);
+          workspaceDirPath.stringNodePath = DefaultWorkspacePluginFactory.decodeJournalField(arrayField[2]);
+          workspaceDirPath.stringVersion = DefaultWorkspacePluginFactory.decodeJournalField(arrayField[3]);
+          workspaceDir = mapWorkspaceDirPathXmlAdapter.unmarshalWorkspaceDir(workspaceDirPath);
+
+          if (arrayField[0].equals(DefaultWorkspacePluginFactory.JOURNAL_ENTRY_PUT)) {
+            workspaceDirPath.stringPath = DefaultWorkspacePluginFactory.decodeJournalField(arrayField[4]);
+            path = mapWorkspaceDirPathXmlAdapter.unmarshalPath(workspaceDirPath);
+          } else {
+            path = null;
+          }
+        } catch (RuntimeException re) {
+          DefaultWorkspacePluginFactory.logger.warn("Entry " + arrayLine[i] + " in workspace journal " + pathJournal + " could not be parsed.", re);
+          indInvalid = true;
+          break;
+        }
+
+        if (path != null) {
+          this.mapWorkspaceDirPath.put(workspaceDir, path);
+          this.mapPathWorkspaceDir.put(path, workspaceDir);
+        } else {
+          this.removeWorkspaceDirNoJournal(workspaceDir);
+        }
+
+        this.journalEntryCount++;
+      }
+
+      if (indInvalid) {
+        DefaultWorkspacePluginFactory.logger.warn("Workspace journal " + pathJournal + " contains an invalid entry. Subsequent entries are ignored and the journal is compacted.");
+        this.save();
+      }
     }
 
     @Override
@@ -273,21 +550,41 @@ public class DefaultWorkspacePluginFactory implements ExecContextPluginFactory<W
 
     @Override
     public Path getWorkspaceDir(WorkspaceDir workspaceDir, EnumSet<GetWorkspaceDirMode> enumSetGetWorkspaceDirMode, WorkspaceDirAccessMode workspaceDirAccessMode) {
-      Integer readCount = null;
       Path path;
 
+      // If the workspace directory is accessed by another thread, we wait for it to be
+      // released instead of failing.
       if (workspaceDirAccessMode != WorkspaceDirAccessMode.PEEK) {
-        readCount = this.mapWorkspaceDirAccessMode.get(workspaceDir);
+        this.workspaceDirAccessTracker.acquire(workspaceDir, workspaceDirAccessMode);
+      }
 
-        if (readCount != null) {
-          if (readCount == 0) {
-            throw new RuntimeException("Workspace directory " + workspaceDir + " already accessed for writing (and new acces is " + workspaceDirAccessMode + ").");
-          } else if (workspaceDirAccessMode == WorkspaceDirAccessMode.READ_WRITE) {
-            throw new RuntimeException("New access is for writing and workspace directory " + workspaceDir + " already accessed for reading (with level " + readCount + ").");
-          }
+      try {
+        path = this.getWorkspaceDirPath(workspaceDir, enumSetGetWorkspaceDirMode);
+      } catch (RuntimeException re) {
+        if (workspaceDirAccessMode != WorkspaceDirAccessMode.PEEK) {
+          this.workspaceDirAccessTracker.release(workspaceDir);
         }
+
+        throw re;
       }
 
+      return path;
+    }
+
+    /**
+     * Returns the Path corresponding to a WorkspaceDir.
+     *
+     * <p>Factors the part of {@link #getWorkspaceDir} which is performed once the
+     * access to the WorkspaceDir is acquired.
+     *
+     * @param workspaceDir WorkspaceDir.
+     * @param enumSetGetWorkspaceDirMode EnumSet of
+     *   {@link org.azyva.dragom.execcontext.plugin.WorkspacePlugin.GetWorkspaceDirMode}.
+     * @return Path
+     */
+    private Path getWorkspaceDirPath(WorkspaceDir workspaceDir, EnumSet<GetWorkspaceDirMode> enumSetGetWorkspaceDirMode) {
+      Path path;
+
       path = this.mapWorkspaceDirPath.get(workspaceDir);
 
       if ((path == null) && enumSetGetWorkspaceDirMode.contains(GetWorkspaceDirMode.MUST_EXIST)) {
@@ -307,23 +604,13 @@ public class DefaultWorkspacePluginFactory implements ExecContextPluginFactory<W
       }
 
       if ((path != null) && !path.toFile().isDirectory() && !enumSetGetWorkspaceDirMode.contains(GetWorkspaceDirMode.DO_NOT_CREATE_PATH)) {
-        if (!path.toFile().mkdir()) {
+        // The directory may have been created concurrently by another thread accessing
+        // the workspace directory for reading.
+        if (!path.toFile().mkdir() && !path.toFile().isDirectory()) {
           throw new RuntimeException("The path " + path + " could not be created for an unknown reason.");
         }
       }
 
-      if (workspaceDirAccessMode != WorkspaceDirAccessMode.PEEK) {
-        if (readCount != null) {
-          this.mapWorkspaceDirAccessMode.put(workspaceDir, readCount + 1);
-        } else {
-          if (workspaceDirAccessMode == WorkspaceDirAccessMode.READ){
-            this.mapWorkspaceDirAccessMode.put(workspaceDir, 1);
-          } else {
-            this.mapWorkspaceDirAccessMode.put(workspaceDir, 0);
-          }
-        }
-      }
-
       return path;
     }
 
@@ -345,22 +632,23 @@ public class DefaultWorkspacePluginFactory implements ExecContextPluginFactory<W
 
         path = this.pathWorkspace.resolve(workspaceDirUserModuleVersion.getModuleVersion().getNodePath().getModuleName());
 
-        workspaceDirOther = this.mapPathWorkspaceDir.get(path);
-
-        if (workspaceDirOther != null) {
-          throw new RuntimeExceptionUserError(MessageFormat.format(DefaultWorkspacePluginFactory.resourceBundle.getString(DefaultWorkspacePluginFactory.MSG_PATTERN_KEY_USER_WORKSPACE_DIRECTORY_CONFLICT), workspaceDirUserModuleVersion, path, workspaceDirOther));
-        }
+        // Verifying for a conflict and adding the workspace directory must be atomic
+        // with respect to other threads.
+        synchronized (this) {
+          workspaceDirOther = this.mapPathWorkspaceDir.get(path);
 
-        DefaultWorkspacePluginFactory.logger.info("Path " + path + " is created for " + workspaceDirUserModuleVersion + '.');
+          if (workspaceDirOther != null) {
+            throw new RuntimeExceptionUserError(MessageFormat.format(DefaultWorkspacePluginFactory.resourceBundle.getString(DefaultWorkspacePluginFactory.MSG_PATTERN_KEY_USER_WORKSPACE_DIRECTORY_CONFLICT), workspaceDirUserModuleVersion, path, workspaceDirOther));
+          }
 
-        if (path.toFile().isDirectory())  {
-          throw new RuntimeException("The path " + path + " for workspace directory for " + workspaceDirUserModuleVersion + " already exists but is unknown to the workspace.");
-        }
+          DefaultWorkspacePluginFactory.logger.info("Path " + path + " is created for " + workspaceDirUserModuleVersion + '.');
 
-        this.mapWorkspaceDirPath.put(workspaceDirUserModuleVersion, path);
-        this.mapPathWorkspaceDir.put(path, workspaceDirUserModuleVersion);
+          if (path.toFile().isDirectory())  {
+            throw new RuntimeException("The path " + path + " for workspace directory for " + workspaceDirUserModuleVersion + " already exists but is unknown to the workspace.");
+          }
 
-        this.save();
+          this.putWorkspaceDir(workspaceDirUserModuleVersion, path);
+        }
       } else if (path != null && enumSetGetWorkspaceDirMode.contains(GetWorkspaceDirMode.RESET_IF_EXIST)) {
         DefaultWorkspacePluginFactory.logger.info("Existing path " + path + " is reset (deleted and recreated empty) for " + workspaceDirUserModuleVersion + '.');
 
@@ -392,22 +680,23 @@ public class DefaultWorkspacePluginFactory implements ExecContextPluginFactory<W
 
         path = this.pathDragomMetadataDir.resolve(workspaceDirSystemModule.getNodePath().getModuleName());
 
-        workspaceDirOther = this.mapPathWorkspaceDir.get(path);
-
-        if (workspaceDirOther != null) {
-          throw new RuntimeExceptionUserError(MessageFormat.format(DefaultWorkspacePluginFactory.resourceBundle.getString(DefaultWorkspacePluginFactory.MSG_PATTERN_KEY_SYSTEM_WORKSPACE_DIRECTORY_CONFLICT), workspaceDirSystemModule, path, workspaceDirOther));
-        }
+        // Verifying for a conflict and adding the workspace directory must be atomic
+        // with respect to other threads.
+        synchronized (this) {
+          workspaceDirOther = this.mapPathWorkspaceDir.get(path);
 
-        DefaultWorkspacePluginFactory.logger.info("Path " + path + " is created for " + workspaceDirSystemModule + '.');
+          if (workspaceDirOther != null) {
+            throw new RuntimeExceptionUserError(MessageFormat.format(DefaultWorkspacePluginFactory.resourceBundle.getString(DefaultWorkspacePluginFactory.MSG_PATTERN_KEY_SYSTEM_WORKSPACE_DIRECTORY_CONFLICT), workspaceDirSystemModule, path, workspaceDirOther));
+          }
 
-        if (path.toFile().isDirectory())  {
-          throw new RuntimeException("The path " + path + " for workspace directory for " + workspaceDirSystemModule + " already exists but is unknown to the workspace.");
-        }
+          DefaultWorkspacePluginFactory.logger.info("Path " + path + " is created for " + workspaceDirSystemModule + '.');
 
-        this.mapWorkspaceDirPath.put(workspaceDirSystemModule, path);
-        this.mapPathWorkspaceDir.put(path, workspaceDirSystemModule);
+          if (path.toFile().isDirectory())  {
+            throw new RuntimeException("The path " + path + " for workspace directory for " + workspaceDirSystemModule + " already exists but is unknown to the workspace.");
+          }
 
-        this.save();
+          this.putWorkspaceDir(workspaceDirSystemModule, path);
+        }
       } else if (path != null && enumSetGetWorkspaceDirMode.contains(GetWorkspaceDirMode.RESET_IF_EXIST)) {
         DefaultWorkspacePluginFactory.logger.info("Existing path " + path + " is reset (deleted and recreated empty) for " + workspaceDirSystemModule + '.');
 
@@ -425,7 +714,6 @@ public class DefaultWorkspacePluginFactory implements ExecContextPluginFactory<W
     @Override
     public void releaseWorkspaceDir(Path pathWorkspaceDir) {
       WorkspaceDir workspaceDir;
-      Integer readCount;
 
       workspaceDir = this.mapPathWorkspaceDir.get(pathWorkspaceDir);
 
@@ -433,23 +721,12 @@ public class DefaultWorkspacePluginFactory implements ExecContextPluginFactory<W
         throw new RuntimeException("The path " + pathWorkspaceDir + " does not correspond to a workspace directory.");
       }
 
-      readCount = this.mapWorkspaceDirAccessMode.get(workspaceDir);
-
-      if (readCount == null) {
-        throw new RuntimeException("Workspace directory " + workspaceDir + " is not accessed.");
-      }
-
-      if ((readCount == 0) || (readCount == 1)) {
-        this.mapWorkspaceDirAccessMode.remove(workspaceDir);
-      } else {
-        this.mapWorkspaceDirAccessMode.put(workspaceDir,  readCount - 1);
-      }
+      this.workspaceDirAccessTracker.release(workspaceDir);
     }
 
     @Override
     public WorkspaceDirAccessMode getWorkspaceDirAccessMode(Path pathWorkspaceDir) {
       WorkspaceDir workspaceDir;
-      Integer readCount;
 
       workspaceDir = this.mapPathWorkspaceDir.get(pathWorkspaceDir);
 
@@ -457,25 +734,14 @@ public class DefaultWorkspacePluginFactory implements ExecContextPluginFactory<W
         throw new RuntimeException("The path " + pathWorkspaceDir + " does not correspond to a workspace directory.");
       }
 
-      readCount = this.mapWorkspaceDirAccessMode.get(workspaceDir);
-
-      if (readCount == null) {
-        return WorkspaceDirAccessMode.PEEK;
-      } else if (readCount >= 1) {
-        return WorkspaceDirAccessMode.READ;
-      } else {
-        return WorkspaceDirAccessMode.READ_WRITE;
-      }
+      return this.workspaceDirAccessTracker.getAccessMode(workspaceDir);
     }
 
     @Override
     public void updateWorkspaceDir(WorkspaceDir workspaceDir, WorkspaceDir workspaceDirNew) {
-      Integer readCount;
       Path path;
 
-      readCount = this.mapWorkspaceDirAccessMode.get(workspaceDir);
-
-      if ((readCount == null) || (readCount != 0)) {
+      if (this.workspaceDirAccessTracker.getAccessMode(workspaceDir) != WorkspaceDirAccessMode.READ_WRITE) {
         throw new RuntimeException("Workspace directory " + workspaceDir + " must be accessed for writing to update it.");
       }
 
@@ -494,19 +760,16 @@ public class DefaultWorkspacePluginFactory implements ExecContextPluginFactory<W
           throw new RuntimeException("New workspace directory " + workspaceDirNew + " must refer to the same module node path as original workspace directory " + workspaceDir + '.');
         }
 
-        if (this.mapWorkspaceDirPath.get(workspaceDirNew) != null) {
-          throw new RuntimeException("New workspace directory " + workspaceDirNew + " must not exist.");
-        }
-
-        this.mapWorkspaceDirPath.remove(workspaceDir);
-        this.mapWorkspaceDirPath.put(workspaceDirNew,  path);
-
-        this.mapPathWorkspaceDir.put(path, workspaceDirNew);
+        synchronized (this) {
+          if (this.mapWorkspaceDirPath.get(workspaceDirNew) != null) {
+            throw new RuntimeException("New workspace directory " + workspaceDirNew + " must not exist.");
+          }
 
-        this.mapWorkspaceDirAccessMode.remove(workspaceDir);
-        this.mapWorkspaceDirAccessMode.put(workspaceDirNew, 0);
+          this.removeWorkspaceDir(workspaceDir);
+          this.putWorkspaceDir(workspaceDirNew,  path);
+        }
 
-        this.save();
+        this.workspaceDirAccessTracker.transfer(workspaceDir, workspaceDirNew);
       } else if (workspaceDir instanceof WorkspaceDirSystemModule) {
         if (!(workspaceDirNew instanceof WorkspaceDirSystemModule)) {
           throw new RuntimeException("New workspace directory " + workspaceDir + " must be of the same type as original one " + workspaceDirNew + '.');
@@ -525,12 +788,9 @@ public class DefaultWorkspacePluginFactory implements ExecContextPluginFactory<W
 
     @Override
     public void deleteWorkspaceDir(WorkspaceDir workspaceDir) {
-      Integer readCount;
       Path path;
 
-      readCount = this.mapWorkspaceDirAccessMode.get(workspaceDir);
-
-      if ((readCount == null) || (readCount != 0)) {
+      if (this.workspaceDirAccessTracker.getAccessMode(workspaceDir) != WorkspaceDirAccessMode.READ_WRITE) {
         throw new RuntimeException("Workspace directory " + workspaceDir + " must be accessed for writing to delete it.");
       }
 
@@ -543,12 +803,9 @@ public class DefaultWorkspacePluginFactory implements ExecContextPluginFactory<W
           throw new RuntimeException("IOException raised while trying to delete the workspace directory " + path + ": " + ioe);
         }
 
-        this.mapWorkspaceDirPath.remove(workspaceDir);
-        this.mapPathWorkspaceDir.remove(path);
+        this.removeWorkspaceDir(workspaceDir);
 
-        this.save();
-
-        this.mapWorkspaceDirAccessMode.put(workspaceDir, null);
+        this.workspaceDirAccessTracker.release(workspaceDir);
       }
     }
 
@@ -678,12 +935,69 @@ public class DefaultWorkspacePluginFactory implements ExecContextPluginFactory<W
     public void endTool() {
       File workspaceLockedIndicatorFile;
 
+      // The changes recorded in the journal are saved in the WorkspacePlugin metadata
+      // file once for the tool.
+      if (this.journalEntryCount != 0) {
+        this.save();
+      }
+
       workspaceLockedIndicatorFile = this.pathDragomMetadataDir.resolve(DefaultWorkspacePluginFactory.WORKSPACE_LOCKED_INDICATOR_FILE).toFile();
 
       workspaceLockedIndicatorFile.delete();
     }
   }
 
+  /**
+   * @return JAXBContext for {@link DefaultWorkspaceImpl}.
+   */
+  private static synchronized JAXBContext getJaxbContext() {
+    if (DefaultWorkspacePluginFactory.jaxbContext == null) {
+      try {
+        DefaultWorkspacePluginFactory.jaxbContext = JAXBContext.newInstance(DefaultWorkspaceImpl.class);
+      } catch (JAXBException je) {
+        throw new RuntimeException(je);
+      }
+    }
+
+    return DefaultWorkspacePluginFactory.jaxbContext;
+  }
+
+  /**
+   * Encodes a field of a journal entry.
+   *
+   * @param field Field. Can be null.
+   * @return Encoded field. Empty if field is null.
+   */
+  private static String encodeJournalField(String field) {
+    if (field == null) {
+      return "";
+    }
+
+    try {
+      return URLEncoder.encode(field, "UTF-8");
+    } catch (UnsupportedEncodingException uee) {
+      throw new RuntimeException(uee);
+    }
+  }
+
+  /**
+   * Decodes a field of a journal entry.
+   *
+   * @param encodedField Encoded field.
+   * @return Field. null if encodedField is empty.
+   */
+  private static String decodeJournalField(String encodedField) {
+    if (encodedField.isEmpty()) {
+      return null;
+    }
+
+    try {
+      return URLDecoder.decode(encodedField, "UTF-8");
+    } catch (UnsupportedEncodingException uee) {
+      throw new RuntimeException(uee);
+    }
+  }
+
   /**
    * @return WorkspaePlugin.
    */
@@ -695,6 +1009,7 @@ public class DefaultWorkspacePluginFactory implements ExecContextPluginFactory<W
     Path pathWorkspace;
     Path pathDragomMetadataDir;
     DefaultWorkspaceImpl defaultWorkspaceImpl;
+    String stringWorkspaceDirAccessTimeout;
 
     if (!(execContext instanceof WorkspaceExecContext)) {
       throw new RuntimeException("An execution context supporting the concept of workspace directory is required.");
@@ -722,7 +1037,6 @@ public class DefaultWorkspacePluginFactory implements ExecContextPluginFactory<W
 
     if (indWorkspaceInit) {
       File fileWorkspaceMetadata;
-      JAXBContext jaxbContext;
       Unmarshaller unmarshaller;
 
       try {
@@ -733,8 +1047,7 @@ public class DefaultWorkspacePluginFactory implements ExecContextPluginFactory<W
         // should exist. But if it does not, simply fall through and initialize an empty
         // workspace.
         if (fileWorkspaceMetadata.exists()) {
-          jaxbContext = JAXBContext.newInstance(DefaultWorkspaceImpl.class);
-          unmarshaller = jaxbContext.createUnmarshaller();
+          unmarshaller = DefaultWorkspacePluginFactory.getJaxbContext().createUnmarshaller();
 
           // We need to set the MapWorkspaceDirPathXmlAdapter in advance since it requires a
           // non-default constructor.
@@ -744,6 +1057,10 @@ public class DefaultWorkspacePluginFactory implements ExecContextPluginFactory<W
 
           defaultWorkspaceImpl.pathWorkspace = pathWorkspace;
           defaultWorkspaceImpl.pathDragomMetadataDir = pathDragomMetadataDir;
+
+          // Changes made since the file was last saved are recorded in the journal.
+          defaultWorkspaceImpl.replayJournal();
+          defaultWorkspaceImpl.removeWorkspaceDirNotExist();
         }
       } catch (JAXBException e) {
         throw new RuntimeException(e);
@@ -754,6 +1071,12 @@ public class DefaultWorkspacePluginFactory implements ExecContextPluginFactory<W
       defaultWorkspaceImpl = new DefaultWorkspaceImpl(pathWorkspace, pathDragomMetadataDir);
     }
 
+    stringWorkspaceDirAccessTimeout = execContext.getInitProperty(DefaultWorkspacePluginFactory.INIT_PROPERTY_WORKSPACE_DIR_ACCESS_TIMEOUT);
+
+    if (stringWorkspaceDirAccessTimeout != null) {
+      defaultWorkspaceImpl.workspaceDirAccessTracker = new WorkspaceDirAccessTracker(Long.parseLong(stringWorkspaceDirAccessTimeout) * 1000);
+    }
+
     return defaultWorkspaceImpl;
   }
 }
@@ -24,11 +24,13 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.text.MessageFormat;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
@@ -59,6 +61,7 @@ import org.azyva.dragom.model.NodePath;
 import org.azyva.dragom.model.Version;
 import org.azyva.dragom.model.plugin.impl.ContinuousReleaseSelectStaticVersionPluginImpl;
 import org.azyva.dragom.util.RuntimeExceptionUserError;
+import org.azyva.dragom.util.SharedStateLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -226,6 +229,14 @@ public class MainModuleVersionWorkspacePluginFactory implements ExecContextPlugi
      */
     private Map<WorkspaceDir, Integer> mapWorkspaceDirAccessMode;
 
+    /**
+     * Map of {@link WorkspaceDir}'s to the threads which accessed them, once per
+     * access. Maintained in parallel with mapWorkspaceDirAccessMode so that a
+     * conflicting access by the current thread can be distinguished from one by
+     * another thread.
+     */
+    private Map<WorkspaceDir, List<Thread>> mapWorkspaceDirListThreadAccess;
+
     /**
      * Default constructor.
      * <p>
@@ -235,6 +246,7 @@ public class MainModuleVersionWorkspacePluginFactory implements ExecContextPlugi
       this.mapWorkspaceDirPath = new HashMap<WorkspaceDir, Path>();
       this.mapPathWorkspaceDir = new HashMap<Path, WorkspaceDir>();
       this.mapWorkspaceDirAccessMode = new HashMap<WorkspaceDir, Integer>();
+      this.mapWorkspaceDirListThreadAccess = new HashMap<WorkspaceDir, List<Thread>>();
     }
 
     /**
@@ -339,6 +351,7 @@ public class MainModuleVersionWorkspacePluginFactory implements ExecContextPlugi
     @Override
     public Path getWorkspaceDir(WorkspaceDir workspaceDir, EnumSet<GetWorkspaceDirMode> enumSetGetWorkspaceDirMode, WorkspaceDirAccessMode workspaceDirAccessMode) {
       Integer readCount;
+      List<Thread> listThreadAccess;
       Path path;
 
       if (workspaceDir instanceof WorkspaceDirUserModuleVersion) {
@@ -350,6 +363,21 @@ public class MainModuleVersionWorkspacePluginFactory implements ExecContextPlugi
       if (workspaceDirAccessMode != WorkspaceDirAccessMode.PEEK) {
         readCount = this.mapWorkspaceDirAccessMode.get(workspaceDir);
 
+        listThreadAccess = this.mapWorkspaceDirListThreadAccess.get(workspaceDir);
+
+        // If the job uses multiple threads, the workspace directory may be accessed by
+        // another thread, in which case we wait for it to be released instead of
+        // failing. If the conflicting access is by the current thread, waiting would
+        // never end and the exception below is thrown.
+        while (   (readCount != null)
+               && ((readCount == 0) || (workspaceDirAccessMode == WorkspaceDirAccessMode.READ_WRITE))
+               && !listThreadAccess.contains(Thread.currentThread())
+               && SharedStateLock.isHeldByCurrentThread()) {
+          SharedStateLock.awaitChange();
+          readCount = this.mapWorkspaceDirAccessMode.get(workspaceDir);
+          listThreadAccess = this.mapWorkspaceDirListThreadAccess.get(workspaceDir);
+        }
+
         if (readCount != null) {
           if (readCount == 0) {
             throw new RuntimeException("Workspace directory " + workspaceDir + " already accessed for writing (and new acces is " + workspaceDirAccessMode + ").");
@@ -364,7 +392,12 @@ public class MainModuleVersionWorkspacePluginFactory implements ExecContextPlugi
           } else {
             this.mapWorkspaceDirAccessMode.put(workspaceDir, 0);
           }
+
+          listThreadAccess = new ArrayList<Thread>();
+          this.mapWorkspaceDirListThreadAccess.put(workspaceDir, listThreadAccess);
         }
+
+        listThreadAccess.add(Thread.currentThread());
       }
 
       path = this.mapWorkspaceDirPath.get(workspaceDir);
@@ -465,9 +498,21 @@ public class MainModuleVersionWorkspacePluginFactory implements ExecContextPlugi
 
       if ((readCount == 0) || (readCount == 1)) {
         this.mapWorkspaceDirAccessMode.remove(workspaceDir);
+        this.mapWorkspaceDirListThreadAccess.remove(workspaceDir);
       } else {
+        List<Thread> listThreadAccess;
+
         this.mapWorkspaceDirAccessMode.put(workspaceDir,  readCount - 1);
+
+        // The access may be released by a thread other than the one which acquired it.
+        listThreadAccess = this.mapWorkspaceDirListThreadAccess.get(workspaceDir);
+
+        if (!listThreadAccess.remove(Thread.currentThread())) {
+          listThreadAccess.remove(0);
+        }
       }
+
+      SharedStateLock.signalChange();
     }
 
     @Override
@@ -563,6 +608,7 @@ public class MainModuleVersionWorkspacePluginFactory implements ExecContextPlugi
         this.save();
 
         this.mapWorkspaceDirAccessMode.put(workspaceDir, null);
+        this.mapWorkspaceDirListThreadAccess.remove(workspaceDir);
       }
     }
 
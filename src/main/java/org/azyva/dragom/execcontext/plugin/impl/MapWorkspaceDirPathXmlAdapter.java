@@ -101,27 +101,7 @@ public class MapWorkspaceDirPathXmlAdapter extends XmlAdapter<ListWorkspaceDirPa
     listWorkspaceDirPath = new ArrayList<WorkspaceDirPath>();
 
     for (Map.Entry<WorkspaceDir, Path> mapEntry: mapWorkspaceDirPath.entrySet()) {
-      WorkspaceDirPath workspaceDirPath;
-      WorkspaceDir workspaceDir;
-
-      workspaceDirPath = new WorkspaceDirPath();
-
-      workspaceDir = mapEntry.getKey();
-
-      workspaceDirPath.workspaceDirClass = mapEntry.getKey().getClass().getName();
-
-      if (workspaceDir instanceof WorkspaceDirUserModuleVersion) {
-        workspaceDirPath.stringNodePath = ((WorkspaceDirUserModuleVersion)workspaceDir).getModuleVersion().getNodePath().toString();
-        workspaceDirPath.stringVersion = ((WorkspaceDirUserModuleVersion)workspaceDir).getModuleVersion().getVersion().toString();
-      } else if (workspaceDir instanceof WorkspaceDirSystemModule) {
-        workspaceDirPath.stringNodePath = ((WorkspaceDirSystemModule)workspaceDir).getNodePath().toString();
-      } else {
-        throw new RuntimeException("Unknown WorkspaceDir class " + workspaceDir.getClass().getName() + '.');
-      }
-
-      workspaceDirPath.stringPath = this.pathWorkspace.relativize(mapEntry.getValue()).toString();
-
-      listWorkspaceDirPath.add(workspaceDirPath);
+      listWorkspaceDirPath.add(this.marshalWorkspaceDirPath(mapEntry.getKey(), mapEntry.getValue()));
     }
 
     return new ListWorkspaceDirPath(listWorkspaceDirPath);
@@ -139,29 +119,77 @@ public class MapWorkspaceDirPathXmlAdapter extends XmlAdapter<ListWorkspaceDirPa
     }
 
     for (WorkspaceDirPath workspaceDirPath: listWorkspaceDirPath.getListWorkspaceDirPath()) {
-      WorkspaceDir workspaceDir;
-      Class<? extends WorkspaceDir> classWorkspaceDir;
-      Path path;
-
-      try {
-        classWorkspaceDir = Class.forName(workspaceDirPath.workspaceDirClass).asSubclass(WorkspaceDir.class);
-
-        if (classWorkspaceDir == WorkspaceDirUserModuleVersion.class) {
-          workspaceDir = new WorkspaceDirUserModuleVersion(new ModuleVersion(new NodePath(workspaceDirPath.stringNodePath), new Version(workspaceDirPath.stringVersion)));
-        } else if (classWorkspaceDir == WorkspaceDirSystemModule.class) {
-          workspaceDir = new WorkspaceDirSystemModule(new NodePath(workspaceDirPath.stringNodePath));
-        } else {
-          throw new RuntimeException("Unknown WorkspaceDir class " + workspaceDirPath.workspaceDirClass + '.');
-        }
-      } catch (ClassNotFoundException cnfe) {
-        throw new RuntimeException(cnfe);
-      }
-
-      path = this.pathWorkspace.resolve(Paths.get(workspaceDirPath.stringPath));
-
-      mapWorkspaceDirPath.put(workspaceDir, path);
+      mapWorkspaceDirPath.put(this.unmarshalWorkspaceDir(workspaceDirPath), this.unmarshalPath(workspaceDirPath));
     }
 
     return mapWorkspaceDirPath;
   }
+
+  /**
+   * Marshals a single WorkspaceDir and its Path.
+   *
+   * <p>Also used by {@link DefaultWorkspacePluginFactory} for journaling individual
+   * changes to the workspace directories.
+   *
+   * @param workspaceDir WorkspaceDir.
+   * @param path Path. Can be null, in which case
+   *   {@link WorkspaceDirPath#stringPath} is null.
+   * @return WorkspaceDirPath.
+   */
+  public WorkspaceDirPath marshalWorkspaceDirPath(WorkspaceDir workspaceDir, Path path) {
+    WorkspaceDirPath workspaceDirPath;
+
+    workspaceDirPath = new WorkspaceDirPath();
+
+    workspaceDirPath.workspaceDirClass = workspaceDir.getClass().getName();
+
+    if (workspaceDir instanceof WorkspaceDirUserModuleVersion) {
+      workspaceDirPath.stringNodePath = ((WorkspaceDirUserModuleVersion)workspaceDir).getModuleVersion().getNodePath().toString();
+      workspaceDirPath.stringVersion = ((WorkspaceDirUserModuleVersion)workspaceDir).getModuleVersion().getVersion().toString();
+    } else if (workspaceDir instanceof WorkspaceDirSystemModule) {
+      workspaceDirPath.stringNodePath = ((WorkspaceDirSystemModule)workspaceDir).getNodePath().toString();
+    } else {
+      throw new RuntimeException("Unknown WorkspaceDir class " + workspaceDir.getClass().getName() + '.');
+    }
+
+    if (path != null) {
+      workspaceDirPath.stringPath = this.pathWorkspace.relativize(path).toString();
+    }
+
+    return workspaceDirPath;
+  }
+
+  /**
+   * Unmarshals the WorkspaceDir from a WorkspaceDirPath.
+   *
+   * @param workspaceDirPath WorkspaceDirPath.
+   * @return WorkspaceDir.
+   */
+  public WorkspaceDir unmarshalWorkspaceDir(WorkspaceDirPath workspaceDirPath) {
+    Class<? extends WorkspaceDir> classWorkspaceDir;
+
+    try {
+      classWorkspaceDir = Class.forName(workspaceDirPath.workspaceDirClass).asSubclass(WorkspaceDir.class);
+    } catch (ClassNotFoundException cnfe) {
+      throw new RuntimeException(cnfe);
+    }
+
+    if (classWorkspaceDir == WorkspaceDirUserModuleVersion.class) {
+      return new WorkspaceDirUserModuleVersion(new ModuleVersion(new NodePath(workspaceDirPath.stringNodePath), new Version(workspaceDirPath.stringVersion)));
+    } else if (classWorkspaceDir == WorkspaceDirSystemModule.class) {
+      return new WorkspaceDirSystemModule(new NodePath(workspaceDirPath.stringNodePath));
+    } else {
+      throw new RuntimeException("Unknown WorkspaceDir class " + workspaceDirPath.workspaceDirClass + '.');
+    }
+  }
+
+  /**
+   * Unmarshals the Path from a WorkspaceDirPath.
+   *
+   * @param workspaceDirPath WorkspaceDirPath.
+   * @return Path.
+   */
+  public Path unmarshalPath(WorkspaceDirPath workspaceDirPath) {
+    return this.pathWorkspace.resolve(Paths.get(workspaceDirPath.stringPath));
+  }
 }
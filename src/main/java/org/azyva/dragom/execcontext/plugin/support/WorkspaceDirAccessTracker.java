@@ -0,0 +1,389 @@
+/*
+ * Copyright 2015 - 2017 AZYVA INC. INC.
+ *
+ * This file is part of Dragom.
+ *
+ * Dragom is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Dragom is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Dragom.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.azyva.dragom.execcontext.plugin.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.azyva.dragom.execcontext.plugin.WorkspaceDir;
+import org.azyva.dragom.execcontext.plugin.WorkspaceDirSystemModule;
+import org.azyva.dragom.execcontext.plugin.WorkspaceDirUserModuleVersion;
+import org.azyva.dragom.execcontext.plugin.WorkspacePlugin;
+import org.azyva.dragom.execcontext.plugin.WorkspacePlugin.WorkspaceDirAccessMode;
+import org.azyva.dragom.util.SharedStateLock;
+
+/**
+ * Tracks the accesses to {@link WorkspaceDir}'s for {@link WorkspacePlugin}
+ * implementations, in a thread-safe manner.
+ *
+ * <p>A WorkspaceDir can be accessed for reading by many threads (or many times by
+ * the same thread), or for writing by a single thread. This is similar to a
+ * read-write lock, except that an access can be released by a thread other than
+ * the one which acquired it, as allowed by
+ * {@link WorkspacePlugin#releaseWorkspaceDir}.
+ *
+ * <p>When an access cannot be granted because of an access by another thread, the
+ * current thread waits for the WorkspaceDir to be released, optionally with a
+ * timeout. When the conflicting access is by the current thread, waiting would
+ * never end and an exception is thrown immediately, as was always the case in a
+ * single-threaded context.
+ *
+ * <p>The state of the accesses is protected by locks striped by module (the
+ * {@link org.azyva.dragom.model.NodePath} of the WorkspaceDir) so that threads
+ * accessing WorkspaceDir's for different modules generally do not contend with
+ * each other.
+ *
+ * <p>If the current thread holds the {@link SharedStateLock}, it is released while
+ * waiting so that other threads can progress and release the WorkspaceDir.
+ *
+ * @author David Raymond
+ */
+public class WorkspaceDirAccessTracker {
+  /**
+   * Number of lock stripes.
+   */
+  private static final int STRIPE_COUNT = 32;
+
+  /**
+   * Lock stripe.
+   */
+  private static class Stripe {
+    /**
+     * ReentrantLock protecting the access state of the WorkspaceDir's of the stripe.
+     */
+    ReentrantLock reentrantLock;
+
+    /**
+     * Condition signaled when a WorkspaceDir of the stripe is released.
+     */
+    Condition conditionRelease;
+
+    /**
+     * Constructor.
+     */
+    Stripe() {
+      this.reentrantLock = new ReentrantLock();
+      this.conditionRelease = this.reentrantLock.newCondition();
+    }
+  }
+
+  /**
+   * Access state of a WorkspaceDir.
+   */
+  private static class AccessState {
+    /**
+     * Thread which accessed the WorkspaceDir for writing. null if not accessed for
+     * writing.
+     */
+    Thread threadWriter;
+
+    /**
+     * Threads which accessed the WorkspaceDir for reading, once per access.
+     */
+    List<Thread> listThreadReader = new ArrayList<Thread>();
+  }
+
+  /**
+   * Lock stripes.
+   */
+  private Stripe[] arrayStripe;
+
+  /**
+   * Map of WorkspaceDir's to their AccessState. A WorkspaceDir which is not
+   * accessed has no entry.
+   *
+   * <p>An entry is accessed only while holding the lock of the Stripe of the
+   * WorkspaceDir.
+   */
+  private Map<WorkspaceDir, AccessState> mapWorkspaceDirAccessState;
+
+  /**
+   * Maximum time to wait for a WorkspaceDir to be released, in milliseconds. 0 to
+   * wait indefinitely.
+   */
+  private long timeoutMillis;
+
+  /**
+   * Constructor.
+   *
+   * @param timeoutMillis Maximum time to wait for a WorkspaceDir to be released,
+   *   in milliseconds. 0 to wait indefinitely.
+   */
+  public WorkspaceDirAccessTracker(long timeoutMillis) {
+    this.arrayStripe = new Stripe[WorkspaceDirAccessTracker.STRIPE_COUNT];
+
+    for (int i = 0; i < WorkspaceDirAccessTracker.STRIPE_COUNT; i++) {
+      this.arrayStripe[i] = new Stripe();
+    }
+
+    this.mapWorkspaceDirAccessState = new ConcurrentHashMap<WorkspaceDir, AccessState>();
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /**
+   * Acquires an access to a WorkspaceDir, waiting if required.
+   *
+   * @param workspaceDir WorkspaceDir.
+   * @param workspaceDirAccessMode WorkspaceDirAccessMode. Must be
+   *   {@link WorkspaceDirAccessMode#READ} or
+   *   {@link WorkspaceDirAccessMode#READ_WRITE}.
+   */
+  public void acquire(WorkspaceDir workspaceDir, WorkspaceDirAccessMode workspaceDirAccessMode) {
+    Stripe stripe;
+    int holdCount;
+    long nanosRemaining;
+
+    stripe = this.getStripe(workspaceDir);
+
+    stripe.reentrantLock.lock();
+
+    try {
+      if (this.tryAcquire(workspaceDir, workspaceDirAccessMode)) {
+        return;
+      }
+    } finally {
+      stripe.reentrantLock.unlock();
+    }
+
+    // The SharedStateLock, if any, is released before acquiring the lock of the
+    // Stripe again so that we never wait for the SharedStateLock while holding the
+    // lock of a Stripe.
+    holdCount = SharedStateLock.releaseForBlockingOperation(null);
+
+    try {
+      stripe.reentrantLock.lock();
+
+      try {
+        nanosRemaining = TimeUnit.MILLISECONDS.toNanos(this.timeoutMillis);
+
+        while (!this.tryAcquire(workspaceDir, workspaceDirAccessMode)) {
+          if (this.timeoutMillis == 0) {
+            stripe.conditionRelease.awaitUninterruptibly();
+          } else {
+            if (nanosRemaining <= 0) {
+              throw new RuntimeException("Timeout expired while waiting for workspace directory " + workspaceDir + " to be released by another thread (new access is " + workspaceDirAccessMode + ").");
+            }
+
+            try {
+              nanosRemaining = stripe.conditionRelease.awaitNanos(nanosRemaining);
+            } catch (InterruptedException ie) {
+              Thread.currentThread().interrupt();
+              throw new RuntimeException(ie);
+            }
+          }
+        }
+      } finally {
+        stripe.reentrantLock.unlock();
+      }
+    } finally {
+      SharedStateLock.reacquireAfterBlockingOperation(null, holdCount);
+    }
+  }
+
+  /**
+   * Tries to acquire an access to a WorkspaceDir without waiting.
+   *
+   * <p>Must be called while holding the lock of the Stripe of the WorkspaceDir.
+   *
+   * @param workspaceDir WorkspaceDir.
+   * @param workspaceDirAccessMode WorkspaceDirAccessMode.
+   * @return Indicates if the access was acquired. false if the WorkspaceDir is
+   *   accessed by another thread in a conflicting manner.
+   */
+  private boolean tryAcquire(WorkspaceDir workspaceDir, WorkspaceDirAccessMode workspaceDirAccessMode) {
+    AccessState accessState;
+    Thread threadCurrent;
+
+    accessState = this.mapWorkspaceDirAccessState.get(workspaceDir);
+    threadCurrent = Thread.currentThread();
+
+    if (accessState == null) {
+      accessState = new AccessState();
+
+      if (workspaceDirAccessMode == WorkspaceDirAccessMode.READ_WRITE) {
+        accessState.threadWriter = threadCurrent;
+      } else {
+        accessState.listThreadReader.add(threadCurrent);
+      }
+
+      this.mapWorkspaceDirAccessState.put(workspaceDir, accessState);
+
+      return true;
+    }
+
+    if (accessState.threadWriter != null) {
+      if (accessState.threadWriter == threadCurrent) {
+        throw new RuntimeException("Workspace directory " + workspaceDir + " already accessed for writing (and new acces is " + workspaceDirAccessMode + ").");
+      }
+
+      return false;
+    }
+
+    if (workspaceDirAccessMode == WorkspaceDirAccessMode.READ_WRITE) {
+      if (accessState.listThreadReader.contains(threadCurrent)) {
+        throw new RuntimeException("New access is for writing and workspace directory " + workspaceDir + " already accessed for reading (with level " + accessState.listThreadReader.size() + ").");
+      }
+
+      return false;
+    }
+
+    accessState.listThreadReader.add(threadCurrent);
+
+    return true;
+  }
+
+  /**
+   * Releases an access to a WorkspaceDir.
+   *
+   * <p>If the WorkspaceDir is accessed for reading more than once, the access of
+   * the current thread is released if any, otherwise that of another thread.
+   *
+   * @param workspaceDir WorkspaceDir.
+   */
+  public void release(WorkspaceDir workspaceDir) {
+    Stripe stripe;
+    AccessState accessState;
+
+    stripe = this.getStripe(workspaceDir);
+
+    stripe.reentrantLock.lock();
+
+    try {
+      accessState = this.mapWorkspaceDirAccessState.get(workspaceDir);
+
+      if (accessState == null) {
+        throw new RuntimeException("Workspace directory " + workspaceDir + " is not accessed.");
+      }
+
+      if (accessState.threadWriter == null) {
+        if (!accessState.listThreadReader.remove(Thread.currentThread())) {
+          accessState.listThreadReader.remove(0);
+        }
+      }
+
+      if ((accessState.threadWriter != null) || accessState.listThreadReader.isEmpty()) {
+        this.mapWorkspaceDirAccessState.remove(workspaceDir);
+      }
+
+      stripe.conditionRelease.signalAll();
+    } finally {
+      stripe.reentrantLock.unlock();
+    }
+  }
+
+  /**
+   * Transfers the access for writing to a WorkspaceDir to another WorkspaceDir
+   * for the same module, which must not be accessed.
+   *
+   * <p>Used when a WorkspaceDir is updated.
+   *
+   * @param workspaceDir WorkspaceDir. Must be accessed for writing.
+   * @param workspaceDirNew New WorkspaceDir.
+   */
+  public void transfer(WorkspaceDir workspaceDir, WorkspaceDir workspaceDirNew) {
+    Stripe stripe;
+    AccessState accessState;
+
+    stripe = this.getStripe(workspaceDir);
+
+    if (this.getStripe(workspaceDirNew) != stripe) {
+      throw new RuntimeException("New workspace directory " + workspaceDirNew + " must refer to the same module as original workspace directory " + workspaceDir + '.');
+    }
+
+    stripe.reentrantLock.lock();
+
+    try {
+      accessState = this.mapWorkspaceDirAccessState.get(workspaceDir);
+
+      if ((accessState == null) || (accessState.threadWriter == null)) {
+        throw new RuntimeException("Workspace directory " + workspaceDir + " must be accessed for writing to update it.");
+      }
+
+      if (this.mapWorkspaceDirAccessState.containsKey(workspaceDirNew)) {
+        throw new RuntimeException("New workspace directory " + workspaceDirNew + " is already accessed.");
+      }
+
+      this.mapWorkspaceDirAccessState.remove(workspaceDir);
+      this.mapWorkspaceDirAccessState.put(workspaceDirNew, accessState);
+
+      stripe.conditionRelease.signalAll();
+    } finally {
+      stripe.reentrantLock.unlock();
+    }
+  }
+
+  /**
+   * Returns the access mode of a WorkspaceDir.
+   *
+   * @param workspaceDir WorkspaceDir.
+   * @return {@link WorkspaceDirAccessMode#PEEK} if the WorkspaceDir is not
+   *   accessed, {@link WorkspaceDirAccessMode#READ} if it is accessed for reading
+   *   and {@link WorkspaceDirAccessMode#READ_WRITE} if it is accessed for writing.
+   */
+  public WorkspaceDirAccessMode getAccessMode(WorkspaceDir workspaceDir) {
+    Stripe stripe;
+    AccessState accessState;
+
+    stripe = this.getStripe(workspaceDir);
+
+    stripe.reentrantLock.lock();
+
+    try {
+      accessState = this.mapWorkspaceDirAccessState.get(workspaceDir);
+
+      if (accessState == null) {
+        return WorkspaceDirAccessMode.PEEK;
+      } else if (accessState.threadWriter == null) {
+        return WorkspaceDirAccessMode.READ;
+      } else {
+        return WorkspaceDirAccessMode.READ_WRITE;
+      }
+    } finally {
+      stripe.reentrantLock.unlock();
+    }
+  }
+
+  /**
+   * Returns the Stripe of a WorkspaceDir, based on its module.
+   *
+   * @param workspaceDir WorkspaceDir.
+   * @return Stripe.
+   */
+  private Stripe getStripe(WorkspaceDir workspaceDir) {
+    Object key;
+
+    if (workspaceDir instanceof WorkspaceDirUserModuleVersion) {
+      key = ((WorkspaceDirUserModuleVersion)workspaceDir).getModuleVersion().getNodePath();
+    } else if (workspaceDir instanceof WorkspaceDirSystemModule) {
+      key = ((WorkspaceDirSystemModule)workspaceDir).getNodePath();
+    } else {
+      key = workspaceDir;
+    }
+
+    // The hash code is spread since NodePath hash codes may not be well distributed
+    // in the low-order bits.
+    return this.arrayStripe[((key.hashCode() ^ (key.hashCode() >>> 16)) & 0x7fffffff) % WorkspaceDirAccessTracker.STRIPE_COUNT];
+  }
+}
@@ -83,6 +83,21 @@ public interface Git {
     public int behind;
   }
 
+  /**
+   * Handles the standard output of a Git command line by line. See
+   * {@link Git#executeGitCommand(String[], Path, OutputLineHandler)}.
+   */
+  public static interface OutputLineHandler {
+    /**
+     * Handles a line of output.
+     *
+     * @param line Line, without the line terminator.
+     * @return Indicates to continue. If false, the Git command is terminated and no
+     *   other line is provided.
+     */
+    boolean handleLine(String line);
+  }
+
   /**
    * Sets the Path to the git executable. If not set, git is invoked with no
    * Path, relying on it being available in the environment PATH.
@@ -140,6 +155,23 @@ public interface Git {
    */
   void setConfigUserEmail(String configUserEmail);
 
+  /**
+   * Sets the maximum number of Git commands which access the remote repository
+   * (clone, fetch, pull, push, ls-remote) that can execute concurrently for the
+   * same host.
+   *
+   * <p>This is relevant only when Git commands are executed by multiple threads,
+   * which is the case when the reference graph is traversed in parallel.
+   *
+   * <p>The limit applies to all instances accessing the same host. If different
+   * limits are set for the same host, the first one used applies.
+   *
+   * <p>If not set or 0, there is no limit.
+   *
+   * @param maxRemoteAccessPerHost See description.
+   */
+  void setMaxRemoteAccessPerHost(int maxRemoteAccessPerHost);
+
   /**
    * Helper method to execute a Git command.
    * <p>
@@ -162,6 +194,30 @@ public interface Git {
    */
   int executeGitCommand(String[] arrayArg, boolean indProvideCredentials, AllowExitCode allowExitCode, Path pathWorkingDirectory, StringBuilder stringBuilderOutput, boolean indTrimOutput);
 
+  /**
+   * Helper method to execute a local read-only Git command whose output is
+   * handled line by line as it is produced.
+   * <p>
+   * Contrary to {@link #executeGitCommand(String[], boolean, AllowExitCode, Path, StringBuilder, boolean)},
+   * the output is not accumulated in memory and the caller can stop the command as
+   * soon as it has found what it was looking for. This is useful for commands such
+   * as rev-list whose output can be very large.
+   * <p>
+   * Credentials are not provided to Git and any exit code other than 0 triggers
+   * an exception, unless the command was stopped by the OutputLineHandler.
+   * <p>
+   * The OutputLineHandler is called while the command executes, during which
+   * other threads of the job can proceed. It should therefore not access state
+   * shared with other threads.
+   *
+   * @param arrayArg Command line arguments to Git.
+   * @param pathWorkingDirectory Path to the working directory.
+   * @param outputLineHandler OutputLineHandler.
+   * @return Indicates if all the output was handled. false if the
+   *   OutputLineHandler stopped the command.
+   */
+  boolean executeGitCommand(String[] arrayArg, Path pathWorkingDirectory, OutputLineHandler outputLineHandler);
+
   /**
    * @return Indicates if the credentials provided are valid.
    */
@@ -205,6 +261,34 @@ public interface Git {
    */
   void clone(String reposUrl, Version version, Path pathWorkspace);
 
+  /**
+   * Git clone --mirror.
+   * <p>
+   * Creates a bare repository which mirrors all the references of the remote
+   * repository specified with {@link #setReposUrl}. Such a mirror can then be
+   * shared by many workspaces using {@link #cloneShared}.
+   *
+   * @param pathMirror Path to the mirror. Must not exist.
+   */
+  void cloneMirror(Path pathMirror);
+
+  /**
+   * Git clone --shared.
+   * <p>
+   * The workspace is cloned from a local repository, generally a mirror created
+   * with {@link #cloneMirror}, and borrows its objects using Git alternates
+   * instead of copying them. The local repository must therefore not be deleted
+   * while the workspace exists.
+   * <p>
+   * The origin remote of the workspace is the local repository. The caller
+   * generally sets it to the true remote repository afterwards. No version is
+   * checked out.
+   *
+   * @param pathReposShared Path to the local repository.
+   * @param pathWorkspace Path to the workspace.
+   */
+  void cloneShared(Path pathReposShared, Path pathWorkspace);
+
   /**
    * Git fetch.
    *
@@ -296,6 +380,40 @@ public interface Git {
    */
   boolean isVersionExists(Path pathWorkspace, Version version);
 
+  /**
+   * Resolves a Git revision to an object ID.
+   * <p>
+   * The revision is generally a complete reference such as refs/heads/&lt;branch&gt;,
+   * possibly with a suffix such as ^{tag} or ^{}.
+   * <p>
+   * This method is expected to be called very frequently and implementations
+   * should avoid starting a new Git process for each call.
+   *
+   * @param pathWorkspace Path to the workspace.
+   * @param revision Revision.
+   * @return Object ID. null if the revision does not exist.
+   */
+  String resolveRevision(Path pathWorkspace, String revision);
+
+  /**
+   * Returns the content of a file within a revision, directly from the object
+   * database.
+   * <p>
+   * The working tree is not accessed so that the content of a file can be obtained
+   * for any revision without checking it out.
+   * <p>
+   * This method can be called very frequently and implementations should avoid
+   * starting a new Git process for each call.
+   *
+   * @param pathWorkspace Path to the workspace.
+   * @param revision Revision. Generally a commit ID.
+   * @param path Path of the file relative to the root of the repository, with "/"
+   *   as the separator.
+   * @return Content of the file. null if the file does not exist within the
+   *   revision.
+   */
+  byte[] getFileContent(Path pathWorkspace, String revision, String path);
+
   /**
    * Determines if the remote repository contains changes that are not in the
    * local repository (behind) and/or if the local repository contains changes
@@ -344,6 +462,17 @@ public interface Git {
    */
   List<Version> getListVersionStatic(Path pathWorkspace);
 
+  /**
+   * Returns the Map of commit IDs to the List of static Version's (tags) pointing
+   * to them.
+   *
+   * <p>Only commits to which at least one static Version points have an entry.
+   *
+   * @param pathWorkspace Path to the workspace.
+   * @return See description. The Map must not be modified.
+   */
+  Map<String, List<Version>> getMapCommitIdListVersionStatic(Path pathWorkspace);
+
   /**
    * Creates a branch.
    *
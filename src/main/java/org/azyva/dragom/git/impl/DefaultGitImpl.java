@@ -23,10 +23,14 @@ import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -34,12 +38,14 @@ import java.nio.file.attribute.FileTime;
 import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.attribute.PosixFilePermissions;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Semaphore;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -53,6 +59,7 @@ import org.azyva.dragom.execcontext.support.ExecContextHolder;
 import org.azyva.dragom.git.Git;
 import org.azyva.dragom.model.Version;
 import org.azyva.dragom.model.VersionType;
+import org.azyva.dragom.util.SharedStateLock;
 import org.azyva.dragom.util.Util;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -107,6 +114,42 @@ public class DefaultGitImpl implements Git {
     public Version version;
   }
 
+  /**
+   * Git commands which do not modify the refs nor the objects of a repository.
+   *
+   * <p>After executing any other command, the {@link GitCatFileBatch} for the
+   * repository, if any, is invalidated.
+   */
+  private static final Set<String> setReadOnlyCommand = new HashSet<String>(Arrays.asList("cat-file", "describe", "diff", "for-each-ref", "log", "ls-remote", "rev-list", "rev-parse", "show", "show-ref", "status", "symbolic-ref"));
+
+  /**
+   * Pattern matching a complete ref, optionally followed by ^{tag} or ^{}, which
+   * can be resolved by {@link GitRefDatabase}.
+   */
+  private static final Pattern patternRefPeeled = Pattern.compile("(refs/[^\\^~:?*\\[\\\\\\s{}@]+)(\\^\\{tag\\}|\\^\\{\\})?");
+
+  /**
+   * Git commands which access the remote repository.
+   *
+   * <p>Their concurrent execution for the same host can be limited. See
+   * {@link #setMaxRemoteAccessPerHost}.
+   */
+  private static final Set<String> setRemoteAccessCommand = new HashSet<String>(Arrays.asList("clone", "fetch", "ls-remote", "pull", "push"));
+
+  /**
+   * Pattern to extract the host from a SCP-like repository URL such as
+   * git@host:path/repos.git.
+   */
+  private static final Pattern patternExtractScpReposUrlHost = Pattern.compile("(?:[^@/]+@)?([^:/]+):.*");
+
+  /**
+   * Map of the Semaphore's limiting the number of concurrent remote accesses for
+   * each host.
+   *
+   * <p>Accessed only while synchronized on the Map.
+   */
+  private static final Map<String, Semaphore> mapHostSemaphore = new HashMap<String, Semaphore>();
+
   /**
    * Pattern to extract the user from a HTTP[S] repository URL.
    */
@@ -190,6 +233,12 @@ public class DefaultGitImpl implements Git {
    */
   private String httpCredentials;
 
+  /**
+   * Maximum number of concurrent remote accesses for the host of the repository.
+   * 0 if not limited.
+   */
+  private int maxRemoteAccessPerHost;
+
   @Override
   public void setPathExecutable(Path pathExecutable) {
     this.pathExecutable = pathExecutable;
@@ -222,13 +271,37 @@ public class DefaultGitImpl implements Git {
     this.configUserEmail = configUserEmail;
   }
 
+  @Override
+  public void setMaxRemoteAccessPerHost(int maxRemoteAccessPerHost) {
+    this.maxRemoteAccessPerHost = maxRemoteAccessPerHost;
+  }
+
   @Override
   public int executeGitCommand(String[] arrayArg, boolean indProvideCredentials, AllowExitCode allowExitCode, Path pathWorkingDirectory, StringBuilder stringBuilderOutput, boolean indTrimOutput) {
+    return this.executeGitCommand(arrayArg, indProvideCredentials, allowExitCode, pathWorkingDirectory, stringBuilderOutput, indTrimOutput, null);
+  }
+
+  /**
+   * Same as {@link #executeGitCommand(String[], boolean, AllowExitCode, Path, StringBuilder, boolean)},
+   * but allows the caller to obtain the raw bytes of the standard output.
+   *
+   * @param arrayArg See called method.
+   * @param indProvideCredentials See called method.
+   * @param allowExitCode See called method.
+   * @param pathWorkingDirectory See called method.
+   * @param stringBuilderOutput See called method.
+   * @param indTrimOutput See called method.
+   * @param byteArrayOutputStreamOut ByteArrayOutputStream into which the standard
+   *   output is captured, without any character conversion. Can be null.
+   * @return Exit code.
+   */
+  private int executeGitCommand(String[] arrayArg, boolean indProvideCredentials, AllowExitCode allowExitCode, Path pathWorkingDirectory, StringBuilder stringBuilderOutput, boolean indTrimOutput, ByteArrayOutputStream byteArrayOutputStreamOut) {
     CommandLine commandLine;
     Path pathFileCredentials;
     DefaultExecutor defaultExecutor;
-    ByteArrayOutputStream byteArrayOutputStreamOut;
     ByteArrayOutputStream byteArrayOutputStreamErr;
+    Semaphore semaphoreRemoteAccess;
+    int holdCount;
     int exitCode;
     String stderr;
 
@@ -307,7 +380,11 @@ public class DefaultGitImpl implements Git {
       }
 
       defaultExecutor = new DefaultExecutor();
-      byteArrayOutputStreamOut = new ByteArrayOutputStream();
+
+      if (byteArrayOutputStreamOut == null) {
+        byteArrayOutputStreamOut = new ByteArrayOutputStream();
+      }
+
       byteArrayOutputStreamErr = new ByteArrayOutputStream();
       defaultExecutor.setStreamHandler(new PumpStreamHandler(byteArrayOutputStreamOut, byteArrayOutputStreamErr));
       defaultExecutor.setExitValues(null); // To not check for exit values.
@@ -319,10 +396,36 @@ public class DefaultGitImpl implements Git {
         DefaultGitImpl.logger.info("Invoking Git command " + commandLine + '.');
       }
 
+      semaphoreRemoteAccess = this.getSemaphoreRemoteAccess(arrayArg, indProvideCredentials);
+
+      // If the job uses multiple threads, other threads can proceed while the Git
+      // command executes. But Git commands within the same repository are serialized.
+      holdCount = SharedStateLock.releaseForBlockingOperation(pathWorkingDirectory);
+
       try {
-        exitCode = defaultExecutor.execute(commandLine);
+        // The Semaphore must be acquired after having released the SharedStateLock
+        // since other threads may need to proceed in order to release it.
+        if (semaphoreRemoteAccess != null) {
+          semaphoreRemoteAccess.acquireUninterruptibly();
+        }
+
+        try {
+          exitCode = defaultExecutor.execute(commandLine);
+        } finally {
+          if (semaphoreRemoteAccess != null) {
+            semaphoreRemoteAccess.release();
+          }
+        }
       } catch (IOException ioe) {
         throw new RuntimeException(ioe);
+      } finally {
+        SharedStateLock.reacquireAfterBlockingOperation(pathWorkingDirectory, holdCount);
+      }
+
+      if ((pathWorkingDirectory != null) && !DefaultGitImpl.setReadOnlyCommand.contains(arrayArg[0])) {
+        GitCatFileBatch.invalidate(pathWorkingDirectory);
+        GitTagIndex.invalidate(pathWorkingDirectory);
+        GitRefDatabase.invalidate(pathWorkingDirectory);
       }
 
       // We need this at more than one place below.
@@ -388,6 +491,149 @@ public class DefaultGitImpl implements Git {
     }
   }
 
+  @Override
+  public boolean executeGitCommand(String[] arrayArg, Path pathWorkingDirectory, Git.OutputLineHandler outputLineHandler) {
+    List<String> listCommand;
+    ProcessBuilder processBuilder;
+    Path pathFileStderr;
+    Process process;
+    BufferedReader bufferedReader;
+    String line;
+    boolean indStopped;
+    int holdCount;
+    int exitCode;
+
+    listCommand = new ArrayList<String>();
+    listCommand.add(this.pathExecutable.toString());
+    listCommand.addAll(Arrays.asList(arrayArg));
+
+    pathFileStderr = null;
+    indStopped = false;
+
+    try {
+      // stderr is redirected to a file so that the process cannot block on it while
+      // its stdout is being read.
+      pathFileStderr = Files.createTempFile((String)null, (String)null);
+
+      processBuilder = new ProcessBuilder(listCommand);
+      processBuilder.directory(pathWorkingDirectory.toFile());
+      processBuilder.redirectError(pathFileStderr.toFile());
+
+      DefaultGitImpl.logger.info("Invoking Git command " + listCommand + " within " + pathWorkingDirectory + '.');
+
+      holdCount = SharedStateLock.releaseForBlockingOperation(pathWorkingDirectory);
+
+      try {
+        process = processBuilder.start();
+        bufferedReader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+
+        try {
+          while ((line = bufferedReader.readLine()) != null) {
+            if (!outputLineHandler.handleLine(line)) {
+              indStopped = true;
+              process.destroy();
+              break;
+            }
+          }
+        } finally {
+          bufferedReader.close();
+        }
+
+        exitCode = process.waitFor();
+      } catch (InterruptedException ie) {
+        throw new RuntimeException(ie);
+      } finally {
+        SharedStateLock.reacquireAfterBlockingOperation(pathWorkingDirectory, holdCount);
+      }
+
+      if (!indStopped && (exitCode != 0)) {
+        throw new RuntimeException("Git command " + listCommand + " executed in " + pathWorkingDirectory + " failed with exit code: " + exitCode + "\nRepository URL: " + this.reposUrl + "\nError output:\n" + new String(Files.readAllBytes(pathFileStderr), StandardCharsets.UTF_8));
+      }
+
+      return !indStopped;
+    } catch (IOException ioe) {
+      throw new RuntimeException(ioe);
+    } finally {
+      if (pathFileStderr != null) {
+        pathFileStderr.toFile().delete();
+      }
+    }
+  }
+
+  /**
+   * Returns the Semaphore limiting the number of concurrent remote accesses for the
+   * host of the repository, if the Git command accesses the remote repository and
+   * such a limit is set.
+   *
+   * <p>The host is that of the repository the Git command accesses. If the
+   * command is for the configured repository (indProvideCredentials is true), it
+   * is that of the configured repository URL. Otherwise the repository is
+   * specified explicitly as an argument, generally as a plain path or a file://
+   * URL (the main workspace directory of a module or a mirror for instance).
+   * Such accesses to local repositories are not limited. Only an argument which is
+   * a URL with a scheme other than file:// is considered remote.
+   *
+   * @param arrayArg Command line arguments to Git.
+   * @param indProvideCredentials Indicates the credentials for the configured
+   *   repository are provided, meaning the command accesses that repository.
+   * @return See description. null if not limited.
+   */
+  private Semaphore getSemaphoreRemoteAccess(String[] arrayArg, boolean indProvideCredentials) {
+    String reposUrl;
+    String host;
+    Semaphore semaphore;
+
+    if ((this.maxRemoteAccessPerHost <= 0) || !DefaultGitImpl.setRemoteAccessCommand.contains(arrayArg[0])) {
+      return null;
+    }
+
+    reposUrl = null;
+
+    if (indProvideCredentials) {
+      reposUrl = this.reposUrl;
+    } else {
+      for (String arg: arrayArg) {
+        if (arg.contains("://")) {
+          reposUrl = arg;
+          break;
+        }
+      }
+    }
+
+    if ((reposUrl == null) || reposUrl.startsWith("file://")) {
+      return null;
+    }
+
+    try {
+      host = new URI(reposUrl).getHost();
+    } catch (URISyntaxException use) {
+      host = null;
+    }
+
+    if (host == null) {
+      Matcher matcher;
+
+      matcher = DefaultGitImpl.patternExtractScpReposUrlHost.matcher(reposUrl);
+
+      if (matcher.matches()) {
+        host = matcher.group(1);
+      } else {
+        host = reposUrl;
+      }
+    }
+
+    synchronized (DefaultGitImpl.mapHostSemaphore) {
+      semaphore = DefaultGitImpl.mapHostSemaphore.get(host);
+
+      if (semaphore == null) {
+        semaphore = new Semaphore(this.maxRemoteAccessPerHost, true);
+        DefaultGitImpl.mapHostSemaphore.put(host, semaphore);
+      }
+    }
+
+    return semaphore;
+  }
+
   @Override
   public boolean validateCredentials() {
     StringBuilder stringBuilderOutput;
@@ -443,6 +689,8 @@ public class DefaultGitImpl implements Git {
   @Override
   public String getBranch(Path pathWorkspace) {
     Version version;
+    GitRefDatabase gitRefDatabase;
+    String branch;
     StringBuilder stringBuilder;
     int exitCode;
 
@@ -456,14 +704,22 @@ public class DefaultGitImpl implements Git {
       }
     }
 
-    stringBuilder = new StringBuilder();
-    exitCode = this.executeGitCommand(new String[] {"symbolic-ref", "-q", "HEAD"}, false, AllowExitCode.ONE, pathWorkspace, stringBuilder, true);
+    gitRefDatabase = GitRefDatabase.get(pathWorkspace);
 
-    if (exitCode == 0) {
-      String branch;
+    if (gitRefDatabase != null) {
+      branch = gitRefDatabase.getHeadSymbolicRef();
+    } else {
+      stringBuilder = new StringBuilder();
+      exitCode = this.executeGitCommand(new String[] {"symbolic-ref", "-q", "HEAD"}, false, AllowExitCode.ONE, pathWorkspace, stringBuilder, true);
 
-      branch = stringBuilder.toString();
+      if (exitCode == 0) {
+        branch = stringBuilder.toString();
+      } else {
+        branch = null;
+      }
+    }
 
+    if (branch != null) {
       if (branch.startsWith("refs/heads/")) {
         String stringVersion;
 
@@ -471,7 +727,7 @@ public class DefaultGitImpl implements Git {
         this.setPathWorkspaceVersion(pathWorkspace, new Version(VersionType.DYNAMIC, stringVersion));
         return stringVersion;
       } else {
-        throw new RuntimeException("Unrecognized branch reference " + branch + " returned by git symbolic-ref.");
+        throw new RuntimeException("Unrecognized branch reference " + branch + " for HEAD within " + pathWorkspace + '.');
       }
     } else {
       return null;
@@ -555,6 +811,44 @@ public class DefaultGitImpl implements Git {
     }
   }
 
+  @Override
+  public void cloneMirror(Path pathMirror) {
+    DefaultGitImpl.setPathToDeleteOnShutdown.add(pathMirror);
+
+    try {
+      this.executeGitCommand(
+          new String[] {"clone", "--mirror", this.reposUrl, pathMirror.toString()},
+          true,
+          AllowExitCode.NONE,
+          null,
+          null,
+          false);
+    } finally {
+      DefaultGitImpl.setPathToDeleteOnShutdown.remove(pathMirror);
+    }
+  }
+
+  @Override
+  public void cloneShared(Path pathReposShared, Path pathWorkspace) {
+    DefaultGitImpl.setPathToDeleteOnShutdown.add(pathWorkspace);
+
+    try {
+      // Contrary to clone, --no-local is not specified since objects are
+      // intentionally borrowed from the local repository.
+      this.executeGitCommand(
+          new String[] {"clone", "--shared", "--no-checkout", pathReposShared.toString(), pathWorkspace.toString()},
+          false,
+          AllowExitCode.NONE,
+          null,
+          null,
+          false);
+
+      this.setPathWorkspaceVersion(pathWorkspace, null);
+    } finally {
+      DefaultGitImpl.setPathToDeleteOnShutdown.remove(pathWorkspace);
+    }
+  }
+
   @Override
   public void fetch(Path pathWorkspace, String reposUrl, String refspec, boolean indFetchingIntoCurrentBranch, boolean indForce) {
     List<String> listArg;
@@ -616,9 +910,7 @@ public class DefaultGitImpl implements Git {
 
     branch = "refs/remotes/origin/" + branch;
 
-    // We add "--" as a last argument since when a ref does no exist, Git complains
-    // about the fact that the command is ambiguous.
-    if (this.executeGitCommand(new String[] {"rev-parse", branch, "--"}, false, AllowExitCode.ALL, pathWorkspace, null, false) != 0) {
+    if (this.resolveRevision(pathWorkspace, branch) == null) {
       DefaultGitImpl.logger.info("No rebase performed in " + pathWorkspace + " since upstream branch " + branch + " does not exist.");
       return false;
     }
@@ -644,9 +936,7 @@ public class DefaultGitImpl implements Git {
 
     branch = "refs/remotes/origin/" + branch;
 
-    // We add "--" as a last argument since when a ref does no exist, Git complains
-    // about the fact that the command is ambiguous.
-    if (this.executeGitCommand(new String[] {"rev-parse", branch, "--"}, false, AllowExitCode.ALL, pathWorkspace, null, false) != 0) {
+    if (this.resolveRevision(pathWorkspace, branch) == null) {
       DefaultGitImpl.logger.info("No merge performed in " + pathWorkspace + " since upstream branch " + branch + " does not exist.");
       return false;
     }
@@ -718,9 +1008,7 @@ public class DefaultGitImpl implements Git {
 
   @Override
   public boolean isVersionExists(Path pathWorkspace, Version version) {
-    // We add "--" as a last argument since when a ref does no exist, Git complains
-    // about the fact that the command is ambiguous.
-    if (this.executeGitCommand(new String[] {"rev-parse", this.convertToRef(pathWorkspace, version), "--"}, false, AllowExitCode.ALL, pathWorkspace, null, false) == 0) {
+    if (this.resolveRevision(pathWorkspace, this.convertToRef(pathWorkspace, version)) != null) {
       DefaultGitImpl.logger.info("Version " + version + " exists.");
       return true;
     } else {
@@ -838,10 +1126,14 @@ public class DefaultGitImpl implements Git {
     // branch is null it means we are in detached HEAD state and thus probably on a
     // tag.
 
-    stringBuilder = new StringBuilder();
-    this.executeGitCommand(new String[] {"describe", "--exact-match"}, false, AllowExitCode.NONE, pathWorkspace, stringBuilder, true);
+    version = this.getVersionStaticHead(pathWorkspace);
 
-    version = new Version(VersionType.STATIC, stringBuilder.toString());
+    if (version == null) {
+      stringBuilder = new StringBuilder();
+      this.executeGitCommand(new String[] {"describe", "--exact-match"}, false, AllowExitCode.NONE, pathWorkspace, stringBuilder, true);
+
+      version = new Version(VersionType.STATIC, stringBuilder.toString());
+    }
 
     this.setPathWorkspaceVersion(pathWorkspace, version);
 
@@ -850,14 +1142,22 @@ public class DefaultGitImpl implements Git {
 
   @Override
   public List<Version> getListVersionStatic(Path pathWorkspace) {
+    GitTagIndex gitTagIndex;
     StringBuilder stringBuilder;
     BufferedReader bufferedReader;
     String tagLine;
     List<Version> listVersionStatic;
 
+    gitTagIndex = GitTagIndex.get(pathWorkspace);
+
+    if (gitTagIndex != null) {
+      // The caller may modify the List (sort it for instance).
+      return new ArrayList<Version>(gitTagIndex.getListVersionStatic(this));
+    }
+
     try {
       stringBuilder = new StringBuilder();
-      this.executeGitCommand(new String[] {"show-ref", "--tag", "-d"}, false, AllowExitCode.NONE, pathWorkspace, stringBuilder, true);
+      this.executeGitCommand(new String[] {"show-ref", "--tag", "-d"}, false, AllowExitCode.ONE, pathWorkspace, stringBuilder, true);
 
       bufferedReader = new BufferedReader(new StringReader(stringBuilder.toString()));
       listVersionStatic = new ArrayList<Version>();
@@ -887,6 +1187,64 @@ public class DefaultGitImpl implements Git {
     return listVersionStatic;
   }
 
+  @Override
+  public Map<String, List<Version>> getMapCommitIdListVersionStatic(Path pathWorkspace) {
+    GitTagIndex gitTagIndex;
+    StringBuilder stringBuilder;
+    BufferedReader bufferedReader;
+    String tagLine;
+    Map<String, List<Version>> mapCommitIdListVersionStatic;
+
+    gitTagIndex = GitTagIndex.get(pathWorkspace);
+
+    if (gitTagIndex != null) {
+      return gitTagIndex.getMapCommitIdListVersionStatic(this);
+    }
+
+    // We use "git show-ref --tags -d" to list all tags together with the commit IDs.
+    // The -d option allows us to differentiate annotated and lightweight tags:
+    // annotated tags are suffixed with ^{}.
+    try {
+      stringBuilder = new StringBuilder();
+
+      // It seems show-ref returns 1 when no reference is returned. This is not an
+      // exception.
+      this.executeGitCommand(new String[] {"show-ref", "--tag", "-d"}, false, AllowExitCode.ONE, pathWorkspace, stringBuilder, true);
+
+      bufferedReader = new BufferedReader(new StringReader(stringBuilder.toString()));
+      mapCommitIdListVersionStatic = new HashMap<String, List<Version>>();
+
+      while ((tagLine = bufferedReader.readLine()) != null) {
+        String[] arrayTagLineComponent;
+        String commitId;
+        String tagRef;
+
+        arrayTagLineComponent = tagLine.split("\\s+");
+
+        commitId = arrayTagLineComponent[0];
+        tagRef = arrayTagLineComponent[1];
+
+        if (tagRef.endsWith("^{}")) {
+          List<Version> listVersion;
+
+          listVersion = mapCommitIdListVersionStatic.get(commitId);
+
+          if (listVersion == null) {
+            listVersion = new ArrayList<Version>();
+            mapCommitIdListVersionStatic.put(commitId, listVersion);
+          }
+
+          // See getListVersionStatic for the magic numbers.
+          listVersion.add(new Version(VersionType.STATIC, tagRef.substring(10, tagRef.length() - 3)));
+        }
+      }
+    } catch (IOException ioe) {
+      throw new RuntimeException(ioe);
+    }
+
+    return mapCommitIdListVersionStatic;
+  }
+
   @Override
   public void createBranch(Path pathWorkspace, String branch, boolean indSwitch) {
     this.executeGitCommand(new String[] {"branch", branch}, false, AllowExitCode.NONE, pathWorkspace, null, false);
@@ -943,6 +1301,50 @@ public class DefaultGitImpl implements Git {
     this.executeGitCommand(new String[] {"commit", "-m", message}, false, AllowExitCode.NONE, pathWorkspace, null, false);
   }
 
+  /**
+   * Returns the static {@link Version} corresponding to the commit HEAD refers to,
+   * by looking for an annotated tag which refers to that commit, as done by
+   * git describe --exact-match.
+   *
+   * <p>The commit is looked up in the Map of commit IDs to static Version's
+   * maintained by {@link GitTagIndex}. When more than one annotated tag refers to
+   * the commit, git describe selects the most recent one based on the tag date,
+   * which is not available here. null is then returned so that the caller
+   * invokes Git and the selection is the same as always.
+   *
+   * @param pathWorkspace Path to the workspace.
+   * @return See description. null if the tags cannot be read directly or if no
+   *   single annotated tag refers to the commit, in which case the caller is
+   *   expected to invoke Git.
+   */
+  private Version getVersionStaticHead(Path pathWorkspace) {
+    GitTagIndex gitTagIndex;
+    GitRefDatabase gitRefDatabase;
+    String objectIdHead;
+    List<Version> listVersionStatic;
+
+    gitTagIndex = GitTagIndex.get(pathWorkspace);
+    gitRefDatabase = GitRefDatabase.get(pathWorkspace);
+
+    if ((gitTagIndex == null) || (gitRefDatabase == null)) {
+      return null;
+    }
+
+    objectIdHead = gitRefDatabase.resolveRef("HEAD");
+
+    if (objectIdHead == null) {
+      return null;
+    }
+
+    listVersionStatic = gitTagIndex.getMapCommitIdListVersionStatic(this).get(objectIdHead);
+
+    if ((listVersionStatic == null) || (listVersionStatic.size() != 1)) {
+      return null;
+    }
+
+    return listVersionStatic.get(0);
+  }
+
   @Override
   public String convertToRef(Path pathWorkspace, Version version) {
     if (version.getVersionType() == VersionType.STATIC) {
@@ -953,9 +1355,7 @@ public class DefaultGitImpl implements Git {
 
       ref = "refs/heads/" + version.getVersion();
 
-      // We add "--" as a last argument since when a ref does no exist, Git complains
-      // about the fact that the command is ambiguous.
-      if (this.executeGitCommand(new String[] {"rev-parse", ref, "--"}, false, AllowExitCode.ALL, pathWorkspace, null, false) == 0) {
+      if (this.resolveRevision(pathWorkspace, ref) != null) {
         return ref;
       } else {
         return "refs/remotes/origin/" + version.getVersion();
@@ -963,6 +1363,112 @@ public class DefaultGitImpl implements Git {
     }
   }
 
+  @Override
+  public String resolveRevision(Path pathWorkspace, String revision) {
+    Matcher matcher;
+    GitRefDatabase gitRefDatabase;
+    GitCatFileBatch gitCatFileBatch;
+    int holdCount;
+    StringBuilder stringBuilder;
+
+    // Complete refs, possibly peeled, are generally resolved by reading the refs
+    // directly.
+    if ((matcher = DefaultGitImpl.patternRefPeeled.matcher(revision)).matches() && ((gitRefDatabase = GitRefDatabase.get(pathWorkspace)) != null)) {
+      String ref;
+      String peelSuffix;
+      String objectId;
+      String objectIdPeeled;
+
+      ref = matcher.group(1);
+      peelSuffix = matcher.group(2);
+
+      objectId = gitRefDatabase.resolveRef(ref);
+
+      if ((objectId == null) || (peelSuffix == null)) {
+        return objectId;
+      }
+
+      objectIdPeeled = gitRefDatabase.getObjectIdPeeled(ref);
+
+      // If objectIdPeeled is null, whether the ref is an annotated tag is not known
+      // without reading the object and we fall back to Git below.
+      if (objectIdPeeled != null) {
+        if (peelSuffix.equals("^{tag}")) {
+          // The ref is an annotated tag only if its peeled object ID differs.
+          return objectIdPeeled.equals(objectId) ? null : objectId;
+        } else {
+          return objectIdPeeled;
+        }
+      }
+    }
+
+    // Revisions are resolved using a long-lived git cat-file --batch process for the
+    // repository in order to avoid the overhead of starting a process for each
+    // revision. The same process is used by getFileContent.
+    try {
+      gitCatFileBatch = GitCatFileBatch.get(this.pathExecutable, pathWorkspace);
+
+      holdCount = SharedStateLock.releaseForBlockingOperation(pathWorkspace);
+
+      try {
+        return gitCatFileBatch.resolve(revision);
+      } finally {
+        SharedStateLock.reacquireAfterBlockingOperation(pathWorkspace, holdCount);
+      }
+    } catch (IOException ioe) {
+      DefaultGitImpl.logger.warn("Revision " + revision + " could not be resolved within " + pathWorkspace + " using git cat-file --batch. Falling back to git rev-parse.", ioe);
+      GitCatFileBatch.invalidate(pathWorkspace);
+    }
+
+    stringBuilder = new StringBuilder();
+
+    // We add "--" as a last argument since when a ref does no exist, Git complains
+    // about the fact that the command is ambiguous.
+    if (this.executeGitCommand(new String[] {"rev-parse", revision, "--"}, false, AllowExitCode.ALL, pathWorkspace, stringBuilder, true) == 0) {
+      // With "--", rev-parse outputs "--" after the object ID.
+      return stringBuilder.toString().split("\\s+")[0];
+    } else {
+      return null;
+    }
+  }
+
+  @Override
+  public byte[] getFileContent(Path pathWorkspace, String revision, String path) {
+    String object;
+    GitCatFileBatch gitCatFileBatch;
+    int holdCount;
+    ByteArrayOutputStream byteArrayOutputStream;
+
+    object = revision + ':' + path;
+
+    // Files are read using a long-lived git cat-file --batch process for the
+    // repository, for the same reason as for resolveRevision.
+    try {
+      gitCatFileBatch = GitCatFileBatch.get(this.pathExecutable, pathWorkspace);
+
+      holdCount = SharedStateLock.releaseForBlockingOperation(pathWorkspace);
+
+      try {
+        return gitCatFileBatch.read(object);
+      } finally {
+        SharedStateLock.reacquireAfterBlockingOperation(pathWorkspace, holdCount);
+      }
+    } catch (IOException ioe) {
+      DefaultGitImpl.logger.warn("Object " + object + " could not be read within " + pathWorkspace + " using git cat-file --batch. Falling back to git cat-file blob.", ioe);
+      GitCatFileBatch.invalidate(pathWorkspace);
+    }
+
+    byteArrayOutputStream = new ByteArrayOutputStream();
+
+    // The raw bytes of the output are returned so that the content is not altered by
+    // character set conversions.
+    if (this.executeGitCommand(new String[] {"cat-file", "blob", object}, false, AllowExitCode.ALL, pathWorkspace, null, false, byteArrayOutputStream) == 0) {
+      return byteArrayOutputStream.toByteArray();
+    } else {
+      return null;
+    }
+  }
+
   @SuppressWarnings("unchecked")
   private Version getPathWorkspaceVersion(Path pathWorkspace) {
     ExecContext execContext;
@@ -0,0 +1,399 @@
+/*
+ * Copyright 2015 - 2017 AZYVA INC.
+ *
+ * This file is part of Dragom.
+ *
+ * Dragom is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Dragom is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Dragom.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.azyva.dragom.git.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Long-lived "git cat-file --batch" process for a Git repository.
+ *
+ * <p>The process serves both the resolution of revisions to object IDs and the
+ * reading of the content of objects, generally files within a revision specified
+ * as &lt;revision&gt;:&lt;path&gt;. This allows resolving revisions and reading
+ * files such as POMs for any revision without checking it out and without starting
+ * a process for each revision or file.
+ *
+ * <p>"git cat-file --batch-check" would be sufficient for resolving revisions,
+ * but a single process per repository is used for both. The content of resolved
+ * objects, generally commits and tags which are small, is simply read and
+ * discarded.
+ *
+ * <p>One process is kept per repository. The number of processes kept
+ * simultaneously is limited and the least recently used process is terminated
+ * when needed.
+ *
+ * <p>{@link DefaultGitImpl} calls {@link #invalidate} after executing a Git
+ * command which can modify the repository.
+ *
+ * @author David Raymond
+ */
+class GitCatFileBatch {
+  /**
+   * Logger for the class.
+   */
+  private static final Logger logger = LoggerFactory.getLogger(GitCatFileBatch.class);
+
+  /**
+   * Maximum number of processes kept simultaneously.
+   */
+  private static final int MAX_PROCESSES = 16;
+
+  /**
+   * Map of the processes, in access order so that the least recently used process
+   * can be terminated when the maximum is reached.
+   *
+   * <p>Accessed only in static synchronized methods.
+   */
+  private static Map<Path, GitCatFileBatch> mapPathGitCatFileBatch = new LinkedHashMap<Path, GitCatFileBatch>(GitCatFileBatch.MAX_PROCESSES, 0.75f, true) {
+    // Required since LinkedHashMap is Serializable.
+    private static final long serialVersionUID = 0;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Path, GitCatFileBatch> mapEntryEldest) {
+      if (this.size() > GitCatFileBatch.MAX_PROCESSES) {
+        mapEntryEldest.getValue().close();
+        return true;
+      }
+
+      return false;
+    }
+  };
+
+  static {
+    Runtime.getRuntime().addShutdownHook(new Thread() {
+      @Override
+      public void run() {
+        GitCatFileBatch.closeAll();
+      }
+    });
+  }
+
+  /**
+   * Path to the Git repository.
+   */
+  private Path pathWorkspace;
+
+  /**
+   * Process.
+   */
+  private Process process;
+
+  /**
+   * OutputStream for writing to the standard input of the process.
+   */
+  private OutputStream outputStream;
+
+  /**
+   * InputStream for reading the standard output of the process.
+   *
+   * <p>The output contains binary object content and is therefore not read using
+   * a Reader.
+   */
+  private InputStream inputStream;
+
+  /**
+   * Constructor.
+   *
+   * @param pathExecutable Path to the git executable.
+   * @param pathWorkspace Path to the Git repository.
+   * @throws IOException If the process cannot be started.
+   */
+  private GitCatFileBatch(Path pathExecutable, Path pathWorkspace) throws IOException {
+    ProcessBuilder processBuilder;
+
+    this.pathWorkspace = pathWorkspace;
+
+    processBuilder = new ProcessBuilder(pathExecutable.toString(), "cat-file", "--batch");
+    processBuilder.directory(pathWorkspace.toFile());
+
+    // Git writes to stderr only when it fails fatally, in which case the output is
+    // not recognized and the caller falls back to a regular Git command. stderr is
+    // not merged into stdout since error messages would then be confused with object
+    // content.
+    processBuilder.redirectError(ProcessBuilder.Redirect.INHERIT);
+
+    GitCatFileBatch.logger.info("Starting Git command " + pathExecutable + " cat-file --batch within " + pathWorkspace + '.');
+
+    this.process = processBuilder.start();
+    this.outputStream = new BufferedOutputStream(this.process.getOutputStream());
+    this.inputStream = new BufferedInputStream(this.process.getInputStream());
+  }
+
+  /**
+   * Returns the GitCatFileBatch for a Git repository, starting the process if
+   * required.
+   *
+   * @param pathExecutable Path to the git executable.
+   * @param pathWorkspace Path to the Git repository.
+   * @return See description.
+   * @throws IOException If the process cannot be started.
+   */
+  static synchronized GitCatFileBatch get(Path pathExecutable, Path pathWorkspace) throws IOException {
+    GitCatFileBatch gitCatFileBatch;
+
+    gitCatFileBatch = GitCatFileBatch.mapPathGitCatFileBatch.get(pathWorkspace);
+
+    if ((gitCatFileBatch != null) && !gitCatFileBatch.isAlive()) {
+      gitCatFileBatch.close();
+      gitCatFileBatch = null;
+    }
+
+    if (gitCatFileBatch == null) {
+      gitCatFileBatch = new GitCatFileBatch(pathExecutable, pathWorkspace);
+      GitCatFileBatch.mapPathGitCatFileBatch.put(pathWorkspace, gitCatFileBatch);
+    }
+
+    return gitCatFileBatch;
+  }
+
+  /**
+   * Terminates the process for a Git repository, if any.
+   *
+   * @param pathWorkspace Path to the Git repository.
+   */
+  static synchronized void invalidate(Path pathWorkspace) {
+    GitCatFileBatch gitCatFileBatch;
+
+    gitCatFileBatch = GitCatFileBatch.mapPathGitCatFileBatch.remove(pathWorkspace);
+
+    if (gitCatFileBatch != null) {
+      gitCatFileBatch.close();
+    }
+  }
+
+  /**
+   * Terminates all processes.
+   */
+  static synchronized void closeAll() {
+    List<GitCatFileBatch> listGitCatFileBatch;
+
+    listGitCatFileBatch = new ArrayList<GitCatFileBatch>(GitCatFileBatch.mapPathGitCatFileBatch.values());
+    GitCatFileBatch.mapPathGitCatFileBatch.clear();
+
+    for (GitCatFileBatch gitCatFileBatch: listGitCatFileBatch) {
+      gitCatFileBatch.close();
+    }
+  }
+
+  /**
+   * Resolves a revision to an object ID.
+   *
+   * @param revision Revision. Must not contain newlines.
+   * @return Object ID. null if the revision cannot be resolved.
+   * @throws IOException If communication with the process fails, in which case the
+   *   caller should invalidate this GitCatFileBatch and fall back to a regular Git
+   *   command.
+   */
+  synchronized String resolve(String revision) throws IOException {
+    String[] arrayHeaderField;
+
+    arrayHeaderField = this.request(revision);
+
+    if (arrayHeaderField == null) {
+      return null;
+    }
+
+    this.readContent(revision, arrayHeaderField, false);
+
+    return arrayHeaderField[0];
+  }
+
+  /**
+   * Reads the content of a blob.
+   *
+   * @param object Object, generally &lt;revision&gt;:&lt;path&gt;. Must not contain
+   *   newlines.
+   * @return Content of the blob. null if the object does not exist or is not a
+   *   blob (a directory, for instance).
+   * @throws IOException If communication with the process fails, in which case the
+   *   caller should invalidate this GitCatFileBatch and fall back to a regular Git
+   *   command.
+   */
+  synchronized byte[] read(String object) throws IOException {
+    String[] arrayHeaderField;
+    byte[] arrayByteContent;
+
+    arrayHeaderField = this.request(object);
+
+    if (arrayHeaderField == null) {
+      return null;
+    }
+
+    arrayByteContent = this.readContent(object, arrayHeaderField, true);
+
+    if (!arrayHeaderField[1].equals("blob")) {
+      return null;
+    }
+
+    return arrayByteContent;
+  }
+
+  /**
+   * Requests an object from the process and reads the header which follows.
+   *
+   * <p>If the object exists, the caller must then call {@link #readContent}.
+   *
+   * @param object Object.
+   * @return Fields of the header: object ID, type and size. null if the object
+   *   does not exist.
+   * @throws IOException If communication with the process fails.
+   */
+  private String[] request(String object) throws IOException {
+    String header;
+    String[] arrayHeaderField;
+
+    this.outputStream.write(object.getBytes(StandardCharsets.UTF_8));
+    this.outputStream.write('\n');
+    this.outputStream.flush();
+
+    header = this.readLine();
+
+    // The header is either "<object ID> <type> <size>", followed by the content and
+    // a newline, or "<object> missing" (or "<object> ambiguous").
+    if (header.equals(object + " missing") || header.equals(object + " ambiguous")) {
+      return null;
+    }
+
+    arrayHeaderField = header.split(" ");
+
+    if (arrayHeaderField.length != 3) {
+      throw new IOException("Unrecognized output " + header + " from Git cat-file --batch within " + this.pathWorkspace + " for object " + object + '.');
+    }
+
+    return arrayHeaderField;
+  }
+
+  /**
+   * Reads the content of an object following its header, as well as the newline
+   * which follows the content.
+   *
+   * @param object Object.
+   * @param arrayHeaderField Fields of the header returned by {@link #request}.
+   * @param indKeep Indicates to keep the content. If false, the content is
+   *   discarded.
+   * @return Content. null if indKeep is false.
+   * @throws IOException If communication with the process fails.
+   */
+  private byte[] readContent(String object, String[] arrayHeaderField, boolean indKeep) throws IOException {
+    int size;
+    byte[] arrayByteContent;
+    int offset;
+
+    try {
+      size = Integer.parseInt(arrayHeaderField[2]);
+    } catch (NumberFormatException nfe) {
+      throw new IOException("Unrecognized output " + String.join(" ", arrayHeaderField) + " from Git cat-file --batch within " + this.pathWorkspace + " for object " + object + '.', nfe);
+    }
+
+    // When the content is discarded, it is read in chunks in a reusable buffer.
+    arrayByteContent = new byte[indKeep ? size : Math.min(size, 8192)];
+    offset = 0;
+
+    while (offset < size) {
+      int count;
+
+      if (indKeep) {
+        count = this.inputStream.read(arrayByteContent, offset, size - offset);
+      } else {
+        count = this.inputStream.read(arrayByteContent, 0, Math.min(size - offset, arrayByteContent.length));
+      }
+
+      if (count == -1) {
+        throw new IOException("Git cat-file --batch within " + this.pathWorkspace + " terminated unexpectedly.");
+      }
+
+      offset += count;
+    }
+
+    // Newline following the content.
+    if (this.inputStream.read() != '\n') {
+      throw new IOException("Unrecognized output from Git cat-file --batch within " + this.pathWorkspace + " for object " + object + '.');
+    }
+
+    return indKeep ? arrayByteContent : null;
+  }
+
+  /**
+   * Reads a line from the standard output of the process.
+   *
+   * @return Line, without the newline.
+   * @throws IOException If the process terminated.
+   */
+  private String readLine() throws IOException {
+    ByteArrayOutputStream byteArrayOutputStream;
+    int aByte;
+
+    byteArrayOutputStream = new ByteArrayOutputStream();
+
+    while ((aByte = this.inputStream.read()) != '\n') {
+      if (aByte == -1) {
+        throw new IOException("Git cat-file --batch within " + this.pathWorkspace + " terminated unexpectedly.");
+      }
+
+      byteArrayOutputStream.write(aByte);
+    }
+
+    return new String(byteArrayOutputStream.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @return Indicates if the process is still alive.
+   */
+  private boolean isAlive() {
+    try {
+      this.process.exitValue();
+      return false;
+    } catch (IllegalThreadStateException itse) {
+      return true;
+    }
+  }
+
+  /**
+   * Terminates the process.
+   *
+   * <p>Closing the standard input of the process causes it to terminate normally.
+   */
+  private void close() {
+    try {
+      this.outputStream.close();
+    } catch (IOException ioe) {
+      this.process.destroy();
+    }
+
+    try {
+      this.inputStream.close();
+    } catch (IOException ioe) {
+    }
+  }
+}
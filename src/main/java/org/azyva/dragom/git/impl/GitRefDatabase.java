@@ -0,0 +1,463 @@
+/*
+ * Copyright 2015 - 2017 AZYVA INC.
+ *
+ * This file is part of Dragom.
+ *
+ * Dragom is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Dragom is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Dragom.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.azyva.dragom.git.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.azyva.dragom.execcontext.ExecContext;
+import org.azyva.dragom.execcontext.support.ExecContextHolder;
+
+/**
+ * Reads the refs of a Git repository directly from the files in the .git
+ * directory, without invoking Git.
+ *
+ * <p>HEAD, loose refs (files under .git/refs) and packed refs (.git/packed-refs)
+ * are supported. Loose refs take precedence over packed refs, as in Git.
+ *
+ * <p>Loose refs are small files which are read each time they are needed. The
+ * packed-refs file can be large and is cached. Git rewrites it during many
+ * operations, such as deleting a tag or a branch, fetch --prune, clone and the
+ * gc --auto which can follow a fetch. The cache is therefore guarded in two ways:
+ * <ul>
+ * <li>{@link DefaultGitImpl} calls {@link #invalidate} after executing a Git
+ *     command which can modify the repository, so that modifications made by
+ *     Dragom itself are always seen;
+ * <li>The packed-refs file is parsed again when its modification timestamp, size
+ *     or file key (which identifies the file on platforms which support it)
+ *     changes. Git always rewrites packed-refs by renaming a new file over it,
+ *     so that the file key changes even if the timestamp and size do not. This
+ *     covers modifications made outside of Dragom during its execution, except
+ *     on platforms without file keys where the coarse resolution of the
+ *     modification timestamp can make it miss a rewrite which preserves the
+ *     size.
+ * </ul>
+ *
+ * <p>Only reads are supported. Refs are always modified by invoking Git.
+ *
+ * <p>Some information, such as whether a loose tag is annotated, is not
+ * available without reading objects. In such cases the methods return null and
+ * the caller must fall back to invoking Git.
+ *
+ * @author David Raymond
+ */
+class GitRefDatabase {
+  /**
+   * Transient data to cache the GitRefDatabase for workspace paths.
+   *
+   * <p>The key of the Map is the path.
+   */
+  private static final String TRANSIENT_DATA_MAP_PATH_GIT_REF_DATABASE = GitRefDatabase.class.getName() + ".MapPathGitRefDatabase";
+
+  /**
+   * Prefix of a symbolic ref.
+   */
+  private static final String SYMBOLIC_REF_PREFIX = "ref: ";
+
+  /**
+   * Prefix of tag refs.
+   */
+  static final String REF_PREFIX_TAGS = "refs/tags/";
+
+  /**
+   * Maximum depth of symbolic refs, as in Git.
+   */
+  private static final int MAX_SYMBOLIC_REF_DEPTH = 5;
+
+  /**
+   * Path to the .git directory.
+   */
+  private Path pathDotGit;
+
+  /**
+   * Modification timestamp of the packed-refs file when it was parsed. null if
+   * not parsed or the file does not exist.
+   */
+  private FileTime fileTimePackedRefsModTimestamp;
+
+  /**
+   * Size of the packed-refs file when it was parsed.
+   */
+  private long packedRefsSize;
+
+  /**
+   * File key of the packed-refs file when it was parsed. null if not parsed, if
+   * the file does not exist or if the platform does not support file keys.
+   */
+  private Object packedRefsFileKey;
+
+  /**
+   * Indicates that the packed-refs file was parsed and did not exist.
+   */
+  private boolean indPackedRefsMissing;
+
+  /**
+   * Map of packed refs to their object ID.
+   */
+  private Map<String, String> mapPackedRefObjectId;
+
+  /**
+   * Map of packed refs to their peeled object ID. Only refs which are annotated
+   * tags have an entry.
+   */
+  private Map<String, String> mapPackedRefObjectIdPeeled;
+
+  /**
+   * Indicates that the packed-refs file specifies the peeled object ID of all
+   * annotated tags under refs/tags/, so that such a tag without a peeled object ID
+   * is known not to be annotated ("peeled" trait).
+   */
+  private boolean indPackedRefsPeeled;
+
+  /**
+   * Indicates that the packed-refs file specifies the peeled object ID of all
+   * refs which are annotated tags, regardless of where they are ("fully-peeled"
+   * trait).
+   */
+  private boolean indPackedRefsFullyPeeled;
+
+  /**
+   * Constructor.
+   *
+   * @param pathDotGit Path to the .git directory.
+   */
+  private GitRefDatabase(Path pathDotGit) {
+    this.pathDotGit = pathDotGit;
+  }
+
+  /**
+   * Returns the GitRefDatabase for a workspace.
+   *
+   * @param pathWorkspace Path to the workspace.
+   * @return See description. null if .git is not a directory (a Git worktree or a
+   *   submodule for instance), in which case the caller must invoke Git.
+   */
+  @SuppressWarnings("unchecked")
+  static GitRefDatabase get(Path pathWorkspace) {
+    ExecContext execContext;
+    Map<Path, GitRefDatabase> mapPathGitRefDatabase;
+    GitRefDatabase gitRefDatabase;
+    Path pathDotGit;
+
+    execContext = ExecContextHolder.get();
+
+    mapPathGitRefDatabase = (Map<Path, GitRefDatabase>)execContext.getTransientData(GitRefDatabase.TRANSIENT_DATA_MAP_PATH_GIT_REF_DATABASE);
+
+    if (mapPathGitRefDatabase == null) {
+      mapPathGitRefDatabase = new HashMap<Path, GitRefDatabase>();
+      execContext.setTransientData(GitRefDatabase.TRANSIENT_DATA_MAP_PATH_GIT_REF_DATABASE, mapPathGitRefDatabase);
+    }
+
+    gitRefDatabase = mapPathGitRefDatabase.get(pathWorkspace);
+
+    // The directory can be deleted (and recreated) during the execution, so we
+    // verify it still exists each time.
+    pathDotGit = pathWorkspace.resolve(".git");
+
+    if (!Files.isDirectory(pathDotGit)) {
+      mapPathGitRefDatabase.remove(pathWorkspace);
+      return null;
+    }
+
+    if (gitRefDatabase == null) {
+      gitRefDatabase = new GitRefDatabase(pathDotGit);
+      mapPathGitRefDatabase.put(pathWorkspace, gitRefDatabase);
+    }
+
+    return gitRefDatabase;
+  }
+
+  /**
+   * Discards the GitRefDatabase for a workspace, if any.
+   *
+   * @param pathWorkspace Path to the workspace.
+   */
+  @SuppressWarnings("unchecked")
+  static void invalidate(Path pathWorkspace) {
+    Map<Path, GitRefDatabase> mapPathGitRefDatabase;
+
+    mapPathGitRefDatabase = (Map<Path, GitRefDatabase>)ExecContextHolder.get().getTransientData(GitRefDatabase.TRANSIENT_DATA_MAP_PATH_GIT_REF_DATABASE);
+
+    if (mapPathGitRefDatabase != null) {
+      mapPathGitRefDatabase.remove(pathWorkspace);
+    }
+  }
+
+  /**
+   * Returns the ref HEAD refers to.
+   *
+   * @return See description. null if HEAD is detached.
+   */
+  String getHeadSymbolicRef() {
+    String head;
+
+    head = this.readLooseRef("HEAD");
+
+    if (head == null) {
+      throw new RuntimeException("HEAD within " + this.pathDotGit + " does not exist.");
+    }
+
+    if (head.startsWith(GitRefDatabase.SYMBOLIC_REF_PREFIX)) {
+      return head.substring(GitRefDatabase.SYMBOLIC_REF_PREFIX.length());
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * Resolves a ref to an object ID, following symbolic refs.
+   *
+   * @param ref Complete ref such as HEAD or refs/heads/master.
+   * @return Object ID. null if the ref does not exist.
+   */
+  String resolveRef(String ref) {
+    for (int i = 0; i <= GitRefDatabase.MAX_SYMBOLIC_REF_DEPTH; i++) {
+      String value;
+
+      value = this.readLooseRef(ref);
+
+      if (value == null) {
+        this.refreshPackedRefs();
+        return this.mapPackedRefObjectId.get(ref);
+      }
+
+      if (!value.startsWith(GitRefDatabase.SYMBOLIC_REF_PREFIX)) {
+        return value;
+      }
+
+      ref = value.substring(GitRefDatabase.SYMBOLIC_REF_PREFIX.length());
+    }
+
+    throw new RuntimeException("Symbolic ref " + ref + " within " + this.pathDotGit + " is too deep.");
+  }
+
+  /**
+   * Returns the peeled object ID of a ref, which is the ID of the object an
+   * annotated tag refers to.
+   *
+   * @param ref Complete ref.
+   * @return Peeled object ID. The object ID of the ref itself if it is known not
+   *   to be an annotated tag. null if it is unknown whether the ref is an
+   *   annotated tag, or if the ref does not exist, which the caller is expected to
+   *   have verified.
+   */
+  String getObjectIdPeeled(String ref) {
+    String objectId;
+    String objectIdPeeled;
+
+    if (this.readLooseRef(ref) != null) {
+      // Git does not record the peeled object ID of loose refs.
+      return null;
+    }
+
+    this.refreshPackedRefs();
+
+    objectId = this.mapPackedRefObjectId.get(ref);
+
+    if (objectId == null) {
+      return null;
+    }
+
+    objectIdPeeled = this.mapPackedRefObjectIdPeeled.get(ref);
+
+    if (objectIdPeeled != null) {
+      return objectIdPeeled;
+    }
+
+    if (this.indPackedRefsFullyPeeled || (this.indPackedRefsPeeled && ref.startsWith(GitRefDatabase.REF_PREFIX_TAGS))) {
+      return objectId;
+    }
+
+    return null;
+  }
+
+  /**
+   * @return Set of the names of all tags (without the refs/tags/ prefix), sorted.
+   */
+  Set<String> getSetTagName() {
+    Set<String> setTagName;
+
+    setTagName = new TreeSet<String>();
+
+    this.refreshPackedRefs();
+
+    for (String ref: this.mapPackedRefObjectId.keySet()) {
+      if (ref.startsWith(GitRefDatabase.REF_PREFIX_TAGS)) {
+        setTagName.add(ref.substring(GitRefDatabase.REF_PREFIX_TAGS.length()));
+      }
+    }
+
+    this.collectLooseRefName(this.pathDotGit.resolve(GitRefDatabase.REF_PREFIX_TAGS), "", setTagName);
+
+    return setTagName;
+  }
+
+  /**
+   * Collects the names of the loose refs within a directory, recursively.
+   *
+   * @param pathDir Path to the directory.
+   * @param prefix Prefix of the names within the directory.
+   * @param setRefName Set where the names are added.
+   */
+  private void collectLooseRefName(Path pathDir, String prefix, Set<String> setRefName) {
+    if (!Files.isDirectory(pathDir)) {
+      return;
+    }
+
+    try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(pathDir)) {
+      for (Path path: directoryStream) {
+        String name;
+
+        name = path.getFileName().toString();
+
+        if (Files.isDirectory(path)) {
+          this.collectLooseRefName(path, prefix + name + '/', setRefName);
+        } else if (!name.endsWith(".lock")) {
+          setRefName.add(prefix + name);
+        }
+      }
+    } catch (IOException ioe) {
+      throw new RuntimeException(ioe);
+    }
+  }
+
+  /**
+   * Reads a loose ref.
+   *
+   * @param ref Complete ref.
+   * @return Content of the loose ref, trimmed. null if the loose ref does not
+   *   exist.
+   */
+  private String readLooseRef(String ref) {
+    Path pathRef;
+
+    pathRef = this.pathDotGit.resolve(ref);
+
+    try {
+      if (Files.isDirectory(pathRef)) {
+        return null;
+      }
+
+      return new String(Files.readAllBytes(pathRef), StandardCharsets.UTF_8).trim();
+    } catch (NoSuchFileException nsfe) {
+      return null;
+    } catch (IOException ioe) {
+      throw new RuntimeException(ioe);
+    }
+  }
+
+  /**
+   * Parses the packed-refs file if it changed since it was last parsed.
+   */
+  private void refreshPackedRefs() {
+    Path pathPackedRefs;
+    BasicFileAttributes basicFileAttributes;
+    BufferedReader bufferedReader;
+    String line;
+    String refLast;
+
+    pathPackedRefs = this.pathDotGit.resolve("packed-refs");
+
+    try {
+      try {
+        basicFileAttributes = Files.readAttributes(pathPackedRefs, BasicFileAttributes.class);
+      } catch (NoSuchFileException nsfe) {
+        basicFileAttributes = null;
+      }
+
+      if (basicFileAttributes == null) {
+        if (!this.indPackedRefsMissing) {
+          this.indPackedRefsMissing = true;
+          this.fileTimePackedRefsModTimestamp = null;
+          this.packedRefsFileKey = null;
+          this.mapPackedRefObjectId = new HashMap<String, String>();
+          this.mapPackedRefObjectIdPeeled = new HashMap<String, String>();
+          this.indPackedRefsPeeled = false;
+          this.indPackedRefsFullyPeeled = false;
+        }
+
+        return;
+      }
+
+      if (   !this.indPackedRefsMissing
+          && basicFileAttributes.lastModifiedTime().equals(this.fileTimePackedRefsModTimestamp)
+          && (basicFileAttributes.size() == this.packedRefsSize)
+          && ((basicFileAttributes.fileKey() == null) ? (this.packedRefsFileKey == null) : basicFileAttributes.fileKey().equals(this.packedRefsFileKey))) {
+
+        return;
+      }
+
+      this.mapPackedRefObjectId = new HashMap<String, String>();
+      this.mapPackedRefObjectIdPeeled = new HashMap<String, String>();
+      this.indPackedRefsPeeled = false;
+      this.indPackedRefsFullyPeeled = false;
+      refLast = null;
+
+      // The format of the packed-refs file is:
+      //   # pack-refs with: peeled fully-peeled sorted
+      //   <object ID> <ref>
+      //   ^<peeled object ID>
+      // where the line specifying the peeled object ID is present only for annotated
+      // tags, and only if the "peeled" trait is specified.
+      bufferedReader = Files.newBufferedReader(pathPackedRefs, StandardCharsets.UTF_8);
+
+      try {
+        while ((line = bufferedReader.readLine()) != null) {
+          if (line.startsWith("#")) {
+            if (line.startsWith("# pack-refs with:")) {
+              this.indPackedRefsPeeled = (line + ' ').contains(" peeled ");
+              this.indPackedRefsFullyPeeled = (line + ' ').contains(" fully-peeled ");
+            }
+          } else if (line.startsWith("^")) {
+            if (refLast != null) {
+              this.mapPackedRefObjectIdPeeled.put(refLast, line.substring(1).trim());
+            }
+          } else if (!line.isEmpty()) {
+            int indexSpace;
+
+            indexSpace = line.indexOf(' ');
+            refLast = line.substring(indexSpace + 1).trim();
+            this.mapPackedRefObjectId.put(refLast, line.substring(0, indexSpace));
+          }
+        }
+      } finally {
+        bufferedReader.close();
+      }
+
+      this.indPackedRefsMissing = false;
+      this.fileTimePackedRefsModTimestamp = basicFileAttributes.lastModifiedTime();
+      this.packedRefsSize = basicFileAttributes.size();
+      this.packedRefsFileKey = basicFileAttributes.fileKey();
+    } catch (IOException ioe) {
+      throw new RuntimeException(ioe);
+    }
+  }
+}
@@ -0,0 +1,466 @@
+/*
+ * Copyright 2015 - 2017 AZYVA INC.
+ *
+ * This file is part of Dragom.
+ *
+ * Dragom is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Dragom is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Dragom.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.azyva.dragom.git.impl;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.azyva.dragom.execcontext.ExecContext;
+import org.azyva.dragom.execcontext.support.ExecContextHolder;
+import org.azyva.dragom.model.Version;
+import org.azyva.dragom.model.VersionType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index of the tags of a Git repository.
+ *
+ * <p>For each tag, the index keeps the object ID the tag ref refers to and, for
+ * annotated tags, the ID of the commit the tag points to. From this are derived
+ * the List of static {@link Version}'s (annotated tags) and the Map of commit IDs
+ * to static Version's.
+ *
+ * <p>The index is kept in transient data and is persisted in the .git directory
+ * so that it survives across executions. It is not rebuilt each time it is
+ * needed. When Git is invoked for a command which can modify the refs (fetch,
+ * tag, push, etc.), {@link DefaultGitImpl} calls {@link #invalidate} and the
+ * index is refreshed the next time it is accessed. Refreshing consists in
+ * enumerating the tag refs using {@link GitRefDatabase}, which does not invoke
+ * Git, and resolving only the tags which are new or whose object ID changed.
+ * Tags which do not exist anymore are removed.
+ *
+ * <p>Sorting the static Version's is not done here since the order is defined
+ * by the VersionClassifierPlugin of the Module, which belongs to the model
+ * layer.
+ *
+ * @author David Raymond
+ */
+class GitTagIndex {
+  /**
+   * Logger for the class.
+   */
+  private static final Logger logger = LoggerFactory.getLogger(GitTagIndex.class);
+
+  /**
+   * Transient data to cache the GitTagIndex for workspace paths.
+   *
+   * <p>The key of the Map is the path.
+   */
+  private static final String TRANSIENT_DATA_MAP_PATH_GIT_TAG_INDEX = GitTagIndex.class.getName() + ".MapPathGitTagIndex";
+
+  /**
+   * Name of the file within the .git directory where the index is persisted.
+   */
+  private static final String TAG_INDEX_FILE = "dragom-tag-index";
+
+  /**
+   * Entry of the index for one tag.
+   */
+  private static class TagEntry {
+    /**
+     * Object ID the tag ref refers to. For annotated tags, this is the ID of the
+     * tag object.
+     */
+    String objectId;
+
+    /**
+     * ID of the commit the tag points to. null if the tag is not annotated.
+     */
+    String commitId;
+  }
+
+  /**
+   * Path to the workspace.
+   */
+  private Path pathWorkspace;
+
+  /**
+   * Path to the file where the index is persisted.
+   */
+  private Path pathTagIndexFile;
+
+  /**
+   * Map of tag names to TagEntry. null if not loaded yet.
+   */
+  private Map<String, TagEntry> mapTagNameTagEntry;
+
+  /**
+   * Indicates the index may not reflect the tag refs anymore and must be
+   * refreshed before being used.
+   */
+  private boolean indStale;
+
+  /**
+   * Unmodifiable List of static Version's (annotated tags), in tag name order.
+   */
+  private List<Version> listVersionStatic;
+
+  /**
+   * Unmodifiable Map of commit IDs to the List of static Version's pointing to
+   * them.
+   */
+  private Map<String, List<Version>> mapCommitIdListVersionStatic;
+
+  /**
+   * Constructor.
+   *
+   * @param pathWorkspace Path to the workspace.
+   * @param pathDotGit Path to the .git directory.
+   */
+  private GitTagIndex(Path pathWorkspace, Path pathDotGit) {
+    this.pathWorkspace = pathWorkspace;
+    this.pathTagIndexFile = pathDotGit.resolve(GitTagIndex.TAG_INDEX_FILE);
+    this.indStale = true;
+  }
+
+  /**
+   * Returns the GitTagIndex for a workspace.
+   *
+   * @param pathWorkspace Path to the workspace.
+   * @return See description. null if .git is not a directory (a Git worktree or a
+   *   submodule for instance), in which case the caller must invoke Git.
+   */
+  @SuppressWarnings("unchecked")
+  static GitTagIndex get(Path pathWorkspace) {
+    ExecContext execContext;
+    Map<Path, GitTagIndex> mapPathGitTagIndex;
+    GitTagIndex gitTagIndex;
+    Path pathDotGit;
+
+    execContext = ExecContextHolder.get();
+
+    mapPathGitTagIndex = (Map<Path, GitTagIndex>)execContext.getTransientData(GitTagIndex.TRANSIENT_DATA_MAP_PATH_GIT_TAG_INDEX);
+
+    if (mapPathGitTagIndex == null) {
+      mapPathGitTagIndex = new HashMap<Path, GitTagIndex>();
+      execContext.setTransientData(GitTagIndex.TRANSIENT_DATA_MAP_PATH_GIT_TAG_INDEX, mapPathGitTagIndex);
+    }
+
+    gitTagIndex = mapPathGitTagIndex.get(pathWorkspace);
+
+    // The directory can be deleted (and recreated) during the execution, so we
+    // verify it still exists each time.
+    pathDotGit = pathWorkspace.resolve(".git");
+
+    if (!Files.isDirectory(pathDotGit)) {
+      mapPathGitTagIndex.remove(pathWorkspace);
+      return null;
+    }
+
+    if (gitTagIndex == null) {
+      gitTagIndex = new GitTagIndex(pathWorkspace, pathDotGit);
+      mapPathGitTagIndex.put(pathWorkspace, gitTagIndex);
+    }
+
+    return gitTagIndex;
+  }
+
+  /**
+   * Marks the GitTagIndex for a workspace as stale, if it exists.
+   *
+   * <p>Called after invoking a Git command which can modify the refs.
+   *
+   * @param pathWorkspace Path to the workspace.
+   */
+  @SuppressWarnings("unchecked")
+  static void invalidate(Path pathWorkspace) {
+    Map<Path, GitTagIndex> mapPathGitTagIndex;
+    GitTagIndex gitTagIndex;
+
+    mapPathGitTagIndex = (Map<Path, GitTagIndex>)ExecContextHolder.get().getTransientData(GitTagIndex.TRANSIENT_DATA_MAP_PATH_GIT_TAG_INDEX);
+
+    if (mapPathGitTagIndex != null) {
+      gitTagIndex = mapPathGitTagIndex.get(pathWorkspace);
+
+      if (gitTagIndex != null) {
+        gitTagIndex.indStale = true;
+      }
+    }
+  }
+
+  /**
+   * Returns the List of static Version's (annotated tags).
+   *
+   * @param defaultGitImpl DefaultGitImpl used to resolve new tags.
+   * @return Unmodifiable List of static Version's, in tag name order.
+   */
+  List<Version> getListVersionStatic(DefaultGitImpl defaultGitImpl) {
+    this.refresh(defaultGitImpl);
+
+    return this.listVersionStatic;
+  }
+
+  /**
+   * Returns the Map of commit IDs to the List of static Version's (annotated
+   * tags) pointing to them.
+   *
+   * @param defaultGitImpl DefaultGitImpl used to resolve new tags.
+   * @return Unmodifiable Map.
+   */
+  Map<String, List<Version>> getMapCommitIdListVersionStatic(DefaultGitImpl defaultGitImpl) {
+    this.refresh(defaultGitImpl);
+
+    return this.mapCommitIdListVersionStatic;
+  }
+
+  /**
+   * Refreshes the index if it is stale.
+   *
+   * @param defaultGitImpl DefaultGitImpl used to resolve new tags.
+   */
+  private void refresh(DefaultGitImpl defaultGitImpl) {
+    GitRefDatabase gitRefDatabase;
+    Set<String> setTagName;
+    Iterator<String> iteratorTagName;
+    boolean indModified;
+
+    if (!this.indStale) {
+      return;
+    }
+
+    gitRefDatabase = GitRefDatabase.get(this.pathWorkspace);
+
+    if (gitRefDatabase == null) {
+      throw new RuntimeException("The .git directory within " + this.pathWorkspace + " does not exist anymore.");
+    }
+
+    if (this.mapTagNameTagEntry == null) {
+      this.load();
+    }
+
+    indModified = false;
+    setTagName = gitRefDatabase.getSetTagName();
+
+    iteratorTagName = this.mapTagNameTagEntry.keySet().iterator();
+
+    while (iteratorTagName.hasNext()) {
+      if (!setTagName.contains(iteratorTagName.next())) {
+        iteratorTagName.remove();
+        indModified = true;
+      }
+    }
+
+    for (String tagName: setTagName) {
+      String ref;
+      String objectId;
+      TagEntry tagEntry;
+
+      ref = GitRefDatabase.REF_PREFIX_TAGS + tagName;
+      objectId = gitRefDatabase.resolveRef(ref);
+
+      if (objectId == null) {
+        // The tag was deleted since the tag names were enumerated.
+        indModified |= (this.mapTagNameTagEntry.remove(tagName) != null);
+        continue;
+      }
+
+      tagEntry = this.mapTagNameTagEntry.get(tagName);
+
+      if ((tagEntry != null) && tagEntry.objectId.equals(objectId)) {
+        continue;
+      }
+
+      tagEntry = new TagEntry();
+      tagEntry.objectId = objectId;
+
+      // Only annotated tags are considered as static Version's.
+      if (defaultGitImpl.resolveRevision(this.pathWorkspace, ref + "^{tag}") != null) {
+        tagEntry.commitId = defaultGitImpl.resolveRevision(this.pathWorkspace, ref + "^{}");
+      }
+
+      this.mapTagNameTagEntry.put(tagName, tagEntry);
+      indModified = true;
+    }
+
+    if (indModified || (this.listVersionStatic == null)) {
+      this.buildDerived();
+    }
+
+    if (indModified) {
+      this.save();
+    }
+
+    this.indStale = false;
+  }
+
+  /**
+   * Builds the List of static Version's and the Map of commit IDs to static
+   * Version's from the entries.
+   */
+  private void buildDerived() {
+    List<Version> listVersionStatic;
+    Map<String, List<Version>> mapCommitIdListVersionStatic;
+
+    listVersionStatic = new ArrayList<Version>();
+    mapCommitIdListVersionStatic = new HashMap<String, List<Version>>();
+
+    for (Map.Entry<String, TagEntry> mapEntry: this.mapTagNameTagEntry.entrySet()) {
+      String commitId;
+      Version version;
+      List<Version> listVersion;
+
+      commitId = mapEntry.getValue().commitId;
+
+      if (commitId == null) {
+        continue;
+      }
+
+      version = new Version(VersionType.STATIC, mapEntry.getKey());
+      listVersionStatic.add(version);
+
+      listVersion = mapCommitIdListVersionStatic.get(commitId);
+
+      if (listVersion == null) {
+        listVersion = new ArrayList<Version>();
+        mapCommitIdListVersionStatic.put(commitId, listVersion);
+      }
+
+      listVersion.add(version);
+    }
+
+    this.listVersionStatic = Collections.unmodifiableList(listVersionStatic);
+    this.mapCommitIdListVersionStatic = Collections.unmodifiableMap(mapCommitIdListVersionStatic);
+  }
+
+  /**
+   * Loads the index from the file.
+   *
+   * <p>If the file does not exist or is invalid, the index starts empty and all
+   * tags are resolved by the refresh.
+   */
+  private void load() {
+    Map<String, TagEntry> mapTagNameTagEntry;
+    BufferedReader bufferedReader;
+    String line;
+
+    mapTagNameTagEntry = new TreeMap<String, TagEntry>();
+
+    // The format of the file is one line per tag:
+    //   <tag name>\t<object ID>\t<commit ID>
+    // where the commit ID is empty for lightweight tags.
+    try {
+      bufferedReader = Files.newBufferedReader(this.pathTagIndexFile, StandardCharsets.UTF_8);
+
+      try {
+        while ((line = bufferedReader.readLine()) != null) {
+          String[] arrayComponent;
+          TagEntry tagEntry;
+
+          arrayComponent = line.split("\t", -1);
+
+          if ((arrayComponent.length != 3) || arrayComponent[0].isEmpty() || arrayComponent[1].isEmpty()) {
+            GitTagIndex.logger.warn("Tag index file " + this.pathTagIndexFile + " is invalid. It is ignored.");
+            mapTagNameTagEntry.clear();
+            break;
+          }
+
+          tagEntry = new TagEntry();
+          tagEntry.objectId = arrayComponent[1];
+          tagEntry.commitId = arrayComponent[2].isEmpty() ? null : arrayComponent[2];
+          mapTagNameTagEntry.put(arrayComponent[0], tagEntry);
+        }
+      } finally {
+        bufferedReader.close();
+      }
+    } catch (NoSuchFileException nsfe) {
+      // The index was never persisted. It starts empty.
+    } catch (IOException ioe) {
+      GitTagIndex.logger.warn("Tag index file " + this.pathTagIndexFile + " could not be read. It is ignored.", ioe);
+      mapTagNameTagEntry.clear();
+    }
+
+    this.mapTagNameTagEntry = mapTagNameTagEntry;
+  }
+
+  /**
+   * Saves the index to the file.
+   *
+   * <p>The index is written to a temporary file which is then moved over the
+   * file so that a concurrent reader never sees a partially written file. Failing
+   * to save the index is not fatal since it is only an optimization.
+   */
+  private void save() {
+    Path pathTempFile;
+
+    pathTempFile = null;
+
+    try {
+      BufferedWriter bufferedWriter;
+
+      pathTempFile = Files.createTempFile(this.pathTagIndexFile.getParent(), GitTagIndex.TAG_INDEX_FILE, null);
+
+      bufferedWriter = Files.newBufferedWriter(pathTempFile, StandardCharsets.UTF_8);
+
+      try {
+        for (Map.Entry<String, TagEntry> mapEntry: this.mapTagNameTagEntry.entrySet()) {
+          TagEntry tagEntry;
+
+          tagEntry = mapEntry.getValue();
+
+          bufferedWriter.write(mapEntry.getKey());
+          bufferedWriter.write('\t');
+          bufferedWriter.write(tagEntry.objectId);
+          bufferedWriter.write('\t');
+
+          if (tagEntry.commitId != null) {
+            bufferedWriter.write(tagEntry.commitId);
+          }
+
+          bufferedWriter.write('\n');
+        }
+      } finally {
+        bufferedWriter.close();
+      }
+
+      try {
+        Files.move(pathTempFile, this.pathTagIndexFile, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException amnse) {
+        Files.move(pathTempFile, this.pathTagIndexFile, StandardCopyOption.REPLACE_EXISTING);
+      }
+
+      pathTempFile = null;
+    } catch (IOException ioe) {
+      GitTagIndex.logger.warn("Tag index file " + this.pathTagIndexFile + " could not be saved.", ioe);
+    } finally {
+      if (pathTempFile != null) {
+        try {
+          Files.deleteIfExists(pathTempFile);
+        } catch (IOException ioe) {
+          // Nothing we can do.
+        }
+      }
+    }
+  }
+}
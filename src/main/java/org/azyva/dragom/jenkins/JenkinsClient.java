@@ -20,6 +20,8 @@
 package org.azyva.dragom.jenkins;
 
 import java.io.Reader;
+import java.io.Writer;
+import java.util.Collection;
 import java.util.Map;
 
 import org.azyva.dragom.jenkins.impl.DefaultJenkinsClientImpl;
@@ -211,10 +213,39 @@ public interface JenkinsClient {
      */
     String getNextConsoleChunk();
 
+    /**
+     * Writes the next chunk of console output to a Writer.
+     * <p>
+     * The console output is streamed to the Writer as it is received so that memory
+     * usage does not depend on the size of the console output. Calling this method
+     * periodically while the build runs allows progressively capturing the console
+     * output, for example in a log file.
+     * <p>
+     * Nothing is written if the build is not {@link BuildState#isOutOfQueue}.
+     *
+     * @param writer Writer. It is not closed.
+     * @return Indicates if more console output may become available. false once
+     *   the build is completed and all of its console output has been written, or
+     *   if the build was cancelled while in the queue.
+     */
+    boolean writeNextConsoleChunk(Writer writer);
+
     /**
      * @return Complete console output or null if not {@link BuildState#isOutOfQueue}.
      */
     String getFullConsole();
+
+    /**
+     * Writes the complete console output to a Writer.
+     * <p>
+     * The console output is streamed to the Writer as it is received so that memory
+     * usage does not depend on the size of the console output.
+     *
+     * @param writer Writer. It is not closed.
+     * @return false if not {@link BuildState#isOutOfQueue}, in which case nothing is
+     *   written.
+     */
+    boolean writeFullConsole(Writer writer);
   }
 
   /**
@@ -305,6 +336,20 @@ public interface JenkinsClient {
    */
   Build build(String job, Map<String, String> mapBuildParam);
 
+  /**
+   * Updates and returns the {@link BuildState} of many {@link Build}'s at once.
+   * <p>
+   * The result is the same as calling {@link Build#getBuildState} on each Build,
+   * but implementations can obtain the state of all queued and running Build's
+   * with a fixed number of requests, instead of one request per Build. This is
+   * useful when monitoring many concurrent builds.
+   *
+   * @param collectionBuild Build's. They must have been returned by {@link #build}
+   *   on this JenkinsClient.
+   * @return Map of the Build's to their BuildState.
+   */
+  Map<Build, BuildState> getBuildStates(Collection<Build> collectionBuild);
+
   boolean isFolderEmpty(String folder);
 
   /**
@@ -24,11 +24,17 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.Reader;
+import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import javax.xml.bind.DatatypeConverter;
 import javax.xml.parsers.DocumentBuilder;
@@ -41,9 +47,14 @@ import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 
 /**
  * Main implementation of {@link JenkinsClient}.
+ * <p>
+ * Once set up, an instance can be used concurrently by multiple threads.
  *
  * @author David Raymond
  */
@@ -68,6 +79,18 @@ public class DefaultJenkinsClientImpl implements JenkinsClient {
    */
   private String basicAuthBase64;
 
+  /**
+   * DocumentBuilderFactory used by {@link #getForXml}. Obtaining a
+   * DocumentBuilderFactory is relatively costly, so it is created once.
+   */
+  private DocumentBuilderFactory documentBuilderFactory;
+
+  /**
+   * ObjectMapper used by {@link #getForJson}. ObjectMapper is thread-safe and
+   * relatively costly to create, so it is created once.
+   */
+  private ObjectMapper objectMapper;
+
   /**
    * Main implementation of {@link org.azyva.dragom.jenkins.JenkinsClient.Build}.
    */
@@ -109,11 +132,12 @@ public class DefaultJenkinsClientImpl implements JenkinsClient {
     String buildName;
 
     /**
-     * Next console start index. Used by {@link #getNextConsoleChunk} for progressive
-     * console output. -1 if no more data is available and build is (supposed to be)
-     * completed.
+     * Next console start index. Used by {@link #writeNextConsoleChunk} for
+     * progressive console output. This is a byte offset within the console output,
+     * as returned by Jenkins in the X-Text-Size header. -1 if no more data is
+     * available and build is (supposed to be) completed.
      */
-    int nextConsoleStart;
+    long nextConsoleStart;
 
     /**
      * Constructor.
@@ -129,6 +153,22 @@ public class DefaultJenkinsClientImpl implements JenkinsClient {
       this.buildStatePrevious = BuildState.QUEUED;
     }
 
+    /**
+     * @return Queue item ID, extracted from the queue item URL which is of the form
+     *   .../queue/item/&lt;id&gt;/.
+     */
+    String getQueueItemId() {
+      String queueItemUrl;
+
+      queueItemUrl = this.queueItemUrl;
+
+      if (queueItemUrl.endsWith("/")) {
+        queueItemUrl = queueItemUrl.substring(0, queueItemUrl.length() - 1);
+      }
+
+      return queueItemUrl.substring(queueItemUrl.lastIndexOf('/') + 1);
+    }
+
     @Override
     public BuildState getBuildState() {
       Document document;
@@ -252,16 +292,36 @@ public class DefaultJenkinsClientImpl implements JenkinsClient {
 
     @Override
     public String getNextConsoleChunk() {
-      URL url;
-      HttpURLConnection httpUrlConnection;
-      int responseCode;
+      StringWriter stringWriter;
+
+      if (this.nextConsoleStart == -1) {
+        return null;
+      }
 
       if (!this.buildStatePrevious.isOutOfQueue() && !this.getBuildState().isOutOfQueue()) {
         return null;
       }
 
+      stringWriter = new StringWriter();
+
+      this.writeNextConsoleChunk(stringWriter);
+
+      return stringWriter.toString();
+    }
+
+    @Override
+    public boolean writeNextConsoleChunk(Writer writer) {
+      URL url;
+      HttpURLConnection httpUrlConnection;
+      int responseCode;
+
       if (this.nextConsoleStart == -1) {
-        return null;
+        return false;
+      }
+
+      if (!this.buildStatePrevious.isOutOfQueue() && !this.getBuildState().isOutOfQueue()) {
+        // A build cancelled while in the queue will never have console output.
+        return this.buildStatePrevious != BuildState.CANCELLED;
       }
 
       // Because we need to handle the special headers X-Text-Size and X-More-Data, we
@@ -282,28 +342,21 @@ public class DefaultJenkinsClientImpl implements JenkinsClient {
         responseCode = httpUrlConnection.getResponseCode();
 
         if (responseCode == 200) {
-          StringBuilder stringBuilderOutput;
-          Reader reader;
-          char[] arrayCharOutput;
-          int nbCharOutputRead;
-
-          stringBuilderOutput = new StringBuilder();
-          reader = new InputStreamReader(httpUrlConnection.getInputStream(), "UTF-8");
-          arrayCharOutput = new char[1024];
+          String moreData;
 
-          while ((nbCharOutputRead = reader.read(arrayCharOutput)) != -1) {
-            stringBuilderOutput.append(arrayCharOutput, 0, nbCharOutputRead);
-          }
+          DefaultJenkinsClientImpl.copyToWriter(httpUrlConnection, writer);
 
-          reader.close();
+          // Jenkins sets X-More-Data to true only while the build is running. The header
+          // is absent once all the console output has been returned.
+          moreData = httpUrlConnection.getHeaderField("X-More-Data");
 
-          if (httpUrlConnection.getHeaderField("X-More-Data").equals("false")) {
+          if ((moreData == null) || !moreData.equals("true")) {
             this.nextConsoleStart = -1;
+            return false;
           } else {
-            this.nextConsoleStart = Integer.parseInt(httpUrlConnection.getHeaderField("X-Text-Size"));
+            this.nextConsoleStart = Long.parseLong(httpUrlConnection.getHeaderField("X-Text-Size"));
+            return true;
           }
-
-          return stringBuilderOutput.toString();
         } else {
           DefaultJenkinsClientImpl.flushInputErrorStreams(httpUrlConnection);
 
@@ -322,12 +375,25 @@ public class DefaultJenkinsClientImpl implements JenkinsClient {
 
       return DefaultJenkinsClientImpl.this.getForText(this.buildUrl + "consoleText");
     }
+
+    @Override
+    public boolean writeFullConsole(Writer writer) {
+      if (!this.buildStatePrevious.isOutOfQueue() && !this.getBuildState().isOutOfQueue()) {
+        return false;
+      }
+
+      DefaultJenkinsClientImpl.this.getForText(this.buildUrl + "consoleText", writer);
+
+      return true;
+    }
   }
 
   /**
    * Default constructor.
    */
   public DefaultJenkinsClientImpl() {
+    this.documentBuilderFactory = DocumentBuilderFactory.newInstance();
+    this.objectMapper = new ObjectMapper();
   }
 
   @Override
@@ -725,6 +791,103 @@ public class DefaultJenkinsClientImpl implements JenkinsClient {
     }
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   * At most two requests are issued, regardless of the number of Build's:
+   * <ul>
+   * <li>If a Build is {@link BuildState#QUEUED}, the items of the queue are
+   *     obtained with a single request;
+   * <li>If a Build is {@link BuildState#RUNNING}, the builds currently executing on
+   *     all the executors are obtained with a single request.
+   * </ul>
+   * These requests use tree filtering and JSON so that only the required
+   * information is returned by Jenkins.
+   * <p>
+   * A Build which is still in the queue or still executing is known to be in the
+   * same BuildState without any other request. Only the Build's which change
+   * BuildState are individually queried using {@link DefaultBuildImpl#getBuildState}
+   * to obtain the details (build URL, result, etc.).
+   */
+  @Override
+  public Map<Build, BuildState> getBuildStates(Collection<Build> collectionBuild) {
+    Map<Build, BuildState> mapBuildState;
+    boolean indQueued;
+    boolean indRunning;
+    Set<String> setQueueItemId;
+    Map<String, String> mapBuildUrlBuildName;
+
+    mapBuildState = new HashMap<Build, BuildState>();
+    indQueued = false;
+    indRunning = false;
+
+    for (Build build: collectionBuild) {
+      if (build instanceof DefaultBuildImpl) {
+        if (((DefaultBuildImpl)build).buildStatePrevious == BuildState.QUEUED) {
+          indQueued = true;
+        } else if (((DefaultBuildImpl)build).buildStatePrevious == BuildState.RUNNING) {
+          indRunning = true;
+        }
+      }
+    }
+
+    setQueueItemId = null;
+
+    if (indQueued) {
+      JsonNode jsonNodeQueue;
+
+      jsonNodeQueue = this.getForJson(this.baseUrl + "/queue/api/json?tree=" + DefaultJenkinsClientImpl.encodeUrlParam("items[id]"));
+
+      setQueueItemId = new HashSet<String>();
+
+      for (JsonNode jsonNodeItem: jsonNodeQueue.path("items")) {
+        setQueueItemId.add(jsonNodeItem.path("id").asText());
+      }
+    }
+
+    mapBuildUrlBuildName = null;
+
+    if (indRunning) {
+      JsonNode jsonNodeComputerSet;
+
+      // Builds of pipeline jobs execute on flyweight executors, which are exposed as
+      // oneOffExecutors.
+      jsonNodeComputerSet = this.getForJson(this.baseUrl + "/computer/api/json?tree=" + DefaultJenkinsClientImpl.encodeUrlParam("computer[executors[currentExecutable[url,displayName]],oneOffExecutors[currentExecutable[url,displayName]]]"));
+
+      mapBuildUrlBuildName = new HashMap<String, String>();
+
+      for (JsonNode jsonNodeComputer: jsonNodeComputerSet.path("computer")) {
+        DefaultJenkinsClientImpl.collectCurrentExecutables(jsonNodeComputer.path("executors"), mapBuildUrlBuildName);
+        DefaultJenkinsClientImpl.collectCurrentExecutables(jsonNodeComputer.path("oneOffExecutors"), mapBuildUrlBuildName);
+      }
+    }
+
+    for (Build build: collectionBuild) {
+      if (build instanceof DefaultBuildImpl) {
+        DefaultBuildImpl defaultBuildImpl;
+
+        defaultBuildImpl = (DefaultBuildImpl)build;
+
+        if ((defaultBuildImpl.buildStatePrevious == BuildState.QUEUED) && setQueueItemId.contains(defaultBuildImpl.getQueueItemId())) {
+          mapBuildState.put(build, BuildState.QUEUED);
+          continue;
+        }
+
+        if ((defaultBuildImpl.buildStatePrevious == BuildState.RUNNING) && mapBuildUrlBuildName.containsKey(defaultBuildImpl.buildUrl)) {
+          defaultBuildImpl.buildName = mapBuildUrlBuildName.get(defaultBuildImpl.buildUrl);
+          mapBuildState.put(build, BuildState.RUNNING);
+          continue;
+        }
+      }
+
+      // The Build is not known to be in the same BuildState (or is already completed,
+      // in which case no request is issued). It is queried individually.
+      mapBuildState.put(build, build.getBuildState());
+    }
+
+    return mapBuildState;
+  }
+
   @Override
   public boolean isFolderEmpty(String folder) {
     Document document;
@@ -854,15 +1017,18 @@ public class DefaultJenkinsClientImpl implements JenkinsClient {
 
       if (responseCode == 200) {
         InputStream inputStream;
-        DocumentBuilderFactory documentBuilderFactory;
         DocumentBuilder documentBuilder;
         Document document;
 
         inputStream = httpUrlConnection.getInputStream();
-        documentBuilderFactory = DocumentBuilderFactory.newInstance();
-        documentBuilder = documentBuilderFactory.newDocumentBuilder();
+
+        // DocumentBuilderFactory is not guaranteed to be thread-safe.
+        synchronized (this.documentBuilderFactory) {
+          documentBuilder = this.documentBuilderFactory.newDocumentBuilder();
+        }
+
         document = documentBuilder.parse(inputStream);
-        inputStream.close();
+        DefaultJenkinsClientImpl.drainClose(inputStream);
         return document;
       } else {
         DefaultJenkinsClientImpl.flushInputErrorStreams(httpUrlConnection);
@@ -874,6 +1040,53 @@ public class DefaultJenkinsClientImpl implements JenkinsClient {
     }
   }
 
+  /**
+   * Convenience method to issue a GET request on a URL, expect a JSON document and
+   * return it.
+   * <p>
+   * The response is completely consumed so that the underlying connection can be
+   * reused (HTTP keep-alive) by subsequent requests.
+   *
+   * @param stringUrl URL.
+   * @return JsonNode.
+   */
+  private JsonNode getForJson(String stringUrl) {
+    URL url;
+    HttpURLConnection httpUrlConnection;
+    int responseCode;
+
+    try {
+      url = new URL(stringUrl);
+
+      httpUrlConnection = (HttpURLConnection)url.openConnection();
+
+      this.setBasicAuthBase64(httpUrlConnection);
+
+      httpUrlConnection.setRequestMethod("GET");
+      httpUrlConnection.setInstanceFollowRedirects(false);
+
+      httpUrlConnection.connect();
+
+      responseCode = httpUrlConnection.getResponseCode();
+
+      if (responseCode == 200) {
+        InputStream inputStream;
+        JsonNode jsonNode;
+
+        inputStream = httpUrlConnection.getInputStream();
+        jsonNode = this.objectMapper.readTree(inputStream);
+        DefaultJenkinsClientImpl.drainClose(inputStream);
+        return jsonNode;
+      } else {
+        DefaultJenkinsClientImpl.flushInputErrorStreams(httpUrlConnection);
+
+        throw new HttpStatusException("GET " + url.toString() + " returned " + responseCode + " - " + httpUrlConnection.getResponseMessage() + '.', responseCode);
+      }
+    } catch (IOException ioe) {
+      throw new RuntimeException(ioe);
+    }
+  }
+
   /**
    * Convenience method to issue a GET request on a URL, expect text output and
    * return it.
@@ -927,6 +1140,72 @@ public class DefaultJenkinsClientImpl implements JenkinsClient {
     }
   }
 
+  /**
+   * Convenience method to issue a GET request on a URL, expect text output and
+   * write it to a Writer.
+   * <p>
+   * The output is streamed to the Writer as it is received so that memory usage
+   * does not depend on its size.
+   *
+   * @param stringUrl URL.
+   * @param writer Writer.
+   */
+  private void getForText(String stringUrl, Writer writer) {
+    URL url;
+    HttpURLConnection httpUrlConnection;
+    int responseCode;
+
+    try {
+      url = new URL(stringUrl);
+
+      httpUrlConnection = (HttpURLConnection)url.openConnection();
+
+      this.setBasicAuthBase64(httpUrlConnection);
+
+      httpUrlConnection.setRequestMethod("GET");
+      httpUrlConnection.setInstanceFollowRedirects(false);
+
+      httpUrlConnection.connect();
+
+      responseCode = httpUrlConnection.getResponseCode();
+
+      if (responseCode == 200) {
+        DefaultJenkinsClientImpl.copyToWriter(httpUrlConnection, writer);
+      } else {
+        DefaultJenkinsClientImpl.flushInputErrorStreams(httpUrlConnection);
+
+        throw new HttpStatusException("GET " + url.toString() + " returned " + responseCode + " - " + httpUrlConnection.getResponseMessage() + '.', responseCode);
+      }
+    } catch (IOException ioe) {
+      throw new RuntimeException(ioe);
+    }
+  }
+
+  /**
+   * Copies the text output of a HttpURLConnection to a Writer using a fixed-size
+   * buffer, and closes the input stream. The Writer is not closed.
+   *
+   * @param httpUrlConnection HttpURLConnection.
+   * @param writer Writer.
+   * @throws IOException If an I/O error occurs.
+   */
+  private static void copyToWriter(HttpURLConnection httpUrlConnection, Writer writer) throws IOException {
+    Reader reader;
+    char[] arrayChar;
+    int nbCharRead;
+
+    reader = new InputStreamReader(httpUrlConnection.getInputStream(), "UTF-8");
+    arrayChar = new char[8192];
+
+    try {
+      while ((nbCharRead = reader.read(arrayChar)) != -1) {
+        writer.write(arrayChar, 0, nbCharRead);
+      }
+    } finally {
+      reader.close();
+    }
+  }
+
   /**
    * Convenience method to ussue a POST request on a URL, with no expected output.
    *
@@ -972,6 +1251,63 @@ public class DefaultJenkinsClientImpl implements JenkinsClient {
     return "/job/" + item.replace("/", "/job/");
   }
 
+  /**
+   * Collects the URL and display name of the current executables of an array of
+   * executors, as returned by the computer API.
+   *
+   * @param jsonNodeExecutors Array of executors.
+   * @param mapBuildUrlBuildName Map where to collect the build URLs and names.
+   */
+  private static void collectCurrentExecutables(JsonNode jsonNodeExecutors, Map<String, String> mapBuildUrlBuildName) {
+    for (JsonNode jsonNodeExecutor: jsonNodeExecutors) {
+      JsonNode jsonNodeCurrentExecutable;
+
+      jsonNodeCurrentExecutable = jsonNodeExecutor.path("currentExecutable");
+
+      if (jsonNodeCurrentExecutable.hasNonNull("url")) {
+        mapBuildUrlBuildName.put(jsonNodeCurrentExecutable.get("url").asText(), jsonNodeCurrentExecutable.path("displayName").asText(null));
+      }
+    }
+  }
+
+  /**
+   * URL-encodes a request parameter value. Used for tree filters which contain
+   * characters such as "[" and "]".
+   *
+   * @param param Request parameter value.
+   * @return Encoded request parameter value.
+   */
+  private static String encodeUrlParam(String param) {
+    try {
+      return URLEncoder.encode(param, "UTF-8");
+    } catch (UnsupportedEncodingException usee) {
+      throw new RuntimeException(usee);
+    }
+  }
+
+  /**
+   * Reads an InputStream until its end and closes it.
+   * <p>
+   * HttpURLConnection can reuse the underlying connection (HTTP keep-alive) only if
+   * the response is completely read before the stream is closed.
+   * {@link InputStream#skip} is not used since it is not guaranteed to skip all the
+   * remaining bytes.
+   *
+   * @param inputStream InputStream.
+   * @throws IOException If an I/O error occurs.
+   */
+  private static void drainClose(InputStream inputStream) throws IOException {
+    byte[] arrayByte;
+
+    arrayByte = new byte[4096];
+
+    try {
+      while (inputStream.read(arrayByte) != -1);
+    } finally {
+      inputStream.close();
+    }
+  }
+
   /**
    * Flush the input and error streams, as recommended by the document for
    * HttpURLConnection when the response body is not required but may have been
@@ -990,8 +1326,7 @@ public class DefaultJenkinsClientImpl implements JenkinsClient {
         inputStream = httpUrlConnection.getInputStream();
 
         if (inputStream != null) {
-          inputStream.skip(Integer.MAX_VALUE);
-          inputStream.close();
+          DefaultJenkinsClientImpl.drainClose(inputStream);
         }
       }
 
@@ -999,8 +1334,7 @@ public class DefaultJenkinsClientImpl implements JenkinsClient {
         inputStream = httpUrlConnection.getErrorStream();
 
         if (inputStream != null) {
-          inputStream.skip(Integer.MAX_VALUE);
-          inputStream.close();
+          DefaultJenkinsClientImpl.drainClose(inputStream);
         }
       }
     } catch (IOException ioe) {
@@ -66,6 +66,11 @@ public class BuildReferenceGraph extends RootModuleVersionJobAbstractImpl implem
     // include in the ReferenceGraph all matched ReferencePath's.
     this.setIndAvoidReentry(false);
 
+    // Building a ReferenceGraph does not modify ModuleVersion's.
+    this.setIndAllowParallelTraversal(true);
+    this.setIndRuntimePropertiesSnapshot(true);
+    this.setIndScmTreeView(true);
+
     if (referenceGraph == null) {
       this.referenceGraph = new SimpleReferenceGraph();
     }
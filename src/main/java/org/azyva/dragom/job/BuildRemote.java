@@ -27,11 +27,17 @@ import java.io.Writer;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.MessageFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.Set;
 
 import org.azyva.dragom.execcontext.ExecContext;
 import org.azyva.dragom.execcontext.WorkspaceExecContext;
@@ -49,6 +55,7 @@ import org.azyva.dragom.model.plugin.RemoteBuilderPlugin;
 import org.azyva.dragom.reference.Reference;
 import org.azyva.dragom.reference.ReferenceGraph;
 import org.azyva.dragom.reference.ReferencePath;
+import org.azyva.dragom.util.SharedStateLock;
 import org.azyva.dragom.util.Util;
 
 /**
@@ -60,7 +67,8 @@ import org.azyva.dragom.util.Util;
  * right order. Multiple independent builds can be submitted simultaneously,
  * letting the remote build system manage the scheduling. Submitted builds are
  * monitored and new builds are submitted until all {@link ModuleVersion}'s
- * needing to be built are built.
+ * needing to be built are built. A build is submitted as soon as the builds of
+ * all the ModuleVersion's it references are completed with success.
  * <p>
  * Since BuildReferenceGraph is used, this class derives from
  * {@link RootModuleVersionJobSimpleAbstractImpl}, and performs its job by
@@ -113,9 +121,29 @@ public class BuildRemote extends RootModuleVersionJobSimpleAbstractImpl {
    * the plugin returned. This typically involves communication with the remote
    * build system and must be paced correctly to balance the need for fast feedback
    * and the desire to avoid overwhelming the remote build system with requests.
+   * <p>
+   * This is the initial delay, used again each time a build changes state. While
+   * no build changes state, the delay is doubled at each cycle, up to
+   * {@link #RUNTIME_PROPERTY_BUILD_MONITORING_CYCLE_MAX_DELAY}.
    */
   public static final String RUNTIME_PROPERTY_BUILD_MONITORING_CYCLE_DELAY = "BUILD_MONITORING_CYCLE_DELAY";
 
+  /**
+   * Runtime property that specifies the maximum delay between build monitoring
+   * cycles, in milliseconds. Accessed on the root NodePath.
+   * <p>
+   * If not specified, it is {@link #DEFAULT_BUILD_MONITORING_CYCLE_MAX_DELAY_FACTOR}
+   * times {@link #RUNTIME_PROPERTY_BUILD_MONITORING_CYCLE_DELAY}.
+   */
+  public static final String RUNTIME_PROPERTY_BUILD_MONITORING_CYCLE_MAX_DELAY = "BUILD_MONITORING_CYCLE_MAX_DELAY";
+
+  /**
+   * Default factor applied to {@link #RUNTIME_PROPERTY_BUILD_MONITORING_CYCLE_DELAY}
+   * to obtain the maximum delay between build monitoring cycles when
+   * {@link #RUNTIME_PROPERTY_BUILD_MONITORING_CYCLE_MAX_DELAY} is not specified.
+   */
+  private static final int DEFAULT_BUILD_MONITORING_CYCLE_MAX_DELAY_FACTOR = 8;
+
   /**
    * Runtime property that specifies the directory for build logs.
    * <p>
@@ -195,72 +223,62 @@ public class BuildRemote extends RootModuleVersionJobSimpleAbstractImpl {
   private static final ResourceBundle resourceBundle = ResourceBundle.getBundle(BuildRemote.class.getName() + "ResourceBundle");
 
   /**
-   * Holds a
-   * {@link org.azyva.dragom.model.plugin.RemoteBuilderPlugin.RemoteBuildHandle} as
-   * well as extra data needed to manage the builds and avoid useless queries for
-   * {@link org.azyva.dragom.model.plugin.RemoteBuilderPlugin.RemoteBuildHandle.RemoteBuildStatus}.
+   * Node of the build schedule.
+   * <p>
+   * There is one for each {@link ModuleVersion} in the {@link ReferenceGraph} that
+   * is to be built. It holds the number of referenced ModuleVersion's whose build
+   * is not completed with success yet, the ModuleVersionBuild's of the referrers
+   * which wait for its build and the
+   * {@link org.azyva.dragom.model.plugin.RemoteBuilderPlugin.RemoteBuildHandle}
+   * once the build is submitted.
    */
-  private static class RemoteBuildWrapper {
+  private static class ModuleVersionBuild {
     /**
-     * {@link org.azyva.dragom.model.plugin.RemoteBuilderPlugin.RemoteBuildHandle}.
+     * ModuleVersion.
      */
-    public RemoteBuilderPlugin.RemoteBuildHandle remoteBuildHandle;
+    public ModuleVersion moduleVersion;
 
     /**
-     * {@link org.azyva.dragom.model.plugin.RemoteBuilderPlugin.RemoteBuildHandle.RemoteBuildStatus}
-     * obtained from the
-     * {@link org.azyva.dragom.model.plugin.RemoteBuilderPlugin.RemoteBuildHandle}
-     * during the last monitoring cycle.
+     * {@link Module} of the ModuleVersion.
      */
-    public RemoteBuilderPlugin.RemoteBuildHandle.RemoteBuildStatus remoteBuildStatusPrevious;
+    public Module module;
 
     /**
-     * {@link org.azyva.dragom.model.plugin.RemoteBuilderPlugin.RemoteBuildHandle.RemoteBuildStatus}
-     * obtained from the
-     * {@link org.azyva.dragom.model.plugin.RemoteBuilderPlugin.RemoteBuildHandle}
-     * during the current monitoring cycle.
+     * Number of referenced ModuleVersion's to be built whose build is not completed
+     * with success yet. The build can be submitted when it reaches 0.
      */
-    public RemoteBuilderPlugin.RemoteBuildHandle.RemoteBuildStatus remoteBuildStatusNew;
+    public int pendingReferenceCount;
 
     /**
-     * Returns the
-     * {@link org.azyva.dragom.model.plugin.RemoteBuilderPlugin.RemoteBuildHandle.RemoteBuildStatus}.
-     * <p>
-     * It uses remoteBuildStatusNew as a cache for the RemoteBuildStatus. reset is
-     * expected to be called at the end of each monitoring cycle to copy it to
-     * remoteBuildStatusPrevious and set it to null.
-     *
-     * @return RemoteBuilderPlugin.RemoteBuildHandle.RemoteBuildStatus.
+     * ModuleVersionBuild's of the referrers which wait for the build.
      */
-    public RemoteBuilderPlugin.RemoteBuildHandle.RemoteBuildStatus getRemoteBuildStatus() {
-      if (this.remoteBuildStatusNew == null) {
-        this.remoteBuildStatusNew = this.remoteBuildHandle.getRemoteBuildStatus();
-      }
-
-      return this.remoteBuildStatusNew;
-    }
+    public List<ModuleVersionBuild> listModuleVersionBuildReferrer;
 
     /**
-     * @return Indicates if the
-     *   {@link org.azyva.dragom.model.plugin.RemoteBuilderPlugin.RemoteBuildHandle}
-     *   changed state.
+     * {@link org.azyva.dragom.model.plugin.RemoteBuilderPlugin.RemoteBuildHandle}.
+     * null if the build is not submitted.
      */
-    public boolean isChangedState() {
-      return (this.getRemoteBuildStatus() != this.remoteBuildStatusPrevious);
-    }
+    public RemoteBuilderPlugin.RemoteBuildHandle remoteBuildHandle;
 
     /**
-     * Copies remoteBuildStatusNew to remoteBuildStatusPrevious and sets the
-     * former to null.
-     * <p>
-     * This is expected to be called at the end of each monitoring cycle.
+     * {@link org.azyva.dragom.model.plugin.RemoteBuilderPlugin.RemoteBuildHandle.RemoteBuildStatus}
+     * obtained from the
+     * {@link org.azyva.dragom.model.plugin.RemoteBuilderPlugin.RemoteBuildHandle}
+     * during the last monitoring cycle. null for a newly submitted build, so that
+     * its initial state is shown to the user.
      */
-    public void reset() {
-      if (this.remoteBuildStatusNew == null) {
-        throw new RuntimeException("Must not get here.");
-      }
+    public RemoteBuilderPlugin.RemoteBuildHandle.RemoteBuildStatus remoteBuildStatusPrevious;
 
-      this.remoteBuildStatusPrevious = this.remoteBuildStatusNew;
+    /**
+     * Constructor.
+     *
+     * @param moduleVersion ModuleVersion.
+     * @param module Module of the ModuleVersion.
+     */
+    public ModuleVersionBuild(ModuleVersion moduleVersion, Module module) {
+      this.moduleVersion = moduleVersion;
+      this.module = module;
+      this.listModuleVersionBuildReferrer = new ArrayList<ModuleVersionBuild>();
     }
   }
 
@@ -276,27 +294,45 @@ public class BuildRemote extends RootModuleVersionJobSimpleAbstractImpl {
     this.setupReferencePathMatcherForProjectCode();
   }
 
+  /**
+   * The {@link ReferenceGraph} is traversed only once to establish the build
+   * schedule. For each {@link ModuleVersion} to be built, the number of
+   * referenced ModuleVersion's to be built is computed using
+   * {@link ReferenceGraph#getListReference}. The builds for which this number is
+   * 0 are submitted first. Then only the builds in progress are monitored. As soon
+   * as a build completes with success, the builds of its referrers for which it
+   * was the last one pending are submitted, without waiting for the next
+   * monitoring cycle.
+   * <p>
+   * The delay between monitoring cycles starts at
+   * {@link #RUNTIME_PROPERTY_BUILD_MONITORING_CYCLE_DELAY} and is doubled each
+   * time no build changes state, up to
+   * {@link #RUNTIME_PROPERTY_BUILD_MONITORING_CYCLE_MAX_DELAY}. It is reset when a
+   * build changes state.
+   */
   @Override
   public void performJob() {
     BuildReferenceGraph buildReferenceGraph;
-    ReferenceGraph referenceGraph;
+    final ReferenceGraph referenceGraph;
     ExecContext execContext;
-    RuntimePropertiesPlugin runtimePropertiesPlugin;
-    UserInteractionCallbackPlugin userInteractionCallbackPlugin;
-    Model model;
+    final RuntimePropertiesPlugin runtimePropertiesPlugin;
+    final Model model;
     int buildMonitoringCycleDelay;
-    boolean indStillBuilding;
-
-    // Contains a RemoteBuildWrapper for each build that has been submitted. It can
-    // also contain dummy null entries for ModuleVersion's that are not matched by
-    // the ReferencePathMatcher, but are part of ReferencePath's to matched
-    // ModuleVersion's, if these intermediate ModuleVersion's are not to be built
-    // (the value of the runtime property IND_BUILD_REFERENCE_PATH is false). The
-    // presence of such entries means that these ModuleVersions can be assumed to
-    // have been built so that parent ModuleVersion's can be. Dummy null entries
-    // are also inserted for ModuleVersion's that do not need to be built (have
-    // already been built).
-    Map<ModuleVersion, RemoteBuildWrapper> mapRemoteBuildWrapper;
+    String runtimeProperty;
+    int buildMonitoringCycleMaxDelay;
+    int buildMonitoringCycleDelayCurrent;
+    Deque<ModuleVersionBuild> dequeModuleVersionBuildReady;
+    List<ModuleVersionBuild> listModuleVersionBuildInProgress;
+
+    // Contains a ModuleVersionBuild for each ModuleVersion to be built. These are the
+    // ModuleVersion's matched by the ReferencePathMatcher, as well as those which are
+    // part of ReferencePath's to matched ModuleVersion's if the runtime property
+    // BUILD_REFERENCE_PATH is true. The other ModuleVersion's are assumed to have
+    // been built so that referrers do not wait for them.
+    //
+    // We use a LinkedHashMap to preserve build submission order to avoid user
+    // confusion.
+    final Map<ModuleVersion, ModuleVersionBuild> mapModuleVersionBuild;
 
     buildReferenceGraph = new BuildReferenceGraph(null, this.listModuleVersionRoot);
     buildReferenceGraph.setReferencePathMatcherProvided(this.getReferencePathMatcher());
@@ -305,250 +341,300 @@ public class BuildRemote extends RootModuleVersionJobSimpleAbstractImpl {
 
     execContext = ExecContextHolder.get();
     runtimePropertiesPlugin = execContext.getExecContextPlugin(RuntimePropertiesPlugin.class);
-    userInteractionCallbackPlugin = execContext.getExecContextPlugin(UserInteractionCallbackPlugin.class);
     model = execContext.getModel();
 
     buildMonitoringCycleDelay = Integer.parseInt(runtimePropertiesPlugin.getProperty(null, BuildRemote.RUNTIME_PROPERTY_BUILD_MONITORING_CYCLE_DELAY));
 
-    indStillBuilding = true;
+    runtimeProperty = runtimePropertiesPlugin.getProperty(null, BuildRemote.RUNTIME_PROPERTY_BUILD_MONITORING_CYCLE_MAX_DELAY);
 
-    // We use a LinkedHashMap to preserver build monitoring order to avoid user
-    // confusion.
-    mapRemoteBuildWrapper = new LinkedHashMap<ModuleVersion, RemoteBuildWrapper>();
-
-    do {
-      /* ********************************************************************************
-       * First submit all builds that can be submitted.
-       * ********************************************************************************/
-
-      referenceGraph.traverseReferenceGraph(
-          null, // Traverse all root ModuleVersion's.
-          ReferenceGraph.TraversalOrder.ALL_PARENTS_FIRST,
-          ReferenceGraph.ReentryMode.NO_REENTRY,
-          new ReferenceGraph.Visitor() {
-            @Override
-            public ReferenceGraph.VisitControl visit(ReferenceGraph referenceGraph, ReferencePath referencePath, EnumSet<ReferenceGraph.VisitAction> enumSetVisitAction) {
-              ModuleVersion moduleVersion;
-              Module module;
-              boolean indBuildReferencePath;
-
-              if (!enumSetVisitAction.contains(ReferenceGraph.VisitAction.VISIT)) {
-                return ReferenceGraph.VisitControl.CONTINUE;
-              }
-
-              moduleVersion = referencePath.getLeafModuleVersion();
-              module = model.getModule(moduleVersion.getNodePath());
-
-              // If the ModuleVersion has already been taken care of, continue. Note that as
-              // builds are performed, the re-traversal of the ReferenceGraph will cause more
-              // and more occurrences of this case, wasting a bit of time. But we do not expect
-              // the ReferenceGraph to be so huge that this is significant. Ideally, entries in
-              // the ReferenceGraph that have already been taken care of could be removed to
-              // avoid revisiting them.
-              // TODO: Maybe implement the optimization above. The entries cannot be removed
-              // immediately after having been submitted. They remain useful while the builds
-              // are running. And what about the dummy entries that do not correspond to actual
-              // builds? Removing them can create holes in the ReferenceGraph. Maybe that is not
-              // a problem.
-              if (mapRemoteBuildWrapper.containsKey(moduleVersion)) {
-                return ReferenceGraph.VisitControl.CONTINUE;
-              }
-
-              indBuildReferencePath = Util.isNotNullAndTrue(runtimePropertiesPlugin.getProperty(module, BuildRemote.RUNTIME_PROPERTY_BUILD_REFERENCE_PATH));
-
-              if (enumSetVisitAction.contains(ReferenceGraph.VisitAction.MATCHED) || indBuildReferencePath) {
-                boolean indReferenceBuildNotCompletedAndSuccess;
-                List<Reference> listReference;
-
-                // We start by assuming that the build of all references has been completed with
-                // success and look for a reference that would prove otherwise.
-                indReferenceBuildNotCompletedAndSuccess = false;
-
-                listReference = referenceGraph.getListReference(moduleVersion);
-
-                for (Reference reference: listReference) {
-                  ModuleVersion moduleVersionReference;
-                  RemoteBuildWrapper remoteBuildWrapperReference;
-
-                  moduleVersionReference = reference.getModuleVersion();
-                  remoteBuildWrapperReference = mapRemoteBuildWrapper.get(moduleVersionReference);
-
-                  if (remoteBuildWrapperReference == null) {
-                    if (mapRemoteBuildWrapper.containsKey(moduleVersionReference)) {
-                      // If this is the dummy entry (null, but exists), we do as if the referenced ModuleVersion had
-                      // already been built.
-                      continue;
-                    } else {
-                      // If there is no entry for the referenced ModuleVersion, it means that its build
-                      // has not been scheduled yet (it depends on the build of some other
-                      // ModuleVersion.
-                      indReferenceBuildNotCompletedAndSuccess = true;
-                      break;
-                    }
-                  } else {
-                    if (   (remoteBuildWrapperReference.getRemoteBuildStatus() != RemoteBuilderPlugin.RemoteBuildHandle.RemoteBuildStatus.COMPLETED)
-                        && (remoteBuildWrapperReference.getRemoteBuildStatus() != RemoteBuilderPlugin.RemoteBuildHandle.RemoteBuildStatus.CANNOT_BUILD_REMOTELY)) {
-
-                      // If the build of the referenced ModuleVersion is not completed, there is no
-                      // point building the parent ModuleVersion.
-                      indReferenceBuildNotCompletedAndSuccess = true;
-                      break;
-                    }
-
-                    // Here, we know the build of the referenced ModuleVersion is either completed or
-                    // could not be submitted.
-
-                    if (   (remoteBuildWrapperReference.getRemoteBuildStatus() == RemoteBuilderPlugin.RemoteBuildHandle.RemoteBuildStatus.CANNOT_BUILD_REMOTELY)
-                      || !remoteBuildWrapperReference.remoteBuildHandle.isSuccess()) {
-
-                      // If the build of the referenced ModuleVersion is not completed with success, we
-                      // cannot build the parent. The actual failure will be handled below.
-                      indReferenceBuildNotCompletedAndSuccess = true;
-                      break;
-                    }
-                  }
-                }
-
-                // If there are no reference whose build is not completed and successful, this
-                // implies that the builds of all references are completed and successful and
-                // therefore we can submit the build for the current ModuleVersion.
-                if (!indReferenceBuildNotCompletedAndSuccess) {
-                  RemoteBuilderPlugin remoteBuilderPlugin;
-
-                  remoteBuilderPlugin = module.getNodePlugin(RemoteBuilderPlugin.class, null);
-
-                  if (remoteBuilderPlugin.isBuildNeeded(moduleVersion.getVersion())) {
-                    RemoteBuildWrapper remoteBuildWrapper;
-
-                    remoteBuildWrapper = new RemoteBuildWrapper();
-
-                    remoteBuildWrapper.remoteBuildHandle = remoteBuilderPlugin.submitBuild(moduleVersion.getVersion());
-
-                    userInteractionCallbackPlugin.provideInfo(MessageFormat.format(BuildRemote.resourceBundle.getString(BuildRemote.MSG_PATTERN_KEY_BUILD_SUBMITTED), moduleVersion, remoteBuildWrapper.remoteBuildHandle.getLocation()));
-
-                    mapRemoteBuildWrapper.put(moduleVersion, remoteBuildWrapper);
-                  } else {
-                    userInteractionCallbackPlugin.provideInfo(MessageFormat.format(BuildRemote.resourceBundle.getString(BuildRemote.MSG_PATTERN_KEY_MODULE_VERSION_DOES_NOT_NEED_BUILDING), moduleVersion));
-
-                    // If the ModuleVersion does not need to be built (has already been built), we
-                    // insert a dummy entry to communicate that fact.
-                    mapRemoteBuildWrapper.put(moduleVersion, null);
-                  }
-                }
-              } else {
-                // When not matched but ModuleVersion's in ReferencePath are not included, we
-                // insert a dummy entry to tell us to do as if the ModuleVersion had already been
-                // built.
-                mapRemoteBuildWrapper.put(moduleVersion,  null);
-              }
+    if (runtimeProperty == null) {
+      buildMonitoringCycleMaxDelay = buildMonitoringCycleDelay * BuildRemote.DEFAULT_BUILD_MONITORING_CYCLE_MAX_DELAY_FACTOR;
+    } else {
+      buildMonitoringCycleMaxDelay = Math.max(Integer.parseInt(runtimeProperty), buildMonitoringCycleDelay);
+    }
 
-              return ReferenceGraph.VisitControl.CONTINUE;
-            }
-          });
-
-      /* ********************************************************************************
-       * Next handle the builds that change state and complete.
-       * ********************************************************************************/
-
-      for (RemoteBuildWrapper remoteBuildWrapper: mapRemoteBuildWrapper.values()) {
-        ModuleVersion moduleVersion;
-        Module module;
-
-        moduleVersion = remoteBuildWrapper.remoteBuildHandle.getModuleVersion();
-        module = model.getModule(moduleVersion.getNodePath());
-
-        // We are only interested in builds whose state has changed. For newly submitted
-        // builds, remoteBuildWrapper.remoteBuildStatusPrevious will be null and will
-        // necessarily have changed in the first monitoring cycle, so that its initial
-        // state will be shown to the user.
-        if (remoteBuildWrapper.isChangedState()) {
-          String runtimeProperty;
-          Path pathBuildLogDir;
-          boolean indIncludeNodePathInBuildLogFileNames;
-          boolean indIncludeVersionInBuildLogFileNames;
-          String buildLogFileName;
-          Path pathBuildLogFile;
-          File fileBuildLog;
-          Writer writerLog;
-
-          switch (remoteBuildWrapper.getRemoteBuildStatus()) {
-          case CANNOT_BUILD_REMOTELY:
-            userInteractionCallbackPlugin.provideInfo(MessageFormat.format(BuildRemote.resourceBundle.getString(BuildRemote.MSG_PATTERN_KEY_MODULE_VERSION_CANNOT_BUILD_REMOTELY), moduleVersion, remoteBuildWrapper.remoteBuildHandle.getCannotBuildRemotelyReason()));
-            break;
-          case QUEUED:
-          case RUNNING:
-            userInteractionCallbackPlugin.provideInfo(MessageFormat.format(BuildRemote.resourceBundle.getString(BuildRemote.MSG_PATTERN_KEY_BUILD_CHANGED_STATE), moduleVersion, remoteBuildWrapper.remoteBuildHandle.getLocation(), remoteBuildWrapper.getRemoteBuildStatus()));
-            break;
-          case COMPLETED:
-            runtimeProperty = runtimePropertiesPlugin.getProperty(module, BuildRemote.RUNTIME_PROPERTY_BUILD_LOG_DIR);
-
-            if (runtimeProperty == null) {
-              pathBuildLogDir = ((WorkspaceExecContext)execContext).getPathWorkspaceDir();
-            } else {
-              pathBuildLogDir = Paths.get(runtimeProperty);
-            }
+    /* ********************************************************************************
+     * First establish the build schedule.
+     * ********************************************************************************/
 
-            indIncludeNodePathInBuildLogFileNames = Util.isNotNullAndTrue(runtimePropertiesPlugin.getProperty(module, BuildRemote.RUNTIME_PROPERTY_INCLUDE_NODE_PATH_IN_BUILD_LOG_FILE_NAMES));
-            indIncludeVersionInBuildLogFileNames = Util.isNotNullAndTrue(runtimePropertiesPlugin.getProperty(module, BuildRemote.RUNTIME_PROPERTY_INCLUDE_VERSION_IN_BUILD_LOG_FILE_NAMES));
+    mapModuleVersionBuild = new LinkedHashMap<ModuleVersion, ModuleVersionBuild>();
 
-            if (indIncludeNodePathInBuildLogFileNames) {
-              buildLogFileName = moduleVersion.getNodePath().getPropertyNameSegment();
-            } else {
-              buildLogFileName = moduleVersion.getNodePath().getModuleName();
-            }
+    referenceGraph.traverseReferenceGraph(
+        null, // Traverse all root ModuleVersion's.
+        ReferenceGraph.TraversalOrder.ALL_PARENTS_FIRST,
+        ReferenceGraph.ReentryMode.NO_REENTRY,
+        new ReferenceGraph.Visitor() {
+          @Override
+          public ReferenceGraph.VisitControl visit(ReferenceGraph referenceGraph, ReferencePath referencePath, EnumSet<ReferenceGraph.VisitAction> enumSetVisitAction) {
+            ModuleVersion moduleVersion;
+            Module module;
 
-            if (indIncludeVersionInBuildLogFileNames) {
-              buildLogFileName = buildLogFileName + '-' + moduleVersion.getVersion().getVersion();
+            if (!enumSetVisitAction.contains(ReferenceGraph.VisitAction.VISIT)) {
+              return ReferenceGraph.VisitControl.CONTINUE;
             }
 
-            for (int i = 0;; i++) {
-              pathBuildLogFile = pathBuildLogDir.resolve(buildLogFileName + (i == 0 ? "" : " (" + i + ")") + BuildRemote.BUILD_LOG_FILE_NAMES_SUFFIX);
-              fileBuildLog = pathBuildLogDir.toFile();
+            moduleVersion = referencePath.getLeafModuleVersion();
 
-              if (!fileBuildLog.exists()) {
-                break;
-              }
+            if (mapModuleVersionBuild.containsKey(moduleVersion)) {
+              return ReferenceGraph.VisitControl.CONTINUE;
             }
 
-            try {
-              writerLog = new BufferedWriter(new FileWriter(fileBuildLog));
-              remoteBuildWrapper.remoteBuildHandle.getLog(writerLog);
-              writerLog.close();
-            } catch (IOException ioe) {
-              throw new RuntimeException(ioe);
-            }
+            module = model.getModule(moduleVersion.getNodePath());
 
-            if (remoteBuildWrapper.remoteBuildHandle.isSuccess()) {
-              userInteractionCallbackPlugin.provideInfo(MessageFormat.format(BuildRemote.resourceBundle.getString(BuildRemote.MSG_PATTERN_KEY_BUILD_SUCCEEDED), moduleVersion, remoteBuildWrapper.remoteBuildHandle.getLocation(), pathBuildLogFile));
-            } else {
-              userInteractionCallbackPlugin.provideInfo(MessageFormat.format(BuildRemote.resourceBundle.getString(BuildRemote.MSG_PATTERN_KEY_BUILD_FAILED), moduleVersion, remoteBuildWrapper.remoteBuildHandle.getLocation(), pathBuildLogFile));
+            if (   enumSetVisitAction.contains(ReferenceGraph.VisitAction.MATCHED)
+                || Util.isNotNullAndTrue(runtimePropertiesPlugin.getProperty(module, BuildRemote.RUNTIME_PROPERTY_BUILD_REFERENCE_PATH))) {
+
+              mapModuleVersionBuild.put(moduleVersion, new ModuleVersionBuild(moduleVersion, module));
             }
+
+            return ReferenceGraph.VisitControl.CONTINUE;
           }
+        });
+
+    dequeModuleVersionBuildReady = new ArrayDeque<ModuleVersionBuild>();
+
+    for (ModuleVersionBuild moduleVersionBuild: mapModuleVersionBuild.values()) {
+      Set<ModuleVersion> setModuleVersionReference;
+
+      setModuleVersionReference = new HashSet<ModuleVersion>();
+
+      for (Reference reference: referenceGraph.getListReference(moduleVersionBuild.moduleVersion)) {
+        ModuleVersionBuild moduleVersionBuildReference;
+
+        moduleVersionBuildReference = mapModuleVersionBuild.get(reference.getModuleVersion());
+
+        // Referenced ModuleVersion's which are not to be built are assumed to have been
+        // built. A ModuleVersion can be referenced more than once, for instance by
+        // different submodules.
+        if ((moduleVersionBuildReference != null) && setModuleVersionReference.add(reference.getModuleVersion())) {
+          moduleVersionBuild.pendingReferenceCount++;
+          moduleVersionBuildReference.listModuleVersionBuildReferrer.add(moduleVersionBuild);
+        }
+      }
+
+      if (moduleVersionBuild.pendingReferenceCount == 0) {
+        dequeModuleVersionBuildReady.add(moduleVersionBuild);
+      }
+    }
+
+    /* ********************************************************************************
+     * Then submit and monitor the builds until no build is in progress.
+     * ********************************************************************************/
+
+    listModuleVersionBuildInProgress = new ArrayList<ModuleVersionBuild>();
+    buildMonitoringCycleDelayCurrent = buildMonitoringCycleDelay;
+
+    for (;;) {
+      boolean indChangedState;
+      Iterator<ModuleVersionBuild> iteratorModuleVersionBuild;
+
+      this.submitReadyBuilds(dequeModuleVersionBuildReady, listModuleVersionBuildInProgress);
+
+      // Builds which depend on failed builds are never submitted and do not keep us
+      // waiting.
+      if (listModuleVersionBuildInProgress.isEmpty()) {
+        break;
+      }
 
-          // If the state of at least one build has changed, even if the state of all builds
-          // is CANNOT_BUILD_REMOTELY or COMPLETED, there may be new builds that can be
-          // submitted. There may be cases where we could conclude that this cannot happen,
-          // such as if all builds are completed except one that changed state to
-          // CANNOT_BUILD_REMOTELY. But we do not take any chances and play it safe.
-          indStillBuilding = true;
-        } else if (   (remoteBuildWrapper.getRemoteBuildStatus() == RemoteBuilderPlugin.RemoteBuildHandle.RemoteBuildStatus.QUEUED)
-                   || (remoteBuildWrapper.getRemoteBuildStatus() == RemoteBuilderPlugin.RemoteBuildHandle.RemoteBuildStatus.RUNNING)) {
-
-          // If the sate of the build has not changed, but it is still active (QUEUED or
-          // RUNNING) then we are still building.
-          indStillBuilding = true;
+      indChangedState = false;
+      iteratorModuleVersionBuild = listModuleVersionBuildInProgress.iterator();
+
+      while (iteratorModuleVersionBuild.hasNext()) {
+        ModuleVersionBuild moduleVersionBuild;
+        RemoteBuilderPlugin.RemoteBuildHandle.RemoteBuildStatus remoteBuildStatus;
+
+        moduleVersionBuild = iteratorModuleVersionBuild.next();
+        remoteBuildStatus = moduleVersionBuild.remoteBuildHandle.getRemoteBuildStatus();
+
+        // We are only interested in builds whose state has changed.
+        if (remoteBuildStatus == moduleVersionBuild.remoteBuildStatusPrevious) {
+          continue;
         }
 
-        remoteBuildWrapper.reset();
+        indChangedState = true;
+        moduleVersionBuild.remoteBuildStatusPrevious = remoteBuildStatus;
+
+        if (this.handleChangedState(moduleVersionBuild, remoteBuildStatus)) {
+          iteratorModuleVersionBuild.remove();
+
+          if ((remoteBuildStatus == RemoteBuilderPlugin.RemoteBuildHandle.RemoteBuildStatus.COMPLETED) && moduleVersionBuild.remoteBuildHandle.isSuccess()) {
+            BuildRemote.releaseReferrers(moduleVersionBuild, dequeModuleVersionBuildReady);
+          }
+        }
+      }
+
+      if (indChangedState) {
+        buildMonitoringCycleDelayCurrent = buildMonitoringCycleDelay;
+      } else {
+        buildMonitoringCycleDelayCurrent = Math.min(buildMonitoringCycleDelayCurrent * 2, buildMonitoringCycleMaxDelay);
       }
 
-      if (indStillBuilding) {
+      // If builds became ready, they are submitted right away.
+      if (dequeModuleVersionBuildReady.isEmpty()) {
+        int holdCount;
+
+        holdCount = SharedStateLock.releaseForBlockingOperation(null);
+
         try {
-          Thread.sleep(buildMonitoringCycleDelay);
+          Thread.sleep(buildMonitoringCycleDelayCurrent);
         } catch (InterruptedException ie) {
           throw new RuntimeException(ie);
+        } finally {
+          SharedStateLock.reacquireAfterBlockingOperation(null, holdCount);
+        }
+      }
+    }
+  }
+
+  /**
+   * Submits the builds which are ready.
+   * <p>
+   * The builds of the ModuleVersion's which do not need to be built are considered
+   * completed with success right away so that the builds of their referrers can
+   * also become ready and be submitted.
+   *
+   * @param dequeModuleVersionBuildReady Deque of ModuleVersionBuild's which are
+   *   ready. Emptied by this method.
+   * @param listModuleVersionBuildInProgress List of ModuleVersionBuild's in
+   *   progress to which submitted builds are added.
+   */
+  private void submitReadyBuilds(Deque<ModuleVersionBuild> dequeModuleVersionBuildReady, List<ModuleVersionBuild> listModuleVersionBuildInProgress) {
+    UserInteractionCallbackPlugin userInteractionCallbackPlugin;
+    ModuleVersionBuild moduleVersionBuild;
+
+    userInteractionCallbackPlugin = ExecContextHolder.get().getExecContextPlugin(UserInteractionCallbackPlugin.class);
+
+    while ((moduleVersionBuild = dequeModuleVersionBuildReady.poll()) != null) {
+      RemoteBuilderPlugin remoteBuilderPlugin;
+
+      remoteBuilderPlugin = moduleVersionBuild.module.getNodePlugin(RemoteBuilderPlugin.class, null);
+
+      if (remoteBuilderPlugin.isBuildNeeded(moduleVersionBuild.moduleVersion.getVersion())) {
+        moduleVersionBuild.remoteBuildHandle = remoteBuilderPlugin.submitBuild(moduleVersionBuild.moduleVersion.getVersion());
+
+        userInteractionCallbackPlugin.provideInfo(MessageFormat.format(BuildRemote.resourceBundle.getString(BuildRemote.MSG_PATTERN_KEY_BUILD_SUBMITTED), moduleVersionBuild.moduleVersion, moduleVersionBuild.remoteBuildHandle.getLocation()));
+
+        listModuleVersionBuildInProgress.add(moduleVersionBuild);
+      } else {
+        userInteractionCallbackPlugin.provideInfo(MessageFormat.format(BuildRemote.resourceBundle.getString(BuildRemote.MSG_PATTERN_KEY_MODULE_VERSION_DOES_NOT_NEED_BUILDING), moduleVersionBuild.moduleVersion));
+
+        BuildRemote.releaseReferrers(moduleVersionBuild, dequeModuleVersionBuildReady);
+      }
+    }
+  }
+
+  /**
+   * Releases the referrers of a ModuleVersionBuild whose build completed with
+   * success, or which does not need to be built.
+   * <p>
+   * The referrers for which this was the last pending build become ready.
+   *
+   * @param moduleVersionBuild ModuleVersionBuild.
+   * @param dequeModuleVersionBuildReady Deque of ModuleVersionBuild's which are
+   *   ready.
+   */
+  private static void releaseReferrers(ModuleVersionBuild moduleVersionBuild, Deque<ModuleVersionBuild> dequeModuleVersionBuildReady) {
+    for (ModuleVersionBuild moduleVersionBuildReferrer: moduleVersionBuild.listModuleVersionBuildReferrer) {
+      if (--moduleVersionBuildReferrer.pendingReferenceCount == 0) {
+        dequeModuleVersionBuildReady.add(moduleVersionBuildReferrer);
+      }
+    }
+  }
+
+  /**
+   * Handles a build which changed state by informing the user and, if it is
+   * completed, getting its log.
+   *
+   * @param moduleVersionBuild ModuleVersionBuild.
+   * @param remoteBuildStatus New RemoteBuildStatus.
+   * @return Indicates if the build is not in progress anymore, meaning that it is
+   *   completed or could not be submitted.
+   */
+  private boolean handleChangedState(ModuleVersionBuild moduleVersionBuild, RemoteBuilderPlugin.RemoteBuildHandle.RemoteBuildStatus remoteBuildStatus) {
+    ExecContext execContext;
+    RuntimePropertiesPlugin runtimePropertiesPlugin;
+    UserInteractionCallbackPlugin userInteractionCallbackPlugin;
+    ModuleVersion moduleVersion;
+    Module module;
+    String runtimeProperty;
+    Path pathBuildLogDir;
+    boolean indIncludeNodePathInBuildLogFileNames;
+    boolean indIncludeVersionInBuildLogFileNames;
+    String buildLogFileName;
+    Path pathBuildLogFile;
+    Writer writerLog;
+
+    execContext = ExecContextHolder.get();
+    runtimePropertiesPlugin = execContext.getExecContextPlugin(RuntimePropertiesPlugin.class);
+    userInteractionCallbackPlugin = execContext.getExecContextPlugin(UserInteractionCallbackPlugin.class);
+    moduleVersion = moduleVersionBuild.moduleVersion;
+    module = moduleVersionBuild.module;
+
+    switch (remoteBuildStatus) {
+    case CANNOT_BUILD_REMOTELY:
+      userInteractionCallbackPlugin.provideInfo(MessageFormat.format(BuildRemote.resourceBundle.getString(BuildRemote.MSG_PATTERN_KEY_MODULE_VERSION_CANNOT_BUILD_REMOTELY), moduleVersion, moduleVersionBuild.remoteBuildHandle.getCannotBuildRemotelyReason()));
+      return true;
+
+    case QUEUED:
+    case RUNNING:
+      userInteractionCallbackPlugin.provideInfo(MessageFormat.format(BuildRemote.resourceBundle.getString(BuildRemote.MSG_PATTERN_KEY_BUILD_CHANGED_STATE), moduleVersion, moduleVersionBuild.remoteBuildHandle.getLocation(), remoteBuildStatus));
+      return false;
+
+    case COMPLETED:
+      runtimeProperty = runtimePropertiesPlugin.getProperty(module, BuildRemote.RUNTIME_PROPERTY_BUILD_LOG_DIR);
+
+      if (runtimeProperty == null) {
+        pathBuildLogDir = ((WorkspaceExecContext)execContext).getPathWorkspaceDir();
+      } else {
+        pathBuildLogDir = Paths.get(runtimeProperty);
+      }
+
+      indIncludeNodePathInBuildLogFileNames = Util.isNotNullAndTrue(runtimePropertiesPlugin.getProperty(module, BuildRemote.RUNTIME_PROPERTY_INCLUDE_NODE_PATH_IN_BUILD_LOG_FILE_NAMES));
+      indIncludeVersionInBuildLogFileNames = Util.isNotNullAndTrue(runtimePropertiesPlugin.getProperty(module, BuildRemote.RUNTIME_PROPERTY_INCLUDE_VERSION_IN_BUILD_LOG_FILE_NAMES));
+
+      if (indIncludeNodePathInBuildLogFileNames) {
+        buildLogFileName = moduleVersion.getNodePath().getPropertyNameSegment();
+      } else {
+        buildLogFileName = moduleVersion.getNodePath().getModuleName();
+      }
+
+      if (indIncludeVersionInBuildLogFileNames) {
+        buildLogFileName = buildLogFileName + '-' + moduleVersion.getVersion().getVersion();
+      }
+
+      for (int i = 0;; i++) {
+        pathBuildLogFile = pathBuildLogDir.resolve(buildLogFileName + (i == 0 ? "" : " (" + i + ")") + BuildRemote.BUILD_LOG_FILE_NAMES_SUFFIX);
+
+        if (!pathBuildLogFile.toFile().exists()) {
+          break;
         }
       }
-    } while (indStillBuilding);
+
+      // The log is streamed to the file by the RemoteBuildHandle so that it does not
+      // need to be held in memory, regardless of its size.
+      try {
+        writerLog = new BufferedWriter(new FileWriter(pathBuildLogFile.toFile()));
+
+        try {
+          moduleVersionBuild.remoteBuildHandle.getLog(writerLog);
+        } finally {
+          writerLog.close();
+        }
+      } catch (IOException ioe) {
+        throw new RuntimeException(ioe);
+      }
+
+      if (moduleVersionBuild.remoteBuildHandle.isSuccess()) {
+        userInteractionCallbackPlugin.provideInfo(MessageFormat.format(BuildRemote.resourceBundle.getString(BuildRemote.MSG_PATTERN_KEY_BUILD_SUCCEEDED), moduleVersion, moduleVersionBuild.remoteBuildHandle.getLocation(), pathBuildLogFile));
+      } else {
+        userInteractionCallbackPlugin.provideInfo(MessageFormat.format(BuildRemote.resourceBundle.getString(BuildRemote.MSG_PATTERN_KEY_BUILD_FAILED), moduleVersion, moduleVersionBuild.remoteBuildHandle.getLocation(), pathBuildLogFile));
+      }
+
+      return true;
+
+    default:
+      // Other states, if any, are considered as in progress.
+      return false;
+    }
   }
 }
@@ -61,6 +61,7 @@ import org.azyva.dragom.model.support.VersionJsonConverter;
 import org.azyva.dragom.reference.Reference;
 import org.azyva.dragom.reference.ReferenceGraph;
 import org.azyva.dragom.reference.ReferencePath;
+import org.azyva.dragom.reference.support.SimpleReferenceGraph;
 import org.azyva.dragom.util.Util;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
@@ -152,6 +153,12 @@ public class ReferenceGraphReport extends RootModuleVersionJobSimpleAbstractImpl
    */
   private boolean indIncludeReferencePaths;
 
+  /**
+   * Maximum number of {@link ReferencePath} literals to include for each
+   * {@link ModuleVersion}. 0 if not limited.
+   */
+  private int maxReferencePaths;
+
   /**
    * Constructor.
    *
@@ -239,7 +246,25 @@ public class ReferenceGraphReport extends RootModuleVersionJobSimpleAbstractImpl
    * {@link ModuleVersion}.
    */
   public void includeReferencePaths() {
+    this.includeReferencePaths(0);
+  }
+
+  /**
+   * Indicates to include the {@link ReferencePath} literals for each
+   * {@link ModuleVersion}, limited to a maximum number.
+   * <p>
+   * The number of ReferencePath's can grow exponentially with the number of
+   * ModuleVersion's in highly-connected reference graphs. When the limit is
+   * reached, the remaining ReferencePath's are not enumerated at all and the report
+   * includes the total number of ReferencePath's so that it is apparent that the
+   * List is truncated.
+   *
+   * @param maxReferencePaths Maximum number of ReferencePath literals to include
+   *   for each ModuleVersion. 0 if not limited.
+   */
+  public void includeReferencePaths(int maxReferencePaths) {
     this.indIncludeReferencePaths = true;
+    this.maxReferencePaths = maxReferencePaths;
   }
 
   /**
@@ -537,6 +562,9 @@ public class ReferenceGraphReport extends RootModuleVersionJobSimpleAbstractImpl
 
         if (this.indIncludeReferencePaths) {
           for (ReportVersion reportVersion: reportModule.listReportVersion) {
+            ModuleVersion moduleVersion;
+            ReferenceGraph.Visitor visitor;
+
             // If the ReportVersion is the most recent in the SCM, but not in the reference
             // graph, it means it does not occur in the reference graph. It therefore does not
             // have any reference paths.
@@ -544,17 +572,33 @@ public class ReferenceGraphReport extends RootModuleVersionJobSimpleAbstractImpl
               continue;
             }
 
+            moduleVersion = new ModuleVersion(reportModule.nodePathModule, reportVersion.version);
             reportVersion.listReferencePathLiteral = new ArrayList<String>();
 
-            referenceGraph.visitLeafModuleVersionReferencePaths(
-                new ModuleVersion(reportModule.nodePathModule, reportVersion.version),
-                new ReferenceGraph.Visitor() {
-                  @Override
-                  public ReferenceGraph.VisitControl visit(ReferenceGraph referenceGraph, ReferencePath referencePath, EnumSet<ReferenceGraph.VisitAction> enumSetVisitAction) {
-                    reportVersion.listReferencePathLiteral.add(referencePath.toString());
-                    return ReferenceGraph.VisitControl.CONTINUE;
-                  }
-                });
+            visitor = new ReferenceGraph.Visitor() {
+              @Override
+              public ReferenceGraph.VisitControl visit(ReferenceGraph referenceGraph, ReferencePath referencePath, EnumSet<ReferenceGraph.VisitAction> enumSetVisitAction) {
+                reportVersion.listReferencePathLiteral.add(referencePath.toString());
+
+                if (reportVersion.listReferencePathLiteral.size() == ReferenceGraphReport.this.maxReferencePaths) {
+                  return ReferenceGraph.VisitControl.ABORT;
+                }
+
+                return ReferenceGraph.VisitControl.CONTINUE;
+              }
+            };
+
+            // SimpleReferenceGraph can count the ReferencePath's without enumerating them
+            // and stop the enumeration at the limit without relying on the Visitor.
+            if (referenceGraph instanceof SimpleReferenceGraph) {
+              SimpleReferenceGraph simpleReferenceGraph;
+
+              simpleReferenceGraph = (SimpleReferenceGraph)referenceGraph;
+              reportVersion.referencePathCount = simpleReferenceGraph.getReferencePathCount(moduleVersion);
+              simpleReferenceGraph.visitLeafModuleVersionReferencePaths(moduleVersion, 0, (this.maxReferencePaths == 0) ? Long.MAX_VALUE : this.maxReferencePaths, visitor);
+            } else {
+              referenceGraph.visitLeafModuleVersionReferencePaths(moduleVersion, visitor);
+            }
           }
         }
       }
@@ -995,6 +1039,18 @@ class ReportVersion {
   @JsonProperty("reference-paths")
   public List<String> listReferencePathLiteral;
 
+  /**
+   * Total number of {@link ReferencePath}'s where this {@link Version} occurs. Can
+   * be greater than the number of elements in listReferencePathLiteral if the
+   * number of ReferencePath's included was limited.
+   * <p>
+   * Long is used to allow using null to exclude from report, such as when the
+   * reference graph does not support counting ReferencePath's.
+   */
+  @XmlElement(name="reference-path-count")
+  @JsonProperty("reference-path-count")
+  public Long referencePathCount;
+
   /**
    * Writes a ReportVersion in the text format.
    *
@@ -1011,6 +1067,10 @@ class ReportVersion {
         writer.append("    MostRecentInScm: ").append(Boolean.toString(this.indMostRecentInScm)).append('\n');
       }
 
+      if (this.referencePathCount != null) {
+        writer.append("    ReferencePathCount: ").append(Long.toString(this.referencePathCount)).append('\n');
+      }
+
       if (this.listReferencePathLiteral != null) {
         writer.append("    ReferencePaths:\n");
 
@@ -24,16 +24,27 @@ import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang.StringUtils;
 import org.azyva.dragom.apiutil.ByReference;
 import org.azyva.dragom.execcontext.ExecContext;
 import org.azyva.dragom.execcontext.plugin.RuntimePropertiesPlugin;
 import org.azyva.dragom.execcontext.plugin.UserInteractionCallbackPlugin;
+import org.azyva.dragom.execcontext.plugin.WorkspaceDirSystemModule;
 import org.azyva.dragom.execcontext.plugin.WorkspaceDirUserModuleVersion;
 import org.azyva.dragom.execcontext.plugin.WorkspacePlugin;
+import org.azyva.dragom.execcontext.plugin.impl.DefaultRuntimePropertiesPluginImpl;
 import org.azyva.dragom.execcontext.support.ExecContextHolder;
 import org.azyva.dragom.model.Module;
 import org.azyva.dragom.model.ModuleVersion;
@@ -42,12 +53,15 @@ import org.azyva.dragom.model.VersionType;
 import org.azyva.dragom.model.plugin.ModuleVersionMatcherPlugin;
 import org.azyva.dragom.model.plugin.ReferenceManagerPlugin;
 import org.azyva.dragom.model.plugin.ScmPlugin;
+import org.azyva.dragom.model.plugin.impl.ScmTreeView;
 import org.azyva.dragom.reference.Reference;
 import org.azyva.dragom.reference.ReferencePath;
 import org.azyva.dragom.reference.ReferencePathMatcher;
+import org.azyva.dragom.reference.support.PersistentReferenceCache;
 import org.azyva.dragom.util.AlwaysNeverYesNoAskUserResponse;
 import org.azyva.dragom.util.RuntimeExceptionAbort;
 import org.azyva.dragom.util.RuntimeExceptionUserError;
+import org.azyva.dragom.util.SharedStateLock;
 import org.azyva.dragom.util.Util;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -64,6 +78,14 @@ import org.slf4j.LoggerFactory;
  * <p>After validating the root ModuleVersion's, it iterates over them. For each
  * ModuleVersion it calls {@link #visitModuleVersion}.
  *
+ * <p>Subclasses which only read the reference graph can allow a parallel
+ * traversal mode using {@link #setIndAllowParallelTraversal}. In that mode,
+ * enabled with the runtime property TRAVERSAL_THREAD_COUNT, the
+ * {@link Reference}'s of sibling ModuleVersion's are resolved concurrently by a
+ * bounded pool of worker threads, while the traversal itself, including the
+ * matching of {@link ReferencePath}'s and reentry avoidance, remains performed
+ * sequentially by the main thread so that its outcome does not change.
+ *
  * <p>This class does not attempt to completely encapsulate its implementation. It
  * has protected instance variables available to subclasses to simplify
  * implementation.
@@ -83,6 +105,18 @@ public abstract class RootModuleVersionJobAbstractImpl extends RootModuleVersion
    */
   protected static final String RUNTIME_PROPERTY_SYNC_WORKSPACE_DIR = "SYNC_WORKSPACE_DIR";
 
+  /**
+   * Runtime property specifying the number of threads to use for resolving the
+   * {@link Reference}'s of sibling {@link ModuleVersion}'s concurrently during the
+   * traversal of the reference graphs.
+   *
+   * <p>If not defined or 1, the traversal is sequential. Honored only by jobs
+   * which allow it. See {@link #setIndAllowParallelTraversal}.
+   *
+   * <p>Accessed on the root ClassificationNode.
+   */
+  protected static final String RUNTIME_PROPERTY_TRAVERSAL_THREAD_COUNT = "TRAVERSAL_THREAD_COUNT";
+
   /**
    * Context for {@link Util#handleDoYouWantToContinue} that represents the fact
    * that local changes exist in a workspace directory and switching to a new
@@ -205,6 +239,43 @@ public abstract class RootModuleVersionJobAbstractImpl extends RootModuleVersion
    */
   protected boolean indListModuleVersionRootChanged;
 
+  /**
+   * Indicates that the job allows the parallel traversal mode. See
+   * {@link #setIndAllowParallelTraversal}.
+   */
+  private boolean indAllowParallelTraversal;
+
+  /**
+   * Indicates that the job uses the snapshot mode of runtime properties. See
+   * {@link #setIndRuntimePropertiesSnapshot}.
+   */
+  private boolean indRuntimePropertiesSnapshot;
+
+  /**
+   * Indicates that the job obtains the {@link Reference}'s using a
+   * {@link ScmTreeView} when possible. See {@link #setIndScmTreeView}.
+   */
+  private boolean indScmTreeView;
+
+  /**
+   * ExecutorService used for resolving the {@link Reference}'s of
+   * {@link ModuleVersion}'s concurrently. null if the traversal is sequential.
+   */
+  private ExecutorService executorServiceTraversal;
+
+  /**
+   * SharedStateLock held by the threads participating in the traversal when it is
+   * parallel.
+   */
+  private SharedStateLock sharedStateLock;
+
+  /**
+   * Map of the {@link Future}'s of the List of {@link Reference}'s of the
+   * {@link ModuleVersion}'s being resolved concurrently. An entry is removed once
+   * the main thread uses the List.
+   */
+  private Map<ModuleVersion, Future<List<Reference>>> mapModuleVersionFutureListReference;
+
   /**
    * Constructor.
    *
@@ -218,6 +289,51 @@ public abstract class RootModuleVersionJobAbstractImpl extends RootModuleVersion
     this.listExceptionThrownWhileVisitingModuleVersion = new ArrayList<String>();
   }
 
+  /**
+   * Allows the parallel traversal mode.
+   *
+   * <p>This mode is not appropriate for jobs which modify {@link ModuleVersion}'s
+   * while traversing the reference graphs since the {@link Reference}'s of a
+   * ModuleVersion can be resolved before its parent is visited. The default is to
+   * not allow it.
+   *
+   * @param indAllowParallelTraversal Specifies to allow the parallel traversal
+   *   mode.
+   */
+  protected void setIndAllowParallelTraversal(boolean indAllowParallelTraversal) {
+    this.indAllowParallelTraversal = indAllowParallelTraversal;
+  }
+
+  /**
+   * Specifies to use the snapshot mode of runtime properties while iterating
+   * through the root {@link ModuleVersion}'s. See
+   * {@link DefaultRuntimePropertiesPluginImpl#startSnapshot}.
+   *
+   * <p>This mode is appropriate for jobs which mostly read runtime properties
+   * while traversing the reference graphs. The default is to not use it.
+   *
+   * @param indRuntimePropertiesSnapshot Specifies to use the snapshot mode of
+   *   runtime properties.
+   */
+  protected void setIndRuntimePropertiesSnapshot(boolean indRuntimePropertiesSnapshot) {
+    this.indRuntimePropertiesSnapshot = indRuntimePropertiesSnapshot;
+  }
+
+  /**
+   * Specifies to obtain the {@link Reference}'s of {@link ModuleVersion}'s using a
+   * {@link ScmTreeView} when supported by the {@link ScmPlugin} and the
+   * {@link ReferenceManagerPlugin}, so that they do not need to be checked out.
+   *
+   * <p>This is appropriate only for jobs which do not access the workspace
+   * directories of the ModuleVersion's while traversing the reference graphs. The
+   * default is to not use ScmTreeView's.
+   *
+   * @param indScmTreeView Specifies to use ScmTreeView's.
+   */
+  protected void setIndScmTreeView(boolean indScmTreeView) {
+    this.indScmTreeView = indScmTreeView;
+  }
+
  /*
   * This class provides a default implementation which calls
   * {@link #beforeIterateListModuleVersionRoot},
@@ -228,10 +344,22 @@ public abstract class RootModuleVersionJobAbstractImpl extends RootModuleVersion
   */
   @Override
   public void performJob() {
+    boolean indSnapshotStarted;
+
 //    this.beforeValidateListModuleVersionRoot();
 //    this.validateListModuleVersionRoot();
     this.beforeIterateListModuleVersionRoot();
-    this.iterateListModuleVersionRoot();
+
+    indSnapshotStarted = this.indRuntimePropertiesSnapshot && DefaultRuntimePropertiesPluginImpl.startSnapshot();
+
+    try {
+      this.iterateListModuleVersionRoot();
+    } finally {
+      if (indSnapshotStarted) {
+        DefaultRuntimePropertiesPluginImpl.endSnapshot();
+      }
+    }
+
     this.afterIterateListModuleVersionRoot();
   }
 
@@ -343,50 +471,58 @@ public abstract class RootModuleVersionJobAbstractImpl extends RootModuleVersion
 
     RootModuleVersionJobAbstractImpl.logger.info("Starting the iteration among the root ModuleVersion's " + this.listModuleVersionRoot + '.');
 
-    for (indexModuleVersionRoot = 0; indexModuleVersionRoot < this.listModuleVersionRoot.size(); indexModuleVersionRoot++) {
-      boolean indVersionChanged;
+    this.startParallelTraversal();
 
-      moduleVersion = this.listModuleVersionRoot.get(indexModuleVersionRoot);
+    try {
+      this.resolveListModuleVersionRootConcurrently();
 
-      if (!this.checkVisitRootModuleVersion(moduleVersion)) {
-        userInteractionCallbackPlugin.provideInfo(MessageFormat.format(RootModuleVersionJobAbstractImpl.resourceBundle.getString(RootModuleVersionJobAbstractImpl.MSG_PATTERN_KEY_ROOT_MODULE_VERSION_SKIPPED), moduleVersion));
-        continue;
-      }
+      for (indexModuleVersionRoot = 0; indexModuleVersionRoot < this.listModuleVersionRoot.size(); indexModuleVersionRoot++) {
+        boolean indVersionChanged;
 
-      userInteractionCallbackPlugin.provideInfo(MessageFormat.format(RootModuleVersionJobAbstractImpl.resourceBundle.getString(RootModuleVersionJobAbstractImpl.MSG_PATTERN_KEY_INITIATING_TRAVERSAL_REFERENCE_GRAPH_ROOT_MODULE_VERSION), moduleVersion));
+        moduleVersion = this.listModuleVersionRoot.get(indexModuleVersionRoot);
 
-      try {
-        indVersionChanged = this.visitModuleVersion(new Reference(moduleVersion), byReferenceVersion);
-      } catch (RuntimeExceptionAbort rea) {
-        throw rea;
-      } catch (RuntimeException re) {
-        Util.ToolExitStatusAndContinue toolExitStatusAndContinue;
+        if (!this.checkVisitRootModuleVersion(moduleVersion)) {
+          userInteractionCallbackPlugin.provideInfo(MessageFormat.format(RootModuleVersionJobAbstractImpl.resourceBundle.getString(RootModuleVersionJobAbstractImpl.MSG_PATTERN_KEY_ROOT_MODULE_VERSION_SKIPPED), moduleVersion));
+          continue;
+        }
 
-        toolExitStatusAndContinue = Util.handleToolExitStatusAndContinueForExceptionalCond(null, Util.EXCEPTIONAL_COND_EXCEPTION_THROWN_WHILE_VISITING_MODULE_VERSION);
+        userInteractionCallbackPlugin.provideInfo(MessageFormat.format(RootModuleVersionJobAbstractImpl.resourceBundle.getString(RootModuleVersionJobAbstractImpl.MSG_PATTERN_KEY_INITIATING_TRAVERSAL_REFERENCE_GRAPH_ROOT_MODULE_VERSION), moduleVersion));
 
-        if (toolExitStatusAndContinue.indContinue) {
-          this.listExceptionThrownWhileVisitingModuleVersion.add(moduleVersion.toString() + " - " + Util.getOneLineExceptionSummary(re));
-          userInteractionCallbackPlugin.provideInfo(MessageFormat.format(Util.getLocalizedMsgPattern(Util.MSG_PATTERN_KEY_EXCEPTION_THROWN_WHILE_VISITING_MODULE_VERSION), toolExitStatusAndContinue.toolExitStatus, moduleVersion, Util.getStackTrace(re)));
-          continue;
-        } else {
-          throw new RuntimeExceptionAbort(MessageFormat.format(Util.getLocalizedMsgPattern(Util.MSG_PATTERN_KEY_EXCEPTION_THROWN_WHILE_VISITING_MODULE_VERSION), toolExitStatusAndContinue.toolExitStatus, moduleVersion, Util.getStackTrace(re)));
+        try {
+          indVersionChanged = this.visitModuleVersion(new Reference(moduleVersion), byReferenceVersion);
+        } catch (RuntimeExceptionAbort rea) {
+          throw rea;
+        } catch (RuntimeException re) {
+          Util.ToolExitStatusAndContinue toolExitStatusAndContinue;
+
+          toolExitStatusAndContinue = Util.handleToolExitStatusAndContinueForExceptionalCond(null, Util.EXCEPTIONAL_COND_EXCEPTION_THROWN_WHILE_VISITING_MODULE_VERSION);
+
+          if (toolExitStatusAndContinue.indContinue) {
+            this.listExceptionThrownWhileVisitingModuleVersion.add(moduleVersion.toString() + " - " + Util.getOneLineExceptionSummary(re));
+            userInteractionCallbackPlugin.provideInfo(MessageFormat.format(Util.getLocalizedMsgPattern(Util.MSG_PATTERN_KEY_EXCEPTION_THROWN_WHILE_VISITING_MODULE_VERSION), toolExitStatusAndContinue.toolExitStatus, moduleVersion, Util.getStackTrace(re)));
+            continue;
+          } else {
+            throw new RuntimeExceptionAbort(MessageFormat.format(Util.getLocalizedMsgPattern(Util.MSG_PATTERN_KEY_EXCEPTION_THROWN_WHILE_VISITING_MODULE_VERSION), toolExitStatusAndContinue.toolExitStatus, moduleVersion, Util.getStackTrace(re)));
+          }
         }
-      }
 
-      userInteractionCallbackPlugin.provideInfo(MessageFormat.format(RootModuleVersionJobAbstractImpl.resourceBundle.getString(RootModuleVersionJobAbstractImpl.MSG_PATTERN_KEY_TRAVERSAL_REFERENCE_GRAPH_ROOT_MODULE_VERSION_COMPLETED), moduleVersion));
+        userInteractionCallbackPlugin.provideInfo(MessageFormat.format(RootModuleVersionJobAbstractImpl.resourceBundle.getString(RootModuleVersionJobAbstractImpl.MSG_PATTERN_KEY_TRAVERSAL_REFERENCE_GRAPH_ROOT_MODULE_VERSION_COMPLETED), moduleVersion));
 
-      if (indVersionChanged) {
-        userInteractionCallbackPlugin.provideInfo(MessageFormat.format(RootModuleVersionJobAbstractImpl.resourceBundle.getString(RootModuleVersionJobAbstractImpl.MSG_PATTERN_KEY_UPDATE_CHANGED_ROOT_MODULE_VERSION), moduleVersion, byReferenceVersion.object));
+        if (indVersionChanged) {
+          userInteractionCallbackPlugin.provideInfo(MessageFormat.format(RootModuleVersionJobAbstractImpl.resourceBundle.getString(RootModuleVersionJobAbstractImpl.MSG_PATTERN_KEY_UPDATE_CHANGED_ROOT_MODULE_VERSION), moduleVersion, byReferenceVersion.object));
 
-        // We must create a new ModuleVersion as it is immutable.
-        this.listModuleVersionRoot.set(indexModuleVersionRoot, moduleVersion = new ModuleVersion(moduleVersion.getNodePath(), byReferenceVersion.object));
-        this.setIndListModuleVersionRootChanged();
-      }
+          // We must create a new ModuleVersion as it is immutable.
+          this.listModuleVersionRoot.set(indexModuleVersionRoot, moduleVersion = new ModuleVersion(moduleVersion.getNodePath(), byReferenceVersion.object));
+          this.setIndListModuleVersionRootChanged();
+        }
 
-      if (Util.isAbort()) {
-        userInteractionCallbackPlugin.provideInfo(Util.getLocalizedMsgPattern(Util.MSG_PATTERN_KEY_JOB_ABORTED_BY_USER));
-        break;
+        if (Util.isAbort()) {
+          userInteractionCallbackPlugin.provideInfo(Util.getLocalizedMsgPattern(Util.MSG_PATTERN_KEY_JOB_ABORTED_BY_USER));
+          break;
+        }
       }
+    } finally {
+      this.stopParallelTraversal();
     }
 
     RootModuleVersionJobAbstractImpl.logger.info("Iteration among all root ModuleVersions " + this.listModuleVersionRoot + " completed.");
@@ -489,7 +625,6 @@ public abstract class RootModuleVersionJobAbstractImpl extends RootModuleVersion
   protected boolean visitModuleVersion(Reference reference, ByReference<Version> byReferenceVersion) {
     ExecContext execContext;
     UserInteractionCallbackPlugin userInteractionCallbackPlugin;
-    WorkspacePlugin workspacePlugin;
     ModuleVersion moduleVersion;
     UserInteractionCallbackPlugin.IndentHandle indentHandle;
     Module module;
@@ -505,7 +640,6 @@ public abstract class RootModuleVersionJobAbstractImpl extends RootModuleVersion
 
     execContext = ExecContextHolder.get();
     userInteractionCallbackPlugin = execContext.getExecContextPlugin(UserInteractionCallbackPlugin.class);
-    workspacePlugin = execContext.getExecContextPlugin(WorkspacePlugin.class);
 
     indentHandle = null;
 
@@ -615,8 +749,6 @@ public abstract class RootModuleVersionJobAbstractImpl extends RootModuleVersion
           && (   (enumSetMatchFlag == null)
               || !enumSetMatchFlag.contains(ModuleVersionMatcherPlugin.MatchFlag.SKIP_CHILDREN))) {
 
-        Path pathModuleWorkspace;
-        ReferenceManagerPlugin referenceManagerPlugin = null;
         List<Reference> listReference;
 
         if (!indHandleUnsyncChangesPerformed) {
@@ -627,21 +759,16 @@ public abstract class RootModuleVersionJobAbstractImpl extends RootModuleVersion
           }
         }
 
-        pathModuleWorkspace = scmPlugin.checkoutSystem(moduleVersion.getVersion());
+        // If the traversal is parallel, the List of Reference's may already have been
+        // resolved by a worker thread.
+        listReference = this.getListReferenceResolvedConcurrently(moduleVersion);
 
-        try {
-          if (!module.isNodePluginExists(ReferenceManagerPlugin.class, null)) {
-            listReference = Collections.emptyList();
-          } else {
-            referenceManagerPlugin = module.getNodePlugin(ReferenceManagerPlugin.class, null);
-            listReference = referenceManagerPlugin.getListReference(pathModuleWorkspace);
-          }
-        } finally {
-          // We need to release before iterating through the references since the workspace
-          // directory may need to be accessed again.
-          workspacePlugin.releaseWorkspaceDir(pathModuleWorkspace);
+        if (listReference == null) {
+          listReference = this.getListReference(moduleVersion, false);
         }
 
+        this.resolveListReferenceChildrenConcurrently(listReference);
+
         for (Reference referenceChild: listReference) {
           if (referenceChild.getModuleVersion() == null) {
             // Appropriate message already written by ReferenceManagerPlugin.getListReference.
@@ -730,6 +857,389 @@ public abstract class RootModuleVersionJobAbstractImpl extends RootModuleVersion
     return false;
   }
 
+  /**
+   * Returns the List of {@link Reference}'s of a {@link ModuleVersion}.
+   *
+   * <p>The ModuleVersion is checked out using {@link ScmPlugin#checkoutSystem} and
+   * the List of References is obtained using {@link ReferenceManagerPlugin}.
+   *
+   * <p>If enabled by {@link #setIndScmTreeView} and supported, the References are
+   * obtained from a {@link ScmTreeView} instead, without checking out the
+   * ModuleVersion.
+   *
+   * <p>If enabled, {@link PersistentReferenceCache} is used. For a static
+   * {@link Version}, which is immutable, the ModuleVersion is not even checked out
+   * when the References are cached. For a dynamic Version, the ModuleVersion is
+   * checked out and the commit at its head is used as the key. In all cases, the
+   * cache is bypassed when the ModuleVersion is in a user workspace directory,
+   * since it can contain changes which are not committed.
+   *
+   * @param moduleVersion ModuleVersion.
+   * @param indConcurrent Indicates the method is called by a worker thread when
+   *   the traversal is parallel. In that case, if the workspace directory belongs to
+   *   the user and unsync changes are to be handled, null is returned so that the
+   *   main thread resolves the References after having handled these changes.
+   * @return See description.
+   */
+  private List<Reference> getListReference(ModuleVersion moduleVersion, boolean indConcurrent) {
+    ExecContext execContext;
+    WorkspacePlugin workspacePlugin;
+    Module module;
+    ScmPlugin scmPlugin;
+    PersistentReferenceCache persistentReferenceCache;
+    String referenceCacheKey;
+    List<Reference> listReference;
+    Path pathModuleWorkspace;
+
+    execContext = ExecContextHolder.get();
+    workspacePlugin = execContext.getExecContextPlugin(WorkspacePlugin.class);
+    module = execContext.getModel().getModule(moduleVersion.getNodePath());
+    scmPlugin = module.getNodePlugin(ScmPlugin.class, null);
+
+    if (!module.isNodePluginExists(ReferenceManagerPlugin.class, null)) {
+      persistentReferenceCache = null;
+    } else {
+      persistentReferenceCache = PersistentReferenceCache.get();
+    }
+
+    if ((persistentReferenceCache != null) && workspacePlugin.isWorkspaceDirExist(new WorkspaceDirUserModuleVersion(moduleVersion))) {
+      persistentReferenceCache = null;
+    }
+
+    referenceCacheKey = null;
+
+    if ((persistentReferenceCache != null) && (moduleVersion.getVersion().getVersionType() == VersionType.STATIC)) {
+      referenceCacheKey = PersistentReferenceCache.getKeyVersionStatic(moduleVersion.getVersion());
+      listReference = persistentReferenceCache.getListReference(moduleVersion.getNodePath(), referenceCacheKey);
+
+      if (listReference != null) {
+        return listReference;
+      }
+    }
+
+    // For jobs which only read ModuleVersion's, the References can be obtained from
+    // a ScmTreeView which avoids checking out the ModuleVersion. Since a ScmTreeView
+    // presents committed files only, the References can be cached even if the
+    // repository is within a user workspace directory.
+    if (   this.indScmTreeView
+        && (scmPlugin instanceof ScmTreeView.Provider)
+        && module.isNodePluginExists(ReferenceManagerPlugin.class, null)) {
+
+      ReferenceManagerPlugin referenceManagerPlugin;
+      ScmTreeView scmTreeView;
+
+      referenceManagerPlugin = module.getNodePlugin(ReferenceManagerPlugin.class, null);
+
+      if (   (referenceManagerPlugin instanceof ScmTreeView.ReferenceReader)
+          && ((scmTreeView = ((ScmTreeView.Provider)scmPlugin).getScmTreeView(moduleVersion.getVersion())) != null)) {
+
+        if ((persistentReferenceCache != null) && (referenceCacheKey == null)) {
+          referenceCacheKey = PersistentReferenceCache.getKeyCommit(scmTreeView.getRevisionId());
+          listReference = persistentReferenceCache.getListReference(moduleVersion.getNodePath(), referenceCacheKey);
+
+          if (listReference != null) {
+            return listReference;
+          }
+        }
+
+        listReference = ((ScmTreeView.ReferenceReader)referenceManagerPlugin).getListReference(scmTreeView);
+
+        if (persistentReferenceCache != null) {
+          persistentReferenceCache.putListReference(moduleVersion.getNodePath(), referenceCacheKey, listReference);
+        }
+
+        return listReference;
+      }
+    }
+
+    pathModuleWorkspace = scmPlugin.checkoutSystem(moduleVersion.getVersion());
+
+    try {
+      if (   indConcurrent
+          && ((this.unsyncChangesBehaviorLocal != UnsyncChangesBehavior.DO_NOT_HANDLE) || (this.unsyncChangesBehaviorRemote != UnsyncChangesBehavior.DO_NOT_HANDLE))
+          && (workspacePlugin.getWorkspaceDirFromPath(pathModuleWorkspace) instanceof WorkspaceDirUserModuleVersion)) {
+        return null;
+      }
+
+      if (!module.isNodePluginExists(ReferenceManagerPlugin.class, null)) {
+        return Collections.emptyList();
+      }
+
+      if ((persistentReferenceCache != null) && !(workspacePlugin.getWorkspaceDirFromPath(pathModuleWorkspace) instanceof WorkspaceDirSystemModule)) {
+        persistentReferenceCache = null;
+      }
+
+      if ((persistentReferenceCache != null) && (referenceCacheKey == null)) {
+        List<ScmPlugin.Commit> listCommit;
+
+        // The ModuleVersion is up to date after checkoutSystem, so that the commit at
+        // the head of the dynamic Version is the one which was just checked out. If the
+        // Version does not contain any commit of its own, it is not cached.
+        listCommit = scmPlugin.getListCommit(moduleVersion.getVersion(), new ScmPlugin.CommitPaging(1), null);
+
+        if (listCommit.isEmpty()) {
+          persistentReferenceCache = null;
+        } else {
+          referenceCacheKey = PersistentReferenceCache.getKeyCommit(listCommit.get(0).id);
+          listReference = persistentReferenceCache.getListReference(moduleVersion.getNodePath(), referenceCacheKey);
+
+          if (listReference != null) {
+            return listReference;
+          }
+        }
+      }
+
+      listReference = module.getNodePlugin(ReferenceManagerPlugin.class, null).getListReference(pathModuleWorkspace);
+
+      if (persistentReferenceCache != null) {
+        persistentReferenceCache.putListReference(moduleVersion.getNodePath(), referenceCacheKey, listReference);
+      }
+
+      return listReference;
+    } finally {
+      // We need to release before iterating through the references since the workspace
+      // directory may need to be accessed again.
+      workspacePlugin.releaseWorkspaceDir(pathModuleWorkspace);
+    }
+  }
+
+  /**
+   * Starts the parallel traversal mode if allowed by the job and enabled by the
+   * TRAVERSAL_THREAD_COUNT runtime property.
+   *
+   * <p>The main thread and the worker threads hold a {@link SharedStateLock} while
+   * they execute so that the shared state (Model, ExecContextPlugin's, etc.) is
+   * never accessed concurrently. The lock is released while waiting for Git
+   * commands to complete, which is where most of the time is spent.
+   */
+  private void startParallelTraversal() {
+    final ExecContext execContext;
+    String runtimeProperty;
+    int threadCount;
+    final SharedStateLock sharedStateLock;
+
+    if (!this.indAllowParallelTraversal) {
+      return;
+    }
+
+    execContext = ExecContextHolder.get();
+
+    runtimeProperty = execContext.getExecContextPlugin(RuntimePropertiesPlugin.class).getProperty(null, RootModuleVersionJobAbstractImpl.RUNTIME_PROPERTY_TRAVERSAL_THREAD_COUNT);
+
+    if (runtimeProperty == null) {
+      return;
+    }
+
+    threadCount = Integer.parseInt(runtimeProperty);
+
+    if (threadCount <= 1) {
+      return;
+    }
+
+    RootModuleVersionJobAbstractImpl.logger.info("Starting parallel traversal with " + threadCount + " threads.");
+
+    sharedStateLock = new SharedStateLock();
+    sharedStateLock.lock();
+    SharedStateLock.setForCurrentThread(sharedStateLock);
+
+    this.sharedStateLock = sharedStateLock;
+    this.mapModuleVersionFutureListReference = new HashMap<ModuleVersion, Future<List<Reference>>>();
+
+    this.executorServiceTraversal = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+      private int threadIndex;
+
+      @Override
+      public Thread newThread(final Runnable runnable) {
+        Thread thread;
+
+        thread = new Thread(new Runnable() {
+          @Override
+          public void run() {
+            ExecContextHolder.setSecondaryThread(execContext);
+            SharedStateLock.setForCurrentThread(sharedStateLock);
+            runnable.run();
+          }
+        }, RootModuleVersionJobAbstractImpl.class.getSimpleName() + "-worker-" + (++this.threadIndex));
+
+        thread.setDaemon(true);
+
+        return thread;
+      }
+    });
+  }
+
+  /**
+   * Stops the parallel traversal mode, if started.
+   *
+   * <p>Resolutions which are not started are cancelled and those which are in
+   * progress are waited for so that no workspace directory remains accessed.
+   */
+  private void stopParallelTraversal() {
+    int holdCount;
+
+    if (this.executorServiceTraversal == null) {
+      return;
+    }
+
+    for (Future<List<Reference>> future: this.mapModuleVersionFutureListReference.values()) {
+      future.cancel(false);
+    }
+
+    this.executorServiceTraversal.shutdown();
+
+    holdCount = SharedStateLock.releaseForBlockingOperation(null);
+
+    try {
+      this.executorServiceTraversal.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException ie) {
+      throw new RuntimeException(ie);
+    } finally {
+      SharedStateLock.reacquireAfterBlockingOperation(null, holdCount);
+
+      SharedStateLock.setForCurrentThread(null);
+      this.sharedStateLock.unlock();
+
+      this.executorServiceTraversal = null;
+      this.sharedStateLock = null;
+      this.mapModuleVersionFutureListReference = null;
+    }
+  }
+
+  /**
+   * Submits the resolution of the Lists of {@link Reference}'s of all the root
+   * {@link ModuleVersion}'s to the worker threads, if the traversal is parallel.
+   *
+   * <p>This way, the root ModuleVersion's are checked out (cloned or fetched)
+   * concurrently instead of one at a time as they are visited. Their children are
+   * then submitted as each one is visited, so that the reference graph is
+   * prefetched one level ahead of the traversal.
+   */
+  private void resolveListModuleVersionRootConcurrently() {
+    List<Reference> listReference;
+
+    if (this.executorServiceTraversal == null) {
+      return;
+    }
+
+    listReference = new ArrayList<Reference>();
+
+    for (ModuleVersion moduleVersion: this.listModuleVersionRoot) {
+      if (this.checkVisitRootModuleVersion(moduleVersion)) {
+        listReference.add(new Reference(moduleVersion));
+      }
+    }
+
+    this.resolveListReferenceChildrenConcurrently(listReference);
+  }
+
+  /**
+   * Submits the resolution of the Lists of {@link Reference}'s of the children
+   * {@link ModuleVersion}'s of the current {@link ReferencePath} to the worker
+   * threads, if the traversal is parallel.
+   *
+   * <p>Children which will not be traversed, based on the same criteria as those
+   * used by {@link #visitModuleVersion}, are skipped.
+   *
+   * @param listReference List of References to the children.
+   */
+  private void resolveListReferenceChildrenConcurrently(List<Reference> listReference) {
+    if (this.executorServiceTraversal == null) {
+      return;
+    }
+
+    for (Reference reference: listReference) {
+      final ModuleVersion moduleVersion;
+      boolean indCanMatchChildren;
+      Future<List<Reference>> future;
+
+      moduleVersion = reference.getModuleVersion();
+
+      if ((moduleVersion == null) || this.mapModuleVersionFutureListReference.containsKey(moduleVersion)) {
+        continue;
+      }
+
+      if (this.indAvoidReentry && this.moduleReentryAvoider.isModuleProcessed(moduleVersion)) {
+        continue;
+      }
+
+      if ((moduleVersion.getVersion().getVersionType() == VersionType.STATIC) && !this.indHandleStaticVersion) {
+        continue;
+      }
+
+      this.referencePath.add(reference);
+
+      try {
+        indCanMatchChildren = this.getReferencePathMatcher().canMatchChildren(this.referencePath);
+      } finally {
+        this.referencePath.removeLeafReference();
+      }
+
+      if (!indCanMatchChildren) {
+        continue;
+      }
+
+      future = this.executorServiceTraversal.submit(new Callable<List<Reference>>() {
+        @Override
+        public List<Reference> call() {
+          SharedStateLock sharedStateLock;
+
+          sharedStateLock = SharedStateLock.getForCurrentThread();
+          sharedStateLock.lock();
+
+          try {
+            return RootModuleVersionJobAbstractImpl.this.getListReference(moduleVersion, true);
+          } finally {
+            sharedStateLock.unlock();
+          }
+        }
+      });
+
+      this.mapModuleVersionFutureListReference.put(moduleVersion, future);
+    }
+  }
+
+  /**
+   * Returns the List of {@link Reference}'s of a {@link ModuleVersion} resolved by
+   * a worker thread, waiting for the resolution to complete if required.
+   *
+   * <p>If the resolution failed, the exception is rethrown so that it is handled
+   * as if it had been thrown by the main thread.
+   *
+   * @param moduleVersion ModuleVersion.
+   * @return List of References. null if the traversal is not parallel, if the
+   *   resolution was not submitted or if it must be performed by the main thread.
+   */
+  private List<Reference> getListReferenceResolvedConcurrently(ModuleVersion moduleVersion) {
+    Future<List<Reference>> future;
+    int holdCount;
+
+    if (this.mapModuleVersionFutureListReference == null) {
+      return null;
+    }
+
+    future = this.mapModuleVersionFutureListReference.remove(moduleVersion);
+
+    if (future == null) {
+      return null;
+    }
+
+    holdCount = SharedStateLock.releaseForBlockingOperation(null);
+
+    try {
+      return future.get();
+    } catch (InterruptedException ie) {
+      throw new RuntimeException(ie);
+    } catch (ExecutionException ee) {
+      if (ee.getCause() instanceof RuntimeException) {
+        throw (RuntimeException)ee.getCause();
+      }
+
+      throw new RuntimeException(ee.getCause());
+    } finally {
+      SharedStateLock.reacquireAfterBlockingOperation(null, holdCount);
+    }
+  }
+
   /**
    * We factor out the logic to handle unsync changes since it is called from more
    * than one place in {@link #visitModuleVersion}.
@@ -25,16 +25,30 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
 import java.nio.file.Path;
+import java.security.MessageDigest;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.azyva.dragom.execcontext.ExecContext;
 import org.azyva.dragom.execcontext.WorkspaceExecContext;
@@ -51,11 +65,11 @@ import org.azyva.dragom.model.Version;
 import org.azyva.dragom.model.VersionType;
 import org.azyva.dragom.model.plugin.JenkinsJobInfoPlugin;
 import org.azyva.dragom.reference.ReferenceGraph;
-import org.azyva.dragom.reference.ReferenceGraph.VisitControl;
 import org.azyva.dragom.reference.ReferencePath;
 import org.azyva.dragom.reference.ReferencePathMatcher;
 import org.azyva.dragom.util.RuntimeExceptionUserError;
 import org.azyva.dragom.util.ServiceLocator;
+import org.azyva.dragom.util.SharedStateLock;
 import org.azyva.dragom.util.Util;
 
 /**
@@ -79,6 +93,28 @@ import org.azyva.dragom.util.Util;
  * the metadata directory of the workspace. The default ItemsCreatedFileMode, if
  * {@link #setItemsCreatedFileMode} is not called, is
  * {@link ItemsCreatedFileMode#MERGE}.
+ * <p>
+ * The items-created file also records a hash of the content of each job (the
+ * config.xml file or the template and its parameters). A job which was
+ * previously created and whose content did not change is not updated. If a job is
+ * modified or deleted in Jenkins outside of Dragom, it can be forced to be updated
+ * by using {@link ItemsCreatedFileMode#IGNORE} or by removing it from the
+ * items-created file.
+ * <p>
+ * The job is performed in phases:
+ * <ul>
+ * <li>The ReferenceGraph is traversed to collect the jobs and their content;
+ * <li>The existence of the jobs and their parent folders is verified;
+ * <li>The user is asked to confirm the creation or update of jobs and the
+ *     creation of folders;
+ * <li>Folders are created;
+ * <li>Jobs are created or updated;
+ * <li>Unreferenced jobs and folders are deleted, depending on the
+ *     ItemsCreatedFileMode.
+ * </ul>
+ * Requests to Jenkins within the phases which can involve many items are
+ * submitted concurrently by a bounded number of threads. See
+ * {@link #RUNTIME_PROPERTY_JENKINS_THREAD_COUNT}.
  *
  * @author David Raymond
  */
@@ -124,6 +160,21 @@ public class SetupJenkinsJobs extends RootModuleVersionJobSimpleAbstractImpl {
    */
   private static final String RUNTIME_PROPERTY_JENKINS_USER = "JENKINS_USER";
 
+  /**
+   * Runtime property specifying the number of threads used to submit requests to
+   * Jenkins concurrently when creating, updating or deleting many items. Accessed
+   * on the root {@link ClassificationNode}.
+   * <p>
+   * If not specified, {@link #DEFAULT_JENKINS_THREAD_COUNT} is used. If 1,
+   * requests are submitted sequentially.
+   */
+  private static final String RUNTIME_PROPERTY_JENKINS_THREAD_COUNT = "JENKINS_THREAD_COUNT";
+
+  /**
+   * Default number of threads used to submit requests to Jenkins concurrently.
+   */
+  private static final int DEFAULT_JENKINS_THREAD_COUNT = 4;
+
   /**
    * See description in ResourceBundle.
    */
@@ -149,6 +200,11 @@ public class SetupJenkinsJobs extends RootModuleVersionJobSimpleAbstractImpl {
    */
   private static final String MSG_PATTERN_KEY_JOB_NEEDS_CREATING_OR_UPDATING = "JOB_NEEDS_CREATING_OR_UPDATING";
 
+  /**
+   * See description in ResourceBundle.
+   */
+  private static final String MSG_PATTERN_KEY_JOB_UNCHANGED = "JOB_UNCHANGED";
+
   /**
    * See description in ResourceBundle.
    */
@@ -245,11 +301,12 @@ public class SetupJenkinsJobs extends RootModuleVersionJobSimpleAbstractImpl {
     Set<String> setFolderCreated;
 
     /**
-     * Set of jobs created during the execution of the job or from the items-created
-     * file.
+     * Map of jobs created during the execution of the job or from the items-created
+     * file to the hash of their content. The hash can be null for jobs recorded in
+     * an items-created file which predates content hashes, in which case the job is
+     * considered as changed.
      */
-    Set<String> setJobCreated;
-
+    Map<String, String> mapJobCreatedHash;
 
     /**
      * Path to the file containing the items-created.
@@ -271,7 +328,7 @@ public class SetupJenkinsJobs extends RootModuleVersionJobSimpleAbstractImpl {
       this.setFolderNotReferencedSinceLoaded = new LinkedHashSet<String>();
       this.setJobNotReferencedSinceLoaded = new LinkedHashSet<String>();
       this.setFolderCreated = new LinkedHashSet<String>();
-      this.setJobCreated = new LinkedHashSet<String>();
+      this.mapJobCreatedHash = new LinkedHashMap<String, String>();
     }
 
     /**
@@ -310,7 +367,21 @@ public class SetupJenkinsJobs extends RootModuleVersionJobSimpleAbstractImpl {
             this.setFolderCreated.add(line);
             this.setFolderNotReferencedSinceLoaded.add(line);
           } else {
-            this.setJobCreated.add(line);
+            int indexTab;
+            String hash;
+
+            // Jobs are followed by the hash of their content, separated by a tab. Files
+            // written before hashes were introduced do not have it.
+            indexTab = line.indexOf('\t');
+
+            if (indexTab != -1) {
+              hash = line.substring(indexTab + 1);
+              line = line.substring(0, indexTab);
+            } else {
+              hash = null;
+            }
+
+            this.mapJobCreatedHash.put(line, hash);
             this.setJobNotReferencedSinceLoaded.add(line);
           }
         }
@@ -348,8 +419,14 @@ public class SetupJenkinsJobs extends RootModuleVersionJobSimpleAbstractImpl {
             bufferedWriter.write('\n');
           }
 
-          for (String job: this.setJobCreated) {
-            bufferedWriter.write(job);
+          for (Map.Entry<String, String> mapEntry: this.mapJobCreatedHash.entrySet()) {
+            bufferedWriter.write(mapEntry.getKey());
+
+            if (mapEntry.getValue() != null) {
+              bufferedWriter.write('\t');
+              bufferedWriter.write(mapEntry.getValue());
+            }
+
             bufferedWriter.write('\n');
           }
 
@@ -371,14 +448,30 @@ public class SetupJenkinsJobs extends RootModuleVersionJobSimpleAbstractImpl {
     }
 
     /**
-     * Indicates that a job was created.
+     * Indicates if a folder has been created or if it previously existed.
+     *
+     * @param folder Folder.
+     * @return See description.
+     */
+    public boolean isFolderCreated(String folder) {
+      return this.setFolderCreated.contains(folder);
+    }
+
+    /**
+     * Indicates that a job was created or updated, or that it is referenced and
+     * unchanged.
      *
      * @param job Job. Must not end with "/".
+     * @param hash Hash of the content of the job.
      */
-    public void jobCreated(String job) {
+    public void jobCreated(String job, String hash) {
       int indexJobName;
 
-      this.indModified |= this.setJobCreated.add(job);
+      if (!this.mapJobCreatedHash.containsKey(job) || !hash.equals(this.mapJobCreatedHash.get(job))) {
+        this.mapJobCreatedHash.put(job, hash);
+        this.indModified = true;
+      }
+
       this.setJobNotReferencedSinceLoaded.remove(job);
 
       indexJobName = job.lastIndexOf('/');
@@ -404,7 +497,19 @@ public class SetupJenkinsJobs extends RootModuleVersionJobSimpleAbstractImpl {
      * @return See description.
      */
     public boolean isJobCreated(String job) {
-      return this.setJobCreated.contains(job);
+      return this.mapJobCreatedHash.containsKey(job);
+    }
+
+    /**
+     * Returns the hash of the content of a job which has been created or which
+     * previously existed.
+     *
+     * @param job Job.
+     * @return See description. null if the job has not been created or if its hash
+     *   is not known.
+     */
+    public String getJobHash(String job) {
+      return this.mapJobCreatedHash.get(job);
     }
 
     /**
@@ -437,7 +542,11 @@ public class SetupJenkinsJobs extends RootModuleVersionJobSimpleAbstractImpl {
      * @param job Job. Must not end with "/".
      */
     public void jobDeleted(String job) {
-      this.indModified |= this.setJobCreated.remove(job);
+      if (this.mapJobCreatedHash.containsKey(job)) {
+        this.mapJobCreatedHash.remove(job);
+        this.indModified = true;
+      }
+
       this.setJobNotReferencedSinceLoaded.remove(job);
     }
 
@@ -454,7 +563,7 @@ public class SetupJenkinsJobs extends RootModuleVersionJobSimpleAbstractImpl {
 
       folder += '/';
 
-      iteratorJob = this.setJobCreated.iterator();
+      iteratorJob = this.mapJobCreatedHash.keySet().iterator();
 
       while (iteratorJob.hasNext()) {
         String job;
@@ -498,11 +607,28 @@ public class SetupJenkinsJobs extends RootModuleVersionJobSimpleAbstractImpl {
    */
   private Map<String, ModuleVersion> mapJobModuleVersionCreated;
 
+  /**
+   * List of the {@link JobSetup}'s collected while traversing the ReferenceGraph,
+   * for the jobs which need to be created or updated.
+   */
+  private List<JobSetup> listJobSetup;
+
   /**
    * JenkinsClient.
    */
   private JenkinsClient jenkinsClient;
 
+  /**
+   * Number of threads used to submit requests to Jenkins concurrently.
+   */
+  private int threadCount;
+
+  /**
+   * ExecutorService used to submit requests to Jenkins concurrently. null if
+   * threadCount is 1, or outside of {@link #performJob}.
+   */
+  private ExecutorService executorService;
+
   /**
    * Constructor.
    *
@@ -517,6 +643,7 @@ public class SetupJenkinsJobs extends RootModuleVersionJobSimpleAbstractImpl {
     String jenkinsBaseUrl;
     String user;
     String password;
+    String runtimeProperty;
 
     this.itemsCreatedFileManager = new ItemsCreatedFileManager(((WorkspaceExecContext)ExecContextHolder.get()).getPathMetadataDir().resolve(SetupJenkinsJobs.DEFAULT_ITEMS_CREATED_FILE));
     this.itemsCreatedFileMode = ItemsCreatedFileMode.MERGE;
@@ -556,6 +683,15 @@ public class SetupJenkinsJobs extends RootModuleVersionJobSimpleAbstractImpl {
     }
 
     this.mapJobModuleVersionCreated = new HashMap<String, ModuleVersion>();
+    this.listJobSetup = new ArrayList<JobSetup>();
+
+    runtimeProperty = runtimePropertiesPlugin.getProperty(null, SetupJenkinsJobs.RUNTIME_PROPERTY_JENKINS_THREAD_COUNT);
+
+    if (runtimeProperty == null) {
+      this.threadCount = SetupJenkinsJobs.DEFAULT_JENKINS_THREAD_COUNT;
+    } else {
+      this.threadCount = Integer.parseInt(runtimeProperty);
+    }
 
     this.jenkinsClient = ServiceLocator.getService(JenkinsClient.class);
     this.jenkinsClient.setBaseUrl(jenkinsBaseUrl);
@@ -581,7 +717,82 @@ public class SetupJenkinsJobs extends RootModuleVersionJobSimpleAbstractImpl {
   }
 
   /**
-   * {@link org.azyva.dragom.reference.ReferenceGraph.Visitor} used to
+   * Job to be created or updated, collected while traversing the
+   * {@link ReferenceGraph}.
+   * <p>
+   * The content of the job is obtained from {@link JenkinsJobInfoPlugin} during the
+   * traversal since it requires the ReferenceGraph and the ExecContext, whereas
+   * the actual requests to Jenkins are submitted later, possibly concurrently.
+   */
+  private static class JobSetup {
+    /**
+     * ModuleVersion for which the job is created.
+     */
+    ModuleVersion moduleVersion;
+
+    /**
+     * Job (full name).
+     */
+    String job;
+
+    /**
+     * Parent folder of the job, if its creation must be handled. null otherwise.
+     */
+    String folder;
+
+    /**
+     * Template. null if the job is not created from a template.
+     */
+    String template;
+
+    /**
+     * Template parameters, if template is not null.
+     */
+    Map<String, String> mapTemplateParam;
+
+    /**
+     * Configuration (config.xml) of the job, if template is null.
+     */
+    String config;
+
+    /**
+     * Hash of the content of the job. See {@link SetupJenkinsJobs#computeHash}.
+     */
+    String hash;
+  }
+
+  /**
+   * Operation performed on items (jobs or folders) by
+   * {@link SetupJenkinsJobs#performConcurrently}.
+   *
+   * @param <R> Type of the result of the operation.
+   */
+  private interface ItemOperation<R> {
+    /**
+     * Performs the operation on an item.
+     * <p>
+     * Can be called by a worker thread and must therefore only interact with
+     * Jenkins.
+     *
+     * @param item Item.
+     * @return Result.
+     */
+    R perform(String item);
+
+    /**
+     * Called once the operation was successfully performed on an item.
+     * <p>
+     * Called by the thread which called {@link SetupJenkinsJobs#performConcurrently}.
+     *
+     * @param item Item.
+     * @param result Result returned by {@link #perform}.
+     */
+    void performed(String item, R result);
+  }
+
+  /**
+   * {@link org.azyva.dragom.reference.ReferenceGraph.Visitor} used to collect the
+   * jobs to create or update.
    */
   private class ReferenceGraphVisitorSetupJob implements ReferenceGraph.Visitor {
     /**
@@ -598,9 +809,7 @@ public class SetupJenkinsJobs extends RootModuleVersionJobSimpleAbstractImpl {
       Model model;
       Module module;
       JenkinsJobInfoPlugin jenkinsJobInfoPlugin;
-      String job;
-      String folder;
-      String template;
+      JobSetup jobSetup;
 
       if (!enumSetVisitAction.contains(ReferenceGraph.VisitAction.VISIT)) {
         return ReferenceGraph.VisitControl.CONTINUE;
@@ -622,70 +831,45 @@ public class SetupJenkinsJobs extends RootModuleVersionJobSimpleAbstractImpl {
       module = model.getModule(referencePath.getLeafModuleVersion().getNodePath());
 
       jenkinsJobInfoPlugin = module.getNodePlugin(JenkinsJobInfoPlugin.class, null);
-      job = jenkinsJobInfoPlugin.getJobFullName(version);
 
-      if ((SetupJenkinsJobs.this.jenkinsClient.getItemType(job) != null) && !SetupJenkinsJobs.this.itemsCreatedFileManager.isJobCreated(job)) {
-        throw new RuntimeExceptionUserError(MessageFormat.format(SetupJenkinsJobs.resourceBundle.getString(SetupJenkinsJobs.MSG_PATTERN_KEY_JOB_ALREADY_EXISTS), referencePath.getLeafModuleVersion(), job));
-      }
+      jobSetup = new JobSetup();
+      jobSetup.moduleVersion = referencePath.getLeafModuleVersion();
+      jobSetup.job = jenkinsJobInfoPlugin.getJobFullName(version);
 
-      if (SetupJenkinsJobs.this.mapJobModuleVersionCreated.get(job) != null) {
-        throw new RuntimeExceptionUserError(MessageFormat.format(SetupJenkinsJobs.resourceBundle.getString(SetupJenkinsJobs.MSG_PATTERN_KEY_JOB_ALREADY_CREATED_FOR_OTHER_MODULE_VERSION), referencePath.getLeafModuleVersion(), job, SetupJenkinsJobs.this.mapJobModuleVersionCreated.get(job)));
+      if (SetupJenkinsJobs.this.mapJobModuleVersionCreated.get(jobSetup.job) != null) {
+        throw new RuntimeExceptionUserError(MessageFormat.format(SetupJenkinsJobs.resourceBundle.getString(SetupJenkinsJobs.MSG_PATTERN_KEY_JOB_ALREADY_CREATED_FOR_OTHER_MODULE_VERSION), jobSetup.moduleVersion, jobSetup.job, SetupJenkinsJobs.this.mapJobModuleVersionCreated.get(jobSetup.job)));
       }
 
-      userInteractionCallbackPlugin.provideInfo(MessageFormat.format(SetupJenkinsJobs.resourceBundle.getString(SetupJenkinsJobs.MSG_PATTERN_KEY_JOB_NEEDS_CREATING_OR_UPDATING), referencePath.getLeafModuleVersion(), job));
-
-      if (!Util.handleDoYouWantToContinueWithIndividualNo(SetupJenkinsJobs.DO_YOU_WANT_TO_CONTINUE_CONTEXT_CREATE_UPDATE_JENKINS_JOB)) {
-        return Util.isAbort() ? VisitControl.ABORT : VisitControl.CONTINUE;
-      }
+      SetupJenkinsJobs.this.mapJobModuleVersionCreated.put(jobSetup.job, jobSetup.moduleVersion);
 
       if (jenkinsJobInfoPlugin.isHandleParentFolderCreation()) {
         int indexJobName;
-        JenkinsClient.ItemType itemType;
 
-        indexJobName = job.lastIndexOf('/');
+        indexJobName = jobSetup.job.lastIndexOf('/');
 
         if (indexJobName != -1) {
-          folder = job.substring(0, indexJobName);
-
-          itemType = SetupJenkinsJobs.this.jenkinsClient.getItemType(folder);
-
-          if ((itemType != null) && (itemType == JenkinsClient.ItemType.NOT_FOLDER)) {
-            // We really do not expect to get here since we took the parent path of a job,
-            // which is necessarily a folder.
-            throw new RuntimeException("Unexpected type for item " + folder + '.');
-          }
-
-          if (itemType == null) {
-            userInteractionCallbackPlugin.provideInfo(MessageFormat.format(SetupJenkinsJobs.resourceBundle.getString(SetupJenkinsJobs.MSG_PATTERN_KEY_FOLDER_NEEDS_CREATING), referencePath.getLeafModuleVersion(), folder));
-
-            if (!Util.handleDoYouWantToContinueWithIndividualNo(SetupJenkinsJobs.DO_YOU_WANT_TO_CONTINUE_CONTEXT_CREATE_JENKINS_FOLDER)) {
-              return Util.isAbort() ? VisitControl.ABORT : VisitControl.CONTINUE;
-            }
-
-            SetupJenkinsJobs.this.jenkinsClient.createSimpleFolder(folder);
-
-            SetupJenkinsJobs.this.itemsCreatedFileManager.folderCreated(folder);
-          }
+          jobSetup.folder = jobSetup.job.substring(0, indexJobName);
         }
       }
 
-      template = jenkinsJobInfoPlugin.getTemplate();
+      jobSetup.template = jenkinsJobInfoPlugin.getTemplate();
 
-      if (template != null) {
-        Map<String, String> mapTemplateParam;
-
-        mapTemplateParam = jenkinsJobInfoPlugin.getMapTemplateParam(referenceGraph, version);
-        SetupJenkinsJobs.this.jenkinsClient.createUpdateJobFromTemplate(template, job, mapTemplateParam);
+      if (jobSetup.template != null) {
+        jobSetup.mapTemplateParam = jenkinsJobInfoPlugin.getMapTemplateParam(referenceGraph, version);
       } else {
-        Reader readerConfig;
-
-        readerConfig = jenkinsJobInfoPlugin.getReaderConfig(referenceGraph, version);
-        SetupJenkinsJobs.this.jenkinsClient.createUpdateJob(job, readerConfig);
+        jobSetup.config = SetupJenkinsJobs.readConfig(jenkinsJobInfoPlugin.getReaderConfig(referenceGraph, version));
       }
 
-      SetupJenkinsJobs.this.itemsCreatedFileManager.jobCreated(job);
+      jobSetup.hash = SetupJenkinsJobs.computeHash(jobSetup);
+
+      if (jobSetup.hash.equals(SetupJenkinsJobs.this.itemsCreatedFileManager.getJobHash(jobSetup.job))) {
+        userInteractionCallbackPlugin.provideInfo(MessageFormat.format(SetupJenkinsJobs.resourceBundle.getString(SetupJenkinsJobs.MSG_PATTERN_KEY_JOB_UNCHANGED), jobSetup.moduleVersion, jobSetup.job));
 
-      SetupJenkinsJobs.this.mapJobModuleVersionCreated.put(job, referencePath.getLeafModuleVersion());
+        // The job is referenced, even though it does not need to be updated.
+        SetupJenkinsJobs.this.itemsCreatedFileManager.jobCreated(jobSetup.job, jobSetup.hash);
+      } else {
+        SetupJenkinsJobs.this.listJobSetup.add(jobSetup);
+      }
 
       return ReferenceGraph.VisitControl.CONTINUE;
     }
@@ -705,10 +889,8 @@ public class SetupJenkinsJobs extends RootModuleVersionJobSimpleAbstractImpl {
     buildReferenceGraph.performJob();
     referenceGraph = buildReferenceGraph.getReferenceGraph();
 
-    UserInteractionCallbackPlugin userInteractionCallbackPlugin;
     SetupJenkinsJobs.ReferenceGraphVisitorSetupJob referenceGraphVisitorSetupJob;
-
-    userInteractionCallbackPlugin = ExecContextHolder.get().getExecContextPlugin(UserInteractionCallbackPlugin.class);
+    final List<String> listFolderEmpty;
 
     if (this.itemsCreatedFileManager.isFileSpecified()) {
       if (this.itemsCreatedFileMode == ItemsCreatedFileMode.IGNORE) {
@@ -722,101 +904,423 @@ public class SetupJenkinsJobs extends RootModuleVersionJobSimpleAbstractImpl {
 
     referenceGraphVisitorSetupJob = new SetupJenkinsJobs.ReferenceGraphVisitorSetupJob();
 
+    this.startExecutorService();
+
     try {
       // Traversal is not depth-first as jobs will often refer to downstream jobs
       // which are actually jobs that correspond to ModuleVersion's higher in the
       // ReferenceGraph.
       referenceGraph.traverseReferenceGraph(null, ReferenceGraph.TraversalOrder.ALL_PARENTS_FIRST, ReferenceGraph.ReentryMode.NO_REENTRY, referenceGraphVisitorSetupJob);
 
+      if (!this.setupJobs()) {
+        return;
+      }
+
       if (this.itemsCreatedFileMode == ItemsCreatedFileMode.REPLACE) {
         // We start by deleting the folders since this will delete all jobs within them at
         // once, which will be more efficient than deleting the jobs individually.
-        for (String folder: this.itemsCreatedFileManager.getSetFolderNotReferencedSinceLoaded()) {
-          userInteractionCallbackPlugin.provideInfo(MessageFormat.format(SetupJenkinsJobs.resourceBundle.getString(SetupJenkinsJobs.MSG_PATTERN_KEY_DELETING_UNREFERENCED_FOLDER), folder));
+        if (!this.deleteItems(this.itemsCreatedFileManager.getSetFolderNotReferencedSinceLoaded(), true, SetupJenkinsJobs.DO_YOU_WANT_TO_CONTINUE_CONTEXT_DELETE_JENKINS_FOLDER)) {
+          return;
+        }
 
-          if (!Util.handleDoYouWantToContinueWithIndividualNo(SetupJenkinsJobs.DO_YOU_WANT_TO_CONTINUE_CONTEXT_DELETE_JENKINS_FOLDER)) {
-            if (Util.isAbort()) {
-              return;
-            } else {
-              continue;
+        // The jobs that remain to be deleted are those not in folders which were deleted
+        // above.
+        this.deleteItems(this.itemsCreatedFileManager.getSetJobNotReferencedSinceLoaded(), false, SetupJenkinsJobs.DO_YOU_WANT_TO_CONTINUE_CONTEXT_DELETE_JENKINS_JOB);
+      } else if (this.itemsCreatedFileMode == ItemsCreatedFileMode.REPLACE_DELETE_FOLDER_ONLY_IF_EMPTY) {
+        // Here, we must delete the jobs first since the folders need to be deleted only
+        // if empty, and they can become empty following the deletion of jobs within them.
+        if (!this.deleteItems(this.itemsCreatedFileManager.getSetJobNotReferencedSinceLoaded(), false, SetupJenkinsJobs.DO_YOU_WANT_TO_CONTINUE_CONTEXT_DELETE_JENKINS_JOB)) {
+          return;
+        }
+
+        listFolderEmpty = new ArrayList<String>();
+
+        this.performConcurrently(this.itemsCreatedFileManager.getSetFolderNotReferencedSinceLoaded(), new ItemOperation<Boolean>() {
+          @Override
+          public Boolean perform(String folder) {
+            return SetupJenkinsJobs.this.jenkinsClient.isFolderEmpty(folder);
+          }
+
+          @Override
+          public void performed(String folder, Boolean indFolderEmpty) {
+            if (indFolderEmpty) {
+              listFolderEmpty.add(folder);
             }
           }
+        });
 
-          this.jenkinsClient.deleteItem(folder);
+        this.deleteItems(listFolderEmpty, true, SetupJenkinsJobs.DO_YOU_WANT_TO_CONTINUE_CONTEXT_DELETE_JENKINS_FOLDER);
+      } else if (this.itemsCreatedFileMode == ItemsCreatedFileMode.REPLACE_NO_DELETE_FOLDER) {
+        this.deleteItems(this.itemsCreatedFileManager.getSetJobNotReferencedSinceLoaded(), false, SetupJenkinsJobs.DO_YOU_WANT_TO_CONTINUE_CONTEXT_DELETE_JENKINS_FOLDER);
+      }
+    } finally {
+      this.stopExecutorService();
+      this.itemsCreatedFileManager.save();
+    }
+  }
 
-          // This will mark the jobs within the folder as being deleted as well.
-          this.itemsCreatedFileManager.folderDeleted(folder);
+  /**
+   * Creates or updates the jobs collected while traversing the ReferenceGraph.
+   * <p>
+   * The existence of the jobs which were not previously created and of their
+   * parent folders is first verified concurrently. The user is then asked to
+   * confirm the creation or update of each job and the creation of each missing
+   * folder. Folders are then created, sequentially and parents first. Finally, jobs
+   * are created or updated concurrently.
+   *
+   * @return false if the user aborted. In that case, the jobs which were confirmed
+   *   before aborting are nevertheless created or updated.
+   */
+  private boolean setupJobs() {
+    UserInteractionCallbackPlugin userInteractionCallbackPlugin;
+    Set<String> setItem;
+    final Map<String, JenkinsClient.ItemType> mapItemType;
+    Set<String> setFolderToCreate;
+    Set<String> setFolderDeclined;
+    final Map<String, JobSetup> mapJobSetupConfirmed;
+    boolean indAbort;
+
+    userInteractionCallbackPlugin = ExecContextHolder.get().getExecContextPlugin(UserInteractionCallbackPlugin.class);
+
+    // Jobs which were previously created need not be verified since they are known
+    // to belong to the current workspace.
+    setItem = new LinkedHashSet<String>();
+
+    for (JobSetup jobSetup: this.listJobSetup) {
+      if (!this.itemsCreatedFileManager.isJobCreated(jobSetup.job)) {
+        setItem.add(jobSetup.job);
+      }
+
+      if (jobSetup.folder != null) {
+        setItem.add(jobSetup.folder);
+      }
+    }
+
+    mapItemType = new HashMap<String, JenkinsClient.ItemType>();
+
+    this.performConcurrently(setItem, new ItemOperation<JenkinsClient.ItemType>() {
+      @Override
+      public JenkinsClient.ItemType perform(String item) {
+        return SetupJenkinsJobs.this.jenkinsClient.getItemType(item);
+      }
+
+      @Override
+      public void performed(String item, JenkinsClient.ItemType itemType) {
+        mapItemType.put(item, itemType);
+      }
+    });
+
+    // TreeSet so that parent folders are created before their children.
+    setFolderToCreate = new TreeSet<String>();
+    setFolderDeclined = new HashSet<String>();
+    mapJobSetupConfirmed = new LinkedHashMap<String, JobSetup>();
+    indAbort = false;
+
+    for (JobSetup jobSetup: this.listJobSetup) {
+      if ((mapItemType.get(jobSetup.job) != null) && !this.itemsCreatedFileManager.isJobCreated(jobSetup.job)) {
+        throw new RuntimeExceptionUserError(MessageFormat.format(SetupJenkinsJobs.resourceBundle.getString(SetupJenkinsJobs.MSG_PATTERN_KEY_JOB_ALREADY_EXISTS), jobSetup.moduleVersion, jobSetup.job));
+      }
+
+      userInteractionCallbackPlugin.provideInfo(MessageFormat.format(SetupJenkinsJobs.resourceBundle.getString(SetupJenkinsJobs.MSG_PATTERN_KEY_JOB_NEEDS_CREATING_OR_UPDATING), jobSetup.moduleVersion, jobSetup.job));
+
+      if (!Util.handleDoYouWantToContinueWithIndividualNo(SetupJenkinsJobs.DO_YOU_WANT_TO_CONTINUE_CONTEXT_CREATE_UPDATE_JENKINS_JOB)) {
+        if (Util.isAbort()) {
+          indAbort = true;
+          break;
+        } else {
+          continue;
         }
+      }
 
-        // The jobs that remain to be deleted are those not in folders which were deleted
-        // above.
-        for (String job: this.itemsCreatedFileManager.getSetJobNotReferencedSinceLoaded()) {
-          userInteractionCallbackPlugin.provideInfo(MessageFormat.format(SetupJenkinsJobs.resourceBundle.getString(SetupJenkinsJobs.MSG_PATTERN_KEY_DELETING_UNREFERENCED_JOB), job));
+      if (jobSetup.folder != null) {
+        JenkinsClient.ItemType itemType;
 
-          if (!Util.handleDoYouWantToContinueWithIndividualNo(SetupJenkinsJobs.DO_YOU_WANT_TO_CONTINUE_CONTEXT_DELETE_JENKINS_JOB)) {
-            if (Util.isAbort()) {
-              return;
-            } else {
-              continue;
-            }
-          }
+        itemType = mapItemType.get(jobSetup.folder);
 
-          this.jenkinsClient.deleteItem(job);
-          this.itemsCreatedFileManager.jobDeleted(job);
+        if (itemType == JenkinsClient.ItemType.NOT_FOLDER) {
+          // We really do not expect to get here since we took the parent path of a job,
+          // which is necessarily a folder.
+          throw new RuntimeException("Unexpected type for item " + jobSetup.folder + '.');
         }
-      } else if (this.itemsCreatedFileMode == ItemsCreatedFileMode.REPLACE_DELETE_FOLDER_ONLY_IF_EMPTY) {
-        // Here, we must delete the jobs first since the folders need to be deleted only
-        // if empty, and they can become empty following the deletion of jobs within them.
-        for (String job: this.itemsCreatedFileManager.getSetJobNotReferencedSinceLoaded()) {
-          userInteractionCallbackPlugin.provideInfo(MessageFormat.format(SetupJenkinsJobs.resourceBundle.getString(SetupJenkinsJobs.MSG_PATTERN_KEY_DELETING_UNREFERENCED_JOB), job));
 
-          if (!Util.handleDoYouWantToContinueWithIndividualNo(SetupJenkinsJobs.DO_YOU_WANT_TO_CONTINUE_CONTEXT_DELETE_JENKINS_JOB)) {
+        if ((itemType == null) && !setFolderToCreate.contains(jobSetup.folder)) {
+          // The user is asked only once per folder.
+          if (setFolderDeclined.contains(jobSetup.folder)) {
+            continue;
+          }
+
+          userInteractionCallbackPlugin.provideInfo(MessageFormat.format(SetupJenkinsJobs.resourceBundle.getString(SetupJenkinsJobs.MSG_PATTERN_KEY_FOLDER_NEEDS_CREATING), jobSetup.moduleVersion, jobSetup.folder));
+
+          if (!Util.handleDoYouWantToContinueWithIndividualNo(SetupJenkinsJobs.DO_YOU_WANT_TO_CONTINUE_CONTEXT_CREATE_JENKINS_FOLDER)) {
             if (Util.isAbort()) {
-              return;
+              indAbort = true;
+              break;
             } else {
+              setFolderDeclined.add(jobSetup.folder);
               continue;
             }
           }
 
-          this.jenkinsClient.deleteItem(job);
-          this.itemsCreatedFileManager.jobDeleted(job);
+          setFolderToCreate.add(jobSetup.folder);
         }
+      }
 
-        for (String folder: this.itemsCreatedFileManager.getSetFolderNotReferencedSinceLoaded()) {
-          if (this.jenkinsClient.isFolderEmpty(folder)) {
-            userInteractionCallbackPlugin.provideInfo(MessageFormat.format(SetupJenkinsJobs.resourceBundle.getString(SetupJenkinsJobs.MSG_PATTERN_KEY_DELETING_UNREFERENCED_FOLDER), folder));
+      mapJobSetupConfirmed.put(jobSetup.job, jobSetup);
+    }
 
-            if (!Util.handleDoYouWantToContinueWithIndividualNo(SetupJenkinsJobs.DO_YOU_WANT_TO_CONTINUE_CONTEXT_DELETE_JENKINS_FOLDER)) {
-              if (Util.isAbort()) {
-                return;
-              } else {
-                continue;
-              }
-            }
+    // Folders are generally few and must be created before the jobs within them, so
+    // they are created sequentially.
+    for (String folder: setFolderToCreate) {
+      this.jenkinsClient.createSimpleFolder(folder);
+      this.itemsCreatedFileManager.folderCreated(folder);
+    }
 
-            this.jenkinsClient.deleteItem(folder);
-            this.itemsCreatedFileManager.folderDeleted(folder);
-          }
+    this.performConcurrently(mapJobSetupConfirmed.keySet(), new ItemOperation<Void>() {
+      @Override
+      public Void perform(String job) {
+        JobSetup jobSetup;
+
+        jobSetup = mapJobSetupConfirmed.get(job);
 
+        if (jobSetup.template != null) {
+          SetupJenkinsJobs.this.jenkinsClient.createUpdateJobFromTemplate(jobSetup.template, job, jobSetup.mapTemplateParam);
+        } else {
+          SetupJenkinsJobs.this.jenkinsClient.createUpdateJob(job, new StringReader(jobSetup.config));
         }
-      } else if (this.itemsCreatedFileMode == ItemsCreatedFileMode.REPLACE_NO_DELETE_FOLDER) {
-        for (String job: this.itemsCreatedFileManager.getSetJobNotReferencedSinceLoaded()) {
-          userInteractionCallbackPlugin.provideInfo(MessageFormat.format(SetupJenkinsJobs.resourceBundle.getString(SetupJenkinsJobs.MSG_PATTERN_KEY_DELETING_UNREFERENCED_JOB), job));
 
-          if (!Util.handleDoYouWantToContinueWithIndividualNo(SetupJenkinsJobs.DO_YOU_WANT_TO_CONTINUE_CONTEXT_DELETE_JENKINS_FOLDER)) {
-            if (Util.isAbort()) {
-              return;
-            } else {
-              continue;
-            }
+        return null;
+      }
+
+      @Override
+      public void performed(String job, Void result) {
+        SetupJenkinsJobs.this.itemsCreatedFileManager.jobCreated(job, mapJobSetupConfirmed.get(job).hash);
+      }
+    });
+
+    return !indAbort;
+  }
+
+  /**
+   * Deletes unreferenced items (jobs or folders).
+   * <p>
+   * The user is first asked to confirm the deletion of each item. The confirmed
+   * items are then deleted concurrently.
+   *
+   * @param collectionItem Items.
+   * @param indFolder Indicates if the items are folders, as opposed to jobs.
+   * @param doYouWantToContinueContext Context for
+   *   {@link Util#handleDoYouWantToContinue}.
+   * @return false if the user aborted. In that case, the items which were
+   *   confirmed before aborting are nevertheless deleted.
+   */
+  private boolean deleteItems(Collection<String> collectionItem, final boolean indFolder, String doYouWantToContinueContext) {
+    UserInteractionCallbackPlugin userInteractionCallbackPlugin;
+    List<String> listItemConfirmed;
+    boolean indAbort;
+
+    userInteractionCallbackPlugin = ExecContextHolder.get().getExecContextPlugin(UserInteractionCallbackPlugin.class);
+    listItemConfirmed = new ArrayList<String>();
+    indAbort = false;
+
+    for (String item: collectionItem) {
+      userInteractionCallbackPlugin.provideInfo(MessageFormat.format(SetupJenkinsJobs.resourceBundle.getString(indFolder ? SetupJenkinsJobs.MSG_PATTERN_KEY_DELETING_UNREFERENCED_FOLDER : SetupJenkinsJobs.MSG_PATTERN_KEY_DELETING_UNREFERENCED_JOB), item));
+
+      if (!Util.handleDoYouWantToContinueWithIndividualNo(doYouWantToContinueContext)) {
+        if (Util.isAbort()) {
+          indAbort = true;
+          break;
+        } else {
+          continue;
+        }
+      }
+
+      listItemConfirmed.add(item);
+    }
+
+    this.performConcurrently(listItemConfirmed, new ItemOperation<Void>() {
+      @Override
+      public Void perform(String item) {
+        SetupJenkinsJobs.this.jenkinsClient.deleteItem(item);
+        return null;
+      }
+
+      @Override
+      public void performed(String item, Void result) {
+        if (indFolder) {
+          // This will mark the jobs within the folder as being deleted as well.
+          SetupJenkinsJobs.this.itemsCreatedFileManager.folderDeleted(item);
+        } else {
+          SetupJenkinsJobs.this.itemsCreatedFileManager.jobDeleted(item);
+        }
+      }
+    });
+
+    return !indAbort;
+  }
+
+  /**
+   * Starts the ExecutorService used to submit requests to Jenkins concurrently, if
+   * more than one thread is to be used.
+   */
+  private void startExecutorService() {
+    if (this.threadCount <= 1) {
+      return;
+    }
+
+    // The worker threads only submit requests to Jenkins and do not access the
+    // ExecContext.
+    this.executorService = Executors.newFixedThreadPool(this.threadCount, new ThreadFactory() {
+      private int threadIndex;
+
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread;
+
+        thread = new Thread(runnable, SetupJenkinsJobs.class.getSimpleName() + "-worker-" + (++this.threadIndex));
+        thread.setDaemon(true);
+
+        return thread;
+      }
+    });
+  }
+
+  /**
+   * Stops the ExecutorService started by {@link #startExecutorService}, if any.
+   */
+  private void stopExecutorService() {
+    if (this.executorService != null) {
+      // All submitted operations are waited for by performConcurrently, so there is
+      // normally nothing pending.
+      this.executorService.shutdownNow();
+      this.executorService = null;
+    }
+  }
+
+  /**
+   * Performs an {@link ItemOperation} on items, concurrently if the
+   * ExecutorService is available.
+   * <p>
+   * All operations are waited for, even if some fail, so that
+   * {@link ItemOperation#performed} is called for all the items on which the
+   * operation was successful and the items-created file reflects what was
+   * actually done. The first exception is then rethrown.
+   *
+   * @param collectionItem Items.
+   * @param itemOperation ItemOperation.
+   * @param <R> Type of the result of the operation.
+   */
+  private <R> void performConcurrently(Collection<String> collectionItem, final ItemOperation<R> itemOperation) {
+    Map<String, Future<R>> mapItemFuture;
+    RuntimeException runtimeExceptionFirst;
+
+    if (this.executorService == null) {
+      for (String item: collectionItem) {
+        itemOperation.performed(item, itemOperation.perform(item));
+      }
+
+      return;
+    }
+
+    mapItemFuture = new LinkedHashMap<String, Future<R>>();
+
+    for (final String item: collectionItem) {
+      mapItemFuture.put(item, this.executorService.submit(new Callable<R>() {
+        @Override
+        public R call() {
+          return itemOperation.perform(item);
+        }
+      }));
+    }
+
+    runtimeExceptionFirst = null;
+
+    for (Map.Entry<String, Future<R>> mapEntry: mapItemFuture.entrySet()) {
+      int holdCount;
+      R result;
+
+      holdCount = SharedStateLock.releaseForBlockingOperation(null);
+
+      try {
+        result = mapEntry.getValue().get();
+      } catch (InterruptedException ie) {
+        throw new RuntimeException(ie);
+      } catch (ExecutionException ee) {
+        if (runtimeExceptionFirst == null) {
+          if (ee.getCause() instanceof RuntimeException) {
+            runtimeExceptionFirst = (RuntimeException)ee.getCause();
+          } else {
+            runtimeExceptionFirst = new RuntimeException(ee.getCause());
           }
+        }
+
+        continue;
+      } finally {
+        SharedStateLock.reacquireAfterBlockingOperation(null, holdCount);
+      }
+
+      itemOperation.performed(mapEntry.getKey(), result);
+    }
+
+    if (runtimeExceptionFirst != null) {
+      throw runtimeExceptionFirst;
+    }
+  }
+
+  /**
+   * Reads the configuration of a job provided by a Reader.
+   *
+   * @param readerConfig Reader providing the configuration of the job.
+   * @return Configuration.
+   */
+  private static String readConfig(Reader readerConfig) {
+    StringBuilder stringBuilder;
+    char[] arrayChar;
+    int nbCharRead;
+
+    stringBuilder = new StringBuilder();
+    arrayChar = new char[4096];
 
-          this.jenkinsClient.deleteItem(job);
-          this.itemsCreatedFileManager.jobDeleted(job);
+    try {
+      while ((nbCharRead = readerConfig.read(arrayChar)) != -1) {
+        stringBuilder.append(arrayChar, 0, nbCharRead);
+      }
+
+      readerConfig.close();
+    } catch (IOException ioe) {
+      throw new RuntimeException(ioe);
+    }
+
+    return stringBuilder.toString();
+  }
+
+  /**
+   * Computes the hash of the content of a job, which is either its template and
+   * template parameters, or its configuration.
+   *
+   * @param jobSetup JobSetup.
+   * @return Hash.
+   */
+  private static String computeHash(JobSetup jobSetup) {
+    MessageDigest messageDigest;
+
+    messageDigest = Util.createMessageDigestSha256();
+
+    if (jobSetup.template != null) {
+      Util.updateDigest(messageDigest, "template");
+      Util.updateDigest(messageDigest, jobSetup.template);
+
+      if (jobSetup.mapTemplateParam != null) {
+        // TreeMap so that the hash does not depend on the order of the parameters.
+        for (Map.Entry<String, String> mapEntry: new TreeMap<String, String>(jobSetup.mapTemplateParam).entrySet()) {
+          Util.updateDigest(messageDigest, mapEntry.getKey());
+          Util.updateDigest(messageDigest, mapEntry.getValue());
         }
       }
-    } finally {
-      this.itemsCreatedFileManager.save();
+    } else {
+      Util.updateDigest(messageDigest, "config");
+      Util.updateDigest(messageDigest, jobSetup.config);
     }
+
+    return Util.digestToHex(messageDigest);
   }
 }
@@ -19,6 +19,7 @@
 
 package org.azyva.dragom.maven;
 
+import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -27,13 +28,21 @@ import java.io.OutputStream;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
@@ -43,15 +52,16 @@ import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
+import javax.xml.xpath.XPathVariableResolver;
 
 import org.azyva.dragom.util.RuntimeExceptionUserError;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
 /**
@@ -64,9 +74,14 @@ import org.xml.sax.SAXException;
  * It works directly at the POM level. It does not attempt to infer an effective
  * POM.
  *
+ * The POM file is read using the StAX API provided in the JDK, extracting in a
+ * single pass the few elements pertinent for Dragom, without building a DOM. The
+ * DOM is built only when the POM is modified, which is much less frequent than
+ * reading it when traversing reference graphs.
+ *
  * This class does its best to preserve the original POM file, modifying only what
- * needs to be modified. But given that it uses the DOM API provided in the JDK,
- * its has the following limitations in this regard:
+ * needs to be modified. But given that it uses the DOM API provided in the JDK
+ * for modifying the POM, its has the following limitations in this regard:
  *
  * - Attribute order is not preserved;
  * - Whitespace between attribute declarations is not preserved;
@@ -103,9 +118,8 @@ import org.xml.sax.SAXException;
  * class we considered to use the class ArtifactVersion. But we figured this was
  * at a higher level than this class.
  *
- * Some fields within the Pom are cached and lazily read from the POM file, but not
- * all (only those which are most often accessed and are likely to be accessed
- * multiple times).
+ * The elements pertinent for Dragom are all extracted when the POM is loaded and
+ * are kept up to date when the POM is modified using the methods of this class.
  *
  * This class also allows listing submodules.
  *
@@ -397,6 +411,172 @@ public class Pom {
     Pom resolve(String groupId, String artifactId, String version);
   }
 
+  /**
+   * Holds the information extracted from an element which references an artifact
+   * (parent or dependency).
+   *
+   * <p>Absent child elements are represented by empty strings, as when the
+   * information was extracted using XPath.
+   */
+  private static class PomElementReference {
+    /**
+     * Id of the profile element, if the element is within a profile. null
+     * otherwise.
+     */
+    String profile;
+
+    /**
+     * GroupId.
+     */
+    String groupId = "";
+
+    /**
+     * ArtifactId.
+     */
+    String artifactId = "";
+
+    /**
+     * Version.
+     */
+    String version = "";
+
+    /**
+     * Scope.
+     */
+    String scope = "";
+
+    /**
+     * Indicates if this PomElementReference matches a
+     * {@link org.azyva.dragom.maven.Pom.ReferencedArtifact}, regardless of the type.
+     *
+     * @param referencedArtifact ReferencedArtifact.
+     * @return See description.
+     */
+    boolean matches(ReferencedArtifact referencedArtifact) {
+      return
+             ((this.profile == null) ? (referencedArtifact.profile == null) : this.profile.equals(referencedArtifact.profile))
+          && this.groupId.equals(referencedArtifact.groupId)
+          && this.artifactId.equals(referencedArtifact.artifactId)
+          && this.version.equals(referencedArtifact.version);
+    }
+  }
+
+  /**
+   * Holds the objects used for processing POM XML files within a thread.
+   *
+   * <p>XMLInputFactory and XPath are not thread-safe and are costly to create, as
+   * is compiling XPath expressions. An instance of this class is therefore kept per
+   * thread.
+   *
+   * <p>XPath expressions which depend on values (such as the GAV of a referenced
+   * artifact) use variables so that they can be compiled once.
+   */
+  private static class XmlProcessor {
+    /**
+     * XMLInputFactory.
+     */
+    XMLInputFactory xmlInputFactory;
+
+    /**
+     * XPath.
+     */
+    XPath xPath;
+
+    /**
+     * Values of the variables referenced in XPath expressions.
+     */
+    Map<String, String> mapVariable;
+
+    /**
+     * Map of compiled XPath expressions.
+     */
+    Map<String, XPathExpression> mapXPathExpression;
+
+    /**
+     * Constructor.
+     */
+    XmlProcessor() {
+      this.xmlInputFactory = XMLInputFactory.newInstance();
+
+      // As when building the DOM, namespaces and external DTDs are not processed.
+      this.xmlInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
+      this.xmlInputFactory.setProperty(XMLInputFactory.IS_VALIDATING, Boolean.FALSE);
+      this.xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+      this.xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+
+      this.mapVariable = new HashMap<String, String>();
+      this.mapXPathExpression = new HashMap<String, XPathExpression>();
+
+      this.xPath = XPathFactory.newInstance().newXPath();
+
+      this.xPath.setXPathVariableResolver(new XPathVariableResolver() {
+        @Override
+        public Object resolveVariable(QName qNameVariable) {
+          return XmlProcessor.this.mapVariable.get(qNameVariable.getLocalPart());
+        }
+      });
+    }
+
+    /**
+     * Returns a compiled XPath expression, compiling it if not already done.
+     *
+     * @param expression XPath expression.
+     * @return XPathExpression.
+     */
+    XPathExpression getXPathExpression(String expression) {
+      XPathExpression xPathExpression;
+
+      xPathExpression = this.mapXPathExpression.get(expression);
+
+      if (xPathExpression == null) {
+        try {
+          xPathExpression = this.xPath.compile(expression);
+        } catch (XPathExpressionException xpee) {
+          throw new RuntimeException(xpee);
+        }
+
+        this.mapXPathExpression.put(expression, xPathExpression);
+      }
+
+      return xPathExpression;
+    }
+
+    /**
+     * Evaluates a compiled XPath expression as a Node, after setting the variables
+     * for the GAV of a ReferencedArtifact.
+     *
+     * @param expression XPath expression.
+     * @param document Document.
+     * @param referencedArtifact ReferencedArtifact. The variables $profile,
+     *   $groupId, $artifactId and $version are set from it.
+     * @return Node. null if none.
+     */
+    Node evaluateNode(String expression, Document document, ReferencedArtifact referencedArtifact) {
+      this.mapVariable.put("profile", (referencedArtifact.profile == null) ? "" : referencedArtifact.profile);
+      this.mapVariable.put("groupId", referencedArtifact.groupId);
+      this.mapVariable.put("artifactId", referencedArtifact.artifactId);
+      this.mapVariable.put("version", referencedArtifact.version);
+
+      try {
+        return (Node)this.getXPathExpression(expression).evaluate(document, XPathConstants.NODE);
+      } catch (XPathExpressionException xpee) {
+        throw new RuntimeException(xpee);
+      } finally {
+        this.mapVariable.clear();
+      }
+    }
+  }
+
+  /**
+   * {@link XmlProcessor} for each thread.
+   */
+  private static final ThreadLocal<XmlProcessor> threadLocalXmlProcessor = new ThreadLocal<XmlProcessor>() {
+    @Override
+    protected XmlProcessor initialValue() {
+      return new XmlProcessor();
+    }
+  };
+
   /**
    * Path to the POM file to be loaded or saved.
    */
@@ -457,66 +637,86 @@ public class Pom {
   private Path pathPomLoaded;
 
   /**
-   * Cache for the groupId.
-   *
-   * <p>It is lazily read and it avoids using costly XPath evaluation when accessed
-   * more than once.
+   * Content of the POM that was last loaded when it was loaded with
+   * {@link #loadPom(byte[])}. null if it was loaded from the file identified by
+   * {@link #pathPomLoaded}.
    */
-  private String groupId;
+  private byte[] arrayBytePomLoaded;
 
   /**
-   * Indicates the groupId has been read.
+   * GroupId.
    *
-   * <p>We cannot use {@link #groupId} being null since the groupId could be not
-   * specified.
+   * <p>Extracted when loading the POM. null if the POM does not specify the
+   * groupId.
    */
-  private boolean indGroupIdRead;
+  private String groupId;
 
   /**
-   * Cache for the artifactId.
+   * ArtifactId.
    *
-   * <p>It is lazily read and it avoids using costly XPath evaluation when accessed
-   * more than once.
+   * <p>Extracted when loading the POM. null if the POM does not specify the
+   * artifactId.
    */
   private String artifactId;
 
   /**
-   * Indicates the artifactId has been read.
+   * Version.
    *
-   * <p>We cannot use {@link #artifactId} being null since the artifactId could be
-   * not specified.
+   * <p>Extracted when loading the POM. null if the POM does not specify the
+   * version.
    */
-  private boolean indArtifactIdRead;
+  private String version;
 
   /**
-   * Cache for the version.
-   *
-   * <p>It is lazily read and it avoids using costly XPath evaluation when accessed
-   * more than once.
+   * Parent element, as extracted when loading the POM. null if the POM does not
+   * specify a parent.
    */
-  private String version;
+  private PomElementReference pomElementReferenceParent;
 
   /**
-   * Indicates the version Id has been read.
-   *
-   * <p>We cannot use {@link #version} being null since the version could be not
-   * specified.
+   * Dependencies elements, as extracted when loading the POM.
    */
-  private boolean indVersionRead;
+  private List<PomElementReference> listPomElementReferenceDependency;
+
+  /**
+   * DependencyManagement dependencies elements, as extracted when loading the POM.
+   */
+  private List<PomElementReference> listPomElementReferenceDependencyManagement;
+
+  /**
+   * Profile dependencies elements, as extracted when loading the POM.
+   */
+  private List<PomElementReference> listPomElementReferenceProfileDependency;
+
+  /**
+   * Profile dependencyManagement dependencies elements, as extracted when loading
+   * the POM.
+   */
+  private List<PomElementReference> listPomElementReferenceProfileDependencyManagement;
+
+  /**
+   * Map of properties, as extracted when loading the POM.
+   */
+  private Map<String, String> mapProperty;
+
+  /**
+   * Submodules, as extracted when loading the POM.
+   */
+  private List<String> listSubmodule;
 
   /**
    * Cache for parent {@link org.azyva.dragom.maven.Pom.ReferencedArtifact}.
    *
-   * <p>It is lazily read and it avoids using costly XPath evaluation when accessed
-   * more than once.
+   * <p>It is lazily built from {@link #pomElementReferenceParent} since verifying
+   * if it must be excluded can log a warning.
    */
   private ReferencedArtifact referencedArtifactParent;
 
   /**
    * Indicates the parent {@link org.azyva.dragom.maven.Pom.ReferencedArtifact} has
-   * been read.
+   * been built.
    *
-   * <p>We cannot use {@link #referencedArtifactParent} being null since the version
+   * <p>We cannot use {@link #referencedArtifactParent} being null since the parent
    * could be not specified.
    */
   private boolean indReferencedArtifactParentRead;
@@ -543,31 +743,452 @@ public class Pom {
 
   /**
    * Loads the POM file identified by the pathPom property.
+   *
+   * <p>The elements pertinent for Dragom are extracted using the StAX API. The DOM
+   * required for modifying the POM is built only when needed.
    */
   public void loadPom() {
-    DocumentBuilderFactory documentBuilderFactory;
-    DocumentBuilder documentBuilder;
-    StringBuilder stringBuilderBefore;
-    StringBuilder stringBuilderAfter;
     InputStream inputStream;
-    BeforeAfterReadState beforeAfterReadState;
 
     if (this.pathPom == null) {
       throw new RuntimeException("pathPom is null.");
     }
 
-    // Setting to null the cache variables is not really required because of the
-    // indicator variables, but it is cleaner.
+    try {
+      inputStream = new FileInputStream(this.pathPom.toFile());
+    } catch (IOException ioe) {
+      throw new RuntimeException(ioe);
+    }
+
+    this.loadPom(inputStream);
+    this.arrayBytePomLoaded = null;
+  }
 
+  /**
+   * Loads the POM from its content.
+   *
+   * <p>The pathPom property must still be set since it identifies the POM, but the
+   * corresponding file is not accessed. This allows loading a POM directly from an
+   * SCM repository without requiring it to be checked out.
+   *
+   * <p>Such a POM can be modified, but it is up to the caller to ensure pathPom
+   * identifies a file where it can be saved.
+   *
+   * @param arrayBytePom Content of the POM.
+   */
+  public void loadPom(byte[] arrayBytePom) {
+    if (this.pathPom == null) {
+      throw new RuntimeException("pathPom is null.");
+    }
+
+    this.loadPom(new ByteArrayInputStream(arrayBytePom));
+    this.arrayBytePomLoaded = arrayBytePom;
+  }
+
+  /**
+   * Loads the POM from an InputStream.
+   *
+   * <p>The InputStream is closed.
+   *
+   * @param inputStream InputStream.
+   */
+  private void loadPom(InputStream inputStream) {
+    XMLStreamReader xmlStreamReader;
+
+    this.documentPom = null;
+    this.before = null;
+    this.after = null;
     this.groupId = null;
-    this.indGroupIdRead = false;
     this.artifactId = null;
-    this.indArtifactIdRead = false;
     this.version = null;
-    this.indVersionRead = false;
+    this.pomElementReferenceParent = null;
+    this.listPomElementReferenceDependency = new ArrayList<PomElementReference>();
+    this.listPomElementReferenceDependencyManagement = new ArrayList<PomElementReference>();
+    this.listPomElementReferenceProfileDependency = new ArrayList<PomElementReference>();
+    this.listPomElementReferenceProfileDependencyManagement = new ArrayList<PomElementReference>();
+    this.mapProperty = new LinkedHashMap<String, String>();
+    this.listSubmodule = new ArrayList<String>();
     this.referencedArtifactParent = null;
     this.indReferencedArtifactParentRead = false;
 
+    try {
+      xmlStreamReader = Pom.threadLocalXmlProcessor.get().xmlInputFactory.createXMLStreamReader(inputStream);
+
+      try {
+        while (xmlStreamReader.next() != XMLStreamConstants.START_ELEMENT);
+
+        if (xmlStreamReader.getLocalName().equals("project")) {
+          this.readProject(xmlStreamReader);
+        } else {
+          Pom.skipElement(xmlStreamReader);
+        }
+
+        // We read until the end of the document in order to validate that it is
+        // well-formed.
+        while (xmlStreamReader.next() != XMLStreamConstants.END_DOCUMENT);
+      } finally {
+        xmlStreamReader.close();
+      }
+    } catch (XMLStreamException xse) {
+      throw new RuntimeException("The POM " + this.pathPom + " could not be parsed.", xse);
+    } finally {
+      try {
+        inputStream.close();
+      } catch (IOException ioe) {
+      }
+    }
+
+    this.pathPomLoaded = this.pathPom;
+  }
+
+  /**
+   * Extracts the elements pertinent for Dragom from the project element.
+   *
+   * <p>The XMLStreamReader must be positioned on the START_ELEMENT of the project
+   * element. Upon return it is positioned on its END_ELEMENT.
+   *
+   * <p>When an element is present more than once, the first one is retained, as
+   * when the information was extracted using XPath.
+   *
+   * @param xmlStreamReader XMLStreamReader.
+   * @throws XMLStreamException If the POM cannot be parsed.
+   */
+  private void readProject(XMLStreamReader xmlStreamReader) throws XMLStreamException {
+    String element;
+    String text;
+
+    while ((element = Pom.nextChildElement(xmlStreamReader)) != null) {
+      switch (element) {
+      case "groupId":
+        text = Pom.readElementText(xmlStreamReader);
+
+        if ((this.groupId == null) && !text.isEmpty()) {
+          this.groupId = text;
+        }
+        break;
+
+      case "artifactId":
+        text = Pom.readElementText(xmlStreamReader);
+
+        if ((this.artifactId == null) && !text.isEmpty()) {
+          this.artifactId = text;
+        }
+        break;
+
+      case "version":
+        text = Pom.readElementText(xmlStreamReader);
+
+        if ((this.version == null) && !text.isEmpty()) {
+          this.version = text;
+        }
+        break;
+
+      case "parent":
+        if (this.pomElementReferenceParent == null) {
+          this.pomElementReferenceParent = Pom.readPomElementReference(xmlStreamReader, null);
+        } else {
+          Pom.skipElement(xmlStreamReader);
+        }
+        break;
+
+      case "dependencies":
+        Pom.readDependencies(xmlStreamReader, null, this.listPomElementReferenceDependency);
+        break;
+
+      case "dependencyManagement":
+        Pom.readDependencyManagement(xmlStreamReader, null, this.listPomElementReferenceDependencyManagement);
+        break;
+
+      case "profiles":
+        while ((element = Pom.nextChildElement(xmlStreamReader)) != null) {
+          if (element.equals("profile")) {
+            this.readProfile(xmlStreamReader);
+          } else {
+            Pom.skipElement(xmlStreamReader);
+          }
+        }
+        break;
+
+      case "properties":
+        while ((element = Pom.nextChildElement(xmlStreamReader)) != null) {
+          text = Pom.readElementText(xmlStreamReader);
+
+          if (!this.mapProperty.containsKey(element)) {
+            this.mapProperty.put(element, text);
+          }
+        }
+        break;
+
+      case "modules":
+        while ((element = Pom.nextChildElement(xmlStreamReader)) != null) {
+          if (element.equals("module")) {
+            // Maven seems to allow "\" in module references. But this causes problems on
+            // *nix systems.
+            this.listSubmodule.add(Pom.readElementText(xmlStreamReader).replace('\\', '/'));
+          } else {
+            Pom.skipElement(xmlStreamReader);
+          }
+        }
+        break;
+
+      default:
+        Pom.skipElement(xmlStreamReader);
+        break;
+      }
+    }
+  }
+
+  /**
+   * Extracts the dependencies within a profile element.
+   *
+   * <p>The id of the profile can appear after the dependencies so that it is set
+   * on the PomElementReference's when reaching the end of the profile element.
+   *
+   * @param xmlStreamReader XMLStreamReader positioned on the START_ELEMENT of the
+   *   profile element.
+   * @throws XMLStreamException If the POM cannot be parsed.
+   */
+  private void readProfile(XMLStreamReader xmlStreamReader) throws XMLStreamException {
+    String profile;
+    List<PomElementReference> listPomElementReferenceDependency;
+    List<PomElementReference> listPomElementReferenceDependencyManagement;
+    String element;
+
+    profile = null;
+    listPomElementReferenceDependency = new ArrayList<PomElementReference>();
+    listPomElementReferenceDependencyManagement = new ArrayList<PomElementReference>();
+
+    while ((element = Pom.nextChildElement(xmlStreamReader)) != null) {
+      switch (element) {
+      case "id":
+        if (profile == null) {
+          profile = Pom.readElementText(xmlStreamReader);
+        } else {
+          Pom.skipElement(xmlStreamReader);
+        }
+        break;
+
+      case "dependencies":
+        Pom.readDependencies(xmlStreamReader, null, listPomElementReferenceDependency);
+        break;
+
+      case "dependencyManagement":
+        Pom.readDependencyManagement(xmlStreamReader, null, listPomElementReferenceDependencyManagement);
+        break;
+
+      default:
+        Pom.skipElement(xmlStreamReader);
+        break;
+      }
+    }
+
+    if (profile == null) {
+      profile = "";
+    }
+
+    for (PomElementReference pomElementReference: listPomElementReferenceDependency) {
+      pomElementReference.profile = profile;
+    }
+
+    for (PomElementReference pomElementReference: listPomElementReferenceDependencyManagement) {
+      pomElementReference.profile = profile;
+    }
+
+    this.listPomElementReferenceProfileDependency.addAll(listPomElementReferenceDependency);
+    this.listPomElementReferenceProfileDependencyManagement.addAll(listPomElementReferenceDependencyManagement);
+  }
+
+  /**
+   * Extracts the dependency elements within a dependencyManagement element.
+   *
+   * @param xmlStreamReader XMLStreamReader positioned on the START_ELEMENT of the
+   *   dependencyManagement element.
+   * @param profile Profile. Can be null.
+   * @param listPomElementReference List where to add the PomElementReference's.
+   * @throws XMLStreamException If the POM cannot be parsed.
+   */
+  private static void readDependencyManagement(XMLStreamReader xmlStreamReader, String profile, List<PomElementReference> listPomElementReference) throws XMLStreamException {
+    String element;
+
+    while ((element = Pom.nextChildElement(xmlStreamReader)) != null) {
+      if (element.equals("dependencies")) {
+        Pom.readDependencies(xmlStreamReader, profile, listPomElementReference);
+      } else {
+        Pom.skipElement(xmlStreamReader);
+      }
+    }
+  }
+
+  /**
+   * Extracts the dependency elements within a dependencies element.
+   *
+   * @param xmlStreamReader XMLStreamReader positioned on the START_ELEMENT of the
+   *   dependencies element.
+   * @param profile Profile. Can be null.
+   * @param listPomElementReference List where to add the PomElementReference's.
+   * @throws XMLStreamException If the POM cannot be parsed.
+   */
+  private static void readDependencies(XMLStreamReader xmlStreamReader, String profile, List<PomElementReference> listPomElementReference) throws XMLStreamException {
+    String element;
+
+    while ((element = Pom.nextChildElement(xmlStreamReader)) != null) {
+      if (element.equals("dependency")) {
+        listPomElementReference.add(Pom.readPomElementReference(xmlStreamReader, profile));
+      } else {
+        Pom.skipElement(xmlStreamReader);
+      }
+    }
+  }
+
+  /**
+   * Extracts a PomElementReference from a parent or dependency element.
+   *
+   * @param xmlStreamReader XMLStreamReader positioned on the START_ELEMENT of the
+   *   element.
+   * @param profile Profile. Can be null.
+   * @return PomElementReference.
+   * @throws XMLStreamException If the POM cannot be parsed.
+   */
+  private static PomElementReference readPomElementReference(XMLStreamReader xmlStreamReader, String profile) throws XMLStreamException {
+    PomElementReference pomElementReference;
+    boolean indGroupIdRead;
+    boolean indArtifactIdRead;
+    boolean indVersionRead;
+    boolean indScopeRead;
+    String element;
+
+    pomElementReference = new PomElementReference();
+    pomElementReference.profile = profile;
+    indGroupIdRead = false;
+    indArtifactIdRead = false;
+    indVersionRead = false;
+    indScopeRead = false;
+
+    while ((element = Pom.nextChildElement(xmlStreamReader)) != null) {
+      if (element.equals("groupId") && !indGroupIdRead) {
+        pomElementReference.groupId = Pom.readElementText(xmlStreamReader);
+        indGroupIdRead = true;
+      } else if (element.equals("artifactId") && !indArtifactIdRead) {
+        pomElementReference.artifactId = Pom.readElementText(xmlStreamReader);
+        indArtifactIdRead = true;
+      } else if (element.equals("version") && !indVersionRead) {
+        pomElementReference.version = Pom.readElementText(xmlStreamReader);
+        indVersionRead = true;
+      } else if (element.equals("scope") && !indScopeRead) {
+        pomElementReference.scope = Pom.readElementText(xmlStreamReader);
+        indScopeRead = true;
+      } else {
+        Pom.skipElement(xmlStreamReader);
+      }
+    }
+
+    return pomElementReference;
+  }
+
+  /**
+   * Advances to the next child element of the current element.
+   *
+   * @param xmlStreamReader XMLStreamReader positioned on the START_ELEMENT of the
+   *   current element, or on the END_ELEMENT of a previous child element.
+   * @return Name of the child element, in which case the XMLStreamReader is
+   *   positioned on its START_ELEMENT. null if there is no more child element, in
+   *   which case the XMLStreamReader is positioned on the END_ELEMENT of the current
+   *   element.
+   * @throws XMLStreamException If the POM cannot be parsed.
+   */
+  private static String nextChildElement(XMLStreamReader xmlStreamReader) throws XMLStreamException {
+    do {
+      switch (xmlStreamReader.next()) {
+      case XMLStreamConstants.START_ELEMENT:
+        return xmlStreamReader.getLocalName();
+      case XMLStreamConstants.END_ELEMENT:
+        return null;
+      }
+    } while (true);
+  }
+
+  /**
+   * Reads the text of the current element, which is the concatenation of all text
+   * within the element, as for the XPath string value of an element.
+   *
+   * @param xmlStreamReader XMLStreamReader positioned on the START_ELEMENT of the
+   *   element. Upon return it is positioned on its END_ELEMENT.
+   * @return See description.
+   * @throws XMLStreamException If the POM cannot be parsed.
+   */
+  private static String readElementText(XMLStreamReader xmlStreamReader) throws XMLStreamException {
+    StringBuilder stringBuilder;
+    int depth;
+
+    stringBuilder = new StringBuilder();
+    depth = 1;
+
+    do {
+      switch (xmlStreamReader.next()) {
+      case XMLStreamConstants.START_ELEMENT:
+        depth++;
+        break;
+      case XMLStreamConstants.END_ELEMENT:
+        depth--;
+        break;
+      case XMLStreamConstants.CHARACTERS:
+      case XMLStreamConstants.CDATA:
+      case XMLStreamConstants.SPACE:
+      case XMLStreamConstants.ENTITY_REFERENCE:
+        stringBuilder.append(xmlStreamReader.getText());
+        break;
+      }
+    } while (depth != 0);
+
+    return stringBuilder.toString();
+  }
+
+  /**
+   * Skips the current element.
+   *
+   * @param xmlStreamReader XMLStreamReader positioned on the START_ELEMENT of the
+   *   element. Upon return it is positioned on its END_ELEMENT.
+   * @throws XMLStreamException If the POM cannot be parsed.
+   */
+  private static void skipElement(XMLStreamReader xmlStreamReader) throws XMLStreamException {
+    int depth;
+
+    depth = 1;
+
+    do {
+      switch (xmlStreamReader.next()) {
+      case XMLStreamConstants.START_ELEMENT:
+        depth++;
+        break;
+      case XMLStreamConstants.END_ELEMENT:
+        depth--;
+        break;
+      }
+    } while (depth != 0);
+  }
+
+  /**
+   * Returns the Document (XML) corresponding to the loaded POM file, building it if
+   * not already done.
+   *
+   * @return Document.
+   */
+  private Document getDocumentPom() {
+    DocumentBuilderFactory documentBuilderFactory;
+    DocumentBuilder documentBuilder;
+    StringBuilder stringBuilderBefore;
+    StringBuilder stringBuilderAfter;
+    InputStream inputStream;
+    BeforeAfterReadState beforeAfterReadState;
+
+    if (this.documentPom != null) {
+      return this.documentPom;
+    }
+
+    if (this.pathPomLoaded == null) {
+      throw new RuntimeException("The POM is not loaded.");
+    }
+
     documentBuilderFactory = DocumentBuilderFactory.newInstance();
 
     // We want the parser to preserve the original file. The default values for the
@@ -593,7 +1214,11 @@ public class Pom {
     }
 
     try {
-      this.documentPom = documentBuilder.parse(this.pathPom.toFile());
+      if (this.arrayBytePomLoaded != null) {
+        this.documentPom = documentBuilder.parse(new ByteArrayInputStream(this.arrayBytePomLoaded));
+      } else {
+        this.documentPom = documentBuilder.parse(this.pathPomLoaded.toFile());
+      }
     } catch (SAXException | IOException e) {
       throw new RuntimeException(e);
     }
@@ -606,7 +1231,12 @@ public class Pom {
     // root element since these are not preserved when writing back the DOM to a
     // file.
     try {
-      inputStream = new FileInputStream(this.pathPom.toFile());
+      if (this.arrayBytePomLoaded != null) {
+        inputStream = new ByteArrayInputStream(this.arrayBytePomLoaded);
+      } else {
+        inputStream = new FileInputStream(this.pathPomLoaded.toFile());
+      }
+
       beforeAfterReadState = BeforeAfterReadState.INIT;
 
       do {
@@ -666,7 +1296,7 @@ public class Pom {
     this.before = stringBuilderBefore.toString();
     this.after = stringBuilderAfter.toString();
 
-    this.pathPomLoaded = this.pathPom;
+    return this.documentPom;
   }
 
   /**
@@ -675,16 +1305,15 @@ public class Pom {
   public void savePom() {
     TransformerFactory transformerFactory;
     Transformer transformer;
+    Document documentPom;
     OutputStream outputStream;
 
-    if (this.documentPom == null) {
-      throw new RuntimeException("documentPom is null.");
-    }
-
     if (this.pathPom == null) {
       throw new RuntimeException("pathPom is null.");
     }
 
+    documentPom = this.getDocumentPom();
+
     transformerFactory = TransformerFactory.newInstance();
 
     try {
@@ -698,7 +1327,7 @@ public class Pom {
     try {
       outputStream = new FileOutputStream(this.pathPom.toFile());
       outputStream.write(this.before.getBytes());
-      transformer.transform(new DOMSource(this.documentPom), new StreamResult(outputStream));
+      transformer.transform(new DOMSource(documentPom), new StreamResult(outputStream));
       outputStream.write(this.after.getBytes());
       outputStream.close();
     } catch (TransformerException | IOException e) {
@@ -711,11 +1340,6 @@ public class Pom {
    *   groupId (if it inherits it from its parent).
    */
   public String getGroupId() {
-    if (!this.indGroupIdRead) {
-      this.groupId = this.getSimpleElement("/project/groupId");
-      this.indGroupIdRead = true;
-    }
-
     return this.groupId;
   }
 
@@ -741,11 +1365,6 @@ public class Pom {
    *   artifactId (which is an error).
    */
   public String getArtifactId() {
-    if (!this.indArtifactIdRead) {
-      this.artifactId = this.getSimpleElement("/project/artifactId");
-      this.indArtifactIdRead = true;
-    }
-
     return this.artifactId;
   }
 
@@ -754,11 +1373,6 @@ public class Pom {
    *   artifact version (if it inherits it from its parent).
    */
   public String getVersion() {
-    if (!this.indVersionRead) {
-      this.version = this.getSimpleElement("/project/version");
-      this.indVersionRead = true;
-    }
-
     return this.version;
   }
 
@@ -771,15 +1385,10 @@ public class Pom {
    * @param version See description.
    */
   public void setVersion(String version) {
-    XPathFactory xPathFactory;
-    XPath xPath;
     Node nodeVersion;
 
-    xPathFactory = XPathFactory.newInstance();
-    xPath = xPathFactory.newXPath();
-
     try {
-      nodeVersion = (Node)xPath.evaluate("/project/version", this.documentPom, XPathConstants.NODE);
+      nodeVersion = (Node)Pom.threadLocalXmlProcessor.get().getXPathExpression("/project/version").evaluate(this.getDocumentPom(), XPathConstants.NODE);
     } catch (XPathExpressionException xpee) {
       throw new RuntimeException(xpee);
     }
@@ -791,7 +1400,6 @@ public class Pom {
     nodeVersion.setTextContent(version);
 
     this.version = version;
-    this.indVersionRead = true;
   }
 
   /**
@@ -814,22 +1422,18 @@ public class Pom {
   /**
    * Gets a simple element in the POM.
    *
-   * This method factors the common part of other get methods in this
-   * class.
+   * <p>The element is evaluated with XPath on the DOM, which is built if not already
+   * done. The accessors for the elements pertinent for Dragom (such as
+   * {@link #getGroupId}) should be preferred.
    *
    * @param elementPath Path of the element within the POM.
    * @return See description. Can be null if the POM does not specify the element.
    */
   public String getSimpleElement(String elementPath) {
-    XPathFactory xPathFactory;
-    XPath xPath;
     String elementValue;
 
-    xPathFactory = XPathFactory.newInstance();
-    xPath = xPathFactory.newXPath();
-
     try {
-      elementValue = xPath.evaluate(elementPath, this.documentPom);
+      elementValue = Pom.threadLocalXmlProcessor.get().getXPathExpression(elementPath).evaluate(this.getDocumentPom());
     } catch (XPathExpressionException xpee) {
       throw new RuntimeException(xpee);
     }
@@ -868,34 +1472,20 @@ public class Pom {
       String filterArtifactId,
       String filterVersion) {
     List<ReferencedArtifact> listReferencedArtifact;
-    XPathFactory xPathFactory;
-    XPath xPath;
-    Node nodeParent;
-    NodeList nodeListDependencies;
-    int length;
-    String version;
     ReferencedArtifact referencedArtifact;
 
+    if (this.pathPomLoaded == null) {
+      throw new RuntimeException("The POM is not loaded.");
+    }
+
     listReferencedArtifact = new ArrayList<ReferencedArtifact>();
-    xPathFactory = XPathFactory.newInstance();
-    xPath = xPathFactory.newXPath();
 
     if (enumSetReferencedArtifactType.contains(ReferencedArtifactType.PARENT)) {
       if (!this.indReferencedArtifactParentRead) {
-        try {
-          nodeParent = (Node)xPath.evaluate("/project/parent", this.documentPom, XPathConstants.NODE);
-        } catch (XPathExpressionException xpee) {
-          throw new RuntimeException(xpee);
-        }
+        if (this.pomElementReferenceParent != null) {
+          referencedArtifact = new ReferencedArtifact(ReferencedArtifactType.PARENT, null, this.pomElementReferenceParent.groupId, this.pomElementReferenceParent.artifactId, this.pomElementReferenceParent.version);
 
-        if (nodeParent != null) {
-          try {
-            referencedArtifact = new ReferencedArtifact(ReferencedArtifactType.PARENT, null, xPath.evaluate("groupId", nodeParent), xPath.evaluate("artifactId", nodeParent), xPath.evaluate("version", nodeParent));
-          } catch (XPathExpressionException xpee) {
-            throw new RuntimeException(xpee);
-          }
-
-          if (!this.isExcluded(nodeParent, referencedArtifact)) {
+          if (!this.isExcluded(this.pomElementReferenceParent, referencedArtifact)) {
             this.referencedArtifactParent = referencedArtifact;
           }
         }
@@ -909,188 +1499,70 @@ public class Pom {
     }
 
     if (enumSetReferencedArtifactType.contains(ReferencedArtifactType.DEPENDENCY)) {
-      try {
-        nodeListDependencies = (NodeList)xPath.evaluate("/project/dependencies/dependency", this.documentPom, XPathConstants.NODESET);
-      } catch (XPathExpressionException xpee) {
-        throw new RuntimeException(xpee);
-      }
-
-      length = nodeListDependencies.getLength();
-
-      for (int i = 0; i < length; i++) {
-        Node nodeDependency;
-
-        nodeDependency = nodeListDependencies.item(i);
-
-        try {
-          version = xPath.evaluate("version", nodeDependency);
-        } catch (XPathExpressionException xpee) {
-          throw new RuntimeException(xpee);
-        }
-
-        /* It looks like XPath.evaluate returns absent elements as empty strings.
-         */
-        if (version.isEmpty()) {
-          version = null;
-        }
-
-        // The version of a dependency can be not specified. Such dependencies are not
-        // pertinent here.
-        //TODO: If we want to support references that are dependencies through parent-specified version,
-        //maybe we should return these and let the caller decide what to do (null version).
-        //The caller may have access to a database of parent references that could allow such retrievals.
-        if (version == null) {
-          continue;
-        }
-
-        try {
-          referencedArtifact = new ReferencedArtifact(ReferencedArtifactType.DEPENDENCY, null, xPath.evaluate("groupId", nodeDependency), xPath.evaluate("artifactId", nodeDependency), version);
-        } catch (XPathExpressionException xpee) {
-          throw new RuntimeException(xpee);
-        }
-
-        if (!this.isExcluded(nodeDependency, referencedArtifact)) {
-          if (Pom.referencedArtifactFiltered(referencedArtifact, filterGroupId, filterArtifactId, filterVersion)) {
-            listReferencedArtifact.add(referencedArtifact);
-          }
-        }
-      }
+      this.addListReferencedArtifact(listReferencedArtifact, ReferencedArtifactType.DEPENDENCY, this.listPomElementReferenceDependency, true, filterGroupId, filterArtifactId, filterVersion);
     }
 
     if (enumSetReferencedArtifactType.contains(ReferencedArtifactType.DEPENDENCY_MANAGEMENT)) {
-      try {
-        nodeListDependencies = (NodeList)xPath.evaluate("/project/dependencyManagement/dependencies/dependency", this.documentPom, XPathConstants.NODESET);
-      } catch (XPathExpressionException xpee) {
-        throw new RuntimeException(xpee);
-      }
-
-      length = nodeListDependencies.getLength();
-
-      for (int i = 0; i < length; i++) {
-        Node nodeDependency;
-
-        nodeDependency = nodeListDependencies.item(i);
-
-        try {
-          version = xPath.evaluate("version", nodeDependency);
-        } catch (XPathExpressionException xpee) {
-          throw new RuntimeException(xpee);
-        }
-
-        // The version of a dependency can be not specified. Such dependencies are not
-        // pertinent here.
-        if (version == null) {
-          continue;
-        }
-
-        try {
-          referencedArtifact = new ReferencedArtifact(ReferencedArtifactType.DEPENDENCY_MANAGEMENT, null, xPath.evaluate("groupId", nodeDependency), xPath.evaluate("artifactId", nodeDependency), version);
-        } catch (XPathExpressionException xpee) {
-          throw new RuntimeException(xpee);
-        }
-
-        if (Pom.referencedArtifactFiltered(referencedArtifact, filterGroupId, filterArtifactId, filterVersion)) {
-          listReferencedArtifact.add(referencedArtifact);
-        }
-      }
+      this.addListReferencedArtifact(listReferencedArtifact, ReferencedArtifactType.DEPENDENCY_MANAGEMENT, this.listPomElementReferenceDependencyManagement, false, filterGroupId, filterArtifactId, filterVersion);
     }
 
     if (enumSetReferencedArtifactType.contains(ReferencedArtifactType.PROFILE_DEPENDENCY)) {
-      try {
-        nodeListDependencies = (NodeList)xPath.evaluate("/project/profiles/profile/dependencies/dependency", this.documentPom, XPathConstants.NODESET);
-      } catch (XPathExpressionException xpee) {
-        throw new RuntimeException(xpee);
-      }
-
-      length = nodeListDependencies.getLength();
-
-      for (int i = 0; i < length; i++) {
-        Node nodeProfileDependency;
-
-        nodeProfileDependency = nodeListDependencies.item(i);
-
-        try {
-          version = xPath.evaluate("version", nodeProfileDependency);
-        } catch (XPathExpressionException xpee) {
-          throw new RuntimeException(xpee);
-        }
-
-        /* It looks like XPath.evaluate returns absent elements as empty strings.
-         */
-        if (version.isEmpty()) {
-          version = null;
-        }
-
-        // The version of a dependency can be not specified. Such dependencies are not
-        // pertinent here.
-        //TODO: If we want to support references that are dependencies through parent-specified version,
-        //maybe we should return these and let the caller decide what to do (null version).
-        //The caller may have access to a database of parent references that could allow such retrievals.
-        if (version == null) {
-          continue;
-        }
-
-        try {
-          referencedArtifact = new ReferencedArtifact(ReferencedArtifactType.PROFILE_DEPENDENCY, xPath.evaluate("id", nodeProfileDependency.getParentNode().getParentNode()), xPath.evaluate("groupId", nodeProfileDependency), xPath.evaluate("artifactId", nodeProfileDependency), version);
-        } catch (XPathExpressionException xpee) {
-          throw new RuntimeException(xpee);
-        }
-
-        if (!this.isExcluded(nodeProfileDependency, referencedArtifact)) {
-          if (Pom.referencedArtifactFiltered(referencedArtifact, filterGroupId, filterArtifactId, filterVersion)) {
-            listReferencedArtifact.add(referencedArtifact);
-          }
-        }
-      }
+      this.addListReferencedArtifact(listReferencedArtifact, ReferencedArtifactType.PROFILE_DEPENDENCY, this.listPomElementReferenceProfileDependency, true, filterGroupId, filterArtifactId, filterVersion);
     }
 
     if (enumSetReferencedArtifactType.contains(ReferencedArtifactType.PROFILE_DEPENDENCY_MANAGEMENT)) {
-      try {
-        nodeListDependencies = (NodeList)xPath.evaluate("/project/profiles/profile/dependencyManagement/dependencies/dependency", this.documentPom, XPathConstants.NODESET);
-      } catch (XPathExpressionException xpee) {
-        throw new RuntimeException(xpee);
-      }
-
-      length = nodeListDependencies.getLength();
-
-      for (int i = 0; i < length; i++) {
-        Node nodeProfileDependency;
+      this.addListReferencedArtifact(listReferencedArtifact, ReferencedArtifactType.PROFILE_DEPENDENCY_MANAGEMENT, this.listPomElementReferenceProfileDependencyManagement, false, filterGroupId, filterArtifactId, filterVersion);
+    }
 
-        nodeProfileDependency = nodeListDependencies.item(i);
+    return listReferencedArtifact;
+  }
 
-        try {
-          version = xPath.evaluate("version", nodeProfileDependency);
-        } catch (XPathExpressionException xpee) {
-          throw new RuntimeException(xpee);
-        }
+  /**
+   * Adds to a List the ReferencedArtifact's corresponding to
+   * PomElementReference's.
+   *
+   * <p>Used by getListReferencedArtifact.
+   *
+   * @param listReferencedArtifact List where to add the ReferencedArtifact's.
+   * @param referencedArtifactType ReferencedArtifactType.
+   * @param listPomElementReference List of PomElementReference.
+   * @param indVerifyExcluded Indicates to verify if the ReferencedArtifact's must
+   *   be excluded.
+   * @param filterGroupId See getListReferencedArtifact.
+   * @param filterArtifactId See getListReferencedArtifact.
+   * @param filterVersion See getListReferencedArtifact.
+   */
+  private void addListReferencedArtifact(
+      List<ReferencedArtifact> listReferencedArtifact,
+      ReferencedArtifactType referencedArtifactType,
+      List<PomElementReference> listPomElementReference,
+      boolean indVerifyExcluded,
+      String filterGroupId,
+      String filterArtifactId,
+      String filterVersion) {
 
-        /* It looks like XPath.evaluate returns absent elements as empty strings.
-         */
-        if (version.isEmpty()) {
-          version = null;
-        }
+    for (PomElementReference pomElementReference: listPomElementReference) {
+      ReferencedArtifact referencedArtifact;
 
-        // The version of a dependency can be not specified. Such dependencies are not
-        // pertinent here.
-        if (version == null) {
-          continue;
-        }
+      // The version of a dependency can be not specified. Such dependencies are not
+      // pertinent here.
+      //TODO: If we want to support references that are dependencies through parent-specified version,
+      //maybe we should return these and let the caller decide what to do (null version).
+      //The caller may have access to a database of parent references that could allow such retrievals.
+      if (pomElementReference.version.isEmpty()) {
+        continue;
+      }
 
-        nodeProfileDependency.getParentNode().getParentNode().getParentNode();
+      referencedArtifact = new ReferencedArtifact(referencedArtifactType, pomElementReference.profile, pomElementReference.groupId, pomElementReference.artifactId, pomElementReference.version);
 
-        try {
-          referencedArtifact = new ReferencedArtifact(ReferencedArtifactType.PROFILE_DEPENDENCY_MANAGEMENT, xPath.evaluate("id", nodeProfileDependency), xPath.evaluate("groupId", nodeProfileDependency), xPath.evaluate("artifactId", nodeProfileDependency), version);
-        } catch (XPathExpressionException xpee) {
-          throw new RuntimeException(xpee);
-        }
+      if (indVerifyExcluded && this.isExcluded(pomElementReference, referencedArtifact)) {
+        continue;
+      }
 
-        if (Pom.referencedArtifactFiltered(referencedArtifact, filterGroupId, filterArtifactId, filterVersion)) {
-          listReferencedArtifact.add(referencedArtifact);
-        }
+      if (Pom.referencedArtifactFiltered(referencedArtifact, filterGroupId, filterArtifactId, filterVersion)) {
+        listReferencedArtifact.add(referencedArtifact);
       }
     }
-
-    return listReferencedArtifact;
   }
 
   /**
@@ -1099,25 +1571,13 @@ public class Pom {
    * <p>Some ReferencedArtifact must always be exluded. Currently, this includes all
    * system scope references.
    *
-   * @param node Node for the reference.
+   * @param pomElementReference PomElementReference for the reference.
    * @param referencedArtifact ReferencedArtifact which was already built from the
-   *   regular elements of the Node.
+   *   regular elements of the PomElementReference.
    * @return See description.
    */
-  private boolean isExcluded(Node node, ReferencedArtifact referencedArtifact) {
-    XPathFactory xPathFactory;
-    XPath xPath;
-    String scope;
-
-    xPathFactory = XPathFactory.newInstance();
-    xPath = xPathFactory.newXPath();
-    try {
-        scope = xPath.evaluate("scope",  node);
-      } catch (XPathExpressionException xpee) {
-        throw new RuntimeException(xpee);
-      }
-
-    if ((scope != null) && scope.equals("system")) {
+  private boolean isExcluded(PomElementReference pomElementReference, ReferencedArtifact referencedArtifact) {
+    if (pomElementReference.scope.equals("system")) {
       Pom.logger.warn("Within POM " + this.pathPom + " system scope ReferencedArtifact " + referencedArtifact + " was excluded.");
       return true;
     }
@@ -1207,29 +1667,20 @@ public class Pom {
    * @param version New version.
    */
   public void setReferencedArtifactVersion(ReferencedArtifact referencedArtifact, String version) {
-    XPathFactory xPathFactory;
-    XPath xPath;
+    XmlProcessor xmlProcessor;
+    Document documentPom;
     Node nodeVersion;
+    List<PomElementReference> listPomElementReference;
 
-    xPathFactory = XPathFactory.newInstance();
-    xPath = xPathFactory.newXPath();
+    xmlProcessor = Pom.threadLocalXmlProcessor.get();
+    documentPom = this.getDocumentPom();
+    listPomElementReference = null;
 
+    // The XPath expressions use variables for the profile and GAV so that they are
+    // compiled only once.
     switch (referencedArtifact.referencedArtifactType) {
     case PARENT:
-      try {
-        nodeVersion = (Node)xPath.evaluate(
-              "/project/parent[groupId='"
-            + referencedArtifact.groupId
-            + "' and artifactId='"
-            + referencedArtifact.artifactId
-            + "' and version='"
-            + referencedArtifact.version
-            + "']/version",
-            this.documentPom,
-            XPathConstants.NODE);
-      } catch (XPathExpressionException xpee) {
-        throw new RuntimeException(xpee);
-      }
+      nodeVersion = xmlProcessor.evaluateNode("/project/parent[groupId=$groupId and artifactId=$artifactId and version=$version]/version", documentPom, referencedArtifact);
 
       if (nodeVersion == null) {
         throw new RuntimeException("The POM " + this.pathPomLoaded + " does not contain a parent element which matches the specified GAV " + referencedArtifact.groupId + ":" + referencedArtifact.artifactId + ":" + referencedArtifact.version + " to modify.");
@@ -1237,8 +1688,12 @@ public class Pom {
 
       nodeVersion.setTextContent(version);
 
+      if ((this.pomElementReferenceParent != null) && this.pomElementReferenceParent.matches(referencedArtifact)) {
+        this.pomElementReferenceParent.version = version;
+      }
+
       if (!this.indReferencedArtifactParentRead) {
-        this.referencedArtifactParent = new ReferencedArtifact(ReferencedArtifactType.PARENT, null, referencedArtifact.groupId,  referencedArtifact.artifactId, referencedArtifact.version);
+        this.referencedArtifactParent = new ReferencedArtifact(ReferencedArtifactType.PARENT, null, referencedArtifact.groupId,  referencedArtifact.artifactId, version);
         this.indReferencedArtifactParentRead = true;
       } else {
         this.referencedArtifactParent.version = version;
@@ -1247,106 +1702,64 @@ public class Pom {
       break;
 
     case DEPENDENCY:
-      try {
-        nodeVersion = (Node)xPath.evaluate(
-              "/project/dependencies/dependency[groupId='"
-            + referencedArtifact.groupId
-            + "' and artifactId='"
-            + referencedArtifact.artifactId
-            + "' and version='"
-            + referencedArtifact.version
-            + "']/version",
-            this.documentPom,
-            XPathConstants.NODE);
-      } catch (XPathExpressionException xpee) {
-        throw new RuntimeException(xpee);
-      }
+      nodeVersion = xmlProcessor.evaluateNode("/project/dependencies/dependency[groupId=$groupId and artifactId=$artifactId and version=$version]/version", documentPom, referencedArtifact);
 
       if (nodeVersion == null) {
         throw new RuntimeException("The POM " + this.pathPomLoaded + " does not contain a dependencies/dependency element which matches the specified GAV " + referencedArtifact.groupId + ":" + referencedArtifact.artifactId + ":" + referencedArtifact.version + " to modify.");
       }
 
       nodeVersion.setTextContent(version);
+      listPomElementReference = this.listPomElementReferenceDependency;
 
       break;
 
     case DEPENDENCY_MANAGEMENT:
-      try {
-        nodeVersion = (Node)xPath.evaluate(
-              "/project/dependencyManagement/dependencies/dependency[groupId='"
-            + referencedArtifact.groupId
-            + "' and artifactId='"
-            + referencedArtifact.artifactId
-            + "' and version='"
-            + referencedArtifact.version
-            + "']/version",
-            this.documentPom,
-            XPathConstants.NODE);
-      } catch (XPathExpressionException xpee) {
-        throw new RuntimeException(xpee);
-      }
+      nodeVersion = xmlProcessor.evaluateNode("/project/dependencyManagement/dependencies/dependency[groupId=$groupId and artifactId=$artifactId and version=$version]/version", documentPom, referencedArtifact);
 
       if (nodeVersion == null) {
         throw new RuntimeException("The POM " + this.pathPomLoaded + " does not contain a dependencyManagement/dependencies/dependency element which matches the specified GAV " + referencedArtifact.groupId + ":" + referencedArtifact.artifactId + ":" + referencedArtifact.version + " to modify.");
       }
 
       nodeVersion.setTextContent(version);
+      listPomElementReference = this.listPomElementReferenceDependencyManagement;
 
       break;
 
     case PROFILE_DEPENDENCY:
-      try {
-        nodeVersion = (Node)xPath.evaluate(
-              "/project/profiles/profile[id='"
-            + referencedArtifact.profile
-            + "']/dependencies/dependency[groupId='"
-            + referencedArtifact.groupId
-            + "' and artifactId='"
-            + referencedArtifact.artifactId
-            + "' and version='"
-            + referencedArtifact.version
-            + "']/version",
-            this.documentPom,
-            XPathConstants.NODE);
-      } catch (XPathExpressionException xpee) {
-        throw new RuntimeException(xpee);
-      }
+      nodeVersion = xmlProcessor.evaluateNode("/project/profiles/profile[id=$profile]/dependencies/dependency[groupId=$groupId and artifactId=$artifactId and version=$version]/version", documentPom, referencedArtifact);
 
       if (nodeVersion == null) {
         throw new RuntimeException("The POM " + this.pathPomLoaded + " does not contain a profiles/profile/dependencies/dependency element which matches the specified profile " + referencedArtifact.profile + " and GAV " + referencedArtifact.groupId + ":" + referencedArtifact.artifactId + ":" + referencedArtifact.version + " to modify.");
       }
 
       nodeVersion.setTextContent(version);
+      listPomElementReference = this.listPomElementReferenceProfileDependency;
 
       break;
 
     case PROFILE_DEPENDENCY_MANAGEMENT:
-      try {
-        nodeVersion = (Node)xPath.evaluate(
-              "/project/profiles/profile[id='"
-            + referencedArtifact.profile
-            + "]/dependencyManagement/dependencies/dependency[groupId='"
-            + referencedArtifact.groupId
-            + "' and artifactId='"
-            + referencedArtifact.artifactId
-            + "' and version='"
-            + referencedArtifact.version
-            + "']/version",
-            this.documentPom,
-            XPathConstants.NODE);
-      } catch (XPathExpressionException xpee) {
-        throw new RuntimeException(xpee);
-      }
+      nodeVersion = xmlProcessor.evaluateNode("/project/profiles/profile[id=$profile]/dependencyManagement/dependencies/dependency[groupId=$groupId and artifactId=$artifactId and version=$version]/version", documentPom, referencedArtifact);
 
       if (nodeVersion == null) {
         throw new RuntimeException("The POM " + this.pathPomLoaded + " does not contain a profiles/profile/dependencyManagement/dependencies/dependency element which matches the specified profile " + referencedArtifact.profile + " and GAV " + referencedArtifact.groupId + ":" + referencedArtifact.artifactId + ":" + referencedArtifact.version + " to modify.");
       }
 
       nodeVersion.setTextContent(version);
+      listPomElementReference = this.listPomElementReferenceProfileDependencyManagement;
 
       break;
     }
 
+    // The extracted elements are kept up to date. As for the XPath expressions above,
+    // the first matching element is the one which is modified.
+    if (listPomElementReference != null) {
+      for (PomElementReference pomElementReference: listPomElementReference) {
+        if (pomElementReference.matches(referencedArtifact)) {
+          pomElementReference.version = version;
+          break;
+        }
+      }
+    }
   }
 
   /**
@@ -1360,35 +1773,11 @@ public class Pom {
    * @return See description.
    */
   public List<String> getListSubmodule() {
-    XPathFactory xPathFactory;
-    XPath xPath;
-    NodeList nodeListSubmodules;
-    int length;
-    List<String> listSubmodule;
-
-    xPathFactory = XPathFactory.newInstance();
-    xPath = xPathFactory.newXPath();
-
-    try {
-      nodeListSubmodules = (NodeList)xPath.evaluate("/project/modules/module", this.documentPom, XPathConstants.NODESET);
-    } catch (XPathExpressionException xpee) {
-      throw new RuntimeException(xpee);
+    if (this.pathPomLoaded == null) {
+      throw new RuntimeException("The POM is not loaded.");
     }
 
-    length = nodeListSubmodules.getLength();
-    listSubmodule = new ArrayList<String>();
-
-    for (int i = 0; i < length; i++) {
-      Node nodeSubmodule;
-
-      nodeSubmodule = nodeListSubmodules.item(i);
-
-      // Maven seems to allow "\" in module references. But this causes problems on *nix
-      // systems.
-      listSubmodule.add(nodeSubmodule.getTextContent().replace('\\', '/'));
-    }
-
-    return listSubmodule;
+    return new ArrayList<String>(this.listSubmodule);
   }
 
   // If pomResolver is null, different mode. null is returned if properties cannot be resolved locally.
@@ -1543,34 +1932,11 @@ public class Pom {
    * @return See description.
    */
   public String getProperty(String property) {
-    XPathFactory xPathFactory;
-    XPath xPath;
-    NodeList nodeListProperties;
-    int length;
-
-    xPathFactory = XPathFactory.newInstance();
-    xPath = xPathFactory.newXPath();
-
-    try {
-      nodeListProperties = (NodeList)xPath.evaluate("/project/properties/*", this.documentPom, XPathConstants.NODESET);
-    } catch (XPathExpressionException xpee) {
-      throw new RuntimeException(xpee);
+    if (this.pathPomLoaded == null) {
+      throw new RuntimeException("The POM is not loaded.");
     }
 
-    length = nodeListProperties.getLength();
-
-    for (int i = 0; i < length; i++) {
-      Node nodeProperty;
-
-      nodeProperty = nodeListProperties.item(i);
-
-      if (nodeProperty.getNodeName().equals(property)) {
-//???? check if can be empty, null????
-        return nodeProperty.getTextContent();
-      }
-    }
-
-    return null;
+    return this.mapProperty.get(property);
   }
 
   /*
@@ -43,6 +43,29 @@ import org.azyva.dragom.model.ModuleVersion;
  * @author David Raymond
  */
 public class PomAggregation {
+  /**
+   * Provides the content of {@link Pom}'s when they are not to be read from the
+   * file system.
+   *
+   * <p>This allows loading a PomAggregation directly from an SCM repository without
+   * requiring it to be checked out.
+   */
+  public interface PomContentSource {
+    /**
+     * Returns the content of a Pom.
+     *
+     * @param pathPom Path to the Pom, as it would be if the Pom was read from the
+     *   file system.
+     * @return Content of the Pom. null if it does not exist.
+     */
+    byte[] getPomContent(Path pathPom);
+  }
+
+  /**
+   * PomContentSource. null if the Pom's are read from the file system.
+   */
+  private PomContentSource pomContentSource;
+
   /**
    * Main Pom.
    */
@@ -59,6 +82,23 @@ public class PomAggregation {
    * @param pathMainPom Path to the main {@link Pom}.
    */
   public PomAggregation(Path pathMainPom) {
+    this(pathMainPom, null);
+  }
+
+  /**
+   * Constructor which loads the {@link Pom}'s using a {@link PomContentSource}.
+   *
+   * <p>The Path's of the Pom's are still computed from pathMainPom and the
+   * submodules and are passed to the PomContentSource. They are also available
+   * using {@link Pom#getPathPom}.
+   *
+   * @param pathMainPom Path to the main Pom.
+   * @param pomContentSource PomContentSource. Can be null in which case the Pom's
+   *   are read from the file system.
+   */
+  public PomAggregation(Path pathMainPom, PomContentSource pomContentSource) {
+    this.pomContentSource = pomContentSource;
+
     // We use a LinkedHashMap to preserve insertion order, and in particular, to
     // ensure the main Pom is enumerated first.
     this.mapArtifactGroupIdPom = new LinkedHashMap<ArtifactGroupId, Pom>();
@@ -76,7 +116,20 @@ public class PomAggregation {
 
     pom = new Pom();
     pom.setPathPom(pathPom);
-    pom.loadPom();
+
+    if (this.pomContentSource == null) {
+      pom.loadPom();
+    } else {
+      byte[] arrayBytePom;
+
+      arrayBytePom = this.pomContentSource.getPomContent(pathPom);
+
+      if (arrayBytePom == null) {
+        throw new RuntimeException("The POM " + pathPom + " does not exist.");
+      }
+
+      pom.loadPom(arrayBytePom);
+    }
 
     this.mapArtifactGroupIdPom.put(new ArtifactGroupId(pom.getEffectiveGroupId(), pom.getArtifactId()), pom);
 
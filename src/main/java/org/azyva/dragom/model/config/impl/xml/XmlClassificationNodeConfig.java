@@ -19,6 +19,9 @@
 
 package org.azyva.dragom.model.config.impl.xml;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -110,6 +113,50 @@ public class XmlClassificationNodeConfig extends XmlNodeConfig implements Classi
     }
   }
 
+  @Override
+  void writeSnapshot(DataOutputStream dataOutputStream) throws IOException {
+    super.writeSnapshot(dataOutputStream);
+
+    dataOutputStream.writeInt(this.mapXmlNodeConfigChild.size());
+
+    for (XmlNodeConfig xmlNodeConfigChild: this.mapXmlNodeConfigChild.values()) {
+      xmlNodeConfigChild.writeSnapshot(dataOutputStream);
+    }
+  }
+
+  @Override
+  void readSnapshot(DataInputStream dataInputStream, XmlClassificationNodeConfig xmlClassificationNodeConfigParent) throws IOException {
+    int count;
+
+    super.readSnapshot(dataInputStream, xmlClassificationNodeConfigParent);
+
+    // LinkedHashMap is used to preserve insertion order.
+    this.mapXmlNodeConfigChild = new LinkedHashMap<String, XmlNodeConfig>();
+
+    count = dataInputStream.readInt();
+
+    for (int i = 0; i < count; i++) {
+      byte nodeType;
+      XmlNodeConfig xmlNodeConfigChild;
+
+      nodeType = dataInputStream.readByte();
+
+      if (nodeType == XmlConfigSnapshot.NODE_TYPE_CLASSIFICATION) {
+        xmlNodeConfigChild = new XmlClassificationNodeConfig();
+      } else if (nodeType == XmlConfigSnapshot.NODE_TYPE_MODULE) {
+        xmlNodeConfigChild = new XmlModuleConfig();
+      } else {
+        throw new IOException("Invalid node type " + nodeType + '.');
+      }
+
+      xmlNodeConfigChild.readSnapshot(dataInputStream, this);
+
+      if (this.mapXmlNodeConfigChild.put(xmlNodeConfigChild.getName(), xmlNodeConfigChild) != null) {
+        throw new IOException("Duplicate child node " + xmlNodeConfigChild.getName() + '.');
+      }
+    }
+  }
+
   @Override
   public NodeType getNodeType() {
     return NodeType.CLASSIFICATION;
@@ -61,6 +61,29 @@ public class XmlConfig implements Config, MutableConfig {
    */
   private Path pathFlushFile;
 
+  /**
+   * JAXBContext, created when first needed. Creating a JAXBContext is costly and
+   * JAXBContext is thread-safe.
+   */
+  private static JAXBContext jaxbContext;
+
+  /**
+   * Returns the JAXBContext, creating it if required.
+   *
+   * @return JAXBContext.
+   * @throws JAXBException When the JAXBContext cannot be created.
+   */
+  private static synchronized JAXBContext getJaxbContext() throws JAXBException {
+    if (XmlConfig.jaxbContext == null) {
+      // We include XmlModuleConfig, but not other classes since XmlModuleConfig is the
+      // only one that is not explicitly referenced (directly or indirectly) by
+      // XmlConfig.
+      XmlConfig.jaxbContext = JAXBContext.newInstance(XmlConfig.class, XmlModuleConfig.class);
+    }
+
+    return XmlConfig.jaxbContext;
+  }
+
   /**
    * Loads a XmlConfig from a URL.
    *
@@ -73,10 +96,7 @@ public class XmlConfig implements Config, MutableConfig {
     XmlConfig xmlConfig;
 
     try {
-      // We include XmlModuleConfig, but not other classes since XmlModuleConfig is the
-      // only one that is not explicitly referenced (directly or indirectly) by
-      // XmlConfig.
-      jaxbContext = JAXBContext.newInstance(XmlConfig.class, XmlModuleConfig.class);
+      jaxbContext = XmlConfig.getJaxbContext();
       unmarshaller = jaxbContext.createUnmarshaller();
       xmlConfig = (XmlConfig)unmarshaller.unmarshal(urlXmlConfig);
 
@@ -90,6 +110,37 @@ public class XmlConfig implements Config, MutableConfig {
     }
   }
 
+  /**
+   * Loads a XmlConfig from a binary snapshot written by {@link #saveSnapshot}.
+   *
+   * <p>This is much faster than {@link #load} and is useful for short-lived tools.
+   * The snapshot is used only if the source identifier and timestamp match those
+   * recorded in the snapshot.
+   *
+   * @param pathSnapshotFile Path to the snapshot file.
+   * @param sourceId Identifier of the source of the XmlConfig, generally its URL.
+   * @param sourceTimestamp Last modification timestamp of the source.
+   * @return XmlConfig. null if the snapshot does not exist, is stale or cannot be
+   *   read, in which case the caller is expected to use {@link #load}.
+   */
+  public static XmlConfig loadSnapshot(Path pathSnapshotFile, String sourceId, long sourceTimestamp) {
+    return XmlConfigSnapshot.read(pathSnapshotFile, sourceId, sourceTimestamp);
+  }
+
+  /**
+   * Saves this XmlConfig to a binary snapshot which can be loaded with
+   * {@link #loadSnapshot}.
+   *
+   * <p>Failing to save the snapshot is logged but is not fatal.
+   *
+   * @param pathSnapshotFile Path to the snapshot file.
+   * @param sourceId Identifier of the source of the XmlConfig, generally its URL.
+   * @param sourceTimestamp Last modification timestamp of the source.
+   */
+  public void saveSnapshot(Path pathSnapshotFile, String sourceId, long sourceTimestamp) {
+    XmlConfigSnapshot.write(this, pathSnapshotFile, sourceId, sourceTimestamp);
+  }
+
   /**
    * Saves this XmlConfig to an OutputStream.
    *
@@ -104,10 +155,7 @@ public class XmlConfig implements Config, MutableConfig {
     Marshaller marshaller;
 
     try {
-      // We include XmlModuleConfig, but not other classes since XmlModuleConfig is the
-      // only one that is not explicitly referenced (directly or indirectly) by
-      // XmlConfig.
-      jaxbContext = JAXBContext.newInstance(XmlConfig.class, XmlModuleConfig.class);
+      jaxbContext = XmlConfig.getJaxbContext();
       marshaller = jaxbContext.createMarshaller();
       marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
       marshaller.marshal(this, outputStreamXmlConfig);
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2015 - 2017 AZYVA INC.
+ *
+ * This file is part of Dragom.
+ *
+ * Dragom is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Dragom is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Dragom.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.azyva.dragom.model.config.impl.xml;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads and writes binary snapshots of {@link XmlConfig}.
+ *
+ * <p>Loading an XmlConfig from XML involves initializing JAXB and unmarshalling
+ * the whole XML resource, which represents a significant part of the startup time
+ * of short-lived tools. A snapshot is a compact binary representation of the
+ * XmlConfig which can be read much faster.
+ *
+ * <p>A snapshot records an identifier and a last modification timestamp of the
+ * source from which the XmlConfig was loaded. It is used only if both match those
+ * of the current source, and if it was written with the current format version.
+ *
+ * <p>The format is a header followed by the root {@link XmlClassificationNodeConfig}
+ * written recursively. See {@link XmlNodeConfig#writeSnapshot} and
+ * {@link XmlClassificationNodeConfig#writeSnapshot}.
+ *
+ * @author David Raymond
+ */
+class XmlConfigSnapshot {
+  /**
+   * Logger for the class.
+   */
+  private static final Logger logger = LoggerFactory.getLogger(XmlConfigSnapshot.class);
+
+  /**
+   * Magic number at the start of a snapshot ("DRXC").
+   */
+  private static final int MAGIC = 0x44525843;
+
+  /**
+   * Version of the snapshot format. Must be incremented whenever the format
+   * changes.
+   */
+  private static final int FORMAT_VERSION = 1;
+
+  /**
+   * Node type marker for {@link XmlClassificationNodeConfig}.
+   */
+  static final byte NODE_TYPE_CLASSIFICATION = 'C';
+
+  /**
+   * Node type marker for {@link XmlModuleConfig}.
+   */
+  static final byte NODE_TYPE_MODULE = 'M';
+
+  /**
+   * Reads a snapshot.
+   *
+   * @param pathSnapshotFile Path to the snapshot file.
+   * @param sourceId Identifier of the source, generally its URL.
+   * @param sourceTimestamp Last modification timestamp of the source.
+   * @return XmlConfig. null if the snapshot does not exist, is stale or cannot be
+   *   read.
+   */
+  static XmlConfig read(Path pathSnapshotFile, String sourceId, long sourceTimestamp) {
+    DataInputStream dataInputStream;
+    XmlConfig xmlConfig;
+
+    try {
+      dataInputStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(pathSnapshotFile)));
+    } catch (NoSuchFileException nsfe) {
+      XmlConfigSnapshot.logger.info("XmlConfig snapshot file " + pathSnapshotFile + " does not exist.");
+      return null;
+    } catch (IOException ioe) {
+      XmlConfigSnapshot.logger.warn("XmlConfig snapshot file " + pathSnapshotFile + " could not be opened. It is ignored.", ioe);
+      return null;
+    }
+
+    try {
+      if (   (dataInputStream.readInt() != XmlConfigSnapshot.MAGIC)
+          || (dataInputStream.readInt() != XmlConfigSnapshot.FORMAT_VERSION)
+          || !sourceId.equals(XmlConfigSnapshot.readString(dataInputStream))
+          || (dataInputStream.readLong() != sourceTimestamp)) {
+
+        XmlConfigSnapshot.logger.info("XmlConfig snapshot file " + pathSnapshotFile + " is stale or has an unsupported format.");
+        return null;
+      }
+
+      if (dataInputStream.readByte() != XmlConfigSnapshot.NODE_TYPE_CLASSIFICATION) {
+        throw new IOException("Root node is not a classification node.");
+      }
+
+      xmlConfig = new XmlConfig();
+      xmlConfig.xmlClassificationNodeConfigRoot = new XmlClassificationNodeConfig();
+      xmlConfig.xmlClassificationNodeConfigRoot.xmlConfig = xmlConfig;
+      xmlConfig.xmlClassificationNodeConfigRoot.readSnapshot(dataInputStream, null);
+
+      XmlConfigSnapshot.logger.info("XmlConfig is loaded from snapshot file " + pathSnapshotFile + '.');
+
+      return xmlConfig;
+    } catch (IOException | RuntimeException e) {
+      XmlConfigSnapshot.logger.warn("XmlConfig snapshot file " + pathSnapshotFile + " could not be read. It is ignored.", e);
+      return null;
+    } finally {
+      try {
+        dataInputStream.close();
+      } catch (IOException ioe) {
+      }
+    }
+  }
+
+  /**
+   * Writes a snapshot.
+   *
+   * <p>The snapshot is written to a temporary file which is then moved over the
+   * snapshot file so that a concurrent tool never reads a partially written
+   * snapshot. Failing to write the snapshot is not fatal since it is only an
+   * optimization.
+   *
+   * @param xmlConfig XmlConfig.
+   * @param pathSnapshotFile Path to the snapshot file.
+   * @param sourceId Identifier of the source, generally its URL.
+   * @param sourceTimestamp Last modification timestamp of the source.
+   */
+  static void write(XmlConfig xmlConfig, Path pathSnapshotFile, String sourceId, long sourceTimestamp) {
+    Path pathTempFile;
+
+    pathTempFile = null;
+
+    try {
+      DataOutputStream dataOutputStream;
+
+      if (pathSnapshotFile.getParent() != null) {
+        Files.createDirectories(pathSnapshotFile.getParent());
+      }
+
+      pathTempFile = Files.createTempFile(pathSnapshotFile.toAbsolutePath().getParent(), pathSnapshotFile.getFileName().toString(), null);
+
+      dataOutputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(pathTempFile)));
+
+      try {
+        dataOutputStream.writeInt(XmlConfigSnapshot.MAGIC);
+        dataOutputStream.writeInt(XmlConfigSnapshot.FORMAT_VERSION);
+        XmlConfigSnapshot.writeString(dataOutputStream, sourceId);
+        dataOutputStream.writeLong(sourceTimestamp);
+        xmlConfig.xmlClassificationNodeConfigRoot.writeSnapshot(dataOutputStream);
+      } finally {
+        dataOutputStream.close();
+      }
+
+      try {
+        Files.move(pathTempFile, pathSnapshotFile, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException amnse) {
+        Files.move(pathTempFile, pathSnapshotFile, StandardCopyOption.REPLACE_EXISTING);
+      }
+
+      pathTempFile = null;
+
+      XmlConfigSnapshot.logger.info("XmlConfig snapshot file " + pathSnapshotFile + " written.");
+    } catch (IOException ioe) {
+      XmlConfigSnapshot.logger.warn("XmlConfig snapshot file " + pathSnapshotFile + " could not be written.", ioe);
+    } finally {
+      if (pathTempFile != null) {
+        try {
+          Files.deleteIfExists(pathTempFile);
+        } catch (IOException ioe) {
+          // Nothing we can do.
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes a String which can be null.
+   *
+   * <p>DataOutputStream.writeUTF is not used since it does not support null and
+   * is limited to 65535 bytes.
+   *
+   * @param dataOutputStream DataOutputStream.
+   * @param string String. Can be null.
+   * @throws IOException When an I/O error occurs.
+   */
+  static void writeString(DataOutputStream dataOutputStream, String string) throws IOException {
+    byte[] arrayByte;
+
+    if (string == null) {
+      dataOutputStream.writeInt(-1);
+    } else {
+      arrayByte = string.getBytes(StandardCharsets.UTF_8);
+      dataOutputStream.writeInt(arrayByte.length);
+      dataOutputStream.write(arrayByte);
+    }
+  }
+
+  /**
+   * Reads a String written by {@link #writeString}.
+   *
+   * @param dataInputStream DataInputStream.
+   * @return String. Can be null.
+   * @throws IOException When an I/O error occurs.
+   */
+  static String readString(DataInputStream dataInputStream) throws IOException {
+    int length;
+    byte[] arrayByte;
+
+    length = dataInputStream.readInt();
+
+    if (length == -1) {
+      return null;
+    }
+
+    if (length < 0) {
+      throw new IOException("Invalid String length " + length + '.');
+    }
+
+    arrayByte = new byte[length];
+    dataInputStream.readFully(arrayByte);
+
+    return new String(arrayByte, StandardCharsets.UTF_8);
+  }
+}
@@ -19,6 +19,9 @@
 
 package org.azyva.dragom.model.config.impl.xml;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -37,6 +40,7 @@ import org.azyva.dragom.model.config.ModuleConfig;
 import org.azyva.dragom.model.config.MutableNodeConfig;
 import org.azyva.dragom.model.config.NodeConfig;
 import org.azyva.dragom.model.config.NodeConfigTransferObject;
+import org.azyva.dragom.model.config.NodeType;
 import org.azyva.dragom.model.config.OptimisticLockException;
 import org.azyva.dragom.model.config.OptimisticLockHandle;
 import org.azyva.dragom.model.config.PluginDefConfig;
@@ -45,6 +49,7 @@ import org.azyva.dragom.model.config.PropertyDefConfig;
 import org.azyva.dragom.model.config.impl.simple.SimpleClassificationNodeConfig;
 import org.azyva.dragom.model.config.impl.simple.SimpleNodeConfig;
 import org.azyva.dragom.model.config.impl.simple.SimpleNodeConfigTransferObject;
+import org.azyva.dragom.model.config.impl.simple.SimplePropertyDefConfig;
 import org.azyva.dragom.model.plugin.NodePlugin;
 
 /**
@@ -142,6 +147,92 @@ public abstract class XmlNodeConfig implements NodeConfig, MutableNodeConfig {
     }
   }
 
+  /**
+   * Writes this XmlNodeConfig to a snapshot. See {@link XmlConfigSnapshot}.
+   * <p>
+   * The node type marker, the name, the properties and the plugins are written.
+   * Subclasses can override to write additional data after calling this method.
+   *
+   * @param dataOutputStream DataOutputStream.
+   * @throws IOException When an I/O error occurs.
+   */
+  void writeSnapshot(DataOutputStream dataOutputStream) throws IOException {
+    dataOutputStream.writeByte((this.getNodeType() == NodeType.CLASSIFICATION) ? XmlConfigSnapshot.NODE_TYPE_CLASSIFICATION : XmlConfigSnapshot.NODE_TYPE_MODULE);
+    XmlConfigSnapshot.writeString(dataOutputStream, this.name);
+
+    dataOutputStream.writeInt(this.mapPropertyDefConfig.size());
+
+    for (PropertyDefConfig propertyDefConfig: this.mapPropertyDefConfig.values()) {
+      XmlConfigSnapshot.writeString(dataOutputStream, propertyDefConfig.getName());
+      XmlConfigSnapshot.writeString(dataOutputStream, propertyDefConfig.getValue());
+      dataOutputStream.writeBoolean(propertyDefConfig.isOnlyThisNode());
+    }
+
+    dataOutputStream.writeInt(this.mapPluginDefConfig.size());
+
+    for (PluginDefConfig pluginDefConfig: this.mapPluginDefConfig.values()) {
+      XmlConfigSnapshot.writeString(dataOutputStream, pluginDefConfig.getClassNodePlugin().getName());
+      XmlConfigSnapshot.writeString(dataOutputStream, pluginDefConfig.getPluginId());
+      XmlConfigSnapshot.writeString(dataOutputStream, pluginDefConfig.getPluginClass());
+      dataOutputStream.writeBoolean(pluginDefConfig.isOnlyThisNode());
+    }
+  }
+
+  /**
+   * Reads this XmlNodeConfig from a snapshot. See {@link XmlConfigSnapshot}.
+   * <p>
+   * This is the counterpart of {@link #writeSnapshot}, except that the node type
+   * marker is read by the caller in order to instantiate the right subclass. It
+   * plays the role of JAXB unmarshalling followed by {@link #afterUnmarshal}.
+   *
+   * @param dataInputStream DataInputStream.
+   * @param xmlClassificationNodeConfigParent Parent XmlClassificationNodeConfig.
+   *   null for the root XmlClassificationNodeConfig.
+   * @throws IOException When an I/O error occurs.
+   */
+  void readSnapshot(DataInputStream dataInputStream, XmlClassificationNodeConfig xmlClassificationNodeConfigParent) throws IOException {
+    int count;
+
+    this.xmlClassificationNodeConfigParent = xmlClassificationNodeConfigParent;
+    this.name = XmlConfigSnapshot.readString(dataInputStream);
+
+    if ((xmlClassificationNodeConfigParent != null) && ((this.name == null) || this.name.isEmpty())) {
+      throw new RuntimeException("Node cannot have null or empty name. Parent: " + xmlClassificationNodeConfigParent);
+    }
+
+    // LinkedHashMap are used to preserve insertion order.
+    this.mapPropertyDefConfig = new LinkedHashMap<String, PropertyDefConfig>();
+    this.mapPluginDefConfig = new LinkedHashMap<PluginKey, PluginDefConfig>();
+
+    count = dataInputStream.readInt();
+
+    for (int i = 0; i < count; i++) {
+      String name;
+
+      name = XmlConfigSnapshot.readString(dataInputStream);
+      this.mapPropertyDefConfig.put(name, new SimplePropertyDefConfig(name, XmlConfigSnapshot.readString(dataInputStream), dataInputStream.readBoolean()));
+    }
+
+    count = dataInputStream.readInt();
+
+    for (int i = 0; i < count; i++) {
+      Class<? extends NodePlugin> classNodePlugin;
+      String pluginId;
+      String pluginClass;
+
+      try {
+        classNodePlugin = Class.forName(XmlConfigSnapshot.readString(dataInputStream)).asSubclass(NodePlugin.class);
+      } catch (ClassNotFoundException cnfe) {
+        throw new RuntimeException(cnfe);
+      }
+
+      pluginId = XmlConfigSnapshot.readString(dataInputStream);
+      pluginClass = XmlConfigSnapshot.readString(dataInputStream);
+
+      this.mapPluginDefConfig.put(new PluginKey(classNodePlugin, pluginId), new XmlPluginDefConfig(classNodePlugin, pluginId, pluginClass, dataInputStream.readBoolean()));
+    }
+  }
+
   @Override
   public String getName() {
     return this.name;
@@ -153,20 +153,20 @@ public class EventManager {
   private Map<NodeEventListenerKey, List<NodeEventListenerEntry>> mapNodeEventListener;
 
   public <NodeEventClass extends NodeEvent> void registerListener(Node node, NodeEventListener<NodeEventClass> nodeEventListener, boolean indChildrenAlso) {
-    Class<NodeEventClass> classNodeEvent;
+    NodeEventListenerKey nodeEventListenerKey;
     List<NodeEventListenerEntry> listNodeEventListenerEntry;
 
     if (this.mapNodeEventListener == null) {
       this.mapNodeEventListener = new HashMap<NodeEventListenerKey, List<NodeEventListenerEntry>>();
     }
 
-    classNodeEvent = EventManager.getClassNodeEvent(nodeEventListener);
+    nodeEventListenerKey = new NodeEventListenerKey(node, EventManager.getClassNodeEvent(nodeEventListener));
 
-    listNodeEventListenerEntry = this.mapNodeEventListener.get(classNodeEvent);
+    listNodeEventListenerEntry = this.mapNodeEventListener.get(nodeEventListenerKey);
 
     if (listNodeEventListenerEntry == null) {
       listNodeEventListenerEntry = new ArrayList<NodeEventListenerEntry>();
-      this.mapNodeEventListener.put(new NodeEventListenerKey(node, classNodeEvent), listNodeEventListenerEntry);
+      this.mapNodeEventListener.put(nodeEventListenerKey, listNodeEventListenerEntry);
     }
 
     listNodeEventListenerEntry.add(new NodeEventListenerEntry(nodeEventListener, indChildrenAlso));
@@ -0,0 +1,464 @@
+/*
+ * Copyright 2015 - 2017 AZYVA INC. INC.
+ *
+ * This file is part of Dragom.
+ *
+ * Dragom is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Dragom is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Dragom.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.azyva.dragom.model.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+
+import org.azyva.dragom.model.ArtifactGroupId;
+import org.azyva.dragom.model.Module;
+import org.azyva.dragom.model.NodePath;
+import org.azyva.dragom.model.config.ClassificationNodeConfig;
+import org.azyva.dragom.model.config.Config;
+import org.azyva.dragom.model.config.NodeConfig;
+import org.azyva.dragom.model.config.NodeType;
+import org.azyva.dragom.model.config.PluginDefConfig;
+import org.azyva.dragom.model.config.PropertyDefConfig;
+import org.azyva.dragom.util.SortedProperties;
+import org.azyva.dragom.util.Util;
+import org.azyva.dragom.util.WormFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent index of {@link ArtifactGroupId} to the {@link NodePath} of the
+ * {@link Module} which produces it, used by
+ * {@link DefaultModel#findModuleByArtifactGroupId}.
+ *
+ * <p>Finding the Module which produces an ArtifactGroupId requires traversing the
+ * {@link DefaultModel} and possibly verifying the existence of Module's in the
+ * SCM, which is costly. The result of such a search depends only on the
+ * configuration of the Model and on the Module's which exist. This class
+ * therefore keeps the results in a file so that they can be reused by subsequent
+ * tool invocations.
+ *
+ * <p>The file is associated with a fingerprint of the {@link Config} of the Model
+ * and of its initialization Properties. When the fingerprint of the current
+ * configuration does not match that of the file, the entries in the file are
+ * ignored and the file is rewritten when the first entry is added.
+ *
+ * <p>Otherwise, adding an entry only requires appending it to the file, which
+ * remains a valid Properties file since the last occurrence of a property wins.
+ * Entries appended by other tool invocations are therefore never lost. Access to
+ * the file is synchronized with other threads and processes using
+ * {@link WormFile}.
+ *
+ * <p>ArtifactGroupId's for which no Module was found are also kept, with the
+ * timestamp at which the search was performed. These entries expire after a
+ * time-to-live since a Module may be created in the SCM in the meantime.
+ *
+ * <p>This class has package scope since it is only used by DefaultModel.
+ *
+ * @author David Raymond
+ */
+class ArtifactGroupIdIndex {
+  /**
+   * Logger for the class.
+   */
+  private static final Logger logger = LoggerFactory.getLogger(ArtifactGroupIdIndex.class);
+
+  /**
+   * Property within the index file specifying the fingerprint of the
+   * configuration.
+   */
+  private static final String INDEX_FILE_PROPERTY_CONFIG_FINGERPRINT = "config-fingerprint";
+
+  /**
+   * Prefix of the properties within the index file for an ArtifactGroupId. The
+   * ArtifactGroupId in literal form follows.
+   */
+  private static final String INDEX_FILE_PROPERTY_PREFIX_ARTIFACT_GROUP_ID = "artifact-group-id.";
+
+  /**
+   * Prefix of the value of a property within the index file for an
+   * ArtifactGroupId for which no {@link Module} was found. The timestamp of the
+   * search follows.
+   */
+  private static final String INDEX_FILE_VALUE_PREFIX_NOT_FOUND = "!";
+
+  /**
+   * Path to the index file.
+   */
+  private Path pathIndexFile;
+
+  /**
+   * WormFile for the index file.
+   */
+  private WormFile wormFile;
+
+  /**
+   * Indicates that the index file exists and its fingerprint matches that of the
+   * configuration, so that entries can be appended to it.
+   */
+  private boolean indIndexFileCurrent;
+
+  /**
+   * Time-to-live in milliseconds of the entries for ArtifactGroupId's for which no
+   * {@link Module} was found. 0 if these entries do not expire.
+   */
+  private long notFoundTtlMillis;
+
+  /**
+   * Fingerprint of the configuration.
+   */
+  private String configFingerprint;
+
+  /**
+   * Map of ArtifactGroupId to the value of its entry. The value is either a
+   * NodePath in literal form, or {@link #INDEX_FILE_VALUE_PREFIX_NOT_FOUND}
+   * followed by a timestamp.
+   */
+  private Map<ArtifactGroupId, String> mapArtifactGroupIdValue;
+
+  /**
+   * Constructor.
+   *
+   * <p>The index file is loaded if it exists and its fingerprint matches that of
+   * the configuration.
+   *
+   * @param pathIndexFile Path to the index file.
+   * @param notFoundTtlMillis Time-to-live in milliseconds of the entries for
+   *   ArtifactGroupId's for which no {@link Module} was found. 0 if these entries
+   *   do not expire.
+   * @param config Config of the Model.
+   * @param propertiesInit Initialization Properties of the Model.
+   */
+  ArtifactGroupIdIndex(Path pathIndexFile, long notFoundTtlMillis, Config config, Properties propertiesInit) {
+    this.pathIndexFile = pathIndexFile;
+    this.wormFile = WormFile.get(pathIndexFile);
+    this.notFoundTtlMillis = notFoundTtlMillis;
+    this.configFingerprint = ArtifactGroupIdIndex.computeConfigFingerprint(config, propertiesInit);
+    this.mapArtifactGroupIdValue = new HashMap<ArtifactGroupId, String>();
+    this.load();
+  }
+
+  /**
+   * Verifies if an entry exists for an {@link ArtifactGroupId}.
+   *
+   * <p>Expired entries for ArtifactGroupId's for which no {@link Module} was found
+   * are considered as not existing.
+   *
+   * @param artifactGroupId ArtifactGroupId.
+   * @return See description.
+   */
+  boolean isEntryExists(ArtifactGroupId artifactGroupId) {
+    String value;
+
+    value = this.mapArtifactGroupIdValue.get(artifactGroupId);
+
+    if (value == null) {
+      return false;
+    }
+
+    if (value.startsWith(ArtifactGroupIdIndex.INDEX_FILE_VALUE_PREFIX_NOT_FOUND)) {
+      long timestamp;
+
+      if (this.notFoundTtlMillis == 0) {
+        return true;
+      }
+
+      timestamp = Long.parseLong(value.substring(ArtifactGroupIdIndex.INDEX_FILE_VALUE_PREFIX_NOT_FOUND.length()));
+
+      return (System.currentTimeMillis() - timestamp) <= this.notFoundTtlMillis;
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns the NodePath of the {@link Module} which produces an
+   * {@link ArtifactGroupId}.
+   *
+   * <p>{@link #isEntryExists} must be used to distinguish between an
+   * ArtifactGroupId for which no Module was found and one which is not in the
+   * index.
+   *
+   * @param artifactGroupId ArtifactGroupId.
+   * @return See description. null if no Module was found.
+   */
+  NodePath getNodePathModule(ArtifactGroupId artifactGroupId) {
+    String value;
+
+    value = this.mapArtifactGroupIdValue.get(artifactGroupId);
+
+    if ((value == null) || value.startsWith(ArtifactGroupIdIndex.INDEX_FILE_VALUE_PREFIX_NOT_FOUND)) {
+      return null;
+    }
+
+    return new NodePath(value);
+  }
+
+  /**
+   * Adds an entry to the index and appends it to the index file.
+   *
+   * <p>If the index file does not correspond to the current configuration, it is
+   * rewritten with all the entries instead, unless another tool invocation
+   * rewrote it in the meantime.
+   *
+   * @param artifactGroupId ArtifactGroupId.
+   * @param nodePathModule NodePath of the Module which produces the
+   *   ArtifactGroupId. null if no Module was found.
+   */
+  void putEntry(ArtifactGroupId artifactGroupId, NodePath nodePathModule) {
+    String value;
+    WormFile.AccessHandle accessHandle;
+
+    if (nodePathModule == null) {
+      value = ArtifactGroupIdIndex.INDEX_FILE_VALUE_PREFIX_NOT_FOUND + System.currentTimeMillis();
+    } else {
+      value = nodePathModule.toString();
+    }
+
+    this.mapArtifactGroupIdValue.put(artifactGroupId, value);
+
+    try {
+      accessHandle = this.wormFile.reserveAccess(true);
+    } catch (RuntimeException re) {
+      // The index is only an optimization. If the index file cannot be written, the
+      // entries are simply recomputed by subsequent tool invocations.
+      ArtifactGroupIdIndex.logger.warn("Index file " + this.pathIndexFile + " could not be written.", re);
+      return;
+    }
+
+    try {
+      Properties propertiesIndex;
+
+      if (!this.indIndexFileCurrent) {
+        propertiesIndex = new Properties();
+        propertiesIndex.load(this.wormFile.getInputStream());
+        this.indIndexFileCurrent = this.loadEntries(propertiesIndex);
+      }
+
+      if (this.indIndexFileCurrent) {
+        propertiesIndex = new SortedProperties();
+        propertiesIndex.setProperty(ArtifactGroupIdIndex.INDEX_FILE_PROPERTY_PREFIX_ARTIFACT_GROUP_ID + artifactGroupId.toString(), value);
+        this.write(this.wormFile.getAppendOutputStream(), propertiesIndex, true);
+      } else {
+        propertiesIndex = new SortedProperties();
+        propertiesIndex.setProperty(ArtifactGroupIdIndex.INDEX_FILE_PROPERTY_CONFIG_FINGERPRINT, this.configFingerprint);
+
+        for (Map.Entry<ArtifactGroupId, String> mapEntry: this.mapArtifactGroupIdValue.entrySet()) {
+          propertiesIndex.setProperty(ArtifactGroupIdIndex.INDEX_FILE_PROPERTY_PREFIX_ARTIFACT_GROUP_ID + mapEntry.getKey().toString(), mapEntry.getValue());
+        }
+
+        this.write(this.wormFile.getOutputStream(), propertiesIndex, false);
+        this.indIndexFileCurrent = true;
+      }
+    } catch (IOException | RuntimeException e) {
+      ArtifactGroupIdIndex.logger.warn("Index file " + this.pathIndexFile + " could not be written.", e);
+    } finally {
+      accessHandle.release();
+    }
+  }
+
+  /**
+   * Removes the entries referring to a {@link Module}.
+   *
+   * <p>The index file is not written. The entries will be recomputed if required.
+   *
+   * @param nodePathModule NodePath of the Module.
+   */
+  void removeEntries(NodePath nodePathModule) {
+    Iterator<String> iteratorValue;
+    String stringNodePathModule;
+
+    iteratorValue = this.mapArtifactGroupIdValue.values().iterator();
+    stringNodePathModule = nodePathModule.toString();
+
+    while (iteratorValue.hasNext()) {
+      if (iteratorValue.next().equals(stringNodePathModule)) {
+        iteratorValue.remove();
+      }
+    }
+  }
+
+  /**
+   * Loads the entries of the index file.
+   *
+   * <p>Nothing is loaded if the index file does not exist, cannot be read or if
+   * its fingerprint does not match that of the configuration.
+   */
+  private void load() {
+    Properties propertiesIndex;
+    WormFile.AccessHandle accessHandle;
+
+    if (!this.wormFile.isExists()) {
+      return;
+    }
+
+    propertiesIndex = new Properties();
+
+    try {
+      accessHandle = this.wormFile.reserveAccess(false);
+
+      try {
+        propertiesIndex.load(this.wormFile.getInputStream());
+      } finally {
+        accessHandle.release();
+      }
+    } catch (IOException | RuntimeException e) {
+      // The index is only an optimization. If the index file cannot be read, the
+      // entries are simply recomputed.
+      ArtifactGroupIdIndex.logger.warn("Index file " + this.pathIndexFile + " could not be read.", e);
+      return;
+    }
+
+    this.indIndexFileCurrent = this.loadEntries(propertiesIndex);
+  }
+
+  /**
+   * Loads the entries of the index file, as Properties, for the ArtifactGroupId's
+   * which are not already in the index.
+   *
+   * @param propertiesIndex Properties of the index file.
+   * @return Indicates if the fingerprint of the index file matches that of the
+   *   configuration. If false, nothing is loaded.
+   */
+  private boolean loadEntries(Properties propertiesIndex) {
+    if (!this.configFingerprint.equals(propertiesIndex.getProperty(ArtifactGroupIdIndex.INDEX_FILE_PROPERTY_CONFIG_FINGERPRINT))) {
+      if (!propertiesIndex.isEmpty()) {
+        ArtifactGroupIdIndex.logger.info("Index file " + this.pathIndexFile + " does not correspond to the current configuration of the model and is ignored.");
+      }
+
+      return false;
+    }
+
+    for (String name: propertiesIndex.stringPropertyNames()) {
+      if (name.startsWith(ArtifactGroupIdIndex.INDEX_FILE_PROPERTY_PREFIX_ARTIFACT_GROUP_ID)) {
+        ArtifactGroupId artifactGroupId;
+
+        artifactGroupId = new ArtifactGroupId(name.substring(ArtifactGroupIdIndex.INDEX_FILE_PROPERTY_PREFIX_ARTIFACT_GROUP_ID.length()));
+
+        if (!this.mapArtifactGroupIdValue.containsKey(artifactGroupId)) {
+          this.mapArtifactGroupIdValue.put(artifactGroupId, propertiesIndex.getProperty(name));
+        }
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Writes Properties to the index file.
+   *
+   * <p>Properties.store is used so that keys and values are escaped as expected
+   * by Properties.load.
+   *
+   * @param outputStream OutputStream obtained from the WormFile.
+   * @param properties Properties.
+   * @param indAppend Indicates the Properties are appended to the index file, in
+   *   which case the timestamp comment written by Properties.store is omitted.
+   * @throws IOException When an I/O error occurs.
+   */
+  private void write(OutputStream outputStream, Properties properties, boolean indAppend) throws IOException {
+    ByteArrayOutputStream byteArrayOutputStream;
+    byte[] arrayByte;
+    int offset;
+
+    byteArrayOutputStream = new ByteArrayOutputStream();
+    properties.store(byteArrayOutputStream, null);
+    arrayByte = byteArrayOutputStream.toByteArray();
+    offset = 0;
+
+    // Properties.store always writes the timestamp comment on the first line.
+    if (indAppend) {
+      while (arrayByte[offset] != '\n') {
+        offset++;
+      }
+
+      offset++;
+    }
+
+    outputStream.write(arrayByte, offset, arrayByte.length - offset);
+    outputStream.flush();
+  }
+
+  /**
+   * Computes the fingerprint of the configuration of a Model.
+   *
+   * <p>The fingerprint is a digest of the names, properties and plugin definitions
+   * of all the {@link NodeConfig}'s, and of the initialization Properties since
+   * they can override the properties defined in the Config.
+   *
+   * @param config Config.
+   * @param propertiesInit Initialization Properties.
+   * @return See description.
+   */
+  private static String computeConfigFingerprint(Config config, Properties propertiesInit) {
+    MessageDigest messageDigest;
+
+    messageDigest = Util.createMessageDigestSha256();
+
+    if (config.getClassificationNodeConfigRoot() != null) {
+      ArtifactGroupIdIndex.updateDigest(messageDigest, config.getClassificationNodeConfigRoot());
+    }
+
+    if (propertiesInit != null) {
+      for (String name: new TreeSet<String>(propertiesInit.stringPropertyNames())) {
+        Util.updateDigest(messageDigest, name);
+        Util.updateDigest(messageDigest, propertiesInit.getProperty(name));
+      }
+    }
+
+    return Util.digestToHex(messageDigest);
+  }
+
+  /**
+   * Updates a MessageDigest with a {@link NodeConfig} and its descendants.
+   *
+   * @param messageDigest MessageDigest.
+   * @param nodeConfig NodeConfig.
+   */
+  private static void updateDigest(MessageDigest messageDigest, NodeConfig nodeConfig) {
+    Util.updateDigest(messageDigest, nodeConfig.getNodeType().name());
+    Util.updateDigest(messageDigest, nodeConfig.getName());
+
+    for (PropertyDefConfig propertyDefConfig: nodeConfig.getListPropertyDefConfig()) {
+      Util.updateDigest(messageDigest, propertyDefConfig.getName());
+      Util.updateDigest(messageDigest, propertyDefConfig.getValue());
+      Util.updateDigest(messageDigest, Boolean.toString(propertyDefConfig.isOnlyThisNode()));
+    }
+
+    for (PluginDefConfig pluginDefConfig: nodeConfig.getListPluginDefConfig()) {
+      Util.updateDigest(messageDigest, pluginDefConfig.getClassNodePlugin().getName());
+      Util.updateDigest(messageDigest, pluginDefConfig.getPluginId());
+      Util.updateDigest(messageDigest, pluginDefConfig.getPluginClass());
+      Util.updateDigest(messageDigest, Boolean.toString(pluginDefConfig.isOnlyThisNode()));
+    }
+
+    if (nodeConfig.getNodeType() == NodeType.CLASSIFICATION) {
+      for (NodeConfig nodeConfigChild: ((ClassificationNodeConfig)nodeConfig).getListChildNodeConfig()) {
+        ArtifactGroupIdIndex.updateDigest(messageDigest, nodeConfigChild);
+      }
+    }
+
+    // Marks the end of the NodeConfig so that the hierarchy is part of the
+    // fingerprint.
+    Util.updateDigest(messageDigest, "/");
+  }
+}
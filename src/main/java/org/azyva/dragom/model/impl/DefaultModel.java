@@ -18,6 +18,7 @@
 
 package org.azyva.dragom.model.impl;
 
+import java.nio.file.Paths;
 import java.text.MessageFormat;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -25,6 +26,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.ResourceBundle;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.azyva.dragom.execcontext.plugin.RuntimePropertiesPlugin;
@@ -124,6 +126,34 @@ public class DefaultModel implements Model, ModelNodeBuilderFactory, MutableMode
    */
   private static final String MODEL_PROPERTY_EXCLUDE_ARTIFACT_GROUP_ID_REGEX = "EXCLUDE_ARTIFACT_GROUP_ID_REGEX";
 
+  /**
+   * Initialization property specifying the file where the mapping between
+   * {@link ArtifactGroupId}'s and {@link Module}'s established by
+   * {@link #findModuleByArtifactGroupId} is kept across tool invocations. See
+   * {@link ArtifactGroupIdIndex}.
+   *
+   * <p>"~" in the value of this property is replaced by the user home directory.
+   *
+   * <p>If not defined, the mapping is only kept in memory.
+   */
+  private static final String INIT_PROPERTY_ARTIFACT_GROUP_ID_INDEX_FILE = "ARTIFACT_GROUP_ID_INDEX_FILE";
+
+  /**
+   * Initialization property specifying the time-to-live in seconds of the entries
+   * of the file specified by {@link #INIT_PROPERTY_ARTIFACT_GROUP_ID_INDEX_FILE}
+   * for {@link ArtifactGroupId}'s for which no {@link Module} was found.
+   *
+   * <p>If not defined, {@link #DEFAULT_ARTIFACT_GROUP_ID_INDEX_NOT_FOUND_TTL} is
+   * used. If 0, these entries do not expire.
+   */
+  private static final String INIT_PROPERTY_ARTIFACT_GROUP_ID_INDEX_NOT_FOUND_TTL = "ARTIFACT_GROUP_ID_INDEX_NOT_FOUND_TTL";
+
+  /**
+   * Default value of {@link #INIT_PROPERTY_ARTIFACT_GROUP_ID_INDEX_NOT_FOUND_TTL}
+   * (1 day).
+   */
+  private static final long DEFAULT_ARTIFACT_GROUP_ID_INDEX_NOT_FOUND_TTL = 86400;
+
   /**
    * Exceptional condition representing a {@link Module} that cannot be found but
    * should, corresponding to an {@link ArtifactGroupId}. See
@@ -179,6 +209,27 @@ public class DefaultModel implements Model, ModelNodeBuilderFactory, MutableMode
    */
   private Map<ArtifactGroupId, DefaultModule> mapArtifactGroupIdModule;
 
+  /**
+   * {@link ArtifactGroupIdIndex} keeping the mapping between ArtifactGroupId and
+   * Module across tool invocations. null if
+   * {@link #INIT_PROPERTY_ARTIFACT_GROUP_ID_INDEX_FILE} is not defined.
+   */
+  private ArtifactGroupIdIndex artifactGroupIdIndex;
+
+  /**
+   * Indicates if {@link #artifactGroupIdIndex} has been initialized. It is
+   * initialized lazily since computing the fingerprint of the {@link Config}
+   * requires traversing it.
+   */
+  private boolean indArtifactGroupIdIndexInitialized;
+
+  /**
+   * Map of ArtifactGroupId to whether it is within the scope of the Model, as
+   * returned by {@link #isArtifactGroupIdIncluded}. This is to avoid having to
+   * match the inclusion and exclusion patterns every time.
+   */
+  private Map<ArtifactGroupId, Boolean> mapArtifactGroupIdIncluded;
+
   /**
    * Pattern that an ArtifactGroupId literal must match to be considered in the
    * scope of the Model and thus have corresponding {@link Module}. See
@@ -418,6 +469,7 @@ public class DefaultModel implements Model, ModelNodeBuilderFactory, MutableMode
     }
 
     this.mapArtifactGroupIdModule = new HashMap<ArtifactGroupId, DefaultModule>();
+    this.mapArtifactGroupIdIncluded = new HashMap<ArtifactGroupId, Boolean>();
 
     modelProperty = this.defaultClassificationNodeRoot.getProperty(DefaultModel.MODEL_PROPERTY_INCLUDE_ARTIFACT_GROUP_ID_REGEX);
 
@@ -527,6 +579,9 @@ public class DefaultModel implements Model, ModelNodeBuilderFactory, MutableMode
    *
    * <p>In all cases the mapping between the ArtifactGroupId and the found Module is
    * cached and used to speed up subsequent requests for the same ArtifactGroupId.
+   * If {@link #INIT_PROPERTY_ARTIFACT_GROUP_ID_INDEX_FILE} is defined, the mapping
+   * is also kept in an {@link ArtifactGroupIdIndex} so that the searches are
+   * avoided in subsequent tool invocations.
    *
    * <p>It is possible that no Module corresponding to the ArtifactGroupId is found.
    *
@@ -546,9 +601,8 @@ public class DefaultModel implements Model, ModelNodeBuilderFactory, MutableMode
    */
   @Override
   public Module findModuleByArtifactGroupId(ArtifactGroupId artifactGroupId) {
-    FindModuleByArtifactGroupIdModuleNodeVisitor findModuleByArtifactGroupIdModuleNodeVisitor;
     DefaultModule moduleFound;
-    FindModuleThroughClassificationNodeByArtifactGroupIdClassificationNodeVisitor findModuleThroughClassificationNodeByArtifactGroupIdClassificationNodeVisitor;
+    ArtifactGroupIdIndex artifactGroupIdIndex;
     Util.ToolExitStatusAndContinue toolExitStatusAndContinue;
 
     // First check if the Module whose build produces the specified ArtifactGroupId
@@ -567,8 +621,69 @@ public class DefaultModel implements Model, ModelNodeBuilderFactory, MutableMode
       return null;
     }
 
-    // If not, traverse the hierarchy of known Module's in an attempt to find one
-    // whose build produces the specified ArtifactGroupId. See the description of
+    artifactGroupIdIndex = this.getArtifactGroupIdIndex();
+
+    // Then check if the mapping was established by a previous tool invocation. The
+    // Module is obtained by its NodePath, which is cheap compared to a search. If it
+    // does not exist anymore, a search is performed as if the mapping was not
+    // known.
+
+    if ((artifactGroupIdIndex != null) && artifactGroupIdIndex.isEntryExists(artifactGroupId)) {
+      NodePath nodePathModule;
+
+      nodePathModule = artifactGroupIdIndex.getNodePathModule(artifactGroupId);
+
+      if (nodePathModule == null) {
+        moduleFound = null;
+      } else {
+        moduleFound = (DefaultModule)this.getModule(nodePathModule);
+
+        if (moduleFound == null) {
+          moduleFound = this.searchModuleByArtifactGroupId(artifactGroupId);
+          artifactGroupIdIndex.putEntry(artifactGroupId, (moduleFound == null) ? null : moduleFound.getNodePath());
+        }
+      }
+    } else {
+      moduleFound = this.searchModuleByArtifactGroupId(artifactGroupId);
+
+      if (artifactGroupIdIndex != null) {
+        artifactGroupIdIndex.putEntry(artifactGroupId, (moduleFound == null) ? null : moduleFound.getNodePath());
+      }
+    }
+
+    if (moduleFound != null) {
+      this.mapArtifactGroupIdModule.put(artifactGroupId, moduleFound);
+      return moduleFound;
+    }
+
+    toolExitStatusAndContinue = Util.handleToolExitStatusAndContinueForExceptionalCond(null, DefaultModel.EXCEPTIONAL_COND_MODULE_NOT_FOUND);
+
+    if (toolExitStatusAndContinue.indContinue) {
+      ExecContextHolder.get().getExecContextPlugin(UserInteractionCallbackPlugin.class).provideInfo(MessageFormat.format(DefaultModel.resourceBundle.getString(DefaultModel.MSG_PATTERN_KEY_MODULE_NOT_FOUND), toolExitStatusAndContinue.toolExitStatus, artifactGroupId));
+
+      this.mapArtifactGroupIdModule.put(artifactGroupId, null);
+      return null;
+    } else {
+      throw new RuntimeExceptionAbort(MessageFormat.format(DefaultModel.resourceBundle.getString(DefaultModel.MSG_PATTERN_KEY_MODULE_NOT_FOUND), toolExitStatusAndContinue.toolExitStatus, artifactGroupId));
+    }
+  }
+
+  /**
+   * Searches for the {@link Module} whose build produces an
+   * {@link ArtifactGroupId}.
+   *
+   * <p>Used by {@link #findModuleByArtifactGroupId}.
+   *
+   * @param artifactGroupId ArtifactGroupId.
+   * @return Module. null if no Module found.
+   */
+  private DefaultModule searchModuleByArtifactGroupId(ArtifactGroupId artifactGroupId) {
+    FindModuleByArtifactGroupIdModuleNodeVisitor findModuleByArtifactGroupIdModuleNodeVisitor;
+    DefaultModule moduleFound;
+    FindModuleThroughClassificationNodeByArtifactGroupIdClassificationNodeVisitor findModuleThroughClassificationNodeByArtifactGroupIdClassificationNodeVisitor;
+
+    // Traverse the hierarchy of known Module's in an attempt to find one whose build
+    // produces the specified ArtifactGroupId. See the description of
     // FindModuleByArtifactGroupIdModuleNodeVisitor for more information.
 
     findModuleByArtifactGroupIdModuleNodeVisitor = new FindModuleByArtifactGroupIdModuleNodeVisitor(artifactGroupId);
@@ -578,7 +693,6 @@ public class DefaultModel implements Model, ModelNodeBuilderFactory, MutableMode
     moduleFound = (DefaultModule)findModuleByArtifactGroupIdModuleNodeVisitor.getModuleFound();
 
     if (moduleFound != null) {
-      this.mapArtifactGroupIdModule.put(artifactGroupId, moduleFound);
       return moduleFound;
     }
 
@@ -592,23 +706,38 @@ public class DefaultModel implements Model, ModelNodeBuilderFactory, MutableMode
 
     this.defaultClassificationNodeRoot.traverseNodeHierarchy(NodeType.CLASSIFICATION, true, findModuleThroughClassificationNodeByArtifactGroupIdClassificationNodeVisitor);
 
-    moduleFound = (DefaultModule)findModuleThroughClassificationNodeByArtifactGroupIdClassificationNodeVisitor.getModuleFound();
+    return (DefaultModule)findModuleThroughClassificationNodeByArtifactGroupIdClassificationNodeVisitor.getModuleFound();
+  }
 
-    if (moduleFound != null) {
-      this.mapArtifactGroupIdModule.put(artifactGroupId, moduleFound);
-      return moduleFound;
-    }
+  /**
+   * Returns the {@link ArtifactGroupIdIndex}, initializing it if required.
+   *
+   * @return ArtifactGroupIdIndex. null if
+   *   {@link #INIT_PROPERTY_ARTIFACT_GROUP_ID_INDEX_FILE} is not defined.
+   */
+  private ArtifactGroupIdIndex getArtifactGroupIdIndex() {
+    String artifactGroupIdIndexFile;
+    String notFoundTtl;
 
-    toolExitStatusAndContinue = Util.handleToolExitStatusAndContinueForExceptionalCond(null, DefaultModel.EXCEPTIONAL_COND_MODULE_NOT_FOUND);
+    if (!this.indArtifactGroupIdIndexInitialized) {
+      artifactGroupIdIndexFile = this.propertiesInit.getProperty(DefaultModel.INIT_PROPERTY_ARTIFACT_GROUP_ID_INDEX_FILE);
 
-    if (toolExitStatusAndContinue.indContinue) {
-      ExecContextHolder.get().getExecContextPlugin(UserInteractionCallbackPlugin.class).provideInfo(MessageFormat.format(DefaultModel.resourceBundle.getString(DefaultModel.MSG_PATTERN_KEY_MODULE_NOT_FOUND), toolExitStatusAndContinue.toolExitStatus, artifactGroupId));
+      if (artifactGroupIdIndexFile != null) {
+        artifactGroupIdIndexFile = artifactGroupIdIndexFile.replace("~", Matcher.quoteReplacement(System.getProperty("user.home")));
 
-      this.mapArtifactGroupIdModule.put(artifactGroupId, null);
-      return null;
-    } else {
-      throw new RuntimeExceptionAbort(MessageFormat.format(DefaultModel.resourceBundle.getString(DefaultModel.MSG_PATTERN_KEY_MODULE_NOT_FOUND), toolExitStatusAndContinue.toolExitStatus, artifactGroupId));
+        notFoundTtl = this.propertiesInit.getProperty(DefaultModel.INIT_PROPERTY_ARTIFACT_GROUP_ID_INDEX_NOT_FOUND_TTL);
+
+        this.artifactGroupIdIndex = new ArtifactGroupIdIndex(
+            Paths.get(artifactGroupIdIndexFile),
+            ((notFoundTtl == null) ? DefaultModel.DEFAULT_ARTIFACT_GROUP_ID_INDEX_NOT_FOUND_TTL : Long.parseLong(notFoundTtl)) * 1000,
+            this.config,
+            this.propertiesInit);
+      }
+
+      this.indArtifactGroupIdIndexInitialized = true;
     }
+
+    return this.artifactGroupIdIndex;
   }
 
   /**
@@ -627,19 +756,24 @@ public class DefaultModel implements Model, ModelNodeBuilderFactory, MutableMode
    */
   @Override
   public boolean isArtifactGroupIdIncluded(ArtifactGroupId artifactGroupId) {
-    if (this.patternIncludeArtifactGroupId != null) {
-      if (!this.patternIncludeArtifactGroupId.matcher(artifactGroupId.toString()).matches()) {
-        return false;
-      }
-    }
+    Boolean indIncluded;
+    String stringArtifactGroupId;
 
-    if (this.patternExcludeArtifactGroupId != null) {
-      if (this.patternExcludeArtifactGroupId.matcher(artifactGroupId.toString()).matches()) {
-        return false;
-      }
+    indIncluded = this.mapArtifactGroupIdIncluded.get(artifactGroupId);
+
+    if (indIncluded != null) {
+      return indIncluded;
     }
 
-    return true;
+    stringArtifactGroupId = artifactGroupId.toString();
+
+    indIncluded =
+           ((this.patternIncludeArtifactGroupId == null) || this.patternIncludeArtifactGroupId.matcher(stringArtifactGroupId).matches())
+        && ((this.patternExcludeArtifactGroupId == null) || !this.patternExcludeArtifactGroupId.matcher(stringArtifactGroupId).matches());
+
+    this.mapArtifactGroupIdIncluded.put(artifactGroupId, indIncluded);
+
+    return indIncluded;
   }
 
   @Override
@@ -711,6 +845,10 @@ public class DefaultModel implements Model, ModelNodeBuilderFactory, MutableMode
           iteratorArtifactGroupIdModule.remove();
         }
       }
+
+      if (this.artifactGroupIdIndex != null) {
+        this.artifactGroupIdIndex.removeEntries(defaultNode.getNodePath());
+      }
     }
   }
 
@@ -170,6 +170,19 @@ public abstract class DefaultNode implements Node, MutableNode {
    */
   private Map<String, Property> mapProperty;
 
+  /**
+   * Map of resolved property values, as returned by {@link #getProperty}. Values
+   * can be null, which means the property resolved to null.
+   * <p>
+   * Resolving a property requires looking up the initialization properties for
+   * each prefix of the NodePath and walking the parent DefaultNode's, so that
+   * caching is worthwhile since properties are requested very often. The cache
+   * is cleared by {@link #setProperty} and {@link #cleanCaches}, the latter being
+   * called on this DefaultNode and its children when the underlying
+   * {@link MutableConfig} data change.
+   */
+  private Map<String, String> mapPropertyResolved;
+
   /**
    * Map of the {@link NodePlugin}'s instantiated via their constructor (when the
    * plugin implementation class does not implement {@link NodePluginFactory}).
@@ -345,6 +358,7 @@ public abstract class DefaultNode implements Node, MutableNode {
     }
 
     this.mapProperty.put(name, new Property(value, indOnlyThisNode));
+    this.mapPropertyResolved = null;
   }
 
   /**
@@ -494,11 +508,7 @@ public abstract class DefaultNode implements Node, MutableNode {
    */
   @Override
   public String getProperty(String name) {
-    String[] arrayNodeName;
-    StringBuilder stringBuilder;
-    Properties propertiesInit;
     String value;
-    DefaultNode defaultNodeCurrent;
 
     this.checkNotDeleted();
 
@@ -506,6 +516,39 @@ public abstract class DefaultNode implements Node, MutableNode {
       throw new IllegalStateException("State must not be CONFIG_NEW. State: " + this.state);
     }
 
+    // While the DefaultNode is being dynamically completed, its properties and
+    // parent can still change, so the resolved values are not cached.
+    if (this.state == State.DYNAMICALLY_BEING_COMPLETED) {
+      return this.resolveProperty(name);
+    }
+
+    if (this.mapPropertyResolved == null) {
+      this.mapPropertyResolved = new HashMap<String, String>();
+    } else if (this.mapPropertyResolved.containsKey(name)) {
+      return this.mapPropertyResolved.get(name);
+    }
+
+    value = this.resolveProperty(name);
+
+    this.mapPropertyResolved.put(name, value);
+
+    return value;
+  }
+
+  /**
+   * Resolves a property as described in {@link #getProperty}, without using the
+   * cache of resolved values.
+   *
+   * @param name Name of the property.
+   * @return Value of the property.
+   */
+  private String resolveProperty(String name) {
+    String[] arrayNodeName;
+    StringBuilder stringBuilder;
+    Properties propertiesInit;
+    String value;
+    DefaultNode defaultNodeCurrent;
+
     if (this.getNodePath() == null) {
       arrayNodeName = new String[0];
     } else {
@@ -1126,6 +1169,7 @@ public abstract class DefaultNode implements Node, MutableNode {
   protected void cleanCaches(boolean indDelete) {
     this.nodePath = null;
     this.mapProperty = null;
+    this.mapPropertyResolved = null;
     this.mapNodePluginConstructor = null;
 
     this.defaultModel.cleanCaches(this);
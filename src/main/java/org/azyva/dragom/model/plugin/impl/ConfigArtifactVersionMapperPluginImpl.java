@@ -21,7 +21,9 @@ package org.azyva.dragom.model.plugin.impl;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -34,6 +36,9 @@ import org.azyva.dragom.model.ArtifactVersion;
 import org.azyva.dragom.model.Module;
 import org.azyva.dragom.model.NodePath;
 import org.azyva.dragom.model.Version;
+import org.azyva.dragom.model.event.DynamicVersionCreatedEvent;
+import org.azyva.dragom.model.event.NodeEventListener;
+import org.azyva.dragom.model.event.StaticVersionCreatedEvent;
 import org.azyva.dragom.model.plugin.ArtifactVersionMapperPlugin;
 import org.azyva.dragom.model.plugin.ScmPlugin;
 import org.azyva.dragom.util.AlwaysNeverAskUserResponse;
@@ -65,10 +70,12 @@ import org.slf4j.LoggerFactory;
  * transition, a static Version is created to freeze the sources for the current
  * phase and then the ArtifactVersion is transitioned to the next phase.
  * <p>
- * There is possibly room for performance optimization as for each call to a map
- * method, the mappings are built from the runtime properties, even if they have
- * not changed. If optimization if considered, care will need to be taken as
- * runtime properties can easily change.
+ * The mappings are built from the runtime properties once per {@link Module} and
+ * cached in transient data. The results of the map methods and of the existence
+ * tests are also cached in transient data since a reference graph generally
+ * contains many references to the same ArtifactVersion's. These caches are
+ * bounded and are cleared when a Version is created for the Module, since this
+ * can change the result of existence tests.
  *
  * @author David Raymond
  */
@@ -171,6 +178,17 @@ public class ConfigArtifactVersionMapperPluginImpl extends ModulePluginAbstractI
    */
   private static final String TRANSIENT_DATA_PREFIX_LIST_VERSION_TO_ARTIFACT_VERSION_MAPPING = ConfigArtifactVersionMapperPluginImpl.class.getName() + ".ListVersionToArtifactVersionMapping.";
 
+  /**
+   * Transient data prefix that caches the results of the map methods and of the
+   * existence tests. The suffix is the {@link NodePath} of the {@link Module}.
+   */
+  private static final String TRANSIENT_DATA_PREFIX_VERSION_MAPPING_CACHE = ConfigArtifactVersionMapperPluginImpl.class.getName() + ".VersionMappingCache.";
+
+  /**
+   * Maximum number of entries in each Map of {@link VersionMappingCache}.
+   */
+  private static final int MAX_VERSION_MAPPING_CACHE_SIZE = 1024;
+
   /**
    * See description in ResourceBundle.
    */
@@ -204,6 +222,14 @@ public class ConfigArtifactVersionMapperPluginImpl extends ModulePluginAbstractI
      */
     Pattern patternSrcVersion;
 
+    /**
+     * Literal prefix that the String representation of the source Version or
+     * ArtifactVersion must have in order to match patternSrcVersion. Allows
+     * rejecting most non-matching source Version's without involving the regular
+     * expression engine. Can be empty.
+     */
+    String srcVersionLiteralPrefix;
+
     /**
      * Destination Version literal. Can contain references to captured subsequences
      * within the matching source version. See Matcher.replaceAll.
@@ -223,6 +249,79 @@ public class ConfigArtifactVersionMapperPluginImpl extends ModulePluginAbstractI
     boolean indAddPhase;
   }
 
+  /**
+   * Bounded Map which evicts the least recently accessed entry when full.
+   *
+   * @param <K> Key type.
+   * @param <V> Value type.
+   */
+  private static class BoundedMap<K, V> extends LinkedHashMap<K, V> {
+    // Required since LinkedHashMap is Serializable.
+    private static final long serialVersionUID = 0;
+
+    /**
+     * Constructor.
+     */
+    BoundedMap() {
+      super(16, 0.75f, true);
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> mapEntryEldest) {
+      return this.size() > ConfigArtifactVersionMapperPluginImpl.MAX_VERSION_MAPPING_CACHE_SIZE;
+    }
+  }
+
+  /**
+   * Caches the results of the map methods and of the existence tests for a
+   * {@link Module}.
+   */
+  private static class VersionMappingCache {
+    /**
+     * Map of String representations of ArtifactVersion's to the mapped Version.
+     */
+    Map<String, Version> mapArtifactVersionVersion = new BoundedMap<String, Version>();
+
+    /**
+     * Map of String representations of Version's to the mapped ArtifactVersion.
+     */
+    Map<String, ArtifactVersion> mapVersionArtifactVersion = new BoundedMap<String, ArtifactVersion>();
+
+    /**
+     * Map of String representations of Version's to the result of their existence
+     * test, positive or negative.
+     */
+    Map<String, Boolean> mapVersionIndExists = new BoundedMap<String, Boolean>();
+  }
+
+  /**
+   * {@link NodeEventListener} clearing the {@link VersionMappingCache} when a
+   * dynamic {@link Version} is created for the {@link Module}.
+   */
+  private class DynamicVersionCreatedEventListener implements NodeEventListener<DynamicVersionCreatedEvent> {
+    @Override
+    public void onEvent(DynamicVersionCreatedEvent dynamicVersionCreatedEvent) {
+      ConfigArtifactVersionMapperPluginImpl.this.clearVersionMappingCache();
+    }
+  }
+
+  /**
+   * {@link NodeEventListener} clearing the {@link VersionMappingCache} when a
+   * static {@link Version} is created for the {@link Module}.
+   */
+  private class StaticVersionCreatedEventListener implements NodeEventListener<StaticVersionCreatedEvent> {
+    @Override
+    public void onEvent(StaticVersionCreatedEvent staticVersionCreatedEvent) {
+      ConfigArtifactVersionMapperPluginImpl.this.clearVersionMappingCache();
+    }
+  }
+
+  /**
+   * Indicates that the {@link NodeEventListener}'s clearing the
+   * {@link VersionMappingCache} are registered on the {@link Module}.
+   */
+  private boolean indNodeEventListenerRegistered;
+
   public ConfigArtifactVersionMapperPluginImpl(Module module) {
     super(module);
   }
@@ -230,25 +329,51 @@ public class ConfigArtifactVersionMapperPluginImpl extends ModulePluginAbstractI
 
   @Override
   public Version mapArtifactVersionToVersion(ArtifactVersion artifactVersion) {
+    VersionMappingCache versionMappingCache;
+    String stringArtifactVersion;
     ScmPlugin scmPlugin;
     Version version;
 
+    versionMappingCache = this.getVersionMappingCache();
+    stringArtifactVersion = artifactVersion.toString();
+
+    version = versionMappingCache.mapArtifactVersionVersion.get(stringArtifactVersion);
+
+    if (version != null) {
+      return version;
+    }
+
     scmPlugin = this.getModule().getNodePlugin(ScmPlugin.class, null);
 
     for (VersionMapping versionMapping: this.getListVersionMappingArtifactVersionToVersion()) {
       Matcher matcher;
 
+      if (!stringArtifactVersion.startsWith(versionMapping.srcVersionLiteralPrefix)) {
+        continue;
+      }
+
       ConfigArtifactVersionMapperPluginImpl.logger.debug("Attempting to match ArtifactVersion {} to version matching pattern {}.", artifactVersion, versionMapping.patternSrcVersion);
 
-      matcher = versionMapping.patternSrcVersion.matcher(artifactVersion.toString());
+      matcher = versionMapping.patternSrcVersion.matcher(stringArtifactVersion);
 
       if (matcher.matches()) {
         version = new Version(matcher.replaceAll(versionMapping.destinationVersion));
 
         if (versionMapping.indTestExistence) {
-          if (scmPlugin.isVersionExists(version)) {
+          Boolean indExists;
+
+          indExists = versionMappingCache.mapVersionIndExists.get(version.toString());
+
+          if (indExists == null) {
+            indExists = Boolean.valueOf(scmPlugin.isVersionExists(version));
+            versionMappingCache.mapVersionIndExists.put(version.toString(), indExists);
+          }
+
+          if (indExists.booleanValue()) {
             ConfigArtifactVersionMapperPluginImpl.logger.debug("ArtifactVersion {} mapped to version {} which exists.", artifactVersion, version);
 
+            versionMappingCache.mapArtifactVersionVersion.put(stringArtifactVersion, version);
+
             return version;
           }
 
@@ -256,6 +381,8 @@ public class ConfigArtifactVersionMapperPluginImpl extends ModulePluginAbstractI
         } else {
           ConfigArtifactVersionMapperPluginImpl.logger.debug("ArtifactVersion {} mapped to version {}.", artifactVersion, version);
 
+          versionMappingCache.mapArtifactVersionVersion.put(stringArtifactVersion, version);
+
           return version;
         }
       }
@@ -266,12 +393,44 @@ public class ConfigArtifactVersionMapperPluginImpl extends ModulePluginAbstractI
 
   @Override
   public ArtifactVersion mapVersionToArtifactVersion(Version version) {
+    VersionMappingCache versionMappingCache;
+    String stringVersion;
+    ArtifactVersion artifactVersion;
+
+    versionMappingCache = this.getVersionMappingCache();
+    stringVersion = version.toString();
+
+    artifactVersion = versionMappingCache.mapVersionArtifactVersion.get(stringVersion);
+
+    if (artifactVersion == null) {
+      artifactVersion = this.mapVersionToArtifactVersionNoCache(version, stringVersion);
+
+      // When the phase is added, it is determined once per Module and kept in
+      // transient data, so that the result can be cached in all cases.
+      versionMappingCache.mapVersionArtifactVersion.put(stringVersion, artifactVersion);
+    }
+
+    return artifactVersion;
+  }
+
+  /**
+   * Performs the actual mapping for {@link #mapVersionToArtifactVersion}.
+   *
+   * @param version Version.
+   * @param stringVersion String representation of version.
+   * @return ArtifactVersion.
+   */
+  private ArtifactVersion mapVersionToArtifactVersionNoCache(Version version, String stringVersion) {
     for (VersionMapping versionMapping: this.getListVersionMappingVersionToArtifactVersion()) {
       Matcher matcher;
 
+      if (!stringVersion.startsWith(versionMapping.srcVersionLiteralPrefix)) {
+        continue;
+      }
+
       ConfigArtifactVersionMapperPluginImpl.logger.debug("Attempting to match Version {} to Version matching pattern {}.", version, versionMapping.patternSrcVersion);
 
-      matcher = versionMapping.patternSrcVersion.matcher(version.toString());
+      matcher = versionMapping.patternSrcVersion.matcher(stringVersion);
 
       if (matcher.matches()) {
         String stringArtifactVersion;
@@ -404,6 +563,7 @@ public class ConfigArtifactVersionMapperPluginImpl extends ModulePluginAbstractI
       versionMapping = new VersionMapping();
 
       versionMapping.patternSrcVersion = Pattern.compile(arrayMappingComponent[0]);
+      versionMapping.srcVersionLiteralPrefix = ConfigArtifactVersionMapperPluginImpl.getRegexLiteralPrefix(arrayMappingComponent[0]);
       versionMapping.destinationVersion = arrayMappingComponent[1];
 
       property = module.getProperty(ConfigArtifactVersionMapperPluginImpl.RUNTIME_PROPERTY_PREFIX_ARTIFACT_VERSION_TO_VERSION_MAPPING_TEST_EXISTENCE + mappingKey);
@@ -469,6 +629,7 @@ public class ConfigArtifactVersionMapperPluginImpl extends ModulePluginAbstractI
       versionMapping = new VersionMapping();
 
       versionMapping.patternSrcVersion = Pattern.compile(arrayMappingComponent[0]);
+      versionMapping.srcVersionLiteralPrefix = ConfigArtifactVersionMapperPluginImpl.getRegexLiteralPrefix(arrayMappingComponent[0]);
       versionMapping.destinationVersion = arrayMappingComponent[1];
 
       property = module.getProperty(ConfigArtifactVersionMapperPluginImpl.RUNTIME_PROPERTY_PREFIX_VERSION_TO_ARTIFACT_VERSION_MAPPING_ADD_PHASE + mappingKey);
@@ -483,6 +644,89 @@ public class ConfigArtifactVersionMapperPluginImpl extends ModulePluginAbstractI
     return listVersionMapping;
   }
 
+  /**
+   * Returns the {@link VersionMappingCache} for the {@link Module}, creating it if
+   * it does not exist.
+   * <p>
+   * The first time this method is called, the {@link NodeEventListener}'s clearing
+   * the VersionMappingCache are registered on the Module.
+   *
+   * @return See description.
+   */
+  private VersionMappingCache getVersionMappingCache() {
+    ExecContext execContext;
+    Module module;
+    String transientDataKey;
+    VersionMappingCache versionMappingCache;
+
+    execContext = ExecContextHolder.get();
+    module = this.getModule();
+
+    if (!this.indNodeEventListenerRegistered) {
+      module.registerListener(new DynamicVersionCreatedEventListener(), false);
+      module.registerListener(new StaticVersionCreatedEventListener(), false);
+      this.indNodeEventListenerRegistered = true;
+    }
+
+    transientDataKey = ConfigArtifactVersionMapperPluginImpl.TRANSIENT_DATA_PREFIX_VERSION_MAPPING_CACHE + module.getNodePath();
+
+    versionMappingCache = (VersionMappingCache)execContext.getTransientData(transientDataKey);
+
+    if (versionMappingCache == null) {
+      versionMappingCache = new VersionMappingCache();
+      execContext.setTransientData(transientDataKey, versionMappingCache);
+    }
+
+    return versionMappingCache;
+  }
+
+  /**
+   * Clears the {@link VersionMappingCache} for the {@link Module}.
+   */
+  private void clearVersionMappingCache() {
+    ExecContextHolder.get().setTransientData(ConfigArtifactVersionMapperPluginImpl.TRANSIENT_DATA_PREFIX_VERSION_MAPPING_CACHE + this.getModule().getNodePath(), null);
+  }
+
+  /**
+   * Returns the literal prefix of a regular expression, meaning the longest prefix
+   * that any String matching the regular expression must have.
+   * <p>
+   * The analysis is conservative. It stops at the first character having a
+   * special meaning and an empty String is returned if the regular expression
+   * contains alternatives.
+   *
+   * @param regex Regular expression.
+   * @return See description.
+   */
+  private static String getRegexLiteralPrefix(String regex) {
+    StringBuilder stringBuilder;
+
+    if (regex.indexOf('|') != -1) {
+      return "";
+    }
+
+    stringBuilder = new StringBuilder();
+
+    for (int i = 0; i < regex.length(); i++) {
+      char character;
+
+      character = regex.charAt(i);
+
+      if ("\\^$.?*+()[]{}".indexOf(character) != -1) {
+        // A quantifier makes the preceding character optional or repeatable.
+        if (("?*+{".indexOf(character) != -1) && (stringBuilder.length() != 0)) {
+          stringBuilder.setLength(stringBuilder.length() - 1);
+        }
+
+        break;
+      }
+
+      stringBuilder.append(character);
+    }
+
+    return stringBuilder.toString();
+  }
+
   /**
    * Returns a List of mapping keys defined by a runtime property, which can also
    * contain references to mapping groups.
@@ -23,8 +23,10 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.StringReader;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -78,7 +80,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  *
  * @author David Raymond
  */
-public class GitScmPluginImpl extends ModulePluginAbstractImpl implements ScmPlugin {
+public class GitScmPluginImpl extends ModulePluginAbstractImpl implements ScmPlugin, ScmTreeView.Provider {
   /**
    * Logger for the class.
    */
@@ -214,6 +216,14 @@ public class GitScmPluginImpl extends ModulePluginAbstractImpl implements ScmPlu
    */
   private static final String RUNTIME_PROPERTY_GIT_PATH_EXECUTABLE = "GIT_PATH_EXECUTABLE";
 
+  /**
+   * Runtime property specifying the maximum number of Git commands accessing the
+   * remote repository (clone, fetch, etc.) that can execute concurrently for the
+   * same host when the reference graph is traversed in parallel. See
+   * {@link Git#setMaxRemoteAccessPerHost}.
+   */
+  private static final String RUNTIME_PROPERTY_GIT_MAX_REMOTE_ACCESS_PER_HOST = "GIT_MAX_REMOTE_ACCESS_PER_HOST";
+
   /**
    * Runtime property indicating the fetch and push behavior. The possible values
    * are defined by {@link FetchPushBehavior}.
@@ -257,6 +267,23 @@ public class GitScmPluginImpl extends ModulePluginAbstractImpl implements ScmPlu
    */
   private static final String RUNTIME_PROPERTY_PROVIDE_MERGE_SUMMARY = "PROVIDE_MERGE_SUMMARY";
 
+  /**
+   * Runtime property specifying the Path to a directory where bare mirrors of the
+   * remote repositories are kept.
+   *
+   * <p>When specified, system workspace directories are cloned from a mirror
+   * within this directory instead of from the remote repository, borrowing the
+   * objects of the mirror using Git alternates, and fetching is performed through
+   * the mirror. Since the mirrors are not part of any workspace, they can be shared
+   * by many workspaces, such as those of successive CI jobs, which saves both disk
+   * space and network accesses.
+   *
+   * <p>Mirrors are never deleted by Dragom. Since system workspace directories
+   * depend on their mirror, a mirror must not be deleted while workspaces which
+   * use it exist.
+   */
+  private static final String RUNTIME_PROPERTY_GIT_MIRROR_STORE_DIR = "GIT_MIRROR_STORE_DIR";
+
   /**
    * Transient data that is a Set of Path's that have already been fetched and used
    * to optimize fetching. See {@link FetchPushBehavior}.
@@ -277,6 +304,18 @@ public class GitScmPluginImpl extends ModulePluginAbstractImpl implements ScmPlu
    */
   private static final String TRANSIENT_DATA_PREFIX_TEMP_DYNAMIC_VERSION_BASE = GitScmPluginImpl.class.getName() + ".TempDynamicVersionBase.";
 
+  /**
+   * Transient data prefix that caches the Version attributes of dynamic
+   * {@link Version}'s for each {@link Module}. The suffix is the {@link NodePath}
+   * of the Module. The value is a Map of the commit ID of the head of the branch to
+   * the Version attributes.
+   * <p>
+   * Since the history of a commit never changes, the Version attributes need not
+   * be invalidated. If the branch moves, its head commit ID changes and the Version
+   * attributes are searched again.
+   */
+  private static final String TRANSIENT_DATA_PREFIX_MAP_VERSION_ATTR = GitScmPluginImpl.class.getName() + ".MapVersionAttr.";
+
   /**
    * The base {@link Version} of a Version is stored as a commit attribute (commit
    * message) on the initial dummy commit of new branch branch and as a version
@@ -554,9 +593,164 @@ public class GitScmPluginImpl extends ModulePluginAbstractImpl implements ScmPlu
     }
   }
 
+  /**
+   * Clones a system workspace directory from a mirror.
+   *
+   * <p>If the mirror cannot be fetched, the workspace directory is cloned from the
+   * remote repository instead.
+   *
+   * @param version Version to checkout. Can be null.
+   * @param pathMirror Path to the mirror. See {@link #getPathMirror}.
+   * @param pathModuleWorkspace Path to the workspace directory.
+   */
+  private void gitCloneFromMirror(Version version, Path pathMirror, Path pathModuleWorkspace) {
+    Git git;
+
+    git = this.getGit();
+
+    // fetchMirror is not used since the workspace directory does not exist yet and
+    // cannot be fetched directly should fetching the mirror fail.
+    try {
+      this.gitFetch(pathMirror, null, null, false, false);
+    } catch (RuntimeException re) {
+      GitScmPluginImpl.logger.warn("Mirror " + pathMirror + " could not be fetched. " + pathModuleWorkspace + " is cloned directly from the remote repository.", re);
+      this.gitClone(version, null, pathModuleWorkspace);
+      return;
+    }
+
+    git.cloneShared(pathMirror, pathModuleWorkspace);
+
+    // As when cloning from a local remote repository in gitClone, the origin remote
+    // must be the true URL of the remote repository. The mirror is specified
+    // explicitly when fetching from it.
+    git.config(pathModuleWorkspace, "remote.origin.url", this.gitReposCompleteUrl);
+
+    // The mirror was just fetched, or is up to date according to the
+    // GIT_FETCH_PUSH_BEHAVIOR runtime property, and the clone reflects it.
+    this.hasFetched(pathModuleWorkspace);
+
+    if (version != null) {
+      git.checkout(pathModuleWorkspace, version);
+    }
+  }
+
+  /**
+   * Returns the Path to the mirror of the remote repository, creating it if it does
+   * not exist.
+   *
+   * <p>The mirror is created in a temporary directory which is then moved to its
+   * final location so that tools sharing the mirror store never see a partially
+   * created mirror.
+   *
+   * <p>Failing to create the mirror is not fatal since the remote repository can
+   * always be accessed directly.
+   *
+   * @return Path to the mirror. null if the GIT_MIRROR_STORE_DIR runtime property
+   *   is not specified or the mirror could not be created.
+   */
+  private Path getPathMirror() {
+    RuntimePropertiesPlugin runtimePropertiesPlugin;
+    String runtimeProperty;
+    Path pathMirrorStore;
+    Path pathMirror;
+    Path pathTemp;
+    Path pathTempMirror;
+    Git git;
+
+    runtimePropertiesPlugin = ExecContextHolder.get().getExecContextPlugin(RuntimePropertiesPlugin.class);
+    runtimeProperty = runtimePropertiesPlugin.getProperty(this.getModule(), GitScmPluginImpl.RUNTIME_PROPERTY_GIT_MIRROR_STORE_DIR);
+
+    if (runtimeProperty == null) {
+      return null;
+    }
+
+    pathMirrorStore = Paths.get(runtimeProperty);
+
+    // The name of the mirror is derived from the repository URL, without the
+    // protocol and user, so that it is the same for all workspaces.
+    pathMirror = pathMirrorStore.resolve(
+        this.gitReposCompleteUrl
+            .replaceFirst("^[a-zA-Z][a-zA-Z0-9+.-]*://", "")
+            .replaceFirst("^[^@/]*@", "")
+            .replaceAll("[^a-zA-Z0-9._-]", "_"));
+
+    if (Files.isDirectory(pathMirror)) {
+      return pathMirror;
+    }
+
+    git = this.getGit();
+    pathTemp = null;
+
+    try {
+      Files.createDirectories(pathMirrorStore);
+      pathTemp = Files.createTempDirectory(pathMirrorStore, pathMirror.getFileName().toString() + '.');
+      pathTempMirror = pathTemp.resolve("mirror");
+
+      ExecContextHolder.get().getExecContextPlugin(UserInteractionCallbackPlugin.class).provideInfo(MessageFormat.format(GitScmPluginImpl.resourceBundle.getString(GitScmPluginImpl.MSG_PATTERN_KEY_ACCESS_REMOTE_REPOS_FROM_WORKSPACE), this.gitReposCompleteUrl, pathMirror, "clone --mirror"));
+
+      git.cloneMirror(pathTempMirror);
+
+      // System workspace directories borrow objects from the mirror. Objects which
+      // become unreachable within the mirror, following a forced push for instance,
+      // may still be needed by them.
+      git.config(pathTempMirror, "gc.pruneExpire", "never");
+
+      try {
+        Files.move(pathTempMirror, pathMirror, StandardCopyOption.ATOMIC_MOVE);
+      } catch (IOException ioe) {
+        // Another tool sharing the mirror store may have created the mirror
+        // concurrently, in which case the one created here is simply discarded.
+        if (!Files.isDirectory(pathMirror)) {
+          throw ioe;
+        }
+      }
+
+      this.hasFetched(pathMirror);
+
+      return pathMirror;
+    } catch (IOException | RuntimeException e) {
+      GitScmPluginImpl.logger.warn("Mirror " + pathMirror + " of repository " + this.gitReposCompleteUrl + " could not be created. The remote repository is accessed directly.", e);
+      return null;
+    } finally {
+      if (pathTemp != null) {
+        FileUtils.deleteQuietly(pathTemp.toFile());
+      }
+    }
+  }
+
+  /**
+   * Fetches into a mirror from the remote repository.
+   *
+   * <p>Tools sharing the mirror store may fetch into the same mirror concurrently,
+   * which Git does not always support. If the fetch fails, the workspace directory
+   * for which the mirror is fetched is fetched directly from the remote repository
+   * instead.
+   *
+   * <p>pathModuleWorkspace must therefore be an existing repository.
+   *
+   * @param pathMirror Path to the mirror.
+   * @param pathModuleWorkspace Path to the workspace directory for which the
+   *   mirror is fetched.
+   * @param indForce Indicates to fetch even if fetching has already been performed
+   *   during the tool execution.
+   * @return Indicates if the mirror was fetched. If false, pathModuleWorkspace was
+   *   fetched directly.
+   */
+  private boolean fetchMirror(Path pathMirror, Path pathModuleWorkspace, boolean indForce) {
+    try {
+      this.gitFetch(pathMirror, null, null, false, indForce);
+      return true;
+    } catch (RuntimeException re) {
+      GitScmPluginImpl.logger.warn("Mirror " + pathMirror + " could not be fetched. " + pathModuleWorkspace + " is fetched directly from the remote repository.", re);
+      this.gitFetch(pathModuleWorkspace, null, null, false, true);
+      return false;
+    }
+  }
+
   private void fetch(Path pathModuleWorkspace, boolean indForce) {
     NodePath nodePathModule;
     Path pathMainUserWorkspaceDir;
+    Path pathMirror;
 
     nodePathModule = this.getModule().getNodePath();
     pathMainUserWorkspaceDir = this.getPathMainUserWorkspaceDir(nodePathModule);
@@ -579,6 +773,14 @@ public class GitScmPluginImpl extends ModulePluginAbstractImpl implements ScmPlu
       // could be cases where the remote tracking branches are not up to date in the
       // current Workspace directory and we want to ensure they are updated.
       this.gitFetch(pathModuleWorkspace, pathMainUserWorkspaceDir, "refs/remotes/origin/*:refs/remotes/origin/*", false, false);
+    } else if ((pathMainUserWorkspaceDir == null) && ((pathMirror = this.getPathMirror()) != null)) {
+      // If there is no main Workspace directory, the Workspace directory is a system
+      // one and if a mirror is used, we fetch into the mirror and then from the
+      // mirror into the Workspace directory. The branches of the mirror are those of
+      // the remote repository and therefore map to the remote tracking branches.
+      if (this.fetchMirror(pathMirror, pathModuleWorkspace, indForce)) {
+        this.gitFetch(pathModuleWorkspace, pathMirror, "+refs/heads/*:refs/remotes/origin/*", false, false);
+      }
     } else {
       // If the Workspace directory is the main one, we perform a regular fetch.
       // Note that depending on the GIT_FETCH_PUSH_BEHAVIOR runtime property it may be
@@ -702,6 +904,7 @@ public class GitScmPluginImpl extends ModulePluginAbstractImpl implements ScmPlu
     String branch;
     NodePath nodePathModule;
     Path pathMainUserWorkspaceDir;
+    Path pathMirror;
 
     git = this.getGit();
 
@@ -753,6 +956,39 @@ public class GitScmPluginImpl extends ModulePluginAbstractImpl implements ScmPlu
       // Note that depending on the GIT_FETCH_PUSH_BEHAVIOR runtime property it may be
       // the case that no push is actually performed by this call.
       this.gitPush(pathModuleWorkspace, gitRef);
+
+      // If there is no main Workspace directory, the Workspace directory is a system
+      // one and if a mirror is used, the pushed ref must also be brought into the
+      // mirror. Otherwise the mirror is not fetched again during the tool execution
+      // and the next fetch from the mirror into the Workspace directory, which is
+      // forced, would rewind the remote tracking branch to the commit before the
+      // push.
+      if ((pathMainUserWorkspaceDir == null) && this.getFetchPushBehavior().isPush() && ((pathMirror = this.getPathMirror()) != null)) {
+        this.updateMirror(pathMirror, pathModuleWorkspace, (gitRef != null) ? gitRef : "refs/heads/" + branch);
+      }
+    }
+  }
+
+  /**
+   * Updates a mirror with a ref which was pushed to the remote repository from a
+   * system workspace directory.
+   *
+   * <p>The ref is fetched locally from the workspace directory into the mirror,
+   * where it is forced since the remote repository is the reference.
+   *
+   * <p>Failing to update the mirror is not fatal since the mirror can be updated
+   * by a subsequent tool execution.
+   *
+   * @param pathMirror Path to the mirror.
+   * @param pathModuleWorkspace Path to the workspace directory from which the ref
+   *   was pushed.
+   * @param gitRef Complete ref which was pushed.
+   */
+  private void updateMirror(Path pathMirror, Path pathModuleWorkspace, String gitRef) {
+    try {
+      this.gitFetch(pathMirror, pathModuleWorkspace, "+" + gitRef + ':' + gitRef, false, false);
+    } catch (RuntimeException re) {
+      GitScmPluginImpl.logger.warn("Mirror " + pathMirror + " could not be updated with " + gitRef + " pushed from " + pathModuleWorkspace + '.', re);
     }
   }
 
@@ -851,6 +1087,7 @@ public class GitScmPluginImpl extends ModulePluginAbstractImpl implements ScmPlu
     WorkspaceDirSystemModule workspaceDirSystemModule;
     WorkspaceDirSystemModule workspaceDirSystemModuleConflict;
     Path pathMainUserWorkspaceDir;
+    Path pathMirror;
 
     try {
       git = this.getGit();
@@ -923,9 +1160,7 @@ public class GitScmPluginImpl extends ModulePluginAbstractImpl implements ScmPlu
             pathMainUserWorkspaceDir = this.getPathMainUserWorkspaceDir(nodePathModule);
 
               if ((pathMainUserWorkspaceDir != null) && !pathMainUserWorkspaceDir.equals(pathModuleWorkspace)) {
-                // We add "--" as a last argument since when a ref does no exist, Git complains
-                // about the fact that the command is ambiguous.
-                if (git.executeGitCommand(new String[] {"rev-parse", "refs/heads/" + version.getVersion(), "--"}, false, AllowExitCode.ALL, pathMainUserWorkspaceDir, null, false) == 0) {
+                if (git.resolveRevision(pathMainUserWorkspaceDir, "refs/heads/" + version.getVersion()) != null) {
                   // If the Workspace directory is not the main one, we fetch the same branch from
                   // the main Workspace directory into the current Workspace directory.
                   // This is the special handling of the synchronization between a workspace
@@ -980,7 +1215,13 @@ public class GitScmPluginImpl extends ModulePluginAbstractImpl implements ScmPlu
 
         pathMainUserWorkspaceDir = this.getPathMainUserWorkspaceDir(nodePathModule);
 
-        this.gitClone(version, pathMainUserWorkspaceDir, pathModuleWorkspace);
+        // Otherwise, if a mirror is used we clone from it.
+
+        if ((pathMainUserWorkspaceDir == null) && ((pathMirror = this.getPathMirror()) != null)) {
+          this.gitCloneFromMirror(version, pathMirror, pathModuleWorkspace);
+        } else {
+          this.gitClone(version, pathMainUserWorkspaceDir, pathModuleWorkspace);
+        }
       } catch (Exception e) {
         if (pathModuleWorkspace != null) {
           workspacePlugin.deleteWorkspaceDir(workspaceDirSystemModule);
@@ -1065,6 +1306,123 @@ public class GitScmPluginImpl extends ModulePluginAbstractImpl implements ScmPlu
     return pathModuleWorkspace;
   }
 
+  /**
+   * {@link ScmTreeView} on a commit within a Git repository.
+   */
+  private static class GitScmTreeView implements ScmTreeView {
+    /**
+     * Git.
+     */
+    private Git git;
+
+    /**
+     * Path to the workspace directory containing the repository.
+     */
+    private Path pathModuleWorkspace;
+
+    /**
+     * Commit ID.
+     */
+    private String commitId;
+
+    /**
+     * Constructor.
+     *
+     * @param git Git.
+     * @param pathModuleWorkspace Path to the workspace directory containing the
+     *   repository.
+     * @param commitId Commit ID.
+     */
+    private GitScmTreeView(Git git, Path pathModuleWorkspace, String commitId) {
+      this.git = git;
+      this.pathModuleWorkspace = pathModuleWorkspace;
+      this.commitId = commitId;
+    }
+
+    @Override
+    public Path getPathModuleWorkspace() {
+      return this.pathModuleWorkspace;
+    }
+
+    @Override
+    public String getRevisionId() {
+      return this.commitId;
+    }
+
+    @Override
+    public byte[] getFileContent(String path) {
+      return this.git.getFileContent(this.pathModuleWorkspace, this.commitId, path);
+    }
+  }
+
+  /**
+   * Returns a {@link ScmTreeView} for a Version.
+   *
+   * <p>The files are read from the object database of the repository within the
+   * Workspace directory returned by {@link #getPathModuleWorkspace}, which is not
+   * reserved and whose working tree is not modified.
+   *
+   * <p>For a dynamic Version, the local branch and its remote tracking branch are
+   * considered. If both exist and differ, {@link #checkoutSystem} would need to
+   * reconcile them and null is returned so that the caller falls back to it.
+   *
+   * @param version Version.
+   * @return ScmTreeView. null if the Version must be checked out.
+   */
+  @Override
+  public ScmTreeView getScmTreeView(Version version) {
+    Git git;
+    WorkspacePlugin workspacePlugin;
+    Path pathModuleWorkspace;
+    String commitId;
+
+    git = this.getGit();
+    workspacePlugin = ExecContextHolder.get().getExecContextPlugin(WorkspacePlugin.class);
+
+    // A user workspace directory for the ModuleVersion is what checkoutSystem would
+    // return and it can contain changes which are not committed.
+    if (workspacePlugin.isWorkspaceDirExist(new WorkspaceDirUserModuleVersion(new ModuleVersion(this.getModule().getNodePath(), version)))) {
+      return null;
+    }
+
+    pathModuleWorkspace = this.getPathModuleWorkspace();
+
+    // Same thing if a temporary dynamic Version is in effect.
+    if (this.getVersionTempDynamicBase(pathModuleWorkspace) != null) {
+      return null;
+    }
+
+    if (version.getVersionType() == VersionType.STATIC) {
+      // Only annotated tags are considered as static Version's.
+      if (git.resolveRevision(pathModuleWorkspace, "refs/tags/" + version.getVersion() + "^{tag}") == null) {
+        return null;
+      }
+
+      commitId = git.resolveRevision(pathModuleWorkspace, "refs/tags/" + version.getVersion() + "^{}");
+    } else {
+      String commitIdLocal;
+      String commitIdRemote;
+
+      commitIdLocal = git.resolveRevision(pathModuleWorkspace, "refs/heads/" + version.getVersion());
+      commitIdRemote = git.resolveRevision(pathModuleWorkspace, "refs/remotes/origin/" + version.getVersion());
+
+      if (commitIdLocal == null) {
+        commitId = commitIdRemote;
+      } else if ((commitIdRemote == null) || commitIdLocal.equals(commitIdRemote)) {
+        commitId = commitIdLocal;
+      } else {
+        return null;
+      }
+    }
+
+    // If the Version does not exist, checkoutSystem reports the error.
+    if (commitId == null) {
+      return null;
+    }
+
+    return new GitScmTreeView(git, pathModuleWorkspace, commitId);
+  }
+
   @Override
   public boolean isVersionExists(Version version) {
     Git git;
@@ -1215,7 +1573,6 @@ public class GitScmPluginImpl extends ModulePluginAbstractImpl implements ScmPlu
 
   // An internal implementation detail of this method is that if versionDest is null it behaves like getListCommit (to factor out common functionality).
   @Override
-  @SuppressWarnings("unchecked")
   public List<Commit> getListCommitDiverge(Version versionSrc, Version versionDest, CommitPaging commitPaging, EnumSet<GetListCommitFlag> enumSetGetListCommitFlag) {
     Git git;
     Path pathModuleWorkspace;
@@ -1224,7 +1581,7 @@ public class GitScmPluginImpl extends ModulePluginAbstractImpl implements ScmPlu
     List<String> listArg;
     String revisionRange;
     BufferedReader bufferedReaderCommits;
-    Map<String, Object> mapTag = null; // Map value can be a simple tag name (String) or a list of tag names (List<String>) in the case more than one tag is associated with the same commit.
+    Map<String, List<Version>> mapCommitIdListVersionStatic = null;
     String commitString;
 
     git = this.getGit();
@@ -1270,69 +1627,12 @@ public class GitScmPluginImpl extends ModulePluginAbstractImpl implements ScmPlu
 
       bufferedReaderCommits = new BufferedReader(new StringReader(stringBuilderCommits.toString()));
 
-      // If we must return the static Version associated with each commit, we use the
-      // following efficient strategy:
-      // We use "git show-ref --tags -d" to list all tags together with the commit IDs.
-      // The -d option will allow us to differentiate annotated and lightweight tags:
-      // Annotated tags will be suffixed with ^{}.
-      // When looping through the commits we can then easily find the annotated tags that
-      // point to the commits.
-      // So overall, we invoke only one additional git command, as opposed to a less
-      // optimum solution involving invoking a git command for each commit.
-      // Note that the getListVersionStatic method also invokes the "show-ref" command
-      // and parses the resulting list of tags. But it does not extract the commid IDs
-      // that are required in this algorithm.
+      // If we must return the static Version associated with each commit, we obtain
+      // the Map of commit IDs to static Versions once. It is maintained incrementally
+      // by Git so that we do not need to invoke a git command for each commit, nor
+      // list all tags each time.
       if ((enumSetGetListCommitFlag != null) && enumSetGetListCommitFlag.contains(GetListCommitFlag.IND_INCLUDE_VERSION_STATIC)) {
-        StringBuilder stringBuilderTags;
-        BufferedReader bufferedReaderTags;
-        String tagLine;
-
-        stringBuilderTags = new StringBuilder();
-
-        // It seems show-ref returns 1 when no reference is returned. This is not an
-        // exception.
-        git.executeGitCommand(new String[] {"show-ref", "--tag", "-d"}, false, Git.AllowExitCode.ONE, pathModuleWorkspace, stringBuilderTags, true);
-
-        bufferedReaderTags = new BufferedReader(new StringReader(stringBuilderTags.toString()));
-        mapTag = new HashMap<String, Object>();
-
-        while ((tagLine = bufferedReaderTags.readLine()) != null) {
-          String[] arrayTagLineComponent;
-          String commitId;
-          String tagRef;
-
-          arrayTagLineComponent = tagLine.split("\\s+");
-
-          commitId = arrayTagLineComponent[0];
-          tagRef = arrayTagLineComponent[1];
-
-          if (tagRef.endsWith("^{}")) {
-            String tagName;
-            Object value;
-
-            // A few magic numbers here, but not worth having constants.
-            // 10 is the length of "refs/tags/" that prefixes each tag name.
-            // 3 is the length of "^{}" that suffixes each tag name.
-            tagName = tagRef.substring(10, tagRef.length() - 3);
-
-            value = mapTag.get(commitId);
-
-            if (value != null) {
-              if (value instanceof String) {
-                List<String> listTagName;
-
-                listTagName = new ArrayList<String>();
-                listTagName.add((String)value);
-                listTagName.add(tagName);
-                mapTag.put(commitId,  listTagName);
-              } else {
-                ((List<String>)value).add(tagName);
-              }
-            } else {
-              mapTag.put(commitId, tagName);
-            }
-          }
-        }
+        mapCommitIdListVersionStatic = git.getMapCommitIdListVersionStatic(pathModuleWorkspace);
       }
 
       while ((commitString = bufferedReaderCommits.readLine()) != null) {
@@ -1373,26 +1673,12 @@ public class GitScmPluginImpl extends ModulePluginAbstractImpl implements ScmPlu
         }
 
         if ((enumSetGetListCommitFlag != null) && enumSetGetListCommitFlag.contains(GetListCommitFlag.IND_INCLUDE_VERSION_STATIC)) {
-          Object value;
-
-          value = mapTag.get(commit.id);
-
-          if (value != null) {
-            if (value instanceof String) {
-              commit.arrayVersionStatic = new Version[1];
-
-              commit.arrayVersionStatic[0] = new Version(VersionType.STATIC, (String)value);
-            } else {
-              List<String> listTagName;
+          List<Version> listVersion;
 
-              listTagName = (List<String>)value;
+          listVersion = mapCommitIdListVersionStatic.get(commit.id);
 
-              commit.arrayVersionStatic = new Version[listTagName.size()];
-
-              for(int i = 0; i < listTagName.size(); i++) {
-                commit.arrayVersionStatic[i] = new Version(VersionType.STATIC, listTagName.get(i));
-              }
-            }
+          if (listVersion != null) {
+            commit.arrayVersionStatic = listVersion.toArray(new Version[listVersion.size()]);
           } else {
             commit.arrayVersionStatic = new Version[0];
           }
@@ -1674,12 +1960,86 @@ public class GitScmPluginImpl extends ModulePluginAbstractImpl implements ScmPlu
       throw new RuntimeException("Invalid version type.");
     }
   }
+
+  /**
+   * {@link Git.OutputLineHandler} which locates the Version attributes of a dynamic
+   * {@link Version} within the output of "git rev-list --pretty=oneline".
+   * <p>
+   * For dynamic Versions, the Version attribute dragom-base-version is actually
+   * stored as a commit attribute in Git since Git does not support messages for
+   * branches as it does for (annotated) tags.
+   * <p>
+   * For dynamic Versions, Version attributes are stored as commit attributes on the
+   * first dummy commit of the branch. We locate that first commit given the Version
+   * attribute dragom-base-version. The commit that follows it in the output is the
+   * commit on which the branch is based. If there is no such commit (the commit
+   * carrying the Version attributes is a root commit), the Version attribute
+   * dragom-base-version-commit-id is not set and the caller must handle that
+   * case.
+   */
+  private static class VersionAttrOutputLineHandler implements Git.OutputLineHandler {
+    /**
+     * Version attributes. null until the commit carrying them is found.
+     */
+    Map<String, String> mapVersionAttr;
+
+    @Override
+    public boolean handleLine(String line) {
+      int indexSplit;
+      Map<String, String> mapCommitAttr;
+
+      indexSplit = line.indexOf(' ');
+
+      if (this.mapVersionAttr != null) {
+        this.mapVersionAttr.put(GitScmPluginImpl.VERSION_ATTR_BASE_VERSION_COMMIT_ID, (indexSplit == -1) ? line : line.substring(0, indexSplit));
+
+        return false;
+      }
+
+      // We create the Map in advance since if we let Util.getJsonAttr do it, it may be
+      // empty and immutable.
+      mapCommitAttr = new HashMap<String, String>();
+
+      Util.getJsonAttr(line.substring(indexSplit + 1), mapCommitAttr);
+
+      if (mapCommitAttr.get(GitScmPluginImpl.VERSION_ATTR_BASE_VERSION) != null) {
+        this.mapVersionAttr = mapCommitAttr;
+      }
+
+      return true;
+    }
+  }
+
+  /**
+   * Returns the Map of the commit ID of the head of dynamic {@link Version}'s to
+   * their Version attributes for the {@link Module}, creating it if required.
+   *
+   * @return See description.
+   */
+  @SuppressWarnings("unchecked")
+  private Map<String, Map<String, String>> getMapCommitIdHeadMapVersionAttr() {
+    ExecContext execContext;
+    String transientDataKey;
+    Map<String, Map<String, String>> mapCommitIdHeadMapVersionAttr;
+
+    execContext = ExecContextHolder.get();
+    transientDataKey = GitScmPluginImpl.TRANSIENT_DATA_PREFIX_MAP_VERSION_ATTR + this.getModule().getNodePath().toString();
+
+    mapCommitIdHeadMapVersionAttr = (Map<String, Map<String, String>>)execContext.getTransientData(transientDataKey);
+
+    if (mapCommitIdHeadMapVersionAttr == null) {
+      mapCommitIdHeadMapVersionAttr = new HashMap<String, Map<String, String>>();
+      execContext.setTransientData(transientDataKey, mapCommitIdHeadMapVersionAttr);
+    }
+
+    return mapCommitIdHeadMapVersionAttr;
+  }
+
   @Override
   public Map<String, String> getMapVersionAttr(Version version) {
     Git git;
     Path pathModuleWorkspace;
     Map<String, String> mapVersionAttr;
-    String stringBaseVersion;
 
     git = this.getGit();
 
@@ -1690,58 +2050,57 @@ public class GitScmPluginImpl extends ModulePluginAbstractImpl implements ScmPlu
 
     switch (version.getVersionType()) {
     case DYNAMIC:
-      StringBuilder stringBuilderCommits;
-      BufferedReader bufferedReaderCommits;
-      String commitString;
+      String commitIdHead;
+      Map<String, Map<String, String>> mapCommitIdHeadMapVersionAttr;
+      VersionAttrOutputLineHandler versionAttrOutputLineHandler;
 
-      stringBuilderCommits = new StringBuilder();
-      git.executeGitCommand(new String[] {"rev-list", "--pretty=oneline", git.convertToRef(pathModuleWorkspace, version)}, false, Git.AllowExitCode.NONE, pathModuleWorkspace, stringBuilderCommits, true);
+      commitIdHead = git.resolveRevision(pathModuleWorkspace, git.convertToRef(pathModuleWorkspace, version));
 
-      bufferedReaderCommits = new BufferedReader(new StringReader(stringBuilderCommits.toString()));
+      if (commitIdHead == null) {
+        throw new RuntimeException("Dynamic version " + version + " does not exist.");
+      }
 
-      try {
-        while ((commitString = bufferedReaderCommits.readLine()) != null) {
-          int indexSplit;
-          String commitMessage;
+      mapCommitIdHeadMapVersionAttr = this.getMapCommitIdHeadMapVersionAttr();
 
-          indexSplit = commitString.indexOf(' ');
-          commitMessage = commitString.substring(indexSplit + 1);
+      mapVersionAttr = mapCommitIdHeadMapVersionAttr.get(commitIdHead);
 
-          // We create the Map in advance since if we let Util.getJsonAttr do it, it may be
-          // empty and immutable.
-          mapVersionAttr = new HashMap<String, String>();
+      if (mapVersionAttr != null) {
+        return mapVersionAttr.isEmpty() ? Collections.<String, String>emptyMap() : new HashMap<String, String>(mapVersionAttr);
+      }
 
-          Util.getJsonAttr(commitMessage, mapVersionAttr);
+      // The history of the branch can be very long. The output of rev-list is
+      // therefore handled as it is produced and the command is stopped as soon as the
+      // Version attributes are found, which is generally close to the head of the
+      // branch.
+      versionAttrOutputLineHandler = new VersionAttrOutputLineHandler();
 
-          // For dynamic Versions, the Version attribute dragom-base-version is actually
-          // stored as a commit attribute in Git since Git does not support messages for
-          // branches as it does for (annotated) tags.
+      git.executeGitCommand(new String[] {"rev-list", "--pretty=oneline", commitIdHead}, pathModuleWorkspace, versionAttrOutputLineHandler);
 
-          // For dynamic Versions, Version attributes are stored as commit attributes on the
-          // first dummy commit of the branch. We locate that first commit given the Version
-          // attribute dragom-base-version.
-          stringBaseVersion = mapVersionAttr.get(GitScmPluginImpl.VERSION_ATTR_BASE_VERSION);
+      mapVersionAttr = versionAttrOutputLineHandler.mapVersionAttr;
 
-          if (stringBaseVersion != null) {
-            commitString = bufferedReaderCommits.readLine();
-            mapVersionAttr.put(GitScmPluginImpl.VERSION_ATTR_BASE_VERSION_COMMIT_ID, commitString.substring(0, commitString.indexOf(' ')));
+      // The first dummy commit of a branch created by Dragom is always based on an
+      // existing commit. If it is a root commit, the repository is not as expected.
+      if ((mapVersionAttr != null) && !mapVersionAttr.containsKey(GitScmPluginImpl.VERSION_ATTR_BASE_VERSION_COMMIT_ID)) {
+        throw new RuntimeException("The commit carrying the Version attributes of dynamic version " + version + " of module " + this.getModule() + " is a root commit so that the commit on which the version is based cannot be determined.");
+      }
 
-            return mapVersionAttr;
-          }
-        }
-      } catch (IOException ioe) {
-        throw new RuntimeException(ioe);
+      if (mapVersionAttr == null) {
+        // Generally we do not expect to get here since for all Version's created by
+        // Dragom, at least the dragom-base-version Version attribute is created.
+        // But it is too risky to raise a RuntimeException since Dragom could be used with
+        // existing repositories.
+        mapCommitIdHeadMapVersionAttr.put(commitIdHead, Collections.<String, String>emptyMap());
+        return Collections.<String, String>emptyMap();
       }
 
-      // Generally we do not expect to get here since for all Version's created by
-      // Dragom, at least the dragom-base-version Version attribute is created.
-      // But it is too risky to raise a RuntimeException since Dragom could be used with
-      // existing repositories.
-      return Collections.<String, String>emptyMap();
+      mapCommitIdHeadMapVersionAttr.put(commitIdHead, mapVersionAttr);
+
+      return new HashMap<String, String>(mapVersionAttr);
 
     case STATIC:
       StringBuilder stringBuilder;
       String tagMessage;
+      String commitIdTag;
 
       stringBuilder = new StringBuilder();
       git.executeGitCommand(new String[] {"tag", "-n", "-l", version.getVersion()}, false, Git.AllowExitCode.NONE, pathModuleWorkspace, stringBuilder, true);
@@ -1758,14 +2117,14 @@ public class GitScmPluginImpl extends ModulePluginAbstractImpl implements ScmPlu
 
       Util.getJsonAttr(tagMessage, mapVersionAttr);
 
-      stringBuilder.setLength(0);
-      git.executeGitCommand(new String[] {"rev-parse", version.getVersion() + "^{}"}, false, Git.AllowExitCode.NONE, pathModuleWorkspace, stringBuilder, true);
+      // The commit ID is resolved without starting a new Git process.
+      commitIdTag = git.resolveRevision(pathModuleWorkspace, "refs/tags/" + version.getVersion() + "^{}");
 
-      if (stringBuilder.toString().isEmpty()) {
+      if (commitIdTag == null) {
         throw new RuntimeException("Static version " + version + " does not exist.");
       }
 
-      mapVersionAttr.put(GitScmPluginImpl.VERSION_ATTR_BASE_VERSION_COMMIT_ID, stringBuilder.toString());
+      mapVersionAttr.put(GitScmPluginImpl.VERSION_ATTR_BASE_VERSION_COMMIT_ID, commitIdTag);
 
       return mapVersionAttr;
 
@@ -2409,6 +2768,12 @@ public class GitScmPluginImpl extends ModulePluginAbstractImpl implements ScmPlu
 
     runtimePropertiesPlugin = execContext.getExecContextPlugin(RuntimePropertiesPlugin.class);
 
+    runtimeProperty = runtimePropertiesPlugin.getProperty(this.getModule(), GitScmPluginImpl.RUNTIME_PROPERTY_GIT_MAX_REMOTE_ACCESS_PER_HOST);
+
+    if (runtimeProperty != null) {
+      git.setMaxRemoteAccessPerHost(Integer.parseInt(runtimeProperty));
+    }
+
     runtimeProperty = runtimePropertiesPlugin.getProperty(this.getModule(), GitScmPluginImpl.RUNTIME_PROPERTY_GIT_PATH_EXECUTABLE);
 
     if (runtimeProperty != null) {
@@ -65,7 +65,7 @@ import org.slf4j.LoggerFactory;
  *
  * @author David Raymond
  */
-public class MavenReferenceManagerPluginImpl extends ModulePluginAbstractImpl implements ReferenceManagerPlugin {
+public class MavenReferenceManagerPluginImpl extends ModulePluginAbstractImpl implements ReferenceManagerPlugin, ScmTreeView.ReferenceReader {
   /**
    * Logger for the class.
    */
@@ -244,8 +244,73 @@ public class MavenReferenceManagerPluginImpl extends ModulePluginAbstractImpl im
 
   @Override
   public List<Reference> getListReference(Path pathModuleWorkspace) {
-    Path pathPom;
-    PomAggregation pomAggregation;
+    return this.getListReference(pathModuleWorkspace, new PomAggregation(pathModuleWorkspace.resolve("pom.xml")));
+  }
+
+  /**
+   * Returns the List of {@link Reference}'s from a {@link ScmTreeView}.
+   *
+   * <p>See {@link #loadPomAggregation}.
+   *
+   * @param scmTreeView ScmTreeView.
+   * @return See description.
+   */
+  @Override
+  public List<Reference> getListReference(ScmTreeView scmTreeView) {
+    return this.getListReference(scmTreeView.getPathModuleWorkspace(), MavenReferenceManagerPluginImpl.loadPomAggregation(scmTreeView));
+  }
+
+  /**
+   * Loads a {@link PomAggregation} from a {@link ScmTreeView}.
+   *
+   * <p>The {@link Pom}'s are identified by Path's within the workspace directory
+   * of the ScmTreeView, as if the ModuleVersion was checked out, so that anything
+   * derived from them, such as the implementation data of {@link Reference}'s, is
+   * the same. But their contents are obtained from the ScmTreeView.
+   *
+   * @param scmTreeView ScmTreeView.
+   * @return PomAggregation.
+   */
+  static PomAggregation loadPomAggregation(final ScmTreeView scmTreeView) {
+    final Path pathModuleWorkspace;
+
+    pathModuleWorkspace = scmTreeView.getPathModuleWorkspace();
+
+    return new PomAggregation(pathModuleWorkspace.resolve("pom.xml"), new PomAggregation.PomContentSource() {
+      @Override
+      public byte[] getPomContent(Path pathPom) {
+        Path pathPomRelative;
+        StringBuilder stringBuilderPath;
+
+        pathPomRelative = pathModuleWorkspace.relativize(pathPom.normalize());
+
+        stringBuilderPath = new StringBuilder();
+
+        for (Path pathName: pathPomRelative) {
+          if (pathName.toString().equals("..")) {
+            throw new RuntimeException("The POM " + pathPom + " is outside of the workspace directory " + pathModuleWorkspace + '.');
+          }
+
+          if (stringBuilderPath.length() != 0) {
+            stringBuilderPath.append('/');
+          }
+
+          stringBuilderPath.append(pathName.toString());
+        }
+
+        return scmTreeView.getFileContent(stringBuilderPath.toString());
+      }
+    });
+  }
+
+  /**
+   * Returns the List of {@link Reference}'s from a {@link PomAggregation}.
+   *
+   * @param pathModuleWorkspace Path to the workspace directory of the module.
+   * @param pomAggregation PomAggregation.
+   * @return See description.
+   */
+  private List<Reference> getListReference(Path pathModuleWorkspace, PomAggregation pomAggregation) {
     String aggregationVersion;
     Set<ArtifactGroupId> setArtifactGroupIdAggregation;
     ExecContext execContext;
@@ -254,8 +319,6 @@ public class MavenReferenceManagerPluginImpl extends ModulePluginAbstractImpl im
     Model model;
     Pom.PomResolver pomResolver;
 
-    pathPom = pathModuleWorkspace.resolve("pom.xml");
-    pomAggregation = new PomAggregation(pathPom);
     aggregationVersion = pomAggregation.getPomMain().getVersion();
 
     setArtifactGroupIdAggregation = pomAggregation.getSetArtifactGroupId();
@@ -276,7 +339,7 @@ public class MavenReferenceManagerPluginImpl extends ModulePluginAbstractImpl im
       version = pom.getEffectiveVersion();
 
       if (version == null) {
-        throw new RuntimeException("The module " + this.getModule() + " does not define its artifact version in the POM " + pathPom + '.');
+        throw new RuntimeException("The module " + this.getModule() + " does not define its artifact version in the POM " + pom.getPathPom() + '.');
       }
 
       if (!version.equals(aggregationVersion)) {
@@ -0,0 +1,538 @@
+/*
+ * Copyright 2015 - 2017 AZYVA INC. INC.
+ *
+ * This file is part of Dragom.
+ *
+ * Dragom is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Dragom is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Dragom.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.azyva.dragom.model.plugin.impl;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.azyva.dragom.model.Module;
+import org.azyva.dragom.model.NodePath;
+import org.azyva.dragom.util.WormFile;
+
+/**
+ * Cache of {@link Module} existence backed by a file.
+ *
+ * <p>Used by {@link SimpleDynamicUndefinedDescendantNodeManagerModulePluginImpl}
+ * when module existence verification is costly.
+ *
+ * <p>The file is append-only: each line is an entry made of the
+ * {@link NodePath} of a Module, true or false depending on whether the Module
+ * exists, and the timestamp at which existence was verified, separated by tabs.
+ * When a NodePath appears more than once, the last entry wins. Adding entries
+ * therefore only requires appending them to the file, instead of rewriting it
+ * entirely. The file is compacted by rewriting only the current entries once it
+ * contains sufficiently many superseded or expired entries.
+ *
+ * <p>Entries expire after a time-to-live which can be different for Module's
+ * which exist and for those which do not, as the latter are more likely to change
+ * (a Module being created in the SCM).
+ *
+ * <p>Since the file is only appended to, entries added by other processes are
+ * loaded incrementally by reading only the part of the file which was not read
+ * yet. The file is reloaded entirely only when it was compacted by another
+ * process. When compacting the file, a header line containing a unique generation
+ * identifier is written as its first line. A change in the first line of the file
+ * therefore reliably indicates that the file was compacted, regardless of its
+ * size.
+ *
+ * <p>Access to the file is synchronized with other threads and processes using
+ * {@link WormFile}. Access to instances of this class is synchronized.
+ *
+ * @author David Raymond
+ */
+public class ModuleExistenceCache {
+  /**
+   * Separator between the fields of an entry.
+   */
+  private static final char ENTRY_FIELD_SEPARATOR = '\t';
+
+  /**
+   * Minimum number of entries in the file before it is compacted.
+   */
+  private static final int COMPACTION_MIN_ENTRY_COUNT = 1000;
+
+  /**
+   * Prefix of the header line written as the first line of the file when it is
+   * compacted. It is followed by a unique generation identifier.
+   *
+   * <p>The header line does not contain {@link #ENTRY_FIELD_SEPARATOR} and
+   * is therefore ignored as an invalid entry when parsing the file.
+   */
+  private static final String HEADER_PREFIX = "#generation ";
+
+  /**
+   * Entry in the cache.
+   */
+  private static class Entry {
+    /**
+     * Indicates if the Module exists.
+     */
+    boolean indExists;
+
+    /**
+     * Timestamp at which the existence of the Module was verified.
+     */
+    long timestamp;
+
+    /**
+     * Constructor.
+     *
+     * @param indExists Indicates if the Module exists.
+     * @param timestamp Timestamp at which the existence of the Module was verified.
+     */
+    Entry(boolean indExists, long timestamp) {
+      this.indExists = indExists;
+      this.timestamp = timestamp;
+    }
+  }
+
+  /**
+   * Path to the file.
+   */
+  private Path pathFile;
+
+  /**
+   * WormFileCache for the file.
+   */
+  private WormFile.WormFileCache wormFileCache;
+
+  /**
+   * Time-to-live in milliseconds of entries for existing {@link Module}'s. 0 if
+   * these entries do not expire.
+   */
+  private long ttlMillis;
+
+  /**
+   * Time-to-live in milliseconds of entries for {@link Module}'s which do not
+   * exist. 0 if these entries do not expire.
+   */
+  private long negativeTtlMillis;
+
+  /**
+   * Map of String representations of {@link NodePath}'s to Entry's.
+   */
+  private Map<String, Entry> mapEntry;
+
+  /**
+   * Number of bytes of the file that were loaded.
+   */
+  private long loadedSize;
+
+  /**
+   * First line of the file that was loaded, including the newline. null if no line
+   * was loaded.
+   *
+   * <p>Used to detect that the file was compacted by another process.
+   */
+  private byte[] arrayByteFirstLine;
+
+  /**
+   * Number of entries in the file, including superseded, expired and invalid
+   * ones.
+   */
+  private int fileEntryCount;
+
+  /**
+   * Constructor.
+   *
+   * @param pathFile Path to the file.
+   * @param ttlMillis Time-to-live in milliseconds of entries for existing
+   *   {@link Module}'s. 0 if these entries do not expire.
+   * @param negativeTtlMillis Time-to-live in milliseconds of entries for Module's
+   *   which do not exist. 0 if these entries do not expire.
+   */
+  public ModuleExistenceCache(Path pathFile, long ttlMillis, long negativeTtlMillis) {
+    this.pathFile = pathFile;
+    this.wormFileCache = WormFile.getCache(pathFile);
+    this.ttlMillis = ttlMillis;
+    this.negativeTtlMillis = negativeTtlMillis;
+    this.mapEntry = new HashMap<String, Entry>();
+  }
+
+  /**
+   * Returns the cached existence of a {@link Module}.
+   *
+   * <p>Entries added to the file since it was last loaded are loaded first.
+   *
+   * @param nodePath NodePath of the Module.
+   * @return Indicates if the Module exists. null if the existence of the Module
+   *   is not cached or if the entry is expired.
+   */
+  public synchronized Boolean isModuleExists(NodePath nodePath) {
+    Entry entry;
+
+    this.refresh();
+
+    entry = this.mapEntry.get(nodePath.toString());
+
+    if ((entry == null) || this.isExpired(entry, System.currentTimeMillis())) {
+      return null;
+    }
+
+    return entry.indExists;
+  }
+
+  /**
+   * Loads the entries added to the file since it was last loaded.
+   *
+   * <p>This allows the existence of many {@link Module}'s to be subsequently
+   * obtained with {@link #isModuleExists} without accessing the file again, unless
+   * it is modified in the meantime.
+   */
+  public synchronized void preload() {
+    this.refresh();
+  }
+
+  /**
+   * Caches the existence of a {@link Module}.
+   *
+   * @param nodePath NodePath of the Module.
+   * @param indExists Indicates if the Module exists.
+   */
+  public void setModuleExists(NodePath nodePath, boolean indExists) {
+    Map<NodePath, Boolean> mapNodePathIndExists;
+
+    mapNodePathIndExists = new HashMap<NodePath, Boolean>();
+    mapNodePathIndExists.put(nodePath, indExists);
+
+    this.setMapModuleExists(mapNodePathIndExists);
+  }
+
+  /**
+   * Caches the existence of many {@link Module}'s.
+   *
+   * <p>The entries are appended to the file in one operation. The file is
+   * compacted if it contains sufficiently many superseded or expired entries.
+   *
+   * @param mapNodePathIndExists Map of NodePath's of the Module's to whether they
+   *   exist.
+   */
+  public synchronized void setMapModuleExists(Map<NodePath, Boolean> mapNodePathIndExists) {
+    WormFile.AccessHandle accessHandle;
+    long currentTimeMillis;
+    StringBuilder stringBuilder;
+
+    if (mapNodePathIndExists.isEmpty()) {
+      return;
+    }
+
+    accessHandle = this.wormFileCache.reserveAccess(true);
+
+    try {
+      // Entries appended by other processes must be loaded before appending ours so
+      // that we know where the file ends and can compact it correctly.
+      this.load();
+
+      currentTimeMillis = System.currentTimeMillis();
+      stringBuilder = new StringBuilder();
+
+      for (Map.Entry<NodePath, Boolean> mapEntry: mapNodePathIndExists.entrySet()) {
+        String nodePath;
+        Entry entry;
+
+        nodePath = mapEntry.getKey().toString();
+        entry = new Entry(mapEntry.getValue(), currentTimeMillis);
+        this.mapEntry.put(nodePath, entry);
+        ModuleExistenceCache.appendEntry(stringBuilder, nodePath, entry);
+        this.fileEntryCount++;
+      }
+
+      if (this.fileEntryCount >= Math.max(ModuleExistenceCache.COMPACTION_MIN_ENTRY_COUNT, this.mapEntry.size() * 2)) {
+        this.compact(currentTimeMillis);
+      } else {
+        if (this.loadedSize == 0) {
+          // The file was empty and its first line is the first entry appended.
+          this.arrayByteFirstLine = stringBuilder.substring(0, stringBuilder.indexOf("\n") + 1).getBytes(StandardCharsets.UTF_8);
+        }
+
+        this.write(this.wormFileCache.getAppendOutputStream(), stringBuilder);
+        this.loadedSize = this.pathFile.toFile().length();
+      }
+    } finally {
+      accessHandle.release();
+    }
+  }
+
+  /**
+   * Loads the entries added to the file since it was last loaded, if the file was
+   * modified.
+   */
+  private void refresh() {
+    WormFile.AccessHandle accessHandle;
+
+    if (!this.wormFileCache.isExists()) {
+      return;
+    }
+
+    if (!this.wormFileCache.isModified() && (this.pathFile.toFile().length() == this.loadedSize)) {
+      return;
+    }
+
+    accessHandle = this.wormFileCache.reserveAccess(false);
+
+    try {
+      this.load();
+    } finally {
+      accessHandle.release();
+    }
+  }
+
+  /**
+   * Loads the entries added to the file since it was last loaded.
+   *
+   * <p>If the first line of the file is not the one that was loaded, or if the file
+   * is smaller than the part that was loaded, it was compacted by another process
+   * and is reloaded entirely.
+   *
+   * <p>An incomplete last line, which can be present if another process is
+   * interrupted while appending to the file, is not loaded.
+   *
+   * <p>Access to the file must be reserved.
+   */
+  private void load() {
+    long fileSize;
+    InputStream inputStream;
+    byte[] arrayByteFirstLine;
+    ByteArrayOutputStream byteArrayOutputStream;
+    byte[] arrayByteBuffer;
+    int readCount;
+    byte[] arrayByte;
+    int lineStart;
+
+    if (!this.wormFileCache.isExists()) {
+      return;
+    }
+
+    fileSize = this.pathFile.toFile().length();
+
+    if (fileSize == this.loadedSize) {
+      // The file may nevertheless have been compacted and then appended to until it
+      // reached the same size, which is detected below if it was modified.
+      if ((fileSize == 0) || !this.wormFileCache.isModified()) {
+        return;
+      }
+    }
+
+    try {
+      inputStream = new BufferedInputStream(this.wormFileCache.getInputStream());
+
+      arrayByteFirstLine = ModuleExistenceCache.readFirstLine(inputStream);
+
+      if ((this.loadedSize != 0) && ((fileSize < this.loadedSize) || !Arrays.equals(arrayByteFirstLine, this.arrayByteFirstLine))) {
+        this.mapEntry.clear();
+        this.loadedSize = 0;
+        this.arrayByteFirstLine = null;
+        this.fileEntryCount = 0;
+      }
+
+      if (arrayByteFirstLine == null) {
+        return;
+      }
+
+      if (this.loadedSize == 0) {
+        this.parseEntry(new String(arrayByteFirstLine, 0, arrayByteFirstLine.length - 1, StandardCharsets.UTF_8));
+        this.fileEntryCount++;
+        this.arrayByteFirstLine = arrayByteFirstLine;
+        this.loadedSize = arrayByteFirstLine.length;
+      } else if (inputStream.skip(this.loadedSize - arrayByteFirstLine.length) != (this.loadedSize - arrayByteFirstLine.length)) {
+        throw new RuntimeException("Module existence cache file " + this.pathFile + " could not be positioned at " + this.loadedSize + '.');
+      }
+
+      byteArrayOutputStream = new ByteArrayOutputStream();
+      arrayByteBuffer = new byte[8192];
+
+      while ((readCount = inputStream.read(arrayByteBuffer)) != -1) {
+        byteArrayOutputStream.write(arrayByteBuffer, 0, readCount);
+      }
+    } catch (IOException ioe) {
+      throw new RuntimeException(ioe);
+    }
+
+    arrayByte = byteArrayOutputStream.toByteArray();
+    lineStart = 0;
+
+    for (int i = 0; i < arrayByte.length; i++) {
+      if (arrayByte[i] == '\n') {
+        this.parseEntry(new String(arrayByte, lineStart, i - lineStart, StandardCharsets.UTF_8));
+        this.fileEntryCount++;
+        lineStart = i + 1;
+      }
+    }
+
+    this.loadedSize += lineStart;
+  }
+
+  /**
+   * Reads the first line of the file.
+   *
+   * @param inputStream InputStream positioned at the start of the file.
+   * @return First line, including the newline. null if the file does not contain
+   *   a complete line.
+   * @throws IOException If reading fails.
+   */
+  private static byte[] readFirstLine(InputStream inputStream) throws IOException {
+    ByteArrayOutputStream byteArrayOutputStream;
+    int aByte;
+
+    byteArrayOutputStream = new ByteArrayOutputStream();
+
+    do {
+      aByte = inputStream.read();
+
+      if (aByte == -1) {
+        return null;
+      }
+
+      byteArrayOutputStream.write(aByte);
+    } while (aByte != '\n');
+
+    return byteArrayOutputStream.toByteArray();
+  }
+
+  /**
+   * Parses an entry and adds it to the Map of entries.
+   *
+   * <p>Invalid entries are ignored. They will be removed when the file is
+   * compacted.
+   *
+   * @param line Line in the file.
+   */
+  private void parseEntry(String line) {
+    int indexSeparator1;
+    int indexSeparator2;
+    String indExists;
+    long timestamp;
+
+    indexSeparator1 = line.indexOf(ModuleExistenceCache.ENTRY_FIELD_SEPARATOR);
+
+    if (indexSeparator1 == -1) {
+      return;
+    }
+
+    indexSeparator2 = line.indexOf(ModuleExistenceCache.ENTRY_FIELD_SEPARATOR, indexSeparator1 + 1);
+
+    if (indexSeparator2 == -1) {
+      return;
+    }
+
+    indExists = line.substring(indexSeparator1 + 1, indexSeparator2);
+
+    if (!indExists.equals("true") && !indExists.equals("false")) {
+      return;
+    }
+
+    try {
+      timestamp = Long.parseLong(line.substring(indexSeparator2 + 1).trim());
+    } catch (NumberFormatException nfe) {
+      return;
+    }
+
+    this.mapEntry.put(line.substring(0, indexSeparator1), new Entry(Boolean.parseBoolean(indExists), timestamp));
+  }
+
+  /**
+   * Compacts the file by rewriting only the current entries which are not expired.
+   *
+   * <p>Access to the file must be reserved for writing.
+   *
+   * @param currentTimeMillis Current time.
+   */
+  private void compact(long currentTimeMillis) {
+    StringBuilder stringBuilder;
+
+    stringBuilder = new StringBuilder();
+
+    // The header line makes the first line of the file different from that of any
+    // previous generation of the file, allowing other processes to detect the
+    // compaction.
+    stringBuilder.append(ModuleExistenceCache.HEADER_PREFIX).append(UUID.randomUUID()).append('\n');
+
+    for (Map.Entry<String, Entry> mapEntry: this.mapEntry.entrySet()) {
+      if (!this.isExpired(mapEntry.getValue(), currentTimeMillis)) {
+        ModuleExistenceCache.appendEntry(stringBuilder, mapEntry.getKey(), mapEntry.getValue());
+      }
+    }
+
+    this.mapEntry.clear();
+    this.loadedSize = 0;
+    this.arrayByteFirstLine = null;
+    this.fileEntryCount = 0;
+
+    this.write(this.wormFileCache.getOutputStream(), stringBuilder);
+
+    // Reloading the file after having rewritten it is simpler than recomputing its
+    // size and entries.
+    this.load();
+  }
+
+  /**
+   * Writes entries to the file.
+   *
+   * @param outputStream OutputStream. Not closed since it is managed by
+   *   {@link WormFile}.
+   * @param stringBuilder StringBuilder containing the entries.
+   */
+  private void write(OutputStream outputStream, StringBuilder stringBuilder) {
+    try {
+      outputStream.write(stringBuilder.toString().getBytes(StandardCharsets.UTF_8));
+      outputStream.flush();
+    } catch (IOException ioe) {
+      throw new RuntimeException(ioe);
+    }
+  }
+
+  /**
+   * Appends an entry to a StringBuilder, in the format of the file.
+   *
+   * @param stringBuilder StringBuilder.
+   * @param nodePath String representation of the NodePath of the Module.
+   * @param entry Entry.
+   */
+  private static void appendEntry(StringBuilder stringBuilder, String nodePath, Entry entry) {
+    stringBuilder
+        .append(nodePath).append(ModuleExistenceCache.ENTRY_FIELD_SEPARATOR)
+        .append(entry.indExists).append(ModuleExistenceCache.ENTRY_FIELD_SEPARATOR)
+        .append(entry.timestamp).append('\n');
+  }
+
+  /**
+   * Verifies if an entry is expired.
+   *
+   * @param entry Entry.
+   * @param currentTimeMillis Current time.
+   * @return See description.
+   */
+  private boolean isExpired(Entry entry, long currentTimeMillis) {
+    long ttlMillis;
+
+    ttlMillis = entry.indExists ? this.ttlMillis : this.negativeTtlMillis;
+
+    return (ttlMillis != 0) && ((currentTimeMillis - entry.timestamp) > ttlMillis);
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2015 - 2017 AZYVA INC.
+ *
+ * This file is part of Dragom.
+ *
+ * Dragom is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Dragom is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Dragom.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.azyva.dragom.model.plugin.impl;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.azyva.dragom.model.ModuleVersion;
+import org.azyva.dragom.model.Version;
+import org.azyva.dragom.model.plugin.ReferenceManagerPlugin;
+import org.azyva.dragom.model.plugin.ScmPlugin;
+import org.azyva.dragom.reference.Reference;
+
+/**
+ * Read-only view of the files of a {@link ModuleVersion} served directly from the
+ * SCM repository, without checking out the ModuleVersion.
+ *
+ * <p>Jobs which only read ModuleVersion's, such as those which build reference
+ * graphs, mostly need the files which express the {@link Reference}'s. Checking
+ * out each ModuleVersion for that purpose is costly, especially when many
+ * ModuleVersion's of the same Module are visited.
+ *
+ * <p>{@link ScmPlugin} and {@link ReferenceManagerPlugin} being part of the API,
+ * support for ScmTreeView is optional and expressed by implementing
+ * {@link Provider} and {@link ReferenceReader} respectively. Callers must fall
+ * back to {@link ScmPlugin#checkoutSystem} when either is not supported or when
+ * {@link Provider#getScmTreeView} returns null.
+ *
+ * @author David Raymond
+ */
+public interface ScmTreeView {
+  /**
+   * Implemented by {@link ScmPlugin}'s which can provide ScmTreeView's.
+   */
+  interface Provider {
+    /**
+     * Returns a ScmTreeView for a Version.
+     *
+     * <p>null is returned if the files of the Version must be obtained by checking
+     * it out, for instance because a user workspace directory exists for the
+     * Version and may contain changes which are not committed.
+     *
+     * @param version Version.
+     * @return ScmTreeView. Can be null.
+     */
+    ScmTreeView getScmTreeView(Version version);
+  }
+
+  /**
+   * Implemented by {@link ReferenceManagerPlugin}'s which can obtain the
+   * {@link Reference}'s from a ScmTreeView.
+   */
+  interface ReferenceReader {
+    /**
+     * Returns the List of {@link Reference}'s from a ScmTreeView.
+     *
+     * <p>The result must be the same as that of
+     * {@link ReferenceManagerPlugin#getListReference} for the same Version.
+     *
+     * @param scmTreeView ScmTreeView.
+     * @return See description.
+     */
+    List<Reference> getListReference(ScmTreeView scmTreeView);
+  }
+
+  /**
+   * @return Path to the workspace directory containing the repository. Used to
+   *   identify files, such as in messages. The files within this directory do not
+   *   necessarily correspond to those of the ScmTreeView.
+   */
+  Path getPathModuleWorkspace();
+
+  /**
+   * @return ID of the revision presented by the ScmTreeView. For Git, this is the
+   *   ID of the commit.
+   */
+  String getRevisionId();
+
+  /**
+   * Returns the content of a file.
+   *
+   * @param path Path of the file relative to the root of the ModuleVersion, with
+   *   "/" as the separator.
+   * @return Content of the file. null if the file does not exist.
+   */
+  byte[] getFileContent(String path);
+}
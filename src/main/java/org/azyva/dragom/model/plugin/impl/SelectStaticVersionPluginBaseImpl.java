@@ -29,6 +29,7 @@ import java.util.Formatter;
 import java.util.List;
 import java.util.ResourceBundle;
 
+import org.azyva.dragom.execcontext.ExecContext;
 import org.azyva.dragom.execcontext.plugin.RuntimePropertiesPlugin;
 import org.azyva.dragom.execcontext.plugin.UserInteractionCallbackPlugin;
 import org.azyva.dragom.execcontext.plugin.WorkspacePlugin;
@@ -112,11 +113,34 @@ public abstract class SelectStaticVersionPluginBaseImpl extends ModulePluginAbst
    */
   private static final String MSG_PATTERN_KEY_EXISTING_EQUIVALENT_STATIC_VERSION_EXCLUDE_VESION_CHANGING_COMMITS = "EXISTING_EQUIVALENT_STATIC_VERSION_EXCLUDE_VESION_CHANGING_COMMITS";
 
+  /**
+   * Prefix of the transient data key for caching the sorted List of static
+   * {@link Version}'s of a {@link Module}. The suffix is the NodePath of the
+   * Module.
+   */
+  private static final String TRANSIENT_DATA_PREFIX_LIST_VERSION_STATIC_SORTED = SelectStaticVersionPluginBaseImpl.class.getName() + ".ListVersionStaticSorted.";
+
   /**
    * ResourceBundle specific to this class.
    */
   private static final ResourceBundle resourceBundle = ResourceBundle.getBundle(SelectStaticVersionPluginBaseImpl.class.getName() + "ResourceBundle");
 
+  /**
+   * Sorted List of static {@link Version}'s of a {@link Module} cached in
+   * transient data by {@link SelectStaticVersionPluginBaseImpl#getListVersionStaticGlobal}.
+   */
+  private static class ListVersionStaticSorted {
+    /**
+     * List of static Version's as returned by the ScmPlugin.
+     */
+    List<Version> listVersionStatic;
+
+    /**
+     * Same List, sorted.
+     */
+    List<Version> listVersionStaticSorted;
+  }
+
   private int defaultInitialRevision;
   private int defaultRevisionDecimalPositionCount;
 
@@ -577,21 +601,41 @@ public abstract class SelectStaticVersionPluginBaseImpl extends ModulePluginAbst
   /**
    * Gets the List of static {@link Version}'s globally, ordered latest first.
    *
-   * @return See description.
+   * <p>Sorting can be costly when there are many static Version's since the
+   * VersionClassifierPlugin generally needs to parse the Version's. The sorted
+   * List is therefore cached in transient data and reused as long as the List of
+   * static Version's returned by the ScmPlugin does not change.
+   *
+   * @return See description. The caller can modify the List.
    */
   protected List<Version> getListVersionStaticGlobal() {
+    ExecContext execContext;
     Module module;
+    String transientDataKey;
     ScmPlugin scmPlugin;
     VersionClassifierPlugin versionClassifierPlugin;
     List<Version> listVersionStatic;
+    ListVersionStaticSorted listVersionStaticSorted;
 
+    execContext = ExecContextHolder.get();
     module = this.getModule();
+    transientDataKey = SelectStaticVersionPluginBaseImpl.TRANSIENT_DATA_PREFIX_LIST_VERSION_STATIC_SORTED + module.getNodePath().toString();
     scmPlugin = module.getNodePlugin(ScmPlugin.class, null);
-    versionClassifierPlugin = module.getNodePlugin(VersionClassifierPlugin.class, null);
 
     listVersionStatic = scmPlugin.getListVersionStatic();
-    Collections.sort(listVersionStatic, versionClassifierPlugin);
 
-    return listVersionStatic;
+    listVersionStaticSorted = (ListVersionStaticSorted)execContext.getTransientData(transientDataKey);
+
+    if ((listVersionStaticSorted == null) || !listVersionStaticSorted.listVersionStatic.equals(listVersionStatic)) {
+      versionClassifierPlugin = module.getNodePlugin(VersionClassifierPlugin.class, null);
+
+      listVersionStaticSorted = new ListVersionStaticSorted();
+      listVersionStaticSorted.listVersionStatic = new ArrayList<Version>(listVersionStatic);
+      Collections.sort(listVersionStatic, versionClassifierPlugin);
+      listVersionStaticSorted.listVersionStaticSorted = listVersionStatic;
+      execContext.setTransientData(transientDataKey, listVersionStaticSorted);
+    }
+
+    return new ArrayList<Version>(listVersionStaticSorted.listVersionStaticSorted);
   }
 }
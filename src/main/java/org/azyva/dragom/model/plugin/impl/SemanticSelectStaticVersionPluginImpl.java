@@ -20,7 +20,6 @@
 package org.azyva.dragom.model.plugin.impl;
 
 import java.text.MessageFormat;
-import java.util.Collections;
 import java.util.List;
 import java.util.ResourceBundle;
 
@@ -31,9 +30,7 @@ import org.azyva.dragom.model.Module;
 import org.azyva.dragom.model.ModuleVersion;
 import org.azyva.dragom.model.Version;
 import org.azyva.dragom.model.VersionType;
-import org.azyva.dragom.model.plugin.ScmPlugin;
 import org.azyva.dragom.model.plugin.SelectStaticVersionPlugin;
-import org.azyva.dragom.model.plugin.VersionClassifierPlugin;
 import org.azyva.dragom.util.AlwaysNeverAskUserResponse;
 import org.azyva.dragom.util.Util;
 import org.slf4j.Logger;
@@ -202,8 +199,6 @@ public class SemanticSelectStaticVersionPluginImpl extends SelectStaticVersionPl
     RuntimePropertiesPlugin runtimePropertiesPlugin;
     UserInteractionCallbackPlugin userInteractionCallbackPlugin;
     Module module;
-    ScmPlugin scmPlugin;
-    VersionClassifierPlugin versionClassifierPlugin;
     String runtimeProperty;
     List<Version> listVersionStatic;
     int[] arraySemanticVersionComponentMax;
@@ -213,11 +208,8 @@ public class SemanticSelectStaticVersionPluginImpl extends SelectStaticVersionPl
     runtimePropertiesPlugin = ExecContextHolder.get().getExecContextPlugin(RuntimePropertiesPlugin.class);
     userInteractionCallbackPlugin = ExecContextHolder.get().getExecContextPlugin(UserInteractionCallbackPlugin.class);
     module = this.getModule();
-    scmPlugin = module.getNodePlugin(ScmPlugin.class, null);
-    versionClassifierPlugin = module.getNodePlugin(VersionClassifierPlugin.class, null);
 
-    listVersionStatic = scmPlugin.getListVersionStatic();
-    Collections.sort(listVersionStatic, versionClassifierPlugin);
+    listVersionStatic = this.getListVersionStaticGlobal();
 
     SemanticSelectStaticVersionPluginImpl.logger.info("Sorted list of available static Version's for Module " + module + ": " + listVersionStatic);
 
@@ -19,9 +19,7 @@
 
 package org.azyva.dragom.model.plugin.impl;
 
-import java.io.IOException;
 import java.nio.file.Paths;
-import java.util.Properties;
 import java.util.regex.Matcher;
 
 import org.azyva.dragom.execcontext.ExecContext;
@@ -34,7 +32,6 @@ import org.azyva.dragom.model.ModuleBuilder;
 import org.azyva.dragom.model.plugin.ScmPlugin;
 import org.azyva.dragom.model.plugin.UndefinedDescendantNodeManagerPlugin;
 import org.azyva.dragom.util.Util;
-import org.azyva.dragom.util.WormFile;
 
 /**
  * Simple implementation of {@link UndefinedDescendantNodeManagerPlugin}.
@@ -43,7 +40,8 @@ import org.azyva.dragom.util.WormFile;
  * ClassificationNodes.
  * <p>
  * It allows creating {@link Module}'s and it validates their existence with their
- * {@link ScmPlugin}.
+ * {@link ScmPlugin}. Module existence can be cached in a file using
+ * {@link ModuleExistenceCache}.
  *
  * @author David Raymond
  */
@@ -66,17 +64,28 @@ public class SimpleDynamicUndefinedDescendantNodeManagerModulePluginImpl extends
   private static final String INIT_PROPERTY_MODULE_EXISTENCE_CACHE_FILE = "MODULE_EXISTENCE_CACHE_FILE";
 
   /**
-   * Transient data for storing the module existence cache. It is a Properties.
+   * Initialization property specifying the time-to-live in seconds of module
+   * existence cache entries for modules which exist.
+   *
+   * <p>If not defined or 0, these entries do not expire.
    */
-  private static final String TRANSIENT_DATA_MODULE_EXISTENCE_CACHE = SimpleDynamicUndefinedDescendantNodeManagerModulePluginImpl.class.getName() + ".ModuleExistenceCache";
+  private static final String INIT_PROPERTY_MODULE_EXISTENCE_CACHE_TTL = "MODULE_EXISTENCE_CACHE_TTL";
 
   /**
-   * Transient data for storing the module existence cache file name. This is to
-   * avoid having to recompute its name each time it is needed.
+   * Initialization property specifying the time-to-live in seconds of module
+   * existence cache entries for modules which do not exist.
    *
-   * <p>This is a {@link org.azyva.dragom.util.WormFile.WormFileCache}.
+   * <p>If not defined, the value of
+   * {@link #INIT_PROPERTY_MODULE_EXISTENCE_CACHE_TTL} is used. If 0, these entries
+   * do not expire.
+   */
+  private static final String INIT_PROPERTY_MODULE_EXISTENCE_CACHE_NEGATIVE_TTL = "MODULE_EXISTENCE_CACHE_NEGATIVE_TTL";
+
+  /**
+   * Transient data for storing the module existence cache. It is a
+   * {@link ModuleExistenceCache}.
    */
-  private static final String TRANSIENT_DATA_MODULE_EXISTENCE_CACHE_FILE = SimpleDynamicUndefinedDescendantNodeManagerModulePluginImpl.class.getName() + ".ModuleExistenceCacheFile";
+  private static final String TRANSIENT_DATA_MODULE_EXISTENCE_CACHE = SimpleDynamicUndefinedDescendantNodeManagerModulePluginImpl.class.getName() + ".ModuleExistenceCache";
 
   /**
    * Constructor.
@@ -135,90 +144,105 @@ public class SimpleDynamicUndefinedDescendantNodeManagerModulePluginImpl extends
     return moduleBuilder.create();
   }
 
+  /**
+   * Loads the module existence cache, if configured, in anticipation of many
+   * {@link Module}'s being requested.
+   *
+   * <p>The existence of Module's which are not in the cache is not verified here
+   * since the caller may not request all of them. It is verified by
+   * {@link #requestModule} as usual.
+   */
+  public void preloadModuleExistenceCache() {
+    ModuleExistenceCache moduleExistenceCache;
+
+    moduleExistenceCache = this.getModuleExistenceCache();
+
+    if (moduleExistenceCache != null) {
+      moduleExistenceCache.preload();
+    }
+  }
+
   /**
    * Verifies if a {@link Module} exists, using the module existence cache if
    * configured.
    *
+   * <p>When the existence of the Module is verified with its {@link ScmPlugin},
+   * the module existence cache is not accessed during the verification so that
+   * other threads and processes are not blocked.
+   *
    * @param module Module.
    * @return See description.
    */
   private boolean isModuleExists(Module module) {
-    ExecContext execContext;
-    Properties propertiesModuleExist;
-    String moduleExistenceCacheFile;
-    WormFile.WormFileCache wormFileCacheModuleExistanceCache;
-    WormFile.AccessHandle accessHandle;
-    String stringBoolean;
+    ModuleExistenceCache moduleExistenceCache;
+    Boolean indModuleExistsCached;
     ScmPlugin scmPlugin;
+    boolean indModuleExists;
 
-    execContext = ExecContextHolder.get();
+    moduleExistenceCache = this.getModuleExistenceCache();
 
-    if (Util.isNotNullAndTrue(execContext.getInitProperty(SimpleDynamicUndefinedDescendantNodeManagerModulePluginImpl.INIT_PROPERTY_IND_CACHE_MODULE_EXISTENCE))) {
-      propertiesModuleExist = (Properties)execContext.getTransientData(SimpleDynamicUndefinedDescendantNodeManagerModulePluginImpl.TRANSIENT_DATA_MODULE_EXISTENCE_CACHE);
+    if (moduleExistenceCache != null) {
+      indModuleExistsCached = moduleExistenceCache.isModuleExists(module.getNodePath());
 
-      if (propertiesModuleExist == null) {
-        moduleExistenceCacheFile = execContext.getInitProperty(SimpleDynamicUndefinedDescendantNodeManagerModulePluginImpl.INIT_PROPERTY_MODULE_EXISTENCE_CACHE_FILE);
+      if (indModuleExistsCached != null) {
+        return indModuleExistsCached;
+      }
+    }
 
-        if (moduleExistenceCacheFile == null) {
-          throw new RuntimeException("Initialization property " + SimpleDynamicUndefinedDescendantNodeManagerModulePluginImpl.INIT_PROPERTY_MODULE_EXISTENCE_CACHE_FILE + " is not defined.");
-        } else {
-          moduleExistenceCacheFile = moduleExistenceCacheFile.replace("~", Matcher.quoteReplacement(System.getProperty("user.home")));
-        }
+    scmPlugin = module.getNodePlugin(ScmPlugin.class, null);
+    indModuleExists = scmPlugin.isModuleExists();
 
-        wormFileCacheModuleExistanceCache = WormFile.getCache(Paths.get(moduleExistenceCacheFile));
-        execContext.setTransientData(SimpleDynamicUndefinedDescendantNodeManagerModulePluginImpl.TRANSIENT_DATA_MODULE_EXISTENCE_CACHE_FILE, wormFileCacheModuleExistanceCache);
+    if (moduleExistenceCache != null) {
+      moduleExistenceCache.setModuleExists(module.getNodePath(), indModuleExists);
+    }
 
-        propertiesModuleExist = new Properties();
+    return indModuleExists;
+  }
 
-        execContext.setTransientData(SimpleDynamicUndefinedDescendantNodeManagerModulePluginImpl.TRANSIENT_DATA_MODULE_EXISTENCE_CACHE, propertiesModuleExist);
-      } else {
-        wormFileCacheModuleExistanceCache = (WormFile.WormFileCache)execContext.getTransientData(SimpleDynamicUndefinedDescendantNodeManagerModulePluginImpl.TRANSIENT_DATA_MODULE_EXISTENCE_CACHE_FILE);
-      }
+  /**
+   * Returns the {@link ModuleExistenceCache}, creating it if required.
+   *
+   * @return ModuleExistenceCache. null if module existence must not be cached.
+   */
+  private ModuleExistenceCache getModuleExistenceCache() {
+    ExecContext execContext;
+    ModuleExistenceCache moduleExistenceCache;
+    String moduleExistenceCacheFile;
+    String ttl;
+    String negativeTtl;
+    long ttlMillis;
+    long negativeTtlMillis;
 
-      if (wormFileCacheModuleExistanceCache.isModified() && wormFileCacheModuleExistanceCache.isExists()) {
-        accessHandle = wormFileCacheModuleExistanceCache.reserveAccess(false);
+    execContext = ExecContextHolder.get();
 
-        try {
-          propertiesModuleExist.clear();
-          propertiesModuleExist.load(wormFileCacheModuleExistanceCache.getInputStream());
-        } catch (IOException ioe) {
-          throw new RuntimeException(ioe);
-        } finally {
-          accessHandle.release();
-        }
-      }
+    if (!Util.isNotNullAndTrue(execContext.getInitProperty(SimpleDynamicUndefinedDescendantNodeManagerModulePluginImpl.INIT_PROPERTY_IND_CACHE_MODULE_EXISTENCE))) {
+      return null;
+    }
 
-      stringBoolean = propertiesModuleExist.getProperty(module.getNodePath().toString());
+    // The ExecContext is shared among the threads which may request Module's.
+    synchronized (execContext) {
+      moduleExistenceCache = (ModuleExistenceCache)execContext.getTransientData(SimpleDynamicUndefinedDescendantNodeManagerModulePluginImpl.TRANSIENT_DATA_MODULE_EXISTENCE_CACHE);
 
-      if (stringBoolean == null) {
-        boolean indModuleExists;
+      if (moduleExistenceCache == null) {
+        moduleExistenceCacheFile = execContext.getInitProperty(SimpleDynamicUndefinedDescendantNodeManagerModulePluginImpl.INIT_PROPERTY_MODULE_EXISTENCE_CACHE_FILE);
 
-        accessHandle = wormFileCacheModuleExistanceCache.reserveAccess(true);
+        if (moduleExistenceCacheFile == null) {
+          throw new RuntimeException("Initialization property " + SimpleDynamicUndefinedDescendantNodeManagerModulePluginImpl.INIT_PROPERTY_MODULE_EXISTENCE_CACHE_FILE + " is not defined.");
+        } else {
+          moduleExistenceCacheFile = moduleExistenceCacheFile.replace("~", Matcher.quoteReplacement(System.getProperty("user.home")));
+        }
 
-        try {
-          if (wormFileCacheModuleExistanceCache.isModified() && wormFileCacheModuleExistanceCache.isExists()) {
-            propertiesModuleExist.clear();
-            propertiesModuleExist.load(wormFileCacheModuleExistanceCache.getInputStream());
-          }
+        ttl = execContext.getInitProperty(SimpleDynamicUndefinedDescendantNodeManagerModulePluginImpl.INIT_PROPERTY_MODULE_EXISTENCE_CACHE_TTL);
+        ttlMillis = (ttl == null) ? 0 : Long.parseLong(ttl) * 1000;
 
-          scmPlugin = module.getNodePlugin(ScmPlugin.class, null);
-          indModuleExists = scmPlugin.isModuleExists();
-          propertiesModuleExist.setProperty(module.getNodePath().toString(), Boolean.toString(indModuleExists));
-          propertiesModuleExist.store(wormFileCacheModuleExistanceCache.getOutputStream(), null);
-        } catch (IOException ioe) {
-          throw new RuntimeException(ioe);
-        } finally {
-          accessHandle.release();
-        }
+        negativeTtl = execContext.getInitProperty(SimpleDynamicUndefinedDescendantNodeManagerModulePluginImpl.INIT_PROPERTY_MODULE_EXISTENCE_CACHE_NEGATIVE_TTL);
+        negativeTtlMillis = (negativeTtl == null) ? ttlMillis : Long.parseLong(negativeTtl) * 1000;
 
-        return indModuleExists;
-      } else {
-        return Boolean.parseBoolean(stringBoolean);
+        moduleExistenceCache = new ModuleExistenceCache(Paths.get(moduleExistenceCacheFile), ttlMillis, negativeTtlMillis);
+        execContext.setTransientData(SimpleDynamicUndefinedDescendantNodeManagerModulePluginImpl.TRANSIENT_DATA_MODULE_EXISTENCE_CACHE, moduleExistenceCache);
       }
-    } else {
-      scmPlugin = module.getNodePlugin(ScmPlugin.class, null);
-
-      return scmPlugin.isModuleExists();
     }
+
+    return moduleExistenceCache;
   }
 }
@@ -28,6 +28,7 @@ import org.azyva.dragom.model.Model;
 import org.azyva.dragom.model.Module;
 import org.azyva.dragom.model.NodePath;
 import org.azyva.dragom.model.plugin.FindModuleByArtifactGroupIdPlugin;
+import org.azyva.dragom.model.plugin.UndefinedDescendantNodeManagerPlugin;
 import org.azyva.dragom.util.Util;
 
 /**
@@ -157,6 +158,34 @@ public class SimpleFindModuleByArtifactGroupIdPluginImpl extends ClassificationN
       }
     } while (lastDashPos != -1);
 
+    this.preloadModuleExistenceCache();
+
     return listNodePath;
   }
+
+  /**
+   * Preloads the module existence cache when the {@link ClassificationNode}
+   * dynamically creates {@link Module}'s using
+   * {@link SimpleDynamicUndefinedDescendantNodeManagerModulePluginImpl}.
+   *
+   * <p>This allows the existence of the candidate Module's, which the caller then
+   * requests one at a time, to be obtained from the cache without accessing the
+   * cache file for each one.
+   */
+  private void preloadModuleExistenceCache() {
+    ClassificationNode classificationNode;
+    UndefinedDescendantNodeManagerPlugin undefinedDescendantNodeManagerPlugin;
+
+    classificationNode = this.getClassificationNode();
+
+    if (!classificationNode.isNodePluginExists(UndefinedDescendantNodeManagerPlugin.class, null)) {
+      return;
+    }
+
+    undefinedDescendantNodeManagerPlugin = classificationNode.getNodePlugin(UndefinedDescendantNodeManagerPlugin.class, null);
+
+    if (undefinedDescendantNodeManagerPlugin instanceof SimpleDynamicUndefinedDescendantNodeManagerModulePluginImpl) {
+      ((SimpleDynamicUndefinedDescendantNodeManagerModulePluginImpl)undefinedDescendantNodeManagerPlugin).preloadModuleExistenceCache();
+    }
+  }
 }
@@ -25,6 +25,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.azyva.dragom.execcontext.ExecContext;
+import org.azyva.dragom.execcontext.plugin.WorkspaceDirSystemModule;
 import org.azyva.dragom.execcontext.plugin.WorkspacePlugin;
 import org.azyva.dragom.execcontext.support.ExecContextHolder;
 import org.azyva.dragom.maven.Pom;
@@ -34,6 +36,7 @@ import org.azyva.dragom.model.ArtifactVersion;
 import org.azyva.dragom.model.Model;
 import org.azyva.dragom.model.Module;
 import org.azyva.dragom.model.Version;
+import org.azyva.dragom.model.VersionType;
 import org.azyva.dragom.model.plugin.ArtifactVersionMapperPlugin;
 import org.azyva.dragom.model.plugin.NodePlugin;
 import org.azyva.dragom.model.plugin.ScmPlugin;
@@ -59,9 +62,28 @@ import org.azyva.dragom.model.plugin.ScmPlugin;
  * <p>Versions are threfore also considered since multiple versions of the same
  * groupId and artifactId can exist.
  *
+ * <p>The PomAggregation's loaded for resolving Pom's are also cached within the
+ * {@link ExecContext} so that they are shared by all instances of this class,
+ * and thus by all {@link MavenReferenceManagerPluginImpl} calls, during the
+ * execution of a tool. This avoids reloading the same PomAggregation's, such as
+ * those containing corporate parent POMs, for each ModuleVersion traversed. The
+ * key of a PomAggregation is its GAV when its {@link Version} is static. When its
+ * Version is dynamic, it is cached only if it can be loaded from a
+ * {@link ScmTreeView}, in which case the ID of the revision is part of the key.
+ * PomAggregation's loaded from user workspace directories are not cached since
+ * they may contain changes which are not committed.
+ *
+ * <p>Pom's so cached are shared and must not be modified.
+ *
  * @author David Raymond
  */
 public class SimplePomResolver implements Pom.PomResolver {
+  /**
+   * Transient data that caches the PomAggregation's loaded for resolving Pom's. See
+   * the description of this class.
+   */
+  private static final String TRANSIENT_DATA_MAP_KEY_POM_AGGREGATION = SimplePomResolver.class.getName() + ".MapKeyPomAggregation";
+
   /**
    * List of PomAggregation.
    */
@@ -157,6 +179,8 @@ public class SimplePomResolver implements Pom.PomResolver {
     WorkspacePlugin workspacePlugin;
     Version version;
     Path pathModuleWorkspace;
+    Map<String, PomAggregation> mapKeyPomAggregation;
+    String key;
     PomAggregation pomAggregation;
 
     artifactGroupId = new ArtifactGroupId(groupId, artifactId);
@@ -185,16 +209,52 @@ public class SimplePomResolver implements Pom.PomResolver {
 
     scmPlugin = module.getNodePlugin(ScmPlugin.class, null);
     artifactVersionMapperPlugin = module.getNodePlugin(ArtifactVersionMapperPlugin.class, null);
-    workspacePlugin = ExecContextHolder.get().getExecContextPlugin(WorkspacePlugin.class);
 
     version = artifactVersionMapperPlugin.mapArtifactVersionToVersion(new ArtifactVersion(stringVersion));
 
-    pathModuleWorkspace = scmPlugin.checkoutSystem(version);
+    mapKeyPomAggregation = SimplePomResolver.getMapKeyPomAggregation();
+    key = artifactGroupId.toString() + ':' + stringVersion;
 
-    try {
-      pomAggregation = new PomAggregation(pathModuleWorkspace.resolve("pom.xml"));
-    } finally {
-      workspacePlugin.releaseWorkspaceDir(pathModuleWorkspace);
+    if (version.getVersionType() == VersionType.STATIC) {
+      pomAggregation = mapKeyPomAggregation.get(key);
+    } else {
+      pomAggregation = null;
+    }
+
+    if (pomAggregation == null) {
+      ScmTreeView scmTreeView;
+
+      if (scmPlugin instanceof ScmTreeView.Provider) {
+        scmTreeView = ((ScmTreeView.Provider)scmPlugin).getScmTreeView(version);
+      } else {
+        scmTreeView = null;
+      }
+
+      if (scmTreeView != null) {
+        if (version.getVersionType() == VersionType.DYNAMIC) {
+          key = key + '@' + scmTreeView.getRevisionId();
+          pomAggregation = mapKeyPomAggregation.get(key);
+        }
+
+        if (pomAggregation == null) {
+          pomAggregation = MavenReferenceManagerPluginImpl.loadPomAggregation(scmTreeView);
+          mapKeyPomAggregation.put(key, pomAggregation);
+        }
+      } else {
+        workspacePlugin = ExecContextHolder.get().getExecContextPlugin(WorkspacePlugin.class);
+
+        pathModuleWorkspace = scmPlugin.checkoutSystem(version);
+
+        try {
+          pomAggregation = new PomAggregation(pathModuleWorkspace.resolve("pom.xml"));
+
+          if ((version.getVersionType() == VersionType.STATIC) && (workspacePlugin.getWorkspaceDirFromPath(pathModuleWorkspace) instanceof WorkspaceDirSystemModule)) {
+            mapKeyPomAggregation.put(key, pomAggregation);
+          }
+        } finally {
+          workspacePlugin.releaseWorkspaceDir(pathModuleWorkspace);
+        }
+      }
     }
 
     this.listPomAggregation.add(pomAggregation);
@@ -205,4 +265,27 @@ public class SimplePomResolver implements Pom.PomResolver {
 
     return pom;
   }
+
+  /**
+   * Returns the Map of keys to PomAggregation's cached within the
+   * {@link ExecContext}, creating it if required.
+   *
+   * @return See description.
+   */
+  @SuppressWarnings("unchecked")
+  private static Map<String, PomAggregation> getMapKeyPomAggregation() {
+    ExecContext execContext;
+    Map<String, PomAggregation> mapKeyPomAggregation;
+
+    execContext = ExecContextHolder.get();
+
+    mapKeyPomAggregation = (Map<String, PomAggregation>)execContext.getTransientData(SimplePomResolver.TRANSIENT_DATA_MAP_KEY_POM_AGGREGATION);
+
+    if (mapKeyPomAggregation == null) {
+      mapKeyPomAggregation = new HashMap<String, PomAggregation>();
+      execContext.setTransientData(SimplePomResolver.TRANSIENT_DATA_MAP_KEY_POM_AGGREGATION, mapKeyPomAggregation);
+    }
+
+    return mapKeyPomAggregation;
+  }
 }
@@ -62,6 +62,13 @@ import org.slf4j.LoggerFactory;
  * accessed, its last modification timestamp is used to know if it changed and if
  * the cached version needs to be updated. If the IND_FORCE_UPDATE_CACHE_FILE is
  * true, the cache file is updated whatever its last modification timestamp.
+ * <p>
+ * If the MODEL_SNAPSHOT_FILE initialization property is defined, a binary
+ * snapshot of the XmlConfig is maintained in this file (see
+ * {@link XmlConfig#saveSnapshot}). It is used instead of unmarshalling the XML
+ * resource (or the cache file) as long as the last modification timestamp of the
+ * XML resource does not change. This significantly reduces the startup time of
+ * tools which are launched often.
  *
  * @author David Raymond
  */
@@ -98,15 +105,26 @@ public class DefaultModelFactory implements ModelFactory {
    */
   private static final String INIT_PROPERTY_IND_FORCE_UPDATE_MODEL_CACHE_FILE = "IND_FORCE_UPDATE_MODEL_CACHE_FILE";
 
+  /**
+   * Initialization property specifying a file to use for keeping a binary snapshot
+   * of the XmlConfig. "~" in the value of this property is replaced by the user
+   * home directory.
+   */
+  private static final String INIT_PROPERTY_MODEL_SNAPSHOT_FILE = "MODEL_SNAPSHOT_FILE";
+
   /**
    * Initialization property defining the file to use when flushing the XmlConfig.
    */
   private static final String INIT_PROPERTY_MODEL_FLUSH_FILE = "MODEL_FLUSH_FILE";
 
   /**
-   * Map of URLs (of {@link XmlConfig} XML configuration) to Model.
+   * Map of URLs (of {@link XmlConfig} XML configuration), as specified by the
+   * URL_MODEL initialization property, to Model.
+   *
+   * <p>The key is the String representation since URL.equals and URL.hashCode
+   * can perform name resolution.
    */
-  private static Map<URL, Model> mapUrlXmlConfigModel = new HashMap<URL, Model>();
+  private static Map<String, Model> mapUrlXmlConfigModel = new HashMap<String, Model>();
 
   @Override
   public Model getModel(Properties propertiesInit) {
@@ -116,6 +134,7 @@ public class DefaultModelFactory implements ModelFactory {
     URL urlXmlConfig;
     XmlConfig xmlConfig;
     String xmlConfigCacheFile;
+    String snapshotFile;
     String flushFile;
 
     stringUrlXmlConfig = propertiesInit.getProperty(DefaultModelFactory.INIT_PROPERTY_URL_MODEL);
@@ -165,29 +184,10 @@ public class DefaultModelFactory implements ModelFactory {
 
         if (fileXmlConfigCache.isFile()) {
           long lastModificationTimestampXmlConfigCacheFile;
-          URLConnection urlConnection;
 
           lastModificationTimestampXmlConfigCacheFile = fileXmlConfigCache.lastModified();
 
-          try {
-            urlConnection = urlXmlConfig.openConnection();
-            urlConnection.setUseCaches(false);
-
-            // Must be true even if we do not actually read the XmlConfig resource here,
-            // otherwise it seems the last modification timestamp is not read.
-            urlConnection.setDoInput(true);
-
-            urlConnection.setDoOutput(false);
-            lastModificationTimestampXmlConfig = urlConnection.getLastModified();
-
-            // This seems to be the only way to properly release the resource. In particular
-            // if the resource is a file (rather rare since in that case using a cache file is
-            // not really useful), the file remains open unless the InputStream is obtained
-            // and closed.
-            urlConnection.getInputStream().close();
-          } catch (IOException ioe) {
-            throw new RuntimeException(ioe);
-          }
+          lastModificationTimestampXmlConfig = DefaultModelFactory.getLastModificationTimestamp(urlXmlConfig);
 
           indRefreshXmlConfigCacheFile = lastModificationTimestampXmlConfig > lastModificationTimestampXmlConfigCacheFile;
 
@@ -254,7 +254,34 @@ public class DefaultModelFactory implements ModelFactory {
       }
     }
 
-    xmlConfig = XmlConfig.load(urlXmlConfig);
+    snapshotFile = propertiesInit.getProperty(DefaultModelFactory.INIT_PROPERTY_MODEL_SNAPSHOT_FILE);
+
+    if (snapshotFile != null) {
+      Path pathSnapshotFile;
+      long lastModificationTimestampXmlConfig;
+
+      pathSnapshotFile = Paths.get(snapshotFile.replace("~", Matcher.quoteReplacement(System.getProperty("user.home"))));
+
+      // If the XmlConfig is loaded from the cache file, its last modification
+      // timestamp is that of the XML resource.
+      lastModificationTimestampXmlConfig = DefaultModelFactory.getLastModificationTimestamp(urlXmlConfig);
+
+      // A timestamp of 0 means it is not known, in which case the snapshot cannot be
+      // validated.
+      if (lastModificationTimestampXmlConfig == 0) {
+        DefaultModelFactory.logger.info("Last modification timestamp of " + urlXmlConfig + " is not known. XmlConfig snapshot file " + pathSnapshotFile + " is not used.");
+        xmlConfig = XmlConfig.load(urlXmlConfig);
+      } else {
+        xmlConfig = XmlConfig.loadSnapshot(pathSnapshotFile, urlXmlConfig.toString(), lastModificationTimestampXmlConfig);
+
+        if (xmlConfig == null) {
+          xmlConfig = XmlConfig.load(urlXmlConfig);
+          xmlConfig.saveSnapshot(pathSnapshotFile, urlXmlConfig.toString(), lastModificationTimestampXmlConfig);
+        }
+      }
+    } else {
+      xmlConfig = XmlConfig.load(urlXmlConfig);
+    }
 
     flushFile = propertiesInit.getProperty(DefaultModelFactory.INIT_PROPERTY_MODEL_FLUSH_FILE);
 
@@ -264,8 +291,40 @@ public class DefaultModelFactory implements ModelFactory {
 
     model = new DefaultModel(xmlConfig, propertiesInit);
 
-    DefaultModelFactory.mapUrlXmlConfigModel.put(urlXmlConfig, model);
+    DefaultModelFactory.mapUrlXmlConfigModel.put(stringUrlXmlConfig, model);
 
     return model;
   }
+
+  /**
+   * Returns the last modification timestamp of a resource identified by a URL.
+   *
+   * @param url URL.
+   * @return See description. 0 if not known.
+   */
+  private static long getLastModificationTimestamp(URL url) {
+    URLConnection urlConnection;
+    long lastModificationTimestamp;
+
+    try {
+      urlConnection = url.openConnection();
+      urlConnection.setUseCaches(false);
+
+      // Must be true even if we do not actually read the resource here, otherwise it
+      // seems the last modification timestamp is not read.
+      urlConnection.setDoInput(true);
+
+      urlConnection.setDoOutput(false);
+      lastModificationTimestamp = urlConnection.getLastModified();
+
+      // This seems to be the only way to properly release the resource. In particular
+      // if the resource is a file, the file remains open unless the InputStream is
+      // obtained and closed.
+      urlConnection.getInputStream().close();
+    } catch (IOException ioe) {
+      throw new RuntimeException(ioe);
+    }
+
+    return lastModificationTimestamp;
+  }
 }
@@ -0,0 +1,414 @@
+/*
+ * Copyright 2015 - 2017 AZYVA INC.
+ *
+ * This file is part of Dragom.
+ *
+ * Dragom is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Dragom is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Dragom.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.azyva.dragom.reference.support;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.regex.Matcher;
+
+import org.azyva.dragom.execcontext.ExecContext;
+import org.azyva.dragom.execcontext.support.ExecContextHolder;
+import org.azyva.dragom.model.ArtifactGroupId;
+import org.azyva.dragom.model.ArtifactVersion;
+import org.azyva.dragom.model.Model;
+import org.azyva.dragom.model.Module;
+import org.azyva.dragom.model.ModuleVersion;
+import org.azyva.dragom.model.NodePath;
+import org.azyva.dragom.model.Version;
+import org.azyva.dragom.model.plugin.ArtifactVersionMapperPlugin;
+import org.azyva.dragom.reference.Reference;
+import org.azyva.dragom.util.SortedProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent cache of the {@link Reference}'s of {@link ModuleVersion}'s, shared
+ * across tool invocations.
+ *
+ * <p>Obtaining the List of Reference's of a ModuleVersion generally requires
+ * checking out the ModuleVersion and parsing its build files (the POM's for
+ * Maven), which is costly. But the Reference's of a given commit never change.
+ * This class therefore maintains in a directory one file for each {@link Module}
+ * and commit for which the Reference's are known.
+ *
+ * <p>The caller is responsible for providing a key which identifies the content
+ * of the ModuleVersion. For a dynamic {@link Version}, this is the ID of the
+ * commit at the head of the Version. For a static Version, the Version itself can
+ * be used since static Version's (tags) are immutable. See
+ * {@link #getKeyVersionStatic}.
+ *
+ * <p>Only the {@link ArtifactGroupId} and the {@link ArtifactVersion} of each
+ * Reference are cached. The referenced ModuleVersion is recomputed from the
+ * {@link Model} when the List of Reference's is retrieved, so that changes in the
+ * configuration of the Model (mapping between ArtifactVersion and Version) do not
+ * invalidate the cache. The implementation-specific data of the Reference's is
+ * not available and is replaced by an object whose only purpose is to provide
+ * the same textual representation. Reference's obtained from this cache can
+ * therefore be used to traverse a reference graph, but not to update the
+ * references with the {@link org.azyva.dragom.model.plugin.ReferenceManagerPlugin}.
+ *
+ * <p>The cache is enabled when the REFERENCE_CACHE_DIR initialization property is
+ * defined.
+ *
+ * @author David Raymond
+ */
+public class PersistentReferenceCache {
+  /**
+   * Logger for the class.
+   */
+  private static final Logger logger = LoggerFactory.getLogger(PersistentReferenceCache.class);
+
+  /**
+   * Initialization property specifying the directory where the Reference's are
+   * cached.
+   *
+   * <p>"~" in the value of this property is replaced by the user home directory.
+   *
+   * <p>If not defined, Reference's are not cached.
+   */
+  private static final String INIT_PROPERTY_REFERENCE_CACHE_DIR = "REFERENCE_CACHE_DIR";
+
+  /**
+   * Transient data for storing the PersistentReferenceCache. This is to avoid
+   * having to recompute the path of the cache directory each time it is needed.
+   */
+  private static final String TRANSIENT_DATA_PERSISTENT_REFERENCE_CACHE = PersistentReferenceCache.class.getName() + ".PersistentReferenceCache";
+
+  /**
+   * Prefix of the key for static Version's.
+   */
+  private static final String KEY_PREFIX_VERSION_STATIC = "tag-";
+
+  /**
+   * Prefix of the key for commits.
+   */
+  private static final String KEY_PREFIX_COMMIT = "commit-";
+
+  /**
+   * Suffix of the cache files.
+   */
+  private static final String CACHE_FILE_SUFFIX = ".properties";
+
+  /**
+   * Property within a cache file specifying the number of Reference's.
+   */
+  private static final String CACHE_FILE_PROPERTY_REFERENCE_COUNT = "reference-count";
+
+  /**
+   * Prefix of the properties within a cache file for a Reference. The index of the
+   * Reference follows.
+   */
+  private static final String CACHE_FILE_PROPERTY_PREFIX_REFERENCE = "reference.";
+
+  /**
+   * Suffix of the property within a cache file specifying the ArtifactGroupId of
+   * a Reference.
+   */
+  private static final String CACHE_FILE_PROPERTY_SUFFIX_ARTIFACT_GROUP_ID = ".artifact-group-id";
+
+  /**
+   * Suffix of the property within a cache file specifying the ArtifactVersion of
+   * a Reference.
+   */
+  private static final String CACHE_FILE_PROPERTY_SUFFIX_ARTIFACT_VERSION = ".artifact-version";
+
+  /**
+   * Suffix of the property within a cache file specifying the textual
+   * representation of the implementation-specific data of a Reference.
+   */
+  private static final String CACHE_FILE_PROPERTY_SUFFIX_IMPL_DATA = ".impl-data";
+
+  /**
+   * Path to the cache directory.
+   */
+  private Path pathCacheDir;
+
+  /**
+   * Implementation-specific data of the Reference's obtained from the cache.
+   *
+   * <p>It only provides the textual representation of the original
+   * implementation-specific data, which is useful when Reference's are displayed
+   * to the user.
+   */
+  private static class CachedReferenceImplData {
+    /**
+     * Textual representation of the original implementation-specific data.
+     */
+    private String implData;
+
+    /**
+     * Constructor.
+     *
+     * @param implData Textual representation of the original
+     *   implementation-specific data.
+     */
+    private CachedReferenceImplData(String implData) {
+      this.implData = implData;
+    }
+
+    @Override
+    public String toString() {
+      return this.implData;
+    }
+
+    @Override
+    public int hashCode() {
+      return this.implData.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+
+      if (other == null) {
+        return false;
+      }
+
+      if (this.getClass() != other.getClass()) {
+        return false;
+      }
+
+      return this.implData.equals(((CachedReferenceImplData)other).implData);
+    }
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param pathCacheDir Path to the cache directory.
+   */
+  private PersistentReferenceCache(Path pathCacheDir) {
+    this.pathCacheDir = pathCacheDir;
+  }
+
+  /**
+   * Returns the PersistentReferenceCache for the current {@link ExecContext}.
+   *
+   * @return See description. null if the cache is not enabled.
+   */
+  public static PersistentReferenceCache get() {
+    ExecContext execContext;
+    PersistentReferenceCache persistentReferenceCache;
+    String referenceCacheDir;
+
+    execContext = ExecContextHolder.get();
+
+    persistentReferenceCache = (PersistentReferenceCache)execContext.getTransientData(PersistentReferenceCache.TRANSIENT_DATA_PERSISTENT_REFERENCE_CACHE);
+
+    if (persistentReferenceCache == null) {
+      referenceCacheDir = execContext.getInitProperty(PersistentReferenceCache.INIT_PROPERTY_REFERENCE_CACHE_DIR);
+
+      if (referenceCacheDir == null) {
+        return null;
+      }
+
+      referenceCacheDir = referenceCacheDir.replace("~", Matcher.quoteReplacement(System.getProperty("user.home")));
+
+      persistentReferenceCache = new PersistentReferenceCache(Paths.get(referenceCacheDir));
+
+      execContext.setTransientData(PersistentReferenceCache.TRANSIENT_DATA_PERSISTENT_REFERENCE_CACHE, persistentReferenceCache);
+    }
+
+    return persistentReferenceCache;
+  }
+
+  /**
+   * Returns the key corresponding to a static {@link Version}.
+   *
+   * @param version Static Version.
+   * @return See description.
+   */
+  public static String getKeyVersionStatic(Version version) {
+    try {
+      // Tags can contain characters which are not valid in file names, such as "/".
+      return PersistentReferenceCache.KEY_PREFIX_VERSION_STATIC + URLEncoder.encode(version.getVersion(), "UTF-8");
+    } catch (UnsupportedEncodingException uee) {
+      throw new RuntimeException(uee);
+    }
+  }
+
+  /**
+   * Returns the key corresponding to a commit.
+   *
+   * @param commitId Commit ID.
+   * @return See description.
+   */
+  public static String getKeyCommit(String commitId) {
+    return PersistentReferenceCache.KEY_PREFIX_COMMIT + commitId;
+  }
+
+  /**
+   * Returns the List of {@link Reference}'s cached for a {@link Module} and key.
+   *
+   * @param nodePathModule NodePath of the Module.
+   * @param key Key identifying the content of the ModuleVersion.
+   * @return See description. null if the Reference's are not cached.
+   */
+  public List<Reference> getListReference(NodePath nodePathModule, String key) {
+    Path pathCacheFile;
+    Properties propertiesCache;
+    int referenceCount;
+    Model model;
+    List<Reference> listReference;
+
+    pathCacheFile = this.getPathCacheFile(nodePathModule, key);
+
+    if (!Files.isRegularFile(pathCacheFile)) {
+      return null;
+    }
+
+    propertiesCache = new Properties();
+
+    try (InputStream inputStream = Files.newInputStream(pathCacheFile)) {
+      propertiesCache.load(inputStream);
+    } catch (IOException ioe) {
+      // The cache is only an optimization. If a cache file cannot be read, the
+      // Reference's are simply obtained again.
+      PersistentReferenceCache.logger.warn("Cache file " + pathCacheFile + " could not be read.", ioe);
+      return null;
+    }
+
+    referenceCount = Integer.parseInt(propertiesCache.getProperty(PersistentReferenceCache.CACHE_FILE_PROPERTY_REFERENCE_COUNT));
+
+    model = ExecContextHolder.get().getModel();
+    listReference = new ArrayList<Reference>();
+
+    for (int i = 0; i < referenceCount; i++) {
+      String prefix;
+      ArtifactGroupId artifactGroupId;
+      ArtifactVersion artifactVersion;
+      Module module;
+      ArtifactVersionMapperPlugin artifactVersionMapperPlugin;
+      ModuleVersion moduleVersion;
+
+      prefix = PersistentReferenceCache.CACHE_FILE_PROPERTY_PREFIX_REFERENCE + i;
+      artifactGroupId = new ArtifactGroupId(propertiesCache.getProperty(prefix + PersistentReferenceCache.CACHE_FILE_PROPERTY_SUFFIX_ARTIFACT_GROUP_ID));
+      artifactVersion = new ArtifactVersion(propertiesCache.getProperty(prefix + PersistentReferenceCache.CACHE_FILE_PROPERTY_SUFFIX_ARTIFACT_VERSION));
+
+      module = model.findModuleByArtifactGroupId(artifactGroupId);
+
+      // The Model may have changed since the Reference's were cached. We do not try to
+      // handle such cases and simply obtain the Reference's again.
+      if (module == null) {
+        return null;
+      }
+
+      artifactVersionMapperPlugin = module.getNodePlugin(ArtifactVersionMapperPlugin.class, null);
+      moduleVersion = new ModuleVersion(module.getNodePath(), artifactVersionMapperPlugin.mapArtifactVersionToVersion(artifactVersion));
+
+      listReference.add(new Reference(moduleVersion, artifactGroupId, artifactVersion, new CachedReferenceImplData(propertiesCache.getProperty(prefix + PersistentReferenceCache.CACHE_FILE_PROPERTY_SUFFIX_IMPL_DATA))));
+    }
+
+    return listReference;
+  }
+
+  /**
+   * Caches the List of {@link Reference}'s for a {@link Module} and key.
+   *
+   * <p>The cache file is written to a temporary file which is then moved to its
+   * final location so that concurrent tool invocations never see partial cache
+   * files.
+   *
+   * @param nodePathModule NodePath of the Module.
+   * @param key Key identifying the content of the ModuleVersion.
+   * @param listReference List of Reference's.
+   */
+  public void putListReference(NodePath nodePathModule, String key, List<Reference> listReference) {
+    Path pathCacheFile;
+    Properties propertiesCache;
+    Path pathCacheFileTemp;
+
+    pathCacheFile = this.getPathCacheFile(nodePathModule, key);
+
+    propertiesCache = new SortedProperties();
+
+    propertiesCache.setProperty(PersistentReferenceCache.CACHE_FILE_PROPERTY_REFERENCE_COUNT, Integer.toString(listReference.size()));
+
+    for (int i = 0; i < listReference.size(); i++) {
+      Reference reference;
+      String prefix;
+
+      reference = listReference.get(i);
+      prefix = PersistentReferenceCache.CACHE_FILE_PROPERTY_PREFIX_REFERENCE + i;
+
+      // Reference's which are not related to an ArtifactGroupId cannot be cached.
+      if ((reference.getArtifactGroupId() == null) || (reference.getArtifactVersion() == null)) {
+        return;
+      }
+
+      propertiesCache.setProperty(prefix + PersistentReferenceCache.CACHE_FILE_PROPERTY_SUFFIX_ARTIFACT_GROUP_ID, reference.getArtifactGroupId().toString());
+      propertiesCache.setProperty(prefix + PersistentReferenceCache.CACHE_FILE_PROPERTY_SUFFIX_ARTIFACT_VERSION, reference.getArtifactVersion().toString());
+      propertiesCache.setProperty(prefix + PersistentReferenceCache.CACHE_FILE_PROPERTY_SUFFIX_IMPL_DATA, String.valueOf(reference.getImplData()));
+    }
+
+    pathCacheFileTemp = null;
+
+    try {
+      Files.createDirectories(pathCacheFile.getParent());
+      pathCacheFileTemp = Files.createTempFile(pathCacheFile.getParent(), key, null);
+
+      try (OutputStream outputStream = Files.newOutputStream(pathCacheFileTemp)) {
+        propertiesCache.store(outputStream, null);
+      }
+
+      try {
+        Files.move(pathCacheFileTemp, pathCacheFile, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException amnse) {
+        Files.move(pathCacheFileTemp, pathCacheFile, StandardCopyOption.REPLACE_EXISTING);
+      }
+
+      pathCacheFileTemp = null;
+    } catch (IOException ioe) {
+      PersistentReferenceCache.logger.warn("Cache file " + pathCacheFile + " could not be written.", ioe);
+    } finally {
+      if (pathCacheFileTemp != null) {
+        try {
+          Files.deleteIfExists(pathCacheFileTemp);
+        } catch (IOException ioe) {
+          PersistentReferenceCache.logger.warn("Temporary cache file " + pathCacheFileTemp + " could not be deleted.", ioe);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the Path of the cache file for a {@link Module} and key.
+   *
+   * @param nodePathModule NodePath of the Module.
+   * @param key Key.
+   * @return See description.
+   */
+  private Path getPathCacheFile(NodePath nodePathModule, String key) {
+    return this.pathCacheDir.resolve(nodePathModule.toString()).resolve(key + PersistentReferenceCache.CACHE_FILE_SUFFIX);
+  }
+}
@@ -21,6 +21,8 @@ package org.azyva.dragom.reference.support;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -62,6 +64,12 @@ public class SimpleReferenceGraph implements ReferenceGraph {
     public List<ReferenceGraph.Referrer> listReferrer;
     public List<Reference> listReference;
 
+    /**
+     * {@link Reference} to the ModuleVersion used when it is the root of a
+     * traversal. Created lazily and reused across traversals.
+     */
+    public Reference referenceRoot;
+
     /**
      * Constructor.
      *
@@ -90,6 +98,144 @@ public class SimpleReferenceGraph implements ReferenceGraph {
    */
   private Set<ModuleVersion> setModuleVersionMatched;
 
+  /**
+   * Unmodifiable List of the ModuleVersion's in the ReferenceGraph returned by
+   * {@link #getListModuleVersion}. Built lazily and reset when a ModuleVersion is
+   * added.
+   */
+  private List<ModuleVersion> listModuleVersion;
+
+  /**
+   * Unmodifiable List of the root ModuleVersion's returned by
+   * {@link #getListModuleVersionRoot}. Built lazily and reset when a root
+   * ModuleVersion is added.
+   */
+  private List<ModuleVersion> listModuleVersionRoot;
+
+  /**
+   * Unmodifiable List of the matched ModuleVersion's returned by
+   * {@link #getListModuleVersionMatched}. Built lazily and reset when a matched
+   * ModuleVersion is added.
+   */
+  private List<ModuleVersion> listModuleVersionMatched;
+
+  /**
+   * State of a {@link ModuleVersion} being visited during a traversal, kept on the
+   * explicit stack used by
+   * {@link SimpleReferenceGraph#traverseReferenceGraph(ReferencePath, Reference, TraversalOrder, ReentryMode, Traversal, Visitor)}.
+   */
+  private static class TraversalFrame {
+    /**
+     * Indicates the ModuleVersion was already processed when it was entered.
+     */
+    boolean isAlreadyProcessed;
+
+    /**
+     * Indicates the ModuleVersion is matched.
+     */
+    boolean isMatched;
+
+    /**
+     * Indicates {@link VisitAction#STEP_IN} was visited so that
+     * {@link VisitAction#STEP_OUT} must be visited.
+     */
+    boolean indStepIn;
+
+    /**
+     * List of the {@link Reference}'s to traverse. null if the children are not to
+     * be traversed.
+     */
+    List<Reference> listReference;
+
+    /**
+     * Index of the next Reference to traverse within listReference.
+     */
+    int indexReference;
+  }
+
+  /**
+   * State of a traversal.
+   */
+  private static class Traversal {
+    /**
+     * ModuleReentryAvoider used to avoid reentry or to simply know if a
+     * {@link ModuleVersion} is being reentered. Used for all
+     * {@link org.azyva.dragom.reference.ReferenceGraph.ReentryMode}.
+     */
+    ModuleReentryAvoider moduleReentryAvoider;
+
+    /**
+     * Used only for {@link TraversalOrder#ALL_PARENTS_FIRST}. Map of
+     * ModuleVersion's to the number of their
+     * {@link org.azyva.dragom.reference.ReferenceGraph.Referrer}'s which have not
+     * been processed yet, held in a single-element array so that it can be
+     * decremented in place.
+     *
+     * <p>The count for a ModuleVersion is established the first time it is needed
+     * and then maintained as its referrers are processed, so that the referrers do
+     * not need to be rescanned each time the ModuleVersion is reached. A
+     * ModuleVersion can be entered only when its count reaches 0, which yields a
+     * topological order.
+     */
+    Map<ModuleVersion, int[]> mapModuleVersionCountReferrerUnprocessed;
+
+    /**
+     * Constructor.
+     *
+     * @param traversalOrder TraversalOrder.
+     */
+    Traversal(TraversalOrder traversalOrder) {
+      this.moduleReentryAvoider = new ModuleReentryAvoider();
+
+      if (traversalOrder == TraversalOrder.ALL_PARENTS_FIRST) {
+        this.mapModuleVersionCountReferrerUnprocessed = new HashMap<ModuleVersion, int[]>();
+      }
+    }
+  }
+
+  /**
+   * Map of ModuleVersion's to their number of ReferencePath's returned by
+   * {@link #getReferencePathCount}. Built lazily and reset when the
+   * ReferenceGraph is modified.
+   */
+  private Map<ModuleVersion, Long> mapModuleVersionReferencePathCount;
+
+  /**
+   * State of a {@link ModuleVersion} being visited during a traversal by
+   * {@link SimpleReferenceGraph#visitLeafModuleVersionReferencePaths(ModuleVersion, long, long, Visitor)},
+   * kept on its explicit stack.
+   */
+  private static class LeafReferencePathFrame {
+    /**
+     * ReferenceGraphNode of the ModuleVersion.
+     */
+    ReferenceGraphNode referenceGraphNode;
+
+    /**
+     * {@link Reference} from the ModuleVersion to that of the previous
+     * LeafReferencePathFrame on the stack. null for the leaf ModuleVersion.
+     */
+    Reference reference;
+
+    /**
+     * Index of the next {@link org.azyva.dragom.reference.ReferenceGraph.Referrer}
+     * to traverse. -1 if the ModuleVersion has not been considered as a root yet.
+     */
+    int indexReferrer;
+
+    /**
+     * Constructor.
+     *
+     * @param referenceGraphNode ReferenceGraphNode.
+     * @param reference Reference.
+     */
+    LeafReferencePathFrame(ReferenceGraphNode referenceGraphNode, Reference reference) {
+      this.referenceGraphNode = referenceGraphNode;
+      this.reference = reference;
+      this.indexReferrer = -1;
+    }
+  }
+
   /**
    * Constructor.
    */
@@ -108,7 +254,11 @@ public class SimpleReferenceGraph implements ReferenceGraph {
 
   @Override
   public List<ModuleVersion> getListModuleVersionRoot() {
-    return new ArrayList<ModuleVersion>(this.setModuleVersionRoot);
+    if (this.listModuleVersionRoot == null) {
+      this.listModuleVersionRoot = Collections.unmodifiableList(new ArrayList<ModuleVersion>(this.setModuleVersionRoot));
+    }
+
+    return this.listModuleVersionRoot;
   }
 
   @Override
@@ -118,7 +268,11 @@ public class SimpleReferenceGraph implements ReferenceGraph {
 
   @Override
   public List<ModuleVersion> getListModuleVersionMatched() {
-    return new ArrayList<ModuleVersion>(this.setModuleVersionMatched);
+    if (this.listModuleVersionMatched == null) {
+      this.listModuleVersionMatched = Collections.unmodifiableList(new ArrayList<ModuleVersion>(this.setModuleVersionMatched));
+    }
+
+    return this.listModuleVersionMatched;
   }
 
   @Override
@@ -134,7 +288,11 @@ public class SimpleReferenceGraph implements ReferenceGraph {
     setModuleVersion = this.mapReferenceGraphNode.keySet();
 
     if (nodePath == null) {
-      return new ArrayList<ModuleVersion>(setModuleVersion);
+      if (this.listModuleVersion == null) {
+        this.listModuleVersion = Collections.unmodifiableList(new ArrayList<ModuleVersion>(setModuleVersion));
+      }
+
+      return this.listModuleVersion;
     } else {
       listModuleVersion = new ArrayList<ModuleVersion>();
 
@@ -184,18 +342,15 @@ public class SimpleReferenceGraph implements ReferenceGraph {
 
   @Override
   public boolean traverseReferenceGraph(ModuleVersion moduleVersion, TraversalOrder traversalOrder, ReentryMode reentryMode, Visitor visitor) {
-    ModuleReentryAvoider moduleReentryAvoider;
-    ReferenceGraphNode referenceGraphNode;
+    Traversal traversal;
+    ReferencePath referencePath;
 
-    moduleReentryAvoider = new ModuleReentryAvoider();
+    traversal = new Traversal(traversalOrder);
+    referencePath = new ReferencePath();
 
     if (moduleVersion == null) {
-      ReferencePath referencePath;
-
-      referencePath = new ReferencePath();
-
       for (ModuleVersion moduleVersion2: this.setModuleVersionRoot) {
-        if (this.traverseReferenceGraph(referencePath, new Reference(moduleVersion2), traversalOrder, reentryMode, moduleReentryAvoider, visitor) == VisitControl.ABORT) {
+        if (this.traverseReferenceGraph(referencePath, this.getReferenceRoot(moduleVersion2), traversalOrder, reentryMode, traversal, visitor) == VisitControl.ABORT) {
           return true;
         }
 
@@ -205,130 +360,282 @@ public class SimpleReferenceGraph implements ReferenceGraph {
 
       return false;
     } else {
-      referenceGraphNode = this.mapReferenceGraphNode.get(moduleVersion);
+      return (this.traverseReferenceGraph(referencePath, this.getReferenceRoot(moduleVersion), traversalOrder, reentryMode, traversal, visitor) == VisitControl.ABORT);
+    }
+  }
 
-      if (referenceGraphNode == null) {
-        throw new RuntimeException("ModuleVersion " + moduleVersion + " not in ReferenceGraph.");
-      }
+  /**
+   * Returns the {@link Reference} used when a {@link ModuleVersion} is the root of
+   * a traversal.
+   *
+   * @param moduleVersion ModuleVersion.
+   * @return See description.
+   */
+  private Reference getReferenceRoot(ModuleVersion moduleVersion) {
+    ReferenceGraphNode referenceGraphNode;
 
-      return (this.traverseReferenceGraph(new ReferencePath(), new Reference(referenceGraphNode.moduleVersion), traversalOrder, reentryMode, moduleReentryAvoider, visitor) == VisitControl.ABORT);
+    referenceGraphNode = this.mapReferenceGraphNode.get(moduleVersion);
+
+    if (referenceGraphNode == null) {
+      throw new RuntimeException("ModuleVersion " + moduleVersion + " not in ReferenceGraph.");
     }
+
+    if (referenceGraphNode.referenceRoot == null) {
+      referenceGraphNode.referenceRoot = new Reference(referenceGraphNode.moduleVersion);
+    }
+
+    return referenceGraphNode.referenceRoot;
   }
 
   /**
    * Internal traversal method.
    *
+   * <p>The traversal is iterative and uses an explicit stack of
+   * {@link TraversalFrame}'s so that the depth of the ReferenceGraph is not limited
+   * by the Java stack. The {@link ReferencePath} is maintained in parallel with the
+   * stack: it contains the Reference of each TraversalFrame.
+   *
    * @param referencePath Current {@link ReferencePath}, not including visited
-   *   {@link Reference}.
-   * @param reference Visited Reference.
+   *   {@link Reference}. Upon return, it is as it was upon entry.
+   * @param referenceRoot Visited Reference.
    * @param traversalOrder TraversalOrder.
-   * @param moduleReentryAvoider ModuleReentryAvoider to be used to avoid reentry or
-   *   to simply know if a {@link ModuleVersion} is being reentered. Used for all
-   *   {@link org.azyva.dragom.reference.ReferenceGraph.ReentryMode}.
    * @param reentryMode ReentryMode.
+   * @param traversal Traversal.
    * @param visitor Visitor.
    * @return VisitControl. Value returned by {@link ReferenceGraph.Visitor#visit}
-   *   used to control recursion.
+   *   used to control the traversal.
    *   {@link org.azyva.dragom.reference.ReferenceGraph.VisitControl#SKIP_CHILDREN}
    *   cannot be returned as this situation is handled internally in this method.
    */
-  private VisitControl traverseReferenceGraph(ReferencePath referencePath, Reference reference, TraversalOrder traversalOrder, ReentryMode reentryMode, ModuleReentryAvoider moduleReentryAvoider, Visitor visitor) {
-    boolean isAlreadyProcessed;
-    boolean isMatched;
+  private VisitControl traverseReferenceGraph(ReferencePath referencePath, Reference referenceRoot, TraversalOrder traversalOrder, ReentryMode reentryMode, Traversal traversal, Visitor visitor) {
+    List<TraversalFrame> listTraversalFrameStack;
     VisitControl visitControl;
+
+    listTraversalFrameStack = new ArrayList<TraversalFrame>();
+
+    visitControl = this.enterReference(referencePath, referenceRoot, traversalOrder, reentryMode, traversal, visitor, listTraversalFrameStack);
+
+    while ((visitControl != VisitControl.ABORT) && (visitControl != VisitControl.SKIP_CURRENT_ROOT) && !listTraversalFrameStack.isEmpty()) {
+      TraversalFrame traversalFrame;
+
+      traversalFrame = listTraversalFrameStack.get(listTraversalFrameStack.size() - 1);
+
+      if ((traversalFrame.listReference != null) && (traversalFrame.indexReference < traversalFrame.listReference.size())) {
+        visitControl = this.enterReference(referencePath, traversalFrame.listReference.get(traversalFrame.indexReference++), traversalOrder, reentryMode, traversal, visitor, listTraversalFrameStack);
+      } else {
+        visitControl = this.exitReference(referencePath, traversalFrame, traversalOrder, reentryMode, visitor);
+        listTraversalFrameStack.remove(listTraversalFrameStack.size() - 1);
+        referencePath.removeLeafReference();
+      }
+    }
+
+    // If the traversal was interrupted, the Reference's of the TraversalFrame's
+    // remaining on the stack must be removed from the ReferencePath.
+    for (int i = 0; i < listTraversalFrameStack.size(); i++) {
+      referencePath.removeLeafReference();
+    }
+
+    if ((visitControl == VisitControl.ABORT) || (visitControl == VisitControl.SKIP_CURRENT_ROOT)) {
+      return visitControl;
+    }
+
+    return VisitControl.CONTINUE;
+  }
+
+  /**
+   * Enters a {@link Reference} during a traversal.
+   *
+   * <p>The ModuleVersion is visited if the {@link TraversalOrder} calls for visiting
+   * it before its children, and {@link VisitAction#STEP_IN} is visited if its
+   * children are to be traversed. If the traversal is to proceed, a
+   * {@link TraversalFrame} is pushed and the Reference is added to the
+   * ReferencePath.
+   *
+   * @param referencePath Current ReferencePath.
+   * @param reference Reference.
+   * @param traversalOrder TraversalOrder.
+   * @param reentryMode ReentryMode.
+   * @param traversal Traversal.
+   * @param visitor Visitor.
+   * @param listTraversalFrameStack Stack of TraversalFrame's.
+   * @return VisitControl.
+   */
+  private VisitControl enterReference(ReferencePath referencePath, Reference reference, TraversalOrder traversalOrder, ReentryMode reentryMode, Traversal traversal, Visitor visitor, List<TraversalFrame> listTraversalFrameStack) {
+    ModuleVersion moduleVersion;
     ReferenceGraphNode referenceGraphNode;
+    TraversalFrame traversalFrame;
+    VisitControl visitControl;
+
+    moduleVersion = reference.getModuleVersion();
+    referenceGraphNode = this.mapReferenceGraphNode.get(moduleVersion);
 
     if (traversalOrder == TraversalOrder.ALL_PARENTS_FIRST) {
-      List<Referrer> listReferrer;
+      int[] arrayCountReferrerUnprocessed;
+
+      arrayCountReferrerUnprocessed = traversal.mapModuleVersionCountReferrerUnprocessed.get(moduleVersion);
 
-      listReferrer = this.getListReferrer(reference.getModuleVersion());
+      if (arrayCountReferrerUnprocessed == null) {
+        arrayCountReferrerUnprocessed = new int[1];
 
-      for (Referrer referrer: listReferrer) {
-        // If the TraversalMode is ALL_PARENTS_FIRST, we simply validate that all parents
-        // (referrers) of the current ModuleVersion have been visited. If not, we do
-        // nothing and expect the ModuleVersion to be visited later in the traversal, when
-        // all parents will have been visited.
-        if (!moduleReentryAvoider.isModuleProcessed(referrer.getModuleVersion())) {
-          return VisitControl.CONTINUE;
+        if (referenceGraphNode.listReferrer != null) {
+          for (Referrer referrer: referenceGraphNode.listReferrer) {
+            if (!traversal.moduleReentryAvoider.isModuleProcessed(referrer.getModuleVersion())) {
+              arrayCountReferrerUnprocessed[0]++;
+            }
+          }
         }
+
+        traversal.mapModuleVersionCountReferrerUnprocessed.put(moduleVersion, arrayCountReferrerUnprocessed);
+      }
+
+      // If the TraversalMode is ALL_PARENTS_FIRST, we simply validate that all parents
+      // (referrers) of the current ModuleVersion have been visited. If not, we do
+      // nothing and expect the ModuleVersion to be visited later in the traversal, when
+      // all parents will have been visited.
+      if (arrayCountReferrerUnprocessed[0] != 0) {
+        return VisitControl.CONTINUE;
       }
     }
 
-    isAlreadyProcessed = !moduleReentryAvoider.processModule(reference.getModuleVersion());
+    traversalFrame = new TraversalFrame();
+
+    traversalFrame.isAlreadyProcessed = !traversal.moduleReentryAvoider.processModule(moduleVersion);
+
+    if (!traversalFrame.isAlreadyProcessed && (traversal.mapModuleVersionCountReferrerUnprocessed != null) && (referenceGraphNode.listReference != null)) {
+      // Each Reference of the ModuleVersion corresponds to one Referrer of the
+      // referenced ModuleVersion.
+      for (Reference reference2: referenceGraphNode.listReference) {
+        int[] arrayCountReferrerUnprocessed;
 
-    try {
-      // This validates that no cycle exists in the ReferencePath.
-      // TODO: But it may be better to validate the absence of cycle when building the ReferenceGraph.
-      referencePath.add(reference);
+        arrayCountReferrerUnprocessed = traversal.mapModuleVersionCountReferrerUnprocessed.get(reference2.getModuleVersion());
 
-      isMatched = this.setModuleVersionMatched.contains(referencePath.getLeafModuleVersion());
+        if (arrayCountReferrerUnprocessed != null) {
+          arrayCountReferrerUnprocessed[0]--;
+        }
+      }
+    }
 
-      visitControl = VisitControl.CONTINUE;
+    // This validates that no cycle exists in the ReferencePath.
+    // TODO: But it may be better to validate the absence of cycle when building the ReferenceGraph.
+    referencePath.add(reference);
 
-      if (   (   (traversalOrder == TraversalOrder.PARENT_FIRST)
-              || (traversalOrder == TraversalOrder.ALL_PARENTS_FIRST))
-          && (!isAlreadyProcessed || (reentryMode != ReentryMode.NO_REENTRY))) {
+    traversalFrame.isMatched = this.setModuleVersionMatched.contains(moduleVersion);
 
-        visitControl = visitor.visit(this, referencePath, isAlreadyProcessed ? (isMatched ? VisitAction.ENUM_SET_REPEATED_VISIT_MATCHED : VisitAction.ENUM_SET_REPEATED_VISIT) : (isMatched ? VisitAction.ENUM_SET_VISIT_MATCHED : VisitAction.ENUM_SET_VISIT));
+    visitControl = VisitControl.CONTINUE;
 
-        if ((visitControl == VisitControl.ABORT) || (visitControl == VisitControl.SKIP_CURRENT_ROOT)) {
-          return visitControl;
-        }
+    if (   (   (traversalOrder == TraversalOrder.PARENT_FIRST)
+            || (traversalOrder == TraversalOrder.ALL_PARENTS_FIRST))
+        && (!traversalFrame.isAlreadyProcessed || (reentryMode != ReentryMode.NO_REENTRY))) {
+
+      visitControl = visitor.visit(this, referencePath, traversalFrame.isAlreadyProcessed ? (traversalFrame.isMatched ? VisitAction.ENUM_SET_REPEATED_VISIT_MATCHED : VisitAction.ENUM_SET_REPEATED_VISIT) : (traversalFrame.isMatched ? VisitAction.ENUM_SET_VISIT_MATCHED : VisitAction.ENUM_SET_VISIT));
+
+      if ((visitControl == VisitControl.ABORT) || (visitControl == VisitControl.SKIP_CURRENT_ROOT)) {
+        referencePath.removeLeafReference();
+        return visitControl;
       }
+    }
 
-      if (!isAlreadyProcessed && (visitControl != VisitControl.SKIP_CHILDREN)) {
-        referenceGraphNode = this.mapReferenceGraphNode.get(reference.getModuleVersion());
+    if (!traversalFrame.isAlreadyProcessed && (visitControl != VisitControl.SKIP_CHILDREN) && (referenceGraphNode.listReference != null)) {
+      visitControl = visitor.visit(this, referencePath, VisitAction.ENUM_SET_STEP_IN);
 
-        if (referenceGraphNode.listReference != null) {
-          visitControl = visitor.visit(this, referencePath, VisitAction.ENUM_SET_STEP_IN);
+      if ((visitControl == VisitControl.ABORT) || (visitControl == VisitControl.SKIP_CURRENT_ROOT)) {
+        referencePath.removeLeafReference();
+        return visitControl;
+      }
 
-          if ((visitControl == VisitControl.ABORT) || (visitControl == VisitControl.SKIP_CURRENT_ROOT)) {
-            return visitControl;
-          }
+      traversalFrame.indStepIn = true;
 
-          if (visitControl != VisitControl.SKIP_CHILDREN) {
-            for (Reference reference2: referenceGraphNode.listReference) {
-              visitControl = this.traverseReferenceGraph(referencePath, reference2, traversalOrder, reentryMode, moduleReentryAvoider, visitor);
+      if (visitControl != VisitControl.SKIP_CHILDREN) {
+        traversalFrame.listReference = referenceGraphNode.listReference;
+      }
+    }
 
-              if ((visitControl == VisitControl.ABORT) && (visitControl == VisitControl.SKIP_CURRENT_ROOT)) {
-                return visitControl;
-              }
-            }
-          }
+    listTraversalFrameStack.add(traversalFrame);
+
+    return VisitControl.CONTINUE;
+  }
 
-          visitControl = visitor.visit(this, referencePath, VisitAction.ENUM_SET_STEP_OUT);
+  /**
+   * Exits a {@link Reference} during a traversal, once its children have been
+   * traversed.
+   *
+   * <p>{@link VisitAction#STEP_OUT} is visited if {@link VisitAction#STEP_IN} was
+   * visited and the ModuleVersion is visited if the {@link TraversalOrder} calls
+   * for visiting it after its children. The caller is responsible for popping the
+   * {@link TraversalFrame} and removing the Reference from the ReferencePath.
+   *
+   * @param referencePath Current ReferencePath, including the Reference.
+   * @param traversalFrame TraversalFrame.
+   * @param traversalOrder TraversalOrder.
+   * @param reentryMode ReentryMode.
+   * @param visitor Visitor.
+   * @return VisitControl.
+   */
+  private VisitControl exitReference(ReferencePath referencePath, TraversalFrame traversalFrame, TraversalOrder traversalOrder, ReentryMode reentryMode, Visitor visitor) {
+    VisitControl visitControl;
 
-          if ((visitControl == VisitControl.ABORT) || (visitControl == VisitControl.SKIP_CURRENT_ROOT)) {
-            return visitControl;
-          }
+    if (traversalFrame.indStepIn) {
+      visitControl = visitor.visit(this, referencePath, VisitAction.ENUM_SET_STEP_OUT);
 
-          if (visitControl == VisitControl.SKIP_CHILDREN) {
-            throw new RuntimeException("VisitControl.SKIP_CHILDREN not allowed for VisitAction.STEP_OUT.");
-          }
-        }
+      if ((visitControl == VisitControl.ABORT) || (visitControl == VisitControl.SKIP_CURRENT_ROOT)) {
+        return visitControl;
       }
 
-      if ((traversalOrder == TraversalOrder.DEPTH_FIRST)  && (!isAlreadyProcessed || (reentryMode != ReentryMode.NO_REENTRY))) {
-        visitControl = visitor.visit(this, referencePath, isAlreadyProcessed ? (isMatched ? VisitAction.ENUM_SET_REPEATED_VISIT_MATCHED : VisitAction.ENUM_SET_REPEATED_VISIT) : (isMatched ? VisitAction.ENUM_SET_VISIT_MATCHED : VisitAction.ENUM_SET_VISIT));
+      if (visitControl == VisitControl.SKIP_CHILDREN) {
+        throw new RuntimeException("VisitControl.SKIP_CHILDREN not allowed for VisitAction.STEP_OUT.");
+      }
+    }
 
-        if ((visitControl == VisitControl.ABORT) || (visitControl == VisitControl.SKIP_CURRENT_ROOT)) {
-          return visitControl;
-        }
+    if ((traversalOrder == TraversalOrder.DEPTH_FIRST)  && (!traversalFrame.isAlreadyProcessed || (reentryMode != ReentryMode.NO_REENTRY))) {
+      visitControl = visitor.visit(this, referencePath, traversalFrame.isAlreadyProcessed ? (traversalFrame.isMatched ? VisitAction.ENUM_SET_REPEATED_VISIT_MATCHED : VisitAction.ENUM_SET_REPEATED_VISIT) : (traversalFrame.isMatched ? VisitAction.ENUM_SET_VISIT_MATCHED : VisitAction.ENUM_SET_VISIT));
 
-        if (visitControl == VisitControl.SKIP_CHILDREN) {
-          throw new RuntimeException("VisitControl.SKIP_CHILDREN not allowed for depth-first traversal.");
-        }
+      if ((visitControl == VisitControl.ABORT) || (visitControl == VisitControl.SKIP_CURRENT_ROOT)) {
+        return visitControl;
       }
 
-      return VisitControl.CONTINUE;
-    } finally {
-      referencePath.removeLeafReference();
+      if (visitControl == VisitControl.SKIP_CHILDREN) {
+        throw new RuntimeException("VisitControl.SKIP_CHILDREN not allowed for depth-first traversal.");
+      }
     }
+
+    return VisitControl.CONTINUE;
   }
 
   @Override
   public boolean visitLeafModuleVersionReferencePaths(ModuleVersion moduleVersion, Visitor visitor) {
+    return this.visitLeafModuleVersionReferencePaths(moduleVersion, 0, Long.MAX_VALUE, visitor);
+  }
+
+  /**
+   * Pages through the {@link ReferencePath}'s ending with a leaf
+   * {@link ModuleVersion}.
+   *
+   * <p>The ReferencePath's are visited in the same order as with
+   * {@link #visitLeafModuleVersionReferencePaths(ModuleVersion, Visitor)}, but only
+   * the maxCount ReferencePath's starting at index indexFirst within that order
+   * are visited. The ReferencePath's before indexFirst are not enumerated: whole
+   * branches of referrers are skipped based on their count of ReferencePath's as
+   * returned by {@link #getReferencePathCount}.
+   *
+   * <p>The traversal goes upward through the referrers using an explicit stack and
+   * a ReferencePath is built only when it is visited, so that the memory used
+   * depends on the depth of the ReferenceGraph and not on the number of
+   * ReferencePath's, which can grow exponentially with the number of
+   * ModuleVersion's in highly-connected ReferenceGraph's.
+   *
+   * @param moduleVersion Leaf ModuleVersion.
+   * @param indexFirst Index of the first ReferencePath to visit.
+   * @param maxCount Maximum number of ReferencePath's to visit. Long.MAX_VALUE to
+   *   visit all remaining ReferencePath's.
+   * @param visitor Visitor.
+   * @return Indicates if the traversal was aborted by the Visitor, as opposed to
+   *   having completed or having reached maxCount.
+   */
+  public boolean visitLeafModuleVersionReferencePaths(ModuleVersion moduleVersion, long indexFirst, long maxCount, Visitor visitor) {
     ReferenceGraphNode referenceGraphNode;
+    List<LeafReferencePathFrame> listLeafReferencePathFrameStack;
+    long countSkip;
+    long countRemaining;
 
     referenceGraphNode = this.mapReferenceGraphNode.get(moduleVersion);
 
@@ -336,68 +643,195 @@ public class SimpleReferenceGraph implements ReferenceGraph {
       throw new RuntimeException("ModuleVersion " + moduleVersion + " not in ReferenceGraph.");
     }
 
-    return (this.traverseReferenceGraphForLeafModuleVersionReferencePaths(new ReferencePath(), moduleVersion, visitor) == VisitControl.ABORT);
+    if ((indexFirst < 0) || (maxCount < 0)) {
+      throw new RuntimeException("indexFirst " + indexFirst + " and maxCount " + maxCount + " must not be negative.");
+    }
+
+    listLeafReferencePathFrameStack = new ArrayList<LeafReferencePathFrame>();
+    listLeafReferencePathFrameStack.add(new LeafReferencePathFrame(referenceGraphNode, null));
+    countSkip = indexFirst;
+    countRemaining = maxCount;
+
+    while (!listLeafReferencePathFrameStack.isEmpty() && (countRemaining != 0)) {
+      LeafReferencePathFrame leafReferencePathFrame;
+      ReferenceGraph.Referrer referrer;
+
+      leafReferencePathFrame = listLeafReferencePathFrameStack.get(listLeafReferencePathFrameStack.size() - 1);
+
+      if (leafReferencePathFrame.indexReferrer == -1) {
+        leafReferencePathFrame.indexReferrer = 0;
+
+        if (this.setModuleVersionRoot.contains(leafReferencePathFrame.referenceGraphNode.moduleVersion)) {
+          if (countSkip != 0) {
+            countSkip--;
+          } else {
+            ReferencePath referencePath;
+            VisitControl visitControl;
+
+            referencePath = new ReferencePath();
+            referencePath.add(this.getReferenceRoot(leafReferencePathFrame.referenceGraphNode.moduleVersion));
+
+            // The bottom LeafReferencePathFrame is that of the leaf ModuleVersion which
+            // does not have a Reference.
+            for (int i = listLeafReferencePathFrameStack.size() - 1; i > 0; i--) {
+              referencePath.add(listLeafReferencePathFrameStack.get(i).reference);
+            }
+
+            visitControl = visitor.visit(this, referencePath, this.setModuleVersionMatched.contains(moduleVersion) ? VisitAction.ENUM_SET_VISIT_MATCHED : VisitAction.ENUM_SET_VISIT);
+
+            if ((visitControl == VisitControl.SKIP_CHILDREN) || (visitControl == VisitControl.SKIP_CURRENT_ROOT)) {
+              throw new RuntimeException("VisitControl.SKIP_CHILDREN and VisitControl.SKIP_CURRENT_ROOT not allowed with visitLeafModuleVersionReferencePaths.");
+            }
+
+            if (visitControl == VisitControl.ABORT) {
+              return true;
+            }
+
+            countRemaining--;
+          }
+        }
+
+        continue;
+      }
+
+      if (   (leafReferencePathFrame.referenceGraphNode.listReferrer == null)
+          || (leafReferencePathFrame.indexReferrer == leafReferencePathFrame.referenceGraphNode.listReferrer.size())) {
+
+        listLeafReferencePathFrameStack.remove(listLeafReferencePathFrameStack.size() - 1);
+        continue;
+      }
+
+      referrer = leafReferencePathFrame.referenceGraphNode.listReferrer.get(leafReferencePathFrame.indexReferrer++);
+
+      // Counts are computed only when paging so that visiting all ReferencePath's
+      // does not incur the cost of computing them.
+      if (countSkip != 0) {
+        long referencePathCount;
+
+        referencePathCount = this.getReferencePathCount(referrer.getModuleVersion());
+
+        if (countSkip >= referencePathCount) {
+          countSkip -= referencePathCount;
+          continue;
+        }
+      }
+
+      listLeafReferencePathFrameStack.add(new LeafReferencePathFrame(this.mapReferenceGraphNode.get(referrer.getModuleVersion()), referrer.getReference()));
+    }
+
+    return false;
   }
 
   /**
-   * Internal traversal method for visiting the {@link ReferencePath}'s ending with
-   * a leaf {@link ModuleVersion}.
-   * <p>
-   * This traversal goes upward through the referrer and stops at root ModuleVersion's.
+   * Returns the number of {@link ReferencePath}'s ending with a leaf
+   * {@link ModuleVersion}, which is the number of ReferencePath's visited by
+   * {@link #visitLeafModuleVersionReferencePaths(ModuleVersion, Visitor)}.
    *
-   * @param referencePath Current ReferencePath, not including visited
-   *   {@link ModuleVersion}.
-   * @param moduleVersion Visited ModuleVersion.
-   * @param visitor Visitor.
-   * @return VisitControl. Either
-   *   {@link org.azyva.dragom.reference.ReferenceGraph.VisitControl#CONTINUE} or
-   *   {@link org.azyva.dragom.reference.ReferenceGraph.VisitControl#ABORT}
-   *   depending on the value returned by {@link ReferenceGraph.Visitor#visit}.
+   * <p>The count for a ModuleVersion is 1 if it is a root ModuleVersion, plus the
+   * sum of the counts of its referrers. Counts are computed iteratively and kept
+   * for all the ModuleVersion's encountered, so that computing the count for many
+   * ModuleVersion's costs at most one pass over the ReferenceGraph. They are reset
+   * when the ReferenceGraph is modified.
+   *
+   * <p>The count saturates at Long.MAX_VALUE.
+   *
+   * @param moduleVersion Leaf ModuleVersion.
+   * @return See description.
    */
-  private VisitControl traverseReferenceGraphForLeafModuleVersionReferencePaths(ReferencePath referencePath, ModuleVersion moduleVersion, Visitor visitor) {
-    ReferencePath referencePathIncludingParent;
-    VisitControl visitControl;
-    ReferenceGraphNode referenceGraphNode;
+  public long getReferencePathCount(ModuleVersion moduleVersion) {
+    Long referencePathCount;
+    List<ModuleVersion> listModuleVersionStack;
+    Set<ModuleVersion> setModuleVersionInProgress;
+
+    if (!this.mapReferenceGraphNode.containsKey(moduleVersion)) {
+      throw new RuntimeException("ModuleVersion " + moduleVersion + " not in ReferenceGraph.");
+    }
+
+    if (this.mapModuleVersionReferencePathCount == null) {
+      this.mapModuleVersionReferencePathCount = new HashMap<ModuleVersion, Long>();
+    }
+
+    referencePathCount = this.mapModuleVersionReferencePathCount.get(moduleVersion);
+
+    if (referencePathCount != null) {
+      return referencePathCount.longValue();
+    }
+
+    listModuleVersionStack = new ArrayList<ModuleVersion>();
+    setModuleVersionInProgress = new HashSet<ModuleVersion>();
+    listModuleVersionStack.add(moduleVersion);
+
+    // Post-order traversal upward through the referrers. A ModuleVersion is
+    // in progress between the time its referrers are pushed and the time its count
+    // is computed. Encountering a referrer in progress therefore means a cycle.
+    while (!listModuleVersionStack.isEmpty()) {
+      ModuleVersion moduleVersionCurrent;
+      ReferenceGraphNode referenceGraphNode;
+      boolean indReferrerPending;
+      long count;
 
-    if (this.setModuleVersionRoot.contains(moduleVersion)) {
-      referencePathIncludingParent = new ReferencePath();
-      referencePathIncludingParent.add(new Reference(moduleVersion));
-      referencePathIncludingParent.add(referencePath);
-      visitControl = visitor.visit(this, referencePathIncludingParent, this.setModuleVersionMatched.contains(referencePathIncludingParent.getLeafModuleVersion()) ? VisitAction.ENUM_SET_VISIT_MATCHED : VisitAction.ENUM_SET_VISIT);
+      moduleVersionCurrent = listModuleVersionStack.get(listModuleVersionStack.size() - 1);
 
-      if ((visitControl == VisitControl.SKIP_CHILDREN) || (visitControl == VisitControl.SKIP_CURRENT_ROOT)) {
-        throw new RuntimeException("VisitControl.SKIP_CHILDREN and VisitControl.SKIP_CURRENT_ROOT not allowed with visitLeafModuleVersionReferencePaths.");
+      if (this.mapModuleVersionReferencePathCount.containsKey(moduleVersionCurrent)) {
+        listModuleVersionStack.remove(listModuleVersionStack.size() - 1);
+        continue;
       }
 
-      if (visitControl == VisitControl.ABORT) {
-        return VisitControl.ABORT;
+      referenceGraphNode = this.mapReferenceGraphNode.get(moduleVersionCurrent);
+      indReferrerPending = false;
+
+      if (setModuleVersionInProgress.add(moduleVersionCurrent) && (referenceGraphNode.listReferrer != null)) {
+        for (ReferenceGraph.Referrer referrer: referenceGraphNode.listReferrer) {
+          if (!this.mapModuleVersionReferencePathCount.containsKey(referrer.getModuleVersion())) {
+            if (setModuleVersionInProgress.contains(referrer.getModuleVersion())) {
+              throw new RuntimeException("Cycle detected in ReferenceGraph involving ModuleVersion " + referrer.getModuleVersion() + '.');
+            }
+
+            listModuleVersionStack.add(referrer.getModuleVersion());
+            indReferrerPending = true;
+          }
+        }
       }
-    }
 
-    referenceGraphNode = this.mapReferenceGraphNode.get(moduleVersion);
+      if (indReferrerPending) {
+        continue;
+      }
 
-    if (referenceGraphNode.listReferrer != null) {
-      for (ReferenceGraph.Referrer referrer: referenceGraphNode.listReferrer) {
-        referencePathIncludingParent = new ReferencePath();
-        referencePathIncludingParent.add(referrer.getReference());
-        referencePathIncludingParent.add(referencePath);
+      count = this.setModuleVersionRoot.contains(moduleVersionCurrent) ? 1 : 0;
 
-        if (this.traverseReferenceGraphForLeafModuleVersionReferencePaths(referencePathIncludingParent, referrer.getModuleVersion(), visitor) == VisitControl.ABORT) {
-          return VisitControl.ABORT;
+      if (referenceGraphNode.listReferrer != null) {
+        for (ReferenceGraph.Referrer referrer: referenceGraphNode.listReferrer) {
+          long countReferrer;
+
+          countReferrer = this.mapModuleVersionReferencePathCount.get(referrer.getModuleVersion()).longValue();
+
+          if (count > (Long.MAX_VALUE - countReferrer)) {
+            count = Long.MAX_VALUE;
+          } else {
+            count += countReferrer;
+          }
         }
       }
+
+      this.mapModuleVersionReferencePathCount.put(moduleVersionCurrent, Long.valueOf(count));
+      setModuleVersionInProgress.remove(moduleVersionCurrent);
+      listModuleVersionStack.remove(listModuleVersionStack.size() - 1);
     }
 
-    return VisitControl.CONTINUE;
+    return this.mapModuleVersionReferencePathCount.get(moduleVersion).longValue();
   }
 
   @Override
   public void addRootModuleVersion(ModuleVersion moduleVersionRoot) {
     if (!this.mapReferenceGraphNode.containsKey(moduleVersionRoot)) {
       this.mapReferenceGraphNode.put(moduleVersionRoot, new ReferenceGraphNode(moduleVersionRoot));
+      this.listModuleVersion = null;
     }
 
-    this.setModuleVersionRoot.add(moduleVersionRoot);
+    if (this.setModuleVersionRoot.add(moduleVersionRoot)) {
+      this.listModuleVersionRoot = null;
+      this.mapModuleVersionReferencePathCount = null;
+    }
   }
 
   @Override
@@ -415,6 +849,7 @@ public class SimpleReferenceGraph implements ReferenceGraph {
     if (referenceGraphNodeReferrer == null) {
       referenceGraphNodeReferrer = new ReferenceGraphNode(moduleVersionReferrer);
       this.mapReferenceGraphNode.put(moduleVersionReferrer, referenceGraphNodeReferrer);
+      this.listModuleVersion = null;
     }
 
     if (referenceGraphNodeReferrer.listReference == null) {
@@ -432,6 +867,7 @@ public class SimpleReferenceGraph implements ReferenceGraph {
     if (referenceGraphNodeReference == null) {
       referenceGraphNodeReference = new ReferenceGraphNode(reference.getModuleVersion());
       this.mapReferenceGraphNode.put(reference.getModuleVersion(), referenceGraphNodeReference);
+      this.listModuleVersion = null;
     }
 
     if (referenceGraphNodeReference.listReferrer == null) {
@@ -442,6 +878,7 @@ public class SimpleReferenceGraph implements ReferenceGraph {
 
     if (!referenceGraphNodeReference.listReferrer.contains(referrer)) {
       referenceGraphNodeReference.listReferrer.add(referrer);
+      this.mapModuleVersionReferencePathCount = null;
     }
   }
 
@@ -468,6 +905,8 @@ public class SimpleReferenceGraph implements ReferenceGraph {
       }
     }
 
-    this.setModuleVersionMatched.add(referencePath.getLeafModuleVersion());
+    if (this.setModuleVersionMatched.add(referencePath.getLeafModuleVersion())) {
+      this.listModuleVersionMatched = null;
+    }
   }
 }
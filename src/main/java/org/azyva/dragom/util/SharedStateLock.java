@@ -0,0 +1,226 @@
+/*
+ * Copyright 2015 - 2017 AZYVA INC.
+ *
+ * This file is part of Dragom.
+ *
+ * Dragom is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Dragom is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Dragom.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.azyva.dragom.util;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.azyva.dragom.execcontext.ExecContext;
+import org.azyva.dragom.model.Model;
+
+/**
+ * Lock protecting the state shared by the threads of a multi-threaded job.
+ *
+ * <p>Most of the classes involved in the execution of a job ({@link Model},
+ * {@link ExecContext}, ExecContextPlugin's, NodePlugin's, etc.) are not
+ * thread-safe. Rather than making each of them thread-safe, a job which uses
+ * multiple threads associates an instance of this class with each of its threads
+ * using {@link #setForCurrentThread}. Each thread holds the lock while it executes
+ * and releases it only around blocking operations which do not access the shared
+ * state, such as waiting for an external process (Git) to complete. Only one
+ * thread executes Dragom code at any given time, but many can be waiting
+ * concurrently on external processes, which is where most of the time is spent
+ * during reference graph traversals.
+ *
+ * <p>When no instance is associated with the current thread, which is the case
+ * for single-threaded jobs, the static methods of this class do nothing, so that
+ * they can be called unconditionally.
+ *
+ * @author David Raymond
+ */
+public class SharedStateLock {
+  /**
+   * Thread-local holder variable for the SharedStateLock.
+   */
+  private static ThreadLocal<SharedStateLock> threadLocalSharedStateLock = new ThreadLocal<SharedStateLock>();
+
+  /**
+   * ReentrantLock.
+   */
+  private ReentrantLock reentrantLock;
+
+  /**
+   * Condition signaled when some shared resource becomes available. See
+   * {@link #awaitChange} and {@link #signalChange}.
+   */
+  private Condition conditionChange;
+
+  /**
+   * Set of keys of resources currently used by a blocking operation. See
+   * {@link #releaseForBlockingOperation}.
+   *
+   * <p>Accessed only while holding the lock.
+   */
+  private Set<Object> setKeyBusy;
+
+  /**
+   * Constructor.
+   */
+  public SharedStateLock() {
+    this.reentrantLock = new ReentrantLock();
+    this.conditionChange = this.reentrantLock.newCondition();
+    this.setKeyBusy = new HashSet<Object>();
+  }
+
+  /**
+   * Associates a SharedStateLock with the current thread.
+   *
+   * @param sharedStateLock SharedStateLock. null to remove the association.
+   */
+  public static void setForCurrentThread(SharedStateLock sharedStateLock) {
+    if (sharedStateLock == null) {
+      SharedStateLock.threadLocalSharedStateLock.remove();
+    } else {
+      SharedStateLock.threadLocalSharedStateLock.set(sharedStateLock);
+    }
+  }
+
+  /**
+   * @return SharedStateLock associated with the current thread. null if none.
+   */
+  public static SharedStateLock getForCurrentThread() {
+    return SharedStateLock.threadLocalSharedStateLock.get();
+  }
+
+  /**
+   * Acquires the lock.
+   */
+  public void lock() {
+    this.reentrantLock.lock();
+  }
+
+  /**
+   * Releases the lock.
+   */
+  public void unlock() {
+    this.reentrantLock.unlock();
+  }
+
+  /**
+   * Releases the SharedStateLock associated with the current thread, if any, for
+   * the duration of a blocking operation.
+   *
+   * <p>The caller must call {@link #reacquireAfterBlockingOperation} with the
+   * same key and the returned hold count once the blocking operation completes,
+   * generally in a finally block.
+   *
+   * <p>If key is not null, blocking operations using the same key are serialized.
+   * This is useful for external processes which must not run concurrently on the
+   * same resource, such as Git commands within the same repository.
+   *
+   * @param key Key of the resource used by the blocking operation. Can be null.
+   * @return Hold count to pass to reacquireAfterBlockingOperation. 0 if no
+   *   SharedStateLock is associated with the current thread.
+   */
+  public static int releaseForBlockingOperation(Object key) {
+    SharedStateLock sharedStateLock;
+    int holdCount;
+
+    sharedStateLock = SharedStateLock.threadLocalSharedStateLock.get();
+
+    if ((sharedStateLock == null) || !sharedStateLock.reentrantLock.isHeldByCurrentThread()) {
+      return 0;
+    }
+
+    if (key != null) {
+      while (sharedStateLock.setKeyBusy.contains(key)) {
+        sharedStateLock.conditionChange.awaitUninterruptibly();
+      }
+
+      sharedStateLock.setKeyBusy.add(key);
+    }
+
+    holdCount = sharedStateLock.reentrantLock.getHoldCount();
+
+    for (int i = 0; i < holdCount; i++) {
+      sharedStateLock.reentrantLock.unlock();
+    }
+
+    return holdCount;
+  }
+
+  /**
+   * Reacquires the SharedStateLock associated with the current thread after a
+   * blocking operation.
+   *
+   * @param key Key passed to {@link #releaseForBlockingOperation}.
+   * @param holdCount Hold count returned by releaseForBlockingOperation.
+   */
+  public static void reacquireAfterBlockingOperation(Object key, int holdCount) {
+    SharedStateLock sharedStateLock;
+
+    if (holdCount == 0) {
+      return;
+    }
+
+    sharedStateLock = SharedStateLock.threadLocalSharedStateLock.get();
+
+    for (int i = 0; i < holdCount; i++) {
+      sharedStateLock.reentrantLock.lock();
+    }
+
+    if (key != null) {
+      sharedStateLock.setKeyBusy.remove(key);
+      sharedStateLock.conditionChange.signalAll();
+    }
+  }
+
+  /**
+   * @return Indicates if the current thread holds a SharedStateLock, meaning that
+   *   other threads may be concurrently using the shared state and that
+   *   {@link #awaitChange} can be used.
+   */
+  public static boolean isHeldByCurrentThread() {
+    SharedStateLock sharedStateLock;
+
+    sharedStateLock = SharedStateLock.threadLocalSharedStateLock.get();
+
+    return (sharedStateLock != null) && sharedStateLock.reentrantLock.isHeldByCurrentThread();
+  }
+
+  /**
+   * Waits until another thread calls {@link #signalChange}, releasing the lock
+   * in the meantime.
+   *
+   * <p>Used when a shared resource is not available because it is used by another
+   * thread, as opposed to failing as would be done in a single-threaded context.
+   * The caller must verify again the availability of the resource after this
+   * method returns.
+   *
+   * <p>Must be called only if {@link #isHeldByCurrentThread}.
+   */
+  public static void awaitChange() {
+    SharedStateLock.threadLocalSharedStateLock.get().conditionChange.awaitUninterruptibly();
+  }
+
+  /**
+   * Signals the threads waiting in {@link #awaitChange} that a shared resource may
+   * have become available.
+   *
+   * <p>Does nothing if the current thread does not hold a SharedStateLock.
+   */
+  public static void signalChange() {
+    if (SharedStateLock.isHeldByCurrentThread()) {
+      SharedStateLock.threadLocalSharedStateLock.get().conditionChange.signalAll();
+    }
+  }
+}
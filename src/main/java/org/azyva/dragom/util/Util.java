@@ -24,10 +24,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.MessageFormat;
 import java.text.ParseException;
 import java.util.Collections;
@@ -58,6 +61,7 @@ import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 
 /**
  * Static utility methods.
@@ -167,6 +171,15 @@ public final class Util {
    */
   private static final String TRANSIENT_DATA_TOOL_EXIT_STATUS = Util.class.getName() + ".ToolExitStatus";
 
+  /**
+   * ObjectReader used by {@link #getJsonAttr}.
+   * <p>
+   * getJsonAttr is called for every commit when walking the history of branches,
+   * so the ObjectReader is created once instead of creating an ObjectMapper for
+   * each call. ObjectReader is immutable and thread-safe.
+   */
+  private static final ObjectReader objectReaderJsonAttr = (new ObjectMapper()).reader();
+
   /**
    * Prefix for exceptional conditions.
    */
@@ -653,7 +666,7 @@ public final class Util {
     indexClosingBrace = message.indexOf('}');
 
     try {
-      jsonNode = (new ObjectMapper()).readTree(message.substring(0, indexClosingBrace + 1));
+      jsonNode = Util.objectReaderJsonAttr.readTree(message.substring(0, indexClosingBrace + 1));
     } catch (IOException ioe) {
       throw new RuntimeException(ioe);
     }
@@ -1961,6 +1974,53 @@ public final class Util {
     return stringBuilder.toString();
   }
 
+  /**
+   * @return New SHA-256 MessageDigest, to be updated with {@link #updateDigest}
+   *   and completed with {@link #digestToHex}.
+   */
+  public static MessageDigest createMessageDigestSha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException nsae) {
+      throw new RuntimeException(nsae);
+    }
+  }
+
+  /**
+   * Updates a MessageDigest with a String.
+   *
+   * <p>The String is terminated by a NUL character so that consecutive Strings
+   * cannot be confused. null is represented by a single NUL character.
+   *
+   * @param messageDigest MessageDigest.
+   * @param string String. Can be null.
+   */
+  public static void updateDigest(MessageDigest messageDigest, String string) {
+    if (string != null) {
+      messageDigest.update(string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    messageDigest.update((byte)0);
+  }
+
+  /**
+   * Completes a MessageDigest and returns the digest in hexadecimal.
+   *
+   * @param messageDigest MessageDigest.
+   * @return Digest as lowercase hexadecimal digits.
+   */
+  public static String digestToHex(MessageDigest messageDigest) {
+    StringBuilder stringBuilder;
+
+    stringBuilder = new StringBuilder();
+
+    for (byte b: messageDigest.digest()) {
+      stringBuilder.append(String.format("%02x", b));
+    }
+
+    return stringBuilder.toString();
+  }
+
   public static void main(String[] args) {
     System.out.println(Util.convertPascalCaseToLowercaseWithDashes("PascalCase"));
     System.out.println(Util.convertPascalCaseToLowercaseWithDashes("123PascalCase"));
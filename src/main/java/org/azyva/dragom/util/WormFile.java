@@ -139,6 +139,15 @@ public class WormFile {
       return this.wormFile.getOutputStream();
     }
 
+    /**
+     * Passthrough for {@link WormFile#getAppendOutputStream}.
+     *
+     * @return See description.
+     */
+    public OutputStream getAppendOutputStream() {
+      return this.wormFile.getAppendOutputStream();
+    }
+
     /**
      * Passthrough for {@link WormFile#reserveAccess}.
      *
@@ -365,6 +374,39 @@ public class WormFile {
     }
   }
 
+  /**
+   * Gets an OutputStream allowing to append to the file.
+   *
+   * <p>This is similar to {@link #getOutputStream}, except that the file is not
+   * truncated and the data written is appended to its current content. This allows
+   * files containing a log of entries to be updated without rewriting them
+   * entirely.
+   *
+   * <p>Access to the file must have been reserved for writing before.
+   *
+   * <p>The OutputStream must not be closed by the caller. It will get implicitly
+   * closed when the underlying FileChannel gets closed by releasing access to the
+   * file.
+   *
+   * @return See description.
+   */
+  public OutputStream getAppendOutputStream() {
+    FileChannel fileChannel;
+
+    if (!this.indWrite) {
+      throw new RuntimeException("Access to WormFile " + this.pathFile + " must be reserved for writing.");
+    }
+
+    try {
+      fileChannel = this.fileLock.channel();
+      fileChannel.position(fileChannel.size());
+
+      return Channels.newOutputStream(fileChannel);
+    } catch (IOException ioe) {
+      throw new RuntimeException(ioe);
+    }
+  }
+
   /**
    * Reserves access to the file.
    *